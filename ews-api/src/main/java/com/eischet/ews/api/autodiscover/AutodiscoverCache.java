@@ -0,0 +1,388 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.autodiscover;
+
+import com.eischet.ews.api.autodiscover.enumeration.UserSettingName;
+import com.eischet.ews.api.autodiscover.response.GetUserSettingsResponse;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Default, in-memory implementation of {@link IAutodiscoverCache}.
+ * <p>
+ * Successful results (endpoints, redirections and user settings) are kept for the positive time-to-live,
+ * failed endpoints for the (usually much shorter) negative time-to-live. Domains and email addresses are
+ * compared case-insensitively.
+ * </p>
+ * <p>
+ * If a persistence file is given, the cache is loaded from it on construction, and {@link #save()} writes
+ * the entries that are still valid back to it. Only user settings with string values are persisted; the
+ * collection-valued settings are kept in memory only.
+ * </p>
+ */
+public class AutodiscoverCache implements IAutodiscoverCache {
+
+    private static final Logger LOG = Logger.getLogger(AutodiscoverCache.class.getCanonicalName());
+
+    /**
+     * Default time-to-live of successful results: one day.
+     */
+    public static final long DEFAULT_TTL_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * Default time-to-live of failed endpoints: ten minutes.
+     */
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 10L * 60 * 1000;
+
+    private static final String EndpointPrefix = "endpoint.";
+    private static final String FailedPrefix = "failed.";
+    private static final String RedirectPrefix = "redirect.";
+    private static final String SettingsPrefix = "settings.";
+    private static final char ValueSeparator = '|';
+    private static final String SettingSeparator = "|=";
+
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final File persistenceFile;
+
+    private final Map<String, Entry<URI>> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Entry<Boolean>> failedEndpoints = new ConcurrentHashMap<>();
+    private final Map<String, Entry<String>> redirectAddresses = new ConcurrentHashMap<>();
+    private final Map<String, Entry<GetUserSettingsResponse>> userSettings = new ConcurrentHashMap<>();
+
+    /**
+     * A cached value and the time it expires at.
+     */
+    private static final class Entry<T> {
+        private final T value;
+        private final long expiresAt;
+
+        private Entry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Creates an in-memory cache with the default time-to-live values.
+     */
+    public AutodiscoverCache() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS, null);
+    }
+
+    /**
+     * Creates an in-memory cache.
+     *
+     * @param ttlMillis         time-to-live of successful results, in milliseconds
+     * @param negativeTtlMillis time-to-live of failed endpoints, in milliseconds; 0 disables negative caching
+     */
+    public AutodiscoverCache(long ttlMillis, long negativeTtlMillis) {
+        this(ttlMillis, negativeTtlMillis, null);
+    }
+
+    /**
+     * Creates a cache that is persisted to a file. Existing entries are loaded from the file.
+     *
+     * @param ttlMillis         time-to-live of successful results, in milliseconds
+     * @param negativeTtlMillis time-to-live of failed endpoints, in milliseconds; 0 disables negative caching
+     * @param persistenceFile   the file to load from and save to (may be null)
+     */
+    public AutodiscoverCache(long ttlMillis, long negativeTtlMillis, File persistenceFile) {
+        if (ttlMillis < 0 || negativeTtlMillis < 0) {
+            throw new IllegalArgumentException("Time-to-live must not be negative.");
+        }
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.persistenceFile = persistenceFile;
+        if (persistenceFile != null && persistenceFile.isFile()) {
+            try {
+                load();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "error loading autodiscover cache from " + persistenceFile, e);
+            }
+        }
+    }
+
+    /**
+     * Gets the current time; overridden by tests.
+     *
+     * @return the current time in milliseconds
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private <T> T getValid(Map<String, Entry<T>> map, String key) {
+        if (key == null) {
+            return null;
+        }
+        Entry<T> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= currentTimeMillis()) {
+            map.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static String normalize(String key) {
+        return key == null ? null : key.toLowerCase();
+    }
+
+    private static String settingsKey(String emailAddress, Collection<UserSettingName> settings) {
+        // EnumSet gives us a canonical order, regardless of how the settings were requested.
+        EnumSet<UserSettingName> names = EnumSet.noneOf(UserSettingName.class);
+        names.addAll(settings);
+        StringBuilder key = new StringBuilder(normalize(emailAddress));
+        for (UserSettingName name : names) {
+            key.append(ValueSeparator).append(name.name());
+        }
+        return key.toString();
+    }
+
+    @Override
+    public URI getEndpoint(String domain) {
+        return getValid(endpoints, normalize(domain));
+    }
+
+    @Override
+    public void putEndpoint(String domain, URI endpoint) {
+        if (domain != null && endpoint != null && ttlMillis > 0) {
+            endpoints.put(normalize(domain), new Entry<>(endpoint, currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    @Override
+    public void removeEndpoint(String domain) {
+        if (domain != null) {
+            endpoints.remove(normalize(domain));
+        }
+    }
+
+    @Override
+    public boolean isFailedEndpoint(String endpoint) {
+        return getValid(failedEndpoints, normalize(endpoint)) != null;
+    }
+
+    @Override
+    public void putFailedEndpoint(String endpoint) {
+        if (endpoint != null && negativeTtlMillis > 0) {
+            failedEndpoints.put(normalize(endpoint), new Entry<>(Boolean.TRUE, currentTimeMillis() + negativeTtlMillis));
+        }
+    }
+
+    @Override
+    public String getRedirectAddress(String emailAddress) {
+        return getValid(redirectAddresses, normalize(emailAddress));
+    }
+
+    @Override
+    public void putRedirectAddress(String emailAddress, String redirectTarget) {
+        if (emailAddress != null && redirectTarget != null && ttlMillis > 0) {
+            redirectAddresses.put(normalize(emailAddress),
+                    new Entry<>(redirectTarget.toLowerCase(), currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    @Override
+    public GetUserSettingsResponse getUserSettings(String emailAddress, Collection<UserSettingName> settings) {
+        if (emailAddress == null || settings == null) {
+            return null;
+        }
+        return getValid(userSettings, settingsKey(emailAddress, settings));
+    }
+
+    @Override
+    public void putUserSettings(String emailAddress, Collection<UserSettingName> settings,
+                                GetUserSettingsResponse response) {
+        if (emailAddress != null && settings != null && response != null && ttlMillis > 0) {
+            userSettings.put(settingsKey(emailAddress, settings),
+                    new Entry<>(response, currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    @Override
+    public void clear() {
+        endpoints.clear();
+        failedEndpoints.clear();
+        redirectAddresses.clear();
+        userSettings.clear();
+    }
+
+    /**
+     * Gets the file this cache is persisted to.
+     *
+     * @return the persistence file, or null if the cache is memory-only
+     */
+    public File getPersistenceFile() {
+        return persistenceFile;
+    }
+
+    /**
+     * Writes all entries that are still valid to the persistence file.
+     * Does nothing if the cache has no persistence file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void save() throws IOException {
+        if (persistenceFile == null) {
+            return;
+        }
+        final Properties properties = new Properties();
+        final long now = currentTimeMillis();
+        for (Map.Entry<String, Entry<URI>> e : endpoints.entrySet()) {
+            if (e.getValue().expiresAt > now) {
+                properties.setProperty(EndpointPrefix + e.getKey(),
+                        e.getValue().expiresAt + "" + ValueSeparator + e.getValue().value);
+            }
+        }
+        for (Map.Entry<String, Entry<Boolean>> e : failedEndpoints.entrySet()) {
+            if (e.getValue().expiresAt > now) {
+                properties.setProperty(FailedPrefix + e.getKey(), Long.toString(e.getValue().expiresAt));
+            }
+        }
+        for (Map.Entry<String, Entry<String>> e : redirectAddresses.entrySet()) {
+            if (e.getValue().expiresAt > now) {
+                properties.setProperty(RedirectPrefix + e.getKey(),
+                        e.getValue().expiresAt + "" + ValueSeparator + e.getValue().value);
+            }
+        }
+        for (Map.Entry<String, Entry<GetUserSettingsResponse>> e : userSettings.entrySet()) {
+            if (e.getValue().expiresAt > now) {
+                saveUserSettings(properties, e.getKey(), e.getValue());
+            }
+        }
+        final File tempFile = new File(persistenceFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            properties.store(out, "Autodiscover cache");
+        }
+        if (!tempFile.renameTo(persistenceFile)) {
+            // Some platforms can't rename over an existing file.
+            if (!persistenceFile.delete() || !tempFile.renameTo(persistenceFile)) {
+                throw new IOException("Could not replace " + persistenceFile);
+            }
+        }
+    }
+
+    private static void saveUserSettings(Properties properties, String key, Entry<GetUserSettingsResponse> entry) {
+        for (Object value : entry.value.getSettings().values()) {
+            if (value != null && !(value instanceof String)) {
+                return;
+            }
+        }
+        final String prefix = SettingsPrefix + key;
+        properties.setProperty(prefix, Long.toString(entry.expiresAt));
+        for (Map.Entry<UserSettingName, Object> setting : entry.value.getSettings().entrySet()) {
+            if (setting.getValue() != null) {
+                properties.setProperty(prefix + SettingSeparator + setting.getKey().name(),
+                        (String) setting.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads the persistence file, adding its entries that are still valid to this cache.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public void load() throws IOException {
+        if (persistenceFile == null || !persistenceFile.isFile()) {
+            return;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(persistenceFile)) {
+            properties.load(in);
+        }
+        final long now = currentTimeMillis();
+        final Map<String, Long> settingsExpiry = new HashMap<>();
+        final Map<String, Map<UserSettingName, Object>> settingsValues = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            final String value = properties.getProperty(name);
+            try {
+                if (name.startsWith(EndpointPrefix)) {
+                    final int sep = value.indexOf(ValueSeparator);
+                    final long expiresAt = Long.parseLong(value.substring(0, sep));
+                    if (expiresAt > now) {
+                        endpoints.put(name.substring(EndpointPrefix.length()),
+                                new Entry<>(new URI(value.substring(sep + 1)), expiresAt));
+                    }
+                } else if (name.startsWith(FailedPrefix)) {
+                    final long expiresAt = Long.parseLong(value);
+                    if (expiresAt > now) {
+                        failedEndpoints.put(name.substring(FailedPrefix.length()), new Entry<>(Boolean.TRUE, expiresAt));
+                    }
+                } else if (name.startsWith(RedirectPrefix)) {
+                    final int sep = value.indexOf(ValueSeparator);
+                    final long expiresAt = Long.parseLong(value.substring(0, sep));
+                    if (expiresAt > now) {
+                        redirectAddresses.put(name.substring(RedirectPrefix.length()),
+                                new Entry<>(value.substring(sep + 1), expiresAt));
+                    }
+                } else if (name.startsWith(SettingsPrefix)) {
+                    final int sep = name.indexOf(SettingSeparator);
+                    if (sep < 0) {
+                        settingsExpiry.put(name.substring(SettingsPrefix.length()), Long.parseLong(value));
+                    } else {
+                        settingsValues.computeIfAbsent(name.substring(SettingsPrefix.length(), sep),
+                                        k -> new EnumMap<>(UserSettingName.class))
+                                .put(UserSettingName.valueOf(name.substring(sep + SettingSeparator.length())), value);
+                    }
+                }
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "ignoring invalid autodiscover cache entry " + name, e);
+            }
+        }
+        for (Map.Entry<String, Long> e : settingsExpiry.entrySet()) {
+            if (e.getValue() > now) {
+                final String key = e.getKey();
+                final int sep = key.indexOf(ValueSeparator);
+                final GetUserSettingsResponse response = new GetUserSettingsResponse();
+                response.setSmtpAddress(sep < 0 ? key : key.substring(0, sep));
+                final Map<UserSettingName, Object> values = settingsValues.get(key);
+                if (values != null) {
+                    response.getSettings().putAll(values);
+                }
+                userSettings.put(key, new Entry<>(response, e.getValue()));
+            }
+        }
+    }
+
+}
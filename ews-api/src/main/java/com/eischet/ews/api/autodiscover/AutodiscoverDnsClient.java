@@ -23,17 +23,13 @@
 
 package com.eischet.ews.api.autodiscover;
 
-import com.eischet.ews.api.core.EwsUtilities;
 import com.eischet.ews.api.core.enumeration.misc.TraceFlags;
 import com.eischet.ews.api.core.exception.dns.DnsException;
-import com.eischet.ews.api.dns.DnsClient;
 import com.eischet.ews.api.dns.DnsSrvRecord;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Class that reads AutoDiscover configuration information from DNS.
@@ -50,11 +46,6 @@ class AutodiscoverDnsClient {
      */
     private static final int SslPort = 443;
 
-    /**
-     * Random selector in the case of ties.
-     */
-    private static final Random RandomTieBreakerSelector = new Random();
-
     /**
      * AutodiscoverService using this DNS reader.
      */
@@ -125,7 +116,7 @@ class AutodiscoverDnsClient {
         List<DnsSrvRecord> dnsSrvRecordList;
         try {
             // Make DnsQuery call to get collection of SRV records.
-            dnsSrvRecordList = DnsClient.dnsQuery(DnsSrvRecord.class, domain, this.service.getDnsServerAddress());
+            dnsSrvRecordList = this.service.getDnsResolver().resolveSrv(domain);
         } catch (DnsException ex) {
             String dnsExcMessage = String.format("DnsQuery returned error '%s'.", ex.getMessage());
             this.service
@@ -147,65 +138,28 @@ class AutodiscoverDnsClient {
                 .format("%d SRV records were returned.", dnsSrvRecordList
                         .size()));
 
-        // If multiple records were returned, they will be returned sorted by
-        // priority
-        // (and weight) order. Need to find the index of the first record that
-        // supports SSL.
-        int priority = Integer.MIN_VALUE;
-        int weight = Integer.MAX_VALUE;
-        boolean recordFound = false;
-        for (DnsSrvRecord dnsSrvRecord : dnsSrvRecordList) {
+        // The resolver returns the records ordered by priority, with a weighted random
+        // order among records of the same priority. Pick the first one that supports SSL.
+        for (int recordIndex = 0; recordIndex < dnsSrvRecordList.size(); recordIndex++) {
+            DnsSrvRecord dnsSrvRecord = dnsSrvRecordList.get(recordIndex);
             if (dnsSrvRecord.getPort() == SslPort) {
-                priority = dnsSrvRecord.getPriority();
-                weight = dnsSrvRecord.getWeight();
-                recordFound = true;
-                break;
+                String traceMessage = String.format("Returning SRV record %d " +
+                                "of %d records. " +
+                                "Target: %s, Priority: %d, Weight: %d",
+                        recordIndex, dnsSrvRecordList.size(),
+                        dnsSrvRecord.getNameTarget(),
+                        dnsSrvRecord.getPriority(),
+                        dnsSrvRecord.getWeight());
+                this.service.traceMessage(TraceFlags.
+                        AutodiscoverConfiguration, traceMessage);
+                return dnsSrvRecord;
             }
         }
 
         // Records were returned but nothing matched our criteria.
-        if (!recordFound) {
-            this.service.traceMessage(TraceFlags.AutodiscoverConfiguration,
-                    "No appropriate SRV records were found.");
-
-            return null;
-        }
-
-        List<DnsSrvRecord> bestDnsSrvRecordList = new ArrayList<DnsSrvRecord>();
-        for (DnsSrvRecord dnsSrvRecord : dnsSrvRecordList) {
-            if (dnsSrvRecord.getPort() == SslPort &&
-                    dnsSrvRecord.getPriority() == priority &&
-                    dnsSrvRecord.getWeight() == weight) {
-                bestDnsSrvRecordList.add(dnsSrvRecord);
-            }
-        }
-
-        // The list must contain at least one matching record since we found one
-        // earlier.
-        EwsUtilities.ewsAssert(dnsSrvRecordList.size() > 0, "AutodiscoverDnsClient.FindBestMatchingSrvRecord",
-                "At least one DNS SRV record must match the criteria.");
-
-        // If we have multiple records with the same priority and weight,
-        // randomly pick one.
-        int recordIndex = (bestDnsSrvRecordList.size() > 1) ?
-                RandomTieBreakerSelector
-                        .nextInt(bestDnsSrvRecordList.size()) :
-                0;
-
-        DnsSrvRecord bestDnsSrvRecord = bestDnsSrvRecordList.get(recordIndex);
-
-        String traceMessage = String.format("Returning SRV record %d " +
-                        "of %d records. " +
-                        "Target: %s, Priority: %d, Weight: %d",
-                recordIndex, dnsSrvRecordList.size(),
-                bestDnsSrvRecord.getNameTarget(),
-                bestDnsSrvRecord.getPriority(),
-                bestDnsSrvRecord.getWeight());
-        this.service.traceMessage(TraceFlags.
-                AutodiscoverConfiguration, traceMessage);
-
-
-        return bestDnsSrvRecord;
+        this.service.traceMessage(TraceFlags.AutodiscoverConfiguration,
+                "No appropriate SRV records were found.");
+        return null;
     }
 
 }
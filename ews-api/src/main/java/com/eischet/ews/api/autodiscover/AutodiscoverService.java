@@ -50,6 +50,8 @@ import com.eischet.ews.api.core.exception.misc.FormatException;
 import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
 import com.eischet.ews.api.core.exception.service.local.ExchangeValidationException;
 import com.eischet.ews.api.core.exception.service.local.ServiceVersionException;
+import com.eischet.ews.api.dns.CachingDnsResolver;
+import com.eischet.ews.api.dns.IDnsResolver;
 import com.eischet.ews.api.http.ExchangeHttpClient;
 import com.eischet.ews.api.credential.WSSecurityBasedCredentials;
 import com.eischet.ews.api.misc.OutParam;
@@ -61,6 +63,16 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Represents a binding to the Exchange Autodiscover Service.
@@ -73,7 +85,12 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
     private IAutodiscoverRedirectionUrl redirectionUrlValidationCallback;
     private AutodiscoverDnsClient dnsClient;
     private String dnsServerAddress;
+    private IDnsResolver dnsResolver;
     private boolean enableScpLookup = true;
+    private IAutodiscoverCache autodiscoverCache;
+    private boolean parallelProbing;
+    private int probeStaggerDelay = DefaultProbeStaggerDelay;
+    private ExecutorService probeExecutor;
     private static final String AutodiscoverLegacyPath = "/autodiscover/autodiscover.xml";
     private static final String AutodiscoverLegacyHttpsUrl = "https://%s" + AutodiscoverLegacyPath;
     private static final String AutodiscoverLegacyHttpUrl = "http://%s" + AutodiscoverLegacyPath;
@@ -88,6 +105,7 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
     private static final String AutodiscoverWsSecuritySymmetricKeyEnabledHeaderName = "X-WSSecurity-SymmetricKey-Enabled";
     private static final String AutodiscoverWsSecurityX509CertEnabledHeaderName = "X-WSSecurity-X509Cert-Enabled";
     private static final ExchangeVersion MinimumRequestVersionForAutoDiscoverSoapService = ExchangeVersion.Exchange2010;
+    private static final int DefaultProbeStaggerDelay = 250;
 
     /**
      * Default implementation of AutodiscoverRedirectionUrlValidationCallback.
@@ -254,10 +272,14 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
      * @throws ServiceLocalException the service local exception
      * @throws URISyntaxException    the uRI syntax exception
      */
-    private URI getRedirectUrl(String domainName)
+    URI getRedirectUrl(String domainName)
             throws EWSHttpException, XMLStreamException, IOException, ServiceLocalException, URISyntaxException {
         String url = String.format(AutodiscoverLegacyHttpUrl, "autodiscover." + domainName);
 
+        if (this.isFailedEndpoint(url)) {
+            return null;
+        }
+
         traceMessage(TraceFlags.AutodiscoverConfiguration,
                 String.format("Trying to get Autodiscover redirection URL from %s.", url));
 
@@ -286,6 +308,7 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
                 request.executeRequest();
             } catch (IOException e) {
                 traceMessage(TraceFlags.AutodiscoverConfiguration, "No Autodiscover redirection URL was returned.");
+                this.putFailedEndpoint(url);
                 return null;
             }
 
@@ -445,6 +468,11 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
             URI autodiscoverUrl = urls.get(currentUrlIndex);
             boolean isScpUrl = currentUrlIndex < scpUrlCount;
 
+            if (this.isFailedEndpoint(autodiscoverUrl.toString())) {
+                currentUrlIndex++;
+                continue;
+            }
+
             try {
                 settings = this.getLegacyUserSettingsAtUrl(cls,
                         emailAddress, autodiscoverUrl);
@@ -549,6 +577,7 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
                         TraceFlags.AutodiscoverConfiguration,
                         String.format("%s failed: I/O error: %s",
                                 url, ex.getMessage()));
+                this.putFailedEndpoint(autodiscoverUrl.toString());
 
                 // The content at the URL wasn't a valid response, let's try the next.
                 currentUrlIndex++;
@@ -851,11 +880,21 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
             String smtpAddress,
             List<UserSettingName> requestedSettings) throws Exception {
         List<String> smtpAddresses = new ArrayList<String>();
-        smtpAddresses.add(smtpAddress);
-
         List<String> redirectionEmailAddresses = new ArrayList<String>();
         redirectionEmailAddresses.add(smtpAddress.toLowerCase());
 
+        // Skip straight to the redirection target if we have already been redirected before.
+        String cachedRedirectTarget = (this.autodiscoverCache != null) ?
+                this.autodiscoverCache.getRedirectAddress(smtpAddress) : null;
+        if (cachedRedirectTarget != null) {
+            this.traceMessage(TraceFlags.AutodiscoverConfiguration,
+                    String.format("Using cached redirection of %s to '%s'.", smtpAddress, cachedRedirectTarget));
+            smtpAddresses.add(cachedRedirectTarget);
+            redirectionEmailAddresses.add(cachedRedirectTarget);
+        } else {
+            smtpAddresses.add(smtpAddress);
+        }
+
         for (int currentHop = 0; currentHop < AutodiscoverService.AutodiscoverMaxRedirections; currentHop++) {
             GetUserSettingsResponse response = this.getUserSettings(smtpAddresses,
                     requestedSettings).getTResponseAtIndex(0);
@@ -867,6 +906,10 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
                             String.format("Autodiscover service returned redirection email address '%s'.",
                                     response.getRedirectTarget()));
 
+                    if (this.autodiscoverCache != null) {
+                        this.autodiscoverCache.putRedirectAddress(smtpAddress, response.getRedirectTarget());
+                    }
+
                     smtpAddresses.clear();
                     smtpAddresses.add(response.getRedirectTarget().
                             toLowerCase());
@@ -991,6 +1034,26 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
             URI autodiscoverUrl;
 
             String domainName = getDomainMethod.func();
+
+            // Try the endpoint that worked for this domain last time before running discovery again.
+            URI cachedUrl = (this.autodiscoverCache != null) ? this.autodiscoverCache.getEndpoint(domainName) : null;
+            if (cachedUrl != null) {
+                this.traceMessage(TraceFlags.AutodiscoverConfiguration,
+                        String.format("Trying cached Autodiscover endpoint %s for domain %s.", cachedUrl, domainName));
+                try {
+                    response = getSettingsMethod.func(identities, settings,
+                            requestedVersion,
+                            cachedUrl);
+                    this.url = cachedUrl;
+                    return response;
+                } catch (Exception ex) {
+                    // Whatever went wrong, the endpoint is stale: forget it and run full discovery.
+                    this.traceMessage(TraceFlags.AutodiscoverConfiguration,
+                            String.format("Cached Autodiscover endpoint %s failed: %s", cachedUrl, ex.getMessage()));
+                    this.autodiscoverCache.removeEndpoint(domainName);
+                }
+            }
+
             int scpHostCount;
             OutParam<Integer> outParam = new OutParam<Integer>();
             List<String> hosts = this.getAutodiscoverServiceHosts(domainName,
@@ -1001,9 +1064,31 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
                         "This Autodiscover request requires that either the Domain or Url be specified.");
             }
 
+            if (this.parallelProbing) {
+                OutParam<Integer> winningProbe = new OutParam<Integer>();
+                autodiscoverUrl = this.probeAutodiscoverEndpoints(domainName, hosts, winningProbe);
+                if (autodiscoverUrl == null) {
+                    throw new AutodiscoverLocalException("The Autodiscover service couldn't be located.");
+                }
+                response = getSettingsMethod.func(identities, settings,
+                        requestedVersion,
+                        autodiscoverUrl);
+
+                // If we got this far, the response was successful, set Url.
+                this.url = autodiscoverUrl;
+                this.putEndpoint(domainName, autodiscoverUrl);
+                if (winningProbe.getParam() < scpHostCount) {
+                    this.isExternal = false;
+                }
+                return response;
+            }
+
             for (int currentHostIndex = 0; currentHostIndex < hosts.size(); currentHostIndex++) {
                 String host = hosts.get(currentHostIndex);
                 boolean isScpHost = currentHostIndex < scpHostCount;
+                if (this.isFailedEndpoint(host)) {
+                    continue;
+                }
                 OutParam<URI> outParams = new OutParam<URI>();
                 if (this.tryGetAutodiscoverEndpointUrl(host, outParams)) {
                     autodiscoverUrl = outParams.getParam();
@@ -1013,6 +1098,7 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
 
                     // If we got this far, the response was successful, set Url.
                     this.url = autodiscoverUrl;
+                    this.putEndpoint(domainName, autodiscoverUrl);
 
                     // Not external if Autodiscover endpoint found via SCP
                     // returned the settings.
@@ -1021,6 +1107,8 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
                     }
 
                     return response;
+                } else {
+                    this.putFailedEndpoint(host);
                 }
             }
 
@@ -1041,6 +1129,7 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
 
                 // If we got this far, the response was successful, set Url.
                 this.url = autodiscoverUrl;
+                this.putEndpoint(domainName, autodiscoverUrl);
 
                 return response;
             }
@@ -1063,6 +1152,7 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
 
                 // If we got this far, the response was successful, set Url.
                 this.url = autodiscoverUrl;
+                this.putEndpoint(domainName, autodiscoverUrl);
 
                 return response;
             } else {
@@ -1212,7 +1302,7 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
      * @return boolean The boolean.
      * @throws Exception the exception
      */
-    private boolean tryGetAutodiscoverEndpointUrl(String host,
+    boolean tryGetAutodiscoverEndpointUrl(String host,
                                                   OutParam<URI> url)
             throws Exception {
         EnumSet<AutodiscoverEndpoints> endpoints;
@@ -1314,6 +1404,165 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
         }
     }
 
+    /**
+     * Probes all candidate Autodiscover endpoints concurrently: every host, the
+     * HTTP redirection and the DNS SRV record. Probes are started one after the other,
+     * probeStaggerDelay milliseconds apart, so that a healthy first host usually
+     * answers before the others are even contacted.
+     * <p>
+     * Results are ranked in the same order the sequential algorithm would try them. A
+     * lower-ranked success is used once all higher-ranked probes have failed, or after
+     * they had another probeStaggerDelay to answer, so that unreachable hosts don't
+     * hold up discovery until their connect timeout expires. The remaining probes are
+     * then cancelled.
+     * </p>
+     * <p>
+     * Redirection and SRV targets are validated by the redirection URL validation
+     * callback and probed on the calling thread before they are used.
+     * </p>
+     * <p>
+     * A host is remembered as failed only if its probe finished, unsuccessfully, before the
+     * winner was picked; probes that lost the race and were cancelled are not held against
+     * their hosts. Only the SOAP endpoints are probed here; the legacy POX endpoints used for
+     * servers older than Exchange 2010 are still tried one after the other.
+     * </p>
+     *
+     * @param domainName   Domain name.
+     * @param hosts        The candidate hosts, in order of preference.
+     * @param winningProbe Receives the index of the probe that won.
+     * @return the Autodiscover SOAP endpoint URL, or null if no endpoint was found
+     * @throws Exception the exception
+     */
+    URI probeAutodiscoverEndpoints(final String domainName, final List<String> hosts,
+                                   OutParam<Integer> winningProbe) throws Exception {
+        final CountDownLatch decided = new CountDownLatch(1);
+        final List<Callable<URI>> probes = new ArrayList<Callable<URI>>();
+        // Set by the probes of hosts that were actually contacted; read after Future.get().
+        final boolean[] attempted = new boolean[hosts.size()];
+        for (int i = 0; i < hosts.size(); i++) {
+            final String host = hosts.get(i);
+            final int index = i;
+            probes.add(new Callable<URI>() {
+                public URI call() throws Exception {
+                    if (isFailedEndpoint(host)) {
+                        return null;
+                    }
+                    attempted[index] = true;
+                    OutParam<URI> endpointUrl = new OutParam<URI>();
+                    return tryGetAutodiscoverEndpointUrl(host, endpointUrl) ? endpointUrl.getParam() : null;
+                }
+            });
+        }
+        final int redirectionProbes = probes.size();
+        probes.add(new Callable<URI>() {
+            public URI call() throws Exception {
+                return getRedirectUrl(domainName);
+            }
+        });
+        probes.add(new Callable<URI>() {
+            public URI call() throws Exception {
+                return getRedirectionUrlFromDnsSrvRecord(domainName);
+            }
+        });
+
+        final ExecutorService executor = (this.probeExecutor != null) ? this.probeExecutor :
+                Executors.newCachedThreadPool(new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "autodiscover-probe");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        final CompletionService<URI> completionService = new ExecutorCompletionService<URI>(executor);
+        final Map<Future<URI>, Integer> probeIndexes = new HashMap<Future<URI>, Integer>();
+        final URI[] results = new URI[probes.size()];
+        final boolean[] finished = new boolean[probes.size()];
+        long firstSuccessAt = -1;
+
+        try {
+            for (int i = 0; i < probes.size(); i++) {
+                final Callable<URI> probe = probes.get(i);
+                final long startDelay = (long) i * this.probeStaggerDelay;
+                probeIndexes.put(completionService.submit(new Callable<URI>() {
+                    public URI call() throws Exception {
+                        // Don't start at all if a winner was picked while we were waiting.
+                        if (startDelay > 0 && decided.await(startDelay, TimeUnit.MILLISECONDS)) {
+                            return null;
+                        }
+                        return probe.call();
+                    }
+                }), i);
+            }
+
+            while (true) {
+                int best = -1;
+                boolean higherRankedPending = false;
+                boolean anyPending = false;
+                for (int i = 0; i < results.length; i++) {
+                    if (!finished[i]) {
+                        anyPending = true;
+                        if (best < 0) {
+                            higherRankedPending = true;
+                        }
+                    } else if (best < 0 && results[i] != null) {
+                        best = i;
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (best >= 0 && (!higherRankedPending || now >= firstSuccessAt + this.probeStaggerDelay)) {
+                    if (best < redirectionProbes) {
+                        winningProbe.setParam(best);
+                        return results[best];
+                    }
+
+                    // Redirections are potentially unsafe, let the caller decide before we follow them.
+                    OutParam<URI> endpointUrl = new OutParam<URI>();
+                    if (this.callRedirectionUrlValidationCallback(results[best].toString()) &&
+                            this.tryGetAutodiscoverEndpointUrl(results[best].getHost(), endpointUrl)) {
+                        winningProbe.setParam(best);
+                        return endpointUrl.getParam();
+                    }
+                    results[best] = null;
+                    continue;
+                }
+                if (best < 0 && !anyPending) {
+                    return null;
+                }
+
+                Future<URI> completed = (best >= 0) ?
+                        completionService.poll(firstSuccessAt + this.probeStaggerDelay - now, TimeUnit.MILLISECONDS) :
+                        completionService.take();
+                if (completed != null) {
+                    int index = probeIndexes.get(completed);
+                    finished[index] = true;
+                    try {
+                        results[index] = completed.get();
+                    } catch (ExecutionException ex) {
+                        this.traceMessage(TraceFlags.AutodiscoverConfiguration,
+                                String.format("Autodiscover probe %d failed: %s", index, ex.getCause()));
+                    }
+                    // Only probes that completed before a winner was picked get here, so a
+                    // failure is genuine and not caused by cancelling the probe.
+                    if (index < redirectionProbes && results[index] == null && attempted[index]) {
+                        this.putFailedEndpoint(hosts.get(index));
+                    }
+                    if (results[index] != null && firstSuccessAt < 0) {
+                        firstSuccessAt = System.currentTimeMillis();
+                    }
+                }
+            }
+        } finally {
+            decided.countDown();
+            for (Future<URI> future : probeIndexes.keySet()) {
+                future.cancel(true);
+            }
+            if (executor != this.probeExecutor) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
     /**
      * Gets the list of autodiscover service URLs.
      *
@@ -1679,6 +1928,7 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
      */
     public AutodiscoverService(ExchangeServiceBase service) {
         super(service, service.getRequestedServerVersion());
+        this.dnsClient = new AutodiscoverDnsClient(this);
     }
 
     /**
@@ -1705,14 +1955,45 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
             throw new ExchangeValidationException("At least one setting must be requested.");
         }
 
+        if (this.autodiscoverCache != null) {
+            GetUserSettingsResponse cached = this.autodiscoverCache.getUserSettings(userSmtpAddress, requestedSettings);
+            if (cached != null) {
+                this.traceMessage(TraceFlags.AutodiscoverConfiguration,
+                        String.format("Using cached Autodiscover settings for %s.", userSmtpAddress));
+                return copyOf(cached);
+            }
+        }
+
+        GetUserSettingsResponse response;
         if (this.getRequestedServerVersion().compareTo(MinimumRequestVersionForAutoDiscoverSoapService) < 0) {
-            return this.internalGetLegacyUserSettings(userSmtpAddress,
+            response = this.internalGetLegacyUserSettings(userSmtpAddress,
                     requestedSettings);
         } else {
-            return this.internalGetSoapUserSettings(userSmtpAddress,
+            response = this.internalGetSoapUserSettings(userSmtpAddress,
                     requestedSettings);
         }
 
+        if (this.autodiscoverCache != null && response.getErrorCode() == AutodiscoverErrorCode.NoError) {
+            this.autodiscoverCache.putUserSettings(userSmtpAddress, requestedSettings, copyOf(response));
+        }
+        return response;
+    }
+
+    /**
+     * Copies user settings, so that callers can't change the cached instance nor each other's.
+     * The setting values are shared; the collection-valued ones (web client URLs, protocol
+     * connections, alternate mailboxes) must be treated as read-only.
+     */
+    private static GetUserSettingsResponse copyOf(GetUserSettingsResponse response) {
+        GetUserSettingsResponse copy = new GetUserSettingsResponse();
+        copy.setErrorCode(response.getErrorCode());
+        copy.setErrorMessage(response.getErrorMessage());
+        copy.setRedirectionUrl(response.getRedirectionUrl());
+        copy.setSmtpAddress(response.getSmtpAddress());
+        copy.setRedirectTarget(response.getRedirectTarget());
+        copy.getSettings().putAll(response.getSettings());
+        copy.getUserSettingErrors().addAll(response.getUserSettingErrors());
+        return copy;
     }
 
     /**
@@ -1883,6 +2164,26 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
         this.dnsServerAddress = value;
     }
 
+    /**
+     * Gets the resolver used to look up Autodiscover DNS SRV records. Unless
+     * one was set, this is the shared, caching resolver for the configured
+     * DNS server.
+     *
+     * @return the dns resolver
+     */
+    public IDnsResolver getDnsResolver() {
+        return (this.dnsResolver != null) ? this.dnsResolver : CachingDnsResolver.forServer(this.dnsServerAddress);
+    }
+
+    /**
+     * Sets the resolver used to look up Autodiscover DNS SRV records.
+     *
+     * @param value the dns resolver, or null to use the shared resolver
+     */
+    public void setDnsResolver(IDnsResolver value) {
+        this.dnsResolver = value;
+    }
+
     /**
      * Gets a value indicating whether the AutodiscoverService should
      * perform SCP (ServiceConnectionPoint) record lookup when determining
@@ -1903,6 +2204,103 @@ public class AutodiscoverService extends ExchangeServiceBase implements IAutodis
         this.enableScpLookup = value;
     }
 
+    /**
+     * Gets the cache consulted before running the Autodiscover algorithm.
+     *
+     * @return the autodiscover cache, or null if results are not cached
+     */
+    public IAutodiscoverCache getAutodiscoverCache() {
+        return this.autodiscoverCache;
+    }
+
+    /**
+     * Sets the cache consulted before running the Autodiscover algorithm. Endpoints,
+     * redirections and user settings found by this service are stored in it, as well
+     * as endpoints that failed, so that other services sharing the cache skip them.
+     *
+     * @param value the autodiscover cache, or null to disable caching
+     */
+    public void setAutodiscoverCache(IAutodiscoverCache value) {
+        this.autodiscoverCache = value;
+    }
+
+    /**
+     * Gets a value indicating whether candidate endpoints are probed concurrently
+     * instead of one after the other.
+     *
+     * @return true if parallel probing is enabled
+     */
+    public boolean getParallelProbing() {
+        return this.parallelProbing;
+    }
+
+    /**
+     * Sets a value indicating whether candidate endpoints are probed concurrently
+     * instead of one after the other. Parallel probing bounds the discovery latency
+     * by the fastest healthy endpoint instead of the sum of the timeouts of all
+     * unreachable ones, at the cost of contacting more hosts. It applies to the
+     * SOAP Autodiscover service; the legacy POX endpoints are always probed
+     * sequentially.
+     *
+     * @param value true to enable parallel probing
+     */
+    public void setParallelProbing(boolean value) {
+        this.parallelProbing = value;
+    }
+
+    /**
+     * Gets the delay between the starts of two consecutive parallel probes, in milliseconds.
+     *
+     * @return the stagger delay in milliseconds
+     */
+    public int getProbeStaggerDelay() {
+        return this.probeStaggerDelay;
+    }
+
+    /**
+     * Sets the delay between the starts of two consecutive parallel probes, in
+     * milliseconds. Defaults to 250.
+     *
+     * @param value the stagger delay in milliseconds
+     */
+    public void setProbeStaggerDelay(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Stagger delay must not be negative.");
+        }
+        this.probeStaggerDelay = value;
+    }
+
+    /**
+     * Sets the executor that runs parallel probes. If none is set, a temporary
+     * thread pool is created for each discovery.
+     *
+     * @param value the executor, or null
+     */
+    public void setProbeExecutor(ExecutorService value) {
+        this.probeExecutor = value;
+    }
+
+    private boolean isFailedEndpoint(String endpoint) throws XMLStreamException, IOException {
+        if (this.autodiscoverCache != null && this.autodiscoverCache.isFailedEndpoint(endpoint)) {
+            this.traceMessage(TraceFlags.AutodiscoverConfiguration,
+                    String.format("Skipping %s, which failed recently.", endpoint));
+            return true;
+        }
+        return false;
+    }
+
+    private void putFailedEndpoint(String endpoint) {
+        if (this.autodiscoverCache != null) {
+            this.autodiscoverCache.putFailedEndpoint(endpoint);
+        }
+    }
+
+    private void putEndpoint(String domainName, URI autodiscoverUrl) {
+        if (this.autodiscoverCache != null) {
+            this.autodiscoverCache.putEndpoint(domainName, autodiscoverUrl);
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.autodiscover;
+
+import com.eischet.ews.api.autodiscover.enumeration.UserSettingName;
+import com.eischet.ews.api.autodiscover.response.GetUserSettingsResponse;
+
+import java.net.URI;
+import java.util.Collection;
+
+/**
+ * Defines a cache that the AutodiscoverService consults before running the
+ * discovery algorithm, and that it updates with the results of each run.
+ * <p>
+ * Implementations are shared between services and must be thread safe.
+ * </p>
+ */
+public interface IAutodiscoverCache {
+
+    /**
+     * Gets the Autodiscover endpoint that last worked for a domain.
+     *
+     * @param domain the SMTP domain
+     * @return the endpoint URL, or null if none is cached
+     */
+    URI getEndpoint(String domain);
+
+    /**
+     * Remembers the Autodiscover endpoint that worked for a domain.
+     *
+     * @param domain   the SMTP domain
+     * @param endpoint the endpoint URL
+     */
+    void putEndpoint(String domain, URI endpoint);
+
+    /**
+     * Forgets the endpoint cached for a domain, e.g. because it stopped working.
+     *
+     * @param domain the SMTP domain
+     */
+    void removeEndpoint(String domain);
+
+    /**
+     * Determines whether an endpoint (a host name or URL) recently failed and should be skipped.
+     *
+     * @param endpoint the host name or URL
+     * @return true if the endpoint is known to be failing
+     */
+    boolean isFailedEndpoint(String endpoint);
+
+    /**
+     * Remembers that an endpoint (a host name or URL) failed.
+     *
+     * @param endpoint the host name or URL
+     */
+    void putFailedEndpoint(String endpoint);
+
+    /**
+     * Gets the address an email address was redirected to.
+     *
+     * @param emailAddress the email address
+     * @return the redirection target, or null if none is cached
+     */
+    String getRedirectAddress(String emailAddress);
+
+    /**
+     * Remembers that the Autodiscover service redirected an email address to another one.
+     *
+     * @param emailAddress   the email address
+     * @param redirectTarget the address it was redirected to
+     */
+    void putRedirectAddress(String emailAddress, String redirectTarget);
+
+    /**
+     * Gets the user settings previously returned for an email address.
+     *
+     * @param emailAddress the email address
+     * @param settings     the requested settings
+     * @return the cached response, or null if none is cached; the service copies it before
+     * handing it out, but its setting values are shared and must not be modified
+     */
+    GetUserSettingsResponse getUserSettings(String emailAddress, Collection<UserSettingName> settings);
+
+    /**
+     * Remembers the user settings returned for an email address.
+     *
+     * @param emailAddress the email address
+     * @param settings     the requested settings
+     * @param response     the successful response
+     */
+    void putUserSettings(String emailAddress, Collection<UserSettingName> settings, GetUserSettingsResponse response);
+
+    /**
+     * Removes all entries from the cache.
+     */
+    void clear();
+}
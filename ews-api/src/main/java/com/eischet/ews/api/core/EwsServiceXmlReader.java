@@ -30,6 +30,7 @@ import com.eischet.ews.api.core.service.ServiceObject;
 import com.eischet.ews.api.util.DateTimeUtils;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -45,6 +46,11 @@ public class EwsServiceXmlReader extends EwsXmlReader {
      */
     private ExchangeService service;
 
+    /**
+     * Stream receiving the decoded MIME content of the item being read, if any.
+     */
+    private OutputStream mimeContentTarget;
+
     /**
      * Initializes a new instance of the EwsXmlReader class.
      *
@@ -161,6 +167,19 @@ public class EwsServiceXmlReader extends EwsXmlReader {
 
     }
 
+    /**
+     * Gets the shared instance of a value that tends to repeat across a response, if the
+     * service pools such values.
+     *
+     * @param value the value, may be null
+     * @return the pooled value, or the value itself if pooling is disabled
+     * @see ExchangeServiceBase#setStringInternPool(StringInternPool)
+     */
+    public String intern(String value) {
+        StringInternPool pool = (this.service != null) ? this.service.getStringInternPool() : null;
+        return (pool != null) ? pool.intern(value) : value;
+    }
+
     /**
      * Gets the service.
      *
@@ -179,4 +198,24 @@ public class EwsServiceXmlReader extends EwsXmlReader {
         this.service = service;
     }
 
+    /**
+     * Gets the stream that MIME content is decoded into instead of being loaded
+     * into memory.
+     *
+     * @return the target stream, or null to load MIME content into the item
+     */
+    public OutputStream getMimeContentTarget() {
+        return this.mimeContentTarget;
+    }
+
+    /**
+     * Sets the stream that MIME content is decoded into instead of being loaded
+     * into memory.
+     *
+     * @param mimeContentTarget the target stream, or null to load MIME content into the item
+     */
+    public void setMimeContentTarget(OutputStream mimeContentTarget) {
+        this.mimeContentTarget = mimeContentTarget;
+    }
+
 }
@@ -39,6 +39,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -65,15 +66,21 @@ public class EwsServiceXmlWriter implements IDisposable {
      */
     private final XMLStreamWriter xmlWriter;
 
+    /**
+     * The stream the xml writer writes to.
+     */
+    private final OutputStream stream;
+
     /**
      * The is time zone header emitted.
      */
     private boolean isTimeZoneHeaderEmitted;
 
     /**
-     * The Buffer size.
+     * Bytes encoded per chunk when streaming base64 content: a multiple of the 57 bytes
+     * that make up one 76 character MIME line.
      */
-    private static final int BufferSize = 4096;
+    private static final int Base64ChunkSize = 57 * 1024;
 
     /**
      * The  requireWSSecurityUtilityNamespace *
@@ -92,6 +99,7 @@ public class EwsServiceXmlWriter implements IDisposable {
         this.service = service;
         XMLOutputFactory xmlof = XMLOutputFactory.newInstance();
         xmlWriter = xmlof.createXMLStreamWriter(stream, "utf-8");
+        this.stream = stream;
 
     }
 
@@ -495,24 +503,70 @@ public class EwsServiceXmlWriter implements IDisposable {
      * @throws XMLStreamException the XML stream exception
      */
     public void writeBase64ElementValue(InputStream stream) throws ExchangeXmlException {
-
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        try (bos) {
-            byte[] buf = new byte[BufferSize];
-            for (int readNum; (readNum = stream.read(buf)) != -1; ) {
-                bos.write(buf, 0, readNum);
+        // Encode in whole MIME lines so the chunks join into one valid base64 value
+        // without ever holding the complete content (or its encoding) in memory.
+        final Base64.Encoder encoder = Base64.getMimeEncoder();
+        final byte[] buf = new byte[Base64ChunkSize];
+        try {
+            boolean first = true;
+            for (int readNum; (readNum = stream.readNBytes(buf, 0, buf.length)) > 0; ) {
+                if (!first) {
+                    this.xmlWriter.writeCharacters("\r\n");
+                }
+                final byte[] chunk = readNum == buf.length ? buf : Arrays.copyOf(buf, readNum);
+                this.xmlWriter.writeCharacters(encoder.encodeToString(chunk));
+                first = false;
+                if (readNum < buf.length) {
+                    break;
+                }
             }
         } catch (IOException ex) {
             throw new ExchangeXmlException("error writing binary data", ex);
-        }
-        byte[] bytes = bos.toByteArray();
-        String strValue = Base64.getMimeEncoder().encodeToString(bytes);
-        try {
-            this.xmlWriter.writeCharacters(strValue);
         } catch (XMLStreamException e) {
             throw new ExchangeXmlException("error writing binary data as mime encoded characters", e);
         }
+    }
+
+    /**
+     * Renders a fragment of XML into UTF-8 bytes that can later be spliced into any request
+     * with {@link #writeFragment(byte[])}. The fragment is written without namespace
+     * declarations, relying on the prefixes declared by the SOAP envelope.
+     *
+     * @param serializer writes the fragment
+     * @return the rendered fragment
+     */
+    public byte[] renderFragment(IXmlFragmentSerializer serializer) throws ExchangeXmlException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            EwsServiceXmlWriter fragmentWriter = new EwsServiceXmlWriter(this.service, buffer);
+            fragmentWriter.setRequireWSSecurityUtilityNamespace(this.requireWSSecurityUtilityNamespace);
+            serializer.writeToXml(fragmentWriter);
+            fragmentWriter.xmlWriter.writeCharacters("");
+            fragmentWriter.flush();
+        } catch (ExchangeXmlException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExchangeXmlException("error rendering XML fragment", e);
+        }
+        return buffer.toByteArray();
+    }
 
+    /**
+     * Writes a fragment rendered by {@link #renderFragment(IXmlFragmentSerializer)} as is.
+     * A pending start tag is closed first, so the fragment may directly follow the
+     * attributes of its parent element.
+     *
+     * @param fragment the UTF-8 encoded fragment
+     */
+    public void writeFragment(byte[] fragment) throws ExchangeXmlException {
+        try {
+            // Writing empty text closes a pending start tag without producing output.
+            this.xmlWriter.writeCharacters("");
+            this.xmlWriter.flush();
+            this.stream.write(fragment);
+        } catch (XMLStreamException | IOException e) {
+            throw new ExchangeXmlException("error writing XML fragment", e);
+        }
     }
 
     /**
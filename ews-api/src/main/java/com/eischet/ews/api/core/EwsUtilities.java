@@ -24,17 +24,9 @@
 package com.eischet.ews.api.core;
 
 import com.eischet.ews.api.ISelfValidate;
-import com.eischet.ews.api.attribute.EwsEnum;
-import com.eischet.ews.api.attribute.RequiredServerVersion;
 import com.eischet.ews.api.core.enumeration.misc.ExchangeVersion;
 import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
 import com.eischet.ews.api.core.enumeration.notification.EventType;
-import com.eischet.ews.api.core.enumeration.property.MailboxType;
-import com.eischet.ews.api.core.enumeration.property.RuleProperty;
-import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
-import com.eischet.ews.api.core.enumeration.search.ItemTraversal;
-import com.eischet.ews.api.core.enumeration.service.FileAsMapping;
-import com.eischet.ews.api.core.enumeration.service.MeetingRequestsDeliveryScope;
 import com.eischet.ews.api.core.exception.http.EWSHttpException;
 import com.eischet.ews.api.core.exception.misc.ArgumentException;
 import com.eischet.ews.api.core.exception.misc.ArgumentNullException;
@@ -57,7 +49,6 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -251,78 +242,30 @@ public final class EwsUtilities {
     }
 
     /**
-     * The enum version dictionaries.
+     * The enum version dictionaries, generated at build time from the
+     * RequiredServerVersion annotations of the enum constants.
      */
     private static final LazyMember<Map<Class<?>, Map<String, ExchangeVersion>>>
             ENUM_VERSION_DICTIONARIES =
             new LazyMember<Map<Class<?>, Map<String, ExchangeVersion>>>(
-                    new ILazyMember<Map<Class<?>, Map<String, ExchangeVersion>>>() {
-                        @Override
-                        public Map<Class<?>, Map<String, ExchangeVersion>>
-                        createInstance() {
-                            Map<Class<?>, Map<String, ExchangeVersion>> enumDicts =
-                                    new HashMap<Class<?>, Map<String,
-                                            ExchangeVersion>>();
-                            enumDicts.put(WellKnownFolderName.class,
-                                    buildEnumDict(WellKnownFolderName.class));
-                            enumDicts.put(ItemTraversal.class,
-                                    buildEnumDict(ItemTraversal.class));
-                            enumDicts.put(FileAsMapping.class,
-                                    buildEnumDict(FileAsMapping.class));
-                            enumDicts.put(EventType.class,
-                                    buildEnumDict(EventType.class));
-                            enumDicts.put(MeetingRequestsDeliveryScope.class,
-                                    buildEnumDict(MeetingRequestsDeliveryScope.
-                                            class));
-                            return enumDicts;
-                        }
-                    });
+                    GeneratedEnumRegistry::createEnumVersionDictionaries);
     /**
-     * Dictionary of enum type to schema-name-to-enum-value maps.
+     * Dictionary of enum type to schema-name-to-enum-value maps, generated at
+     * build time from the EwsEnum annotations of the enum constants.
      */
     private static final LazyMember<Map<Class<?>, Map<String, String>>>
             SCHEMA_TO_ENUM_DICTIONARIES =
             new LazyMember<Map<Class<?>, Map<String, String>>>(
-                    new ILazyMember<Map<Class<?>, Map<String, String>>>() {
-                        @Override
-                        public Map<Class<?>, Map<String, String>> createInstance() {
-                            Map<Class<?>, Map<String, String>> enumDicts =
-                                    new HashMap<Class<?>, Map<String, String>>();
-                            enumDicts.put(EventType.class,
-                                    buildSchemaToEnumDict(EventType.class));
-                            enumDicts.put(MailboxType.class,
-                                    buildSchemaToEnumDict(MailboxType.class));
-                            enumDicts.put(FileAsMapping.class,
-                                    buildSchemaToEnumDict(FileAsMapping.class));
-                            enumDicts.put(RuleProperty.class,
-                                    buildSchemaToEnumDict(RuleProperty.class));
-                            return enumDicts;
-
-                        }
-                    });
+                    GeneratedEnumRegistry::createSchemaToEnumDictionaries);
 
     /**
-     * Dictionary of enum type to enum-value-to-schema-name maps.
+     * Dictionary of enum type to enum-value-to-schema-name maps, generated at
+     * build time from the EwsEnum annotations of the enum constants.
      */
     public static final LazyMember<Map<Class<?>, Map<String, String>>>
             ENUM_TO_SCHEMA_DICTIONARIES =
             new LazyMember<Map<Class<?>, Map<String, String>>>(
-                    new ILazyMember<Map<Class<?>, Map<String, String>>>() {
-                        @Override
-                        public Map<Class<?>, Map<String, String>> createInstance() {
-                            Map<Class<?>, Map<String, String>> enumDicts =
-                                    new HashMap<Class<?>, Map<String, String>>();
-                            enumDicts.put(EventType.class,
-                                    buildEnumToSchemaDict(EventType.class));
-                            enumDicts.put(MailboxType.class,
-                                    buildEnumToSchemaDict(MailboxType.class));
-                            enumDicts.put(FileAsMapping.class,
-                                    buildEnumToSchemaDict(FileAsMapping.class));
-                            enumDicts.put(RuleProperty.class,
-                                    buildEnumToSchemaDict(RuleProperty.class));
-                            return enumDicts;
-                        }
-                    });
+                    GeneratedEnumRegistry::createEnumToSchemaDictionaries);
 
     /**
      * Regular expression for legal domain names.
@@ -749,31 +692,6 @@ public final class EwsUtilities {
     }
 
 
-    /**
-     * Builds the schema to enum mapping dictionary.
-     *
-     * @param <E> Type of the enum.
-     * @param c   Class
-     * @return The mapping from enum to schema name
-     */
-    private static <E extends Enum<E>> Map<String, String>
-    buildSchemaToEnumDict(Class<E> c) {
-        Map<String, String> dict = new HashMap<>();
-
-        Field[] fields = c.getDeclaredFields();
-        for (Field f : fields) {
-            if (f.isEnumConstant() && f.isAnnotationPresent(EwsEnum.class)) {
-                EwsEnum ewsEnum = f.getAnnotation(EwsEnum.class);
-                String fieldName = f.getName();
-                String schemaName = ewsEnum.schemaName();
-                if (!schemaName.isEmpty()) {
-                    dict.put(schemaName, fieldName);
-                }
-            }
-        }
-        return dict;
-    }
-
     /**
      * Validate param collection.
      *
@@ -1063,7 +981,9 @@ public final class EwsUtilities {
         final Map<String, ExchangeVersion> enumVersionDict =
                 member.get(enumValue.getClass());
 
-        final ExchangeVersion enumVersion = enumVersionDict.get(enumValue.toString());
+        final ExchangeVersion enumVersion = enumVersionDict != null
+                ? enumVersionDict.get(enumValue.toString())
+                : null;
         if (enumVersion != null) {
             final int i = requestVersion.compareTo(enumVersion);
             if (i < 0) {
@@ -1171,53 +1091,6 @@ public final class EwsUtilities {
         }
     }
 
-    /**
-     * Builds the enum dict.
-     *
-     * @param <E> the element type
-     * @param c   the c
-     * @return the map
-     */
-    private static <E extends Enum<E>> Map<String, ExchangeVersion>
-    buildEnumDict(Class<E> c) {
-        Map<String, ExchangeVersion> dict =
-                new HashMap<>();
-        Field[] fields = c.getDeclaredFields();
-        for (Field f : fields) {
-            if (f.isEnumConstant()
-                    && f.isAnnotationPresent(RequiredServerVersion.class)) {
-                RequiredServerVersion ewsEnum = f
-                        .getAnnotation(RequiredServerVersion.class);
-                String fieldName = f.getName();
-                ExchangeVersion exchangeVersion = ewsEnum.version();
-                dict.put(fieldName, exchangeVersion);
-            }
-        }
-        return dict;
-    }
-
-    /**
-     * Builds the enum to schema mapping dictionary.
-     *
-     * @param c class type
-     * @return The mapping from enum to schema name
-     */
-    private static Map<String, String> buildEnumToSchemaDict(Class<?> c) {
-        Map<String, String> dict = new HashMap<>();
-        Field[] fields = c.getFields();
-        for (Field f : fields) {
-            if (f.isEnumConstant() && f.isAnnotationPresent(EwsEnum.class)) {
-                EwsEnum ewsEnum = f.getAnnotation(EwsEnum.class);
-                String fieldName = f.getName();
-                String schemaName = ewsEnum.schemaName();
-                if (!schemaName.isEmpty()) {
-                    dict.put(fieldName, schemaName);
-                }
-            }
-        }
-        return dict;
-    }
-
     /**
      * Gets the enumerated object count.
      *
@@ -499,25 +499,60 @@ public class EwsXmlReader {
     }
 
     public byte[] writeBase64ElementValue() throws ExchangeXmlException {
-        this.ensureCurrentNodeIsStartElement();
-        try {
-            ByteArrayOutputStream byteArrayStream = new ByteArrayOutputStream();
-            byte[] buffer = Base64.getMimeDecoder().decode(this.xmlReader.getElementText());
-            byteArrayStream.write(buffer);
-            return byteArrayStream.toByteArray();
-        } catch (XMLStreamException | IOException e) {
-            throw new ExchangeXmlException("error reading base64 element value", e);
-        }
-
+        ByteArrayOutputStream byteArrayStream = new ByteArrayOutputStream();
+        this.writeBase64ElementValue(byteArrayStream);
+        return byteArrayStream.toByteArray();
     }
 
+    /**
+     * Decodes the base64 content of the current element into the given stream. The
+     * text is decoded chunk by chunk as the parser delivers it, so the encoded value
+     * is never held in memory as a whole. Present event must be START ELEMENT; after
+     * executing this function present event will be set on END ELEMENT.
+     *
+     * @param outputStream the stream receiving the decoded bytes
+     */
     public void writeBase64ElementValue(OutputStream outputStream) throws ExchangeXmlException {
         this.ensureCurrentNodeIsStartElement();
+        this.readBase64Value(outputStream);
+    }
+
+    /**
+     * Decodes base64 text into the given stream, starting either on the START ELEMENT
+     * of the value or on its first CHARACTERS event. After executing this function
+     * present event will be set on END ELEMENT.
+     *
+     * @param outputStream the stream receiving the decoded bytes
+     */
+    public void readBase64Value(OutputStream outputStream) throws ExchangeXmlException {
+        if (this.presentEvent.isStartElement()) {
+            this.read();
+        }
+        final Base64.Decoder decoder = Base64.getDecoder();
+        final StringBuilder pending = new StringBuilder();
         try {
-            byte[] buffer = Base64.getMimeDecoder().decode(this.xmlReader.getElementText());
-            outputStream.write(buffer);
+            while (!this.presentEvent.isEndElement()) {
+                if (this.presentEvent.isCharacters()) {
+                    final String data = this.presentEvent.asCharacters().getData();
+                    for (int i = 0; i < data.length(); i++) {
+                        final char c = data.charAt(i);
+                        if (!Character.isWhitespace(c)) {
+                            pending.append(c);
+                        }
+                    }
+                    final int complete = pending.length() - (pending.length() % 4);
+                    if (complete > 0) {
+                        outputStream.write(decoder.decode(pending.substring(0, complete)));
+                        pending.delete(0, complete);
+                    }
+                }
+                this.read();
+            }
+            if (pending.length() > 0) {
+                outputStream.write(Base64.getMimeDecoder().decode(pending.toString()));
+            }
             outputStream.flush();
-        } catch (XMLStreamException | IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             throw new ExchangeXmlException("error reading base64 element value", e);
         }
     }
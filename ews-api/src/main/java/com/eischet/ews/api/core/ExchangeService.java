@@ -24,6 +24,7 @@
 package com.eischet.ews.api.core;
 
 import com.eischet.ews.api.autodiscover.AutodiscoverService;
+import com.eischet.ews.api.autodiscover.IAutodiscoverCache;
 import com.eischet.ews.api.autodiscover.IAutodiscoverRedirectionUrl;
 import com.eischet.ews.api.autodiscover.enumeration.UserSettingName;
 import com.eischet.ews.api.autodiscover.exception.AutodiscoverLocalException;
@@ -32,6 +33,7 @@ import com.eischet.ews.api.autodiscover.response.GetUserSettingsResponse;
 import com.eischet.ews.api.core.enumeration.availability.AvailabilityData;
 import com.eischet.ews.api.core.enumeration.misc.*;
 import com.eischet.ews.api.core.enumeration.notification.EventType;
+import com.eischet.ews.api.core.enumeration.property.BasePropertySet;
 import com.eischet.ews.api.core.enumeration.property.BodyType;
 import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
 import com.eischet.ews.api.core.enumeration.search.ResolveNameSearchLocation;
@@ -51,7 +53,9 @@ import com.eischet.ews.api.core.service.ServiceObject;
 import com.eischet.ews.api.core.service.folder.Folder;
 import com.eischet.ews.api.core.service.item.Appointment;
 import com.eischet.ews.api.core.service.item.Conversation;
+import com.eischet.ews.api.core.service.item.EmailMessage;
 import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.core.service.schema.ItemSchema;
 import com.eischet.ews.api.http.ExchangeHttpClient;
 import com.eischet.ews.api.messaging.UnifiedMessaging;
 import com.eischet.ews.api.misc.*;
@@ -60,6 +64,7 @@ import com.eischet.ews.api.misc.availability.AvailabilityOptions;
 import com.eischet.ews.api.misc.availability.GetUserAvailabilityResults;
 import com.eischet.ews.api.misc.availability.TimeWindow;
 import com.eischet.ews.api.misc.id.AlternateIdBase;
+import com.eischet.ews.api.misc.id.ConvertIdCache;
 import com.eischet.ews.api.notification.GetEventsResults;
 import com.eischet.ews.api.notification.PullSubscription;
 import com.eischet.ews.api.notification.PushSubscription;
@@ -76,18 +81,23 @@ import com.eischet.ews.api.sync.ItemChange;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -130,12 +140,50 @@ public class ExchangeService extends ExchangeServiceBase implements IAutodiscove
 
     private boolean enableScpLookup = true;
 
+    /**
+     * The cache consulted by autodiscoverUrl, if any.
+     */
+    private IAutodiscoverCache autodiscoverCache;
+
+    /**
+     * Whether autodiscoverUrl probes candidate endpoints concurrently.
+     */
+    private boolean autodiscoverParallelProbing;
+
+    /**
+     * The cache of ConvertId results, if any.
+     */
+    private ConvertIdCache convertIdCache;
+
     /**
      * When false, used to indicate that we should use "Exchange2007" as the server version String rather than
      * Exchange2007_SP1 (@see #getExchange2007CompatibilityMode).
      */
     private boolean exchange2007CompatibilityMode = false;
 
+    /**
+     * The server's time zone definitions, fetched once per URL.
+     */
+    private volatile ServerTimeZones serverTimeZones;
+
+    /**
+     * The time zone definitions of a server.
+     */
+    private static final class ServerTimeZones {
+        private final URI url;
+        private final List<TimeZoneDefinition> timeZones;
+        private final Map<String, TimeZoneDefinition> timeZonesById;
+
+        private ServerTimeZones(URI url, List<TimeZoneDefinition> timeZones) {
+            this.url = url;
+            this.timeZones = timeZones;
+            this.timeZonesById = new HashMap<String, TimeZoneDefinition>();
+            for (TimeZoneDefinition tzd : timeZones) {
+                this.timeZonesById.put(tzd.getId(), tzd);
+            }
+        }
+    }
+
     /**
      * Create response object.
      *
@@ -1285,6 +1333,78 @@ public class ExchangeService extends ExchangeServiceBase implements IAutodiscove
         }
     }
 
+    /**
+     * Downloads the MIME content of an item straight into the specified stream.
+     * The base64 content is decoded while the response is being read, so the message
+     * is never held in memory as a whole (unless response tracing is enabled). The
+     * stream is flushed but not closed.
+     *
+     * @param itemId       the item id
+     * @param outputStream the stream receiving the MIME content
+     * @throws Exception the exception
+     */
+    public void exportItemMime(ItemId itemId, final OutputStream outputStream) throws Exception {
+        EwsUtilities.validateParam(itemId, "itemId");
+        EwsUtilities.validateParam(outputStream, "outputStream");
+        this.internalExportItemsMime(Collections.singletonList(itemId), new IMimeContentSink() {
+            @Override
+            public OutputStream openStream(ItemId id) {
+                return outputStream;
+            }
+
+            @Override
+            public void closeStream(ItemId id, OutputStream stream) throws IOException {
+                stream.flush();
+            }
+        }, ServiceErrorHandling.ThrowOnError);
+    }
+
+    /**
+     * Downloads the MIME content of multiple items in a single call to EWS, decoding
+     * the content of each item straight into the stream the sink provides for it.
+     *
+     * @param itemIds the item ids
+     * @param sink    the sink receiving the MIME content of each item
+     * @return A ServiceResponseCollection providing results for each of the
+     * specified item Ids. The items in the responses carry no MIME content.
+     * @throws Exception the exception
+     */
+    public ServiceResponseCollection<GetItemResponse> exportItemsMime(
+            Iterable<ItemId> itemIds, IMimeContentSink sink) throws Exception {
+        EwsUtilities.validateParamCollection(itemIds.iterator(), "itemIds");
+        EwsUtilities.validateParam(sink, "sink");
+        return this.internalExportItemsMime(itemIds, sink, ServiceErrorHandling.ReturnErrors);
+    }
+
+    private ServiceResponseCollection<GetItemResponse> internalExportItemsMime(
+            Iterable<ItemId> itemIds, IMimeContentSink sink,
+            ServiceErrorHandling errorHandling) throws Exception {
+        GetItemRequest request = new GetItemRequest(this, errorHandling);
+        request.getItemIds().addRange(itemIds);
+        request.setPropertySet(new PropertySet(BasePropertySet.IdOnly, ItemSchema.MimeContent));
+        request.setMimeContentSink(sink);
+        return request.execute();
+    }
+
+    /**
+     * Creates an item from MIME content read from the specified stream. The content
+     * is base64 encoded chunk by chunk while the request is written, rather than
+     * being loaded into memory first. The stream is read to its end but not closed.
+     *
+     * @param parentFolderId the folder to create the item in
+     * @param mimeContent    the stream providing the MIME content
+     * @return the id of the created item
+     * @throws Exception the exception
+     */
+    public ItemId importItemMime(FolderId parentFolderId, InputStream mimeContent) throws Exception {
+        EwsUtilities.validateParam(parentFolderId, "parentFolderId");
+        EwsUtilities.validateParam(mimeContent, "mimeContent");
+        EmailMessage message = new EmailMessage(this);
+        message.setMimeContent(new MimeContent(null, mimeContent));
+        message.save(parentFolderId);
+        return message.getId();
+    }
+
     /**
      * Deletes multiple item in a single call to EWS.
      *
@@ -2964,12 +3084,48 @@ public class ExchangeService extends ExchangeServiceBase implements IAutodiscove
             ServiceErrorHandling errorHandling) throws Exception {
         EwsUtilities.validateParamCollection(ids.iterator(), "ids");
 
-        ConvertIdRequest request = new ConvertIdRequest(this, errorHandling);
+        ConvertIdCache cache = this.convertIdCache;
+        if (cache == null) {
+            ConvertIdRequest request = new ConvertIdRequest(this, errorHandling);
+
+            request.getIds().addAll((Collection<? extends AlternateIdBase>) ids);
+            request.setDestinationFormat(destinationFormat);
+
+            return request.execute();
+        }
 
-        request.getIds().addAll((Collection<? extends AlternateIdBase>) ids);
+        // Answer what we can from the cache, and convert the rest in a single request.
+        List<ConvertIdResponse> results = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+        ConvertIdRequest request = new ConvertIdRequest(this, errorHandling);
         request.setDestinationFormat(destinationFormat);
+        for (AlternateIdBase id : ids) {
+            AlternateIdBase convertedId = cache.get(id, destinationFormat);
+            if (convertedId != null) {
+                results.add(new ConvertIdResponse(convertedId));
+            } else {
+                missingIndexes.add(results.size());
+                results.add(null);
+                request.getIds().add(id);
+            }
+        }
 
-        return request.execute();
+        if (!request.getIds().isEmpty()) {
+            ServiceResponseCollection<ConvertIdResponse> responses = request.execute();
+            for (int i = 0; i < responses.getCount(); i++) {
+                ConvertIdResponse response = responses.getResponseAtIndex(i);
+                if (response.getResult() == ServiceResult.Success) {
+                    cache.put(request.getIds().get(i), destinationFormat, response.getConvertedId());
+                }
+                results.set(missingIndexes.get(i), response);
+            }
+        }
+
+        ServiceResponseCollection<ConvertIdResponse> responses = new ServiceResponseCollection<>();
+        for (ConvertIdResponse response : results) {
+            responses.add(response);
+        }
+        return responses;
     }
 
     /**
@@ -3488,6 +3644,8 @@ public class ExchangeService extends ExchangeServiceBase implements IAutodiscove
 
         autodiscoverService.setRedirectionUrlValidationCallback(validateRedirectionUrlCallback);
         autodiscoverService.setEnableScpLookup(this.getEnableScpLookup());
+        autodiscoverService.setAutodiscoverCache(this.autodiscoverCache);
+        autodiscoverService.setParallelProbing(this.autodiscoverParallelProbing);
 
         GetUserSettingsResponse response = autodiscoverService.getUserSettings(
                 emailAddress, UserSettingName.InternalEwsUrl,
@@ -3607,6 +3765,29 @@ public class ExchangeService extends ExchangeServiceBase implements IAutodiscove
         super(requestedServerVersion, client);
     }
 
+    /**
+     * Initializes a new instance that copies the settings of another service and shares its
+     * HTTP client and caches.
+     *
+     * @param service                the service to copy
+     * @param requestedServerVersion the requested server version
+     */
+    protected ExchangeService(ExchangeService service, ExchangeVersion requestedServerVersion) {
+        super(service, requestedServerVersion);
+        this.setOnSerializeCustomSoapHeaders(service.getOnSerializeCustomSoapHeaders());
+        this.url = service.url;
+        this.preferredCulture = service.preferredCulture;
+        this.dateTimePrecision = service.dateTimePrecision;
+        this.impersonatedUserId = service.impersonatedUserId;
+        this.fileAttachmentContentHandler = service.fileAttachmentContentHandler;
+        this.enableScpLookup = service.enableScpLookup;
+        this.autodiscoverCache = service.autodiscoverCache;
+        this.autodiscoverParallelProbing = service.autodiscoverParallelProbing;
+        this.convertIdCache = service.convertIdCache;
+        this.exchange2007CompatibilityMode = service.exchange2007CompatibilityMode;
+        this.serverTimeZones = service.serverTimeZones;
+    }
+
     // Utilities
 
     /**
@@ -3785,6 +3966,67 @@ public class ExchangeService extends ExchangeServiceBase implements IAutodiscove
         this.enableScpLookup = value;
     }
 
+    /**
+     * Gets the cache used by the AutodiscoverUrl method.
+     *
+     * @return the autodiscover cache, or null if results are not cached
+     */
+    public IAutodiscoverCache getAutodiscoverCache() {
+        return this.autodiscoverCache;
+    }
+
+    /**
+     * Sets the cache used by the AutodiscoverUrl method. Share one cache between
+     * all services that discover mailboxes in the same domains, so that only the
+     * first lookup per domain has to run the full discovery algorithm.
+     *
+     * @param value the autodiscover cache, or null to disable caching
+     */
+    public void setAutodiscoverCache(IAutodiscoverCache value) {
+        this.autodiscoverCache = value;
+    }
+
+    /**
+     * Gets a value indicating whether the AutodiscoverUrl method probes candidate
+     * Autodiscover endpoints concurrently.
+     *
+     * @return true if parallel probing is enabled
+     */
+    public boolean getAutodiscoverParallelProbing() {
+        return this.autodiscoverParallelProbing;
+    }
+
+    /**
+     * Sets a value indicating whether the AutodiscoverUrl method probes candidate
+     * Autodiscover endpoints concurrently.
+     *
+     * @param value true to enable parallel probing
+     * @see AutodiscoverService#setParallelProbing(boolean)
+     */
+    public void setAutodiscoverParallelProbing(boolean value) {
+        this.autodiscoverParallelProbing = value;
+    }
+
+    /**
+     * Gets the cache of ConvertId results.
+     *
+     * @return the cache, or null if conversions are not cached
+     */
+    public ConvertIdCache getConvertIdCache() {
+        return this.convertIdCache;
+    }
+
+    /**
+     * Sets the cache of ConvertId results used by convertId and convertIds. Ids found in the
+     * cache are converted without a request; the others are converted in a single request
+     * and added to the cache. Conversions are not cached by default.
+     *
+     * @param value the cache, or null to disable caching
+     */
+    public void setConvertIdCache(ConvertIdCache value) {
+        this.convertIdCache = value;
+    }
+
     /**
      * Returns true whether Exchange2007 compatibility mode is enabled, false otherwise.
      */
@@ -3814,18 +4056,11 @@ public class ExchangeService extends ExchangeServiceBase implements IAutodiscove
      * @return A Collection containing the definitions of the specified time
      * zones.
      * @throws Exception
+     * @see #getServerTimeZones()
      */
     public Collection<TimeZoneDefinition> getServerTimeZones(
             Iterable<String> timeZoneIds) throws Exception {
-        Map<String, TimeZoneDefinition> timeZoneMap = new HashMap<String, TimeZoneDefinition>();
-
-        GetServerTimeZonesRequest request = new GetServerTimeZonesRequest(this);
-        ServiceResponseCollection<GetServerTimeZonesResponse> responses = request.execute();
-        for (GetServerTimeZonesResponse response : responses) {
-            for (TimeZoneDefinition tzd : response.getTimeZones()) {
-                timeZoneMap.put(tzd.getId(), tzd);
-            }
-        }
+        Map<String, TimeZoneDefinition> timeZoneMap = this.loadServerTimeZones().timeZonesById;
 
         Collection<TimeZoneDefinition> timeZoneList = new ArrayList<TimeZoneDefinition>();
 
@@ -3838,20 +4073,45 @@ public class ExchangeService extends ExchangeServiceBase implements IAutodiscove
 
     /**
      * Retrieves the definitions of all server-side time zones.
+     * <p>
+     * The definitions are requested once and then cached by this service until its URL changes
+     * or {@link #clearServerTimeZonesCache()} is called. They are shared instances and must not
+     * be modified.
+     * </p>
      *
      * @return A Collection containing the definitions of the specified time
      * zones.
      * @throws Exception
      */
     public Collection<TimeZoneDefinition> getServerTimeZones() throws Exception {
+        return new ArrayList<TimeZoneDefinition>(this.loadServerTimeZones().timeZones);
+    }
+
+    /**
+     * Discards the cached server-side time zone definitions, so that the next call to
+     * {@link #getServerTimeZones()} requests them again.
+     */
+    public void clearServerTimeZonesCache() {
+        this.serverTimeZones = null;
+    }
+
+    private ServerTimeZones loadServerTimeZones() throws Exception {
+        ServerTimeZones cached = this.serverTimeZones;
+        URI currentUrl = this.getUrl();
+        if (cached != null && Objects.equals(cached.url, currentUrl)) {
+            return cached;
+        }
+
         GetServerTimeZonesRequest request = new GetServerTimeZonesRequest(this);
-        Collection<TimeZoneDefinition> timeZoneList = new ArrayList<TimeZoneDefinition>();
+        List<TimeZoneDefinition> timeZoneList = new ArrayList<TimeZoneDefinition>();
         ServiceResponseCollection<GetServerTimeZonesResponse> responses = request.execute();
         for (GetServerTimeZonesResponse response : responses) {
             timeZoneList.addAll(response.getTimeZones());
         }
 
-        return timeZoneList;
+        cached = new ServerTimeZones(currentUrl, Collections.unmodifiableList(timeZoneList));
+        this.serverTimeZones = cached;
+        return cached;
     }
 
     /*
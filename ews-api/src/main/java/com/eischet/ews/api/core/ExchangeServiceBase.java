@@ -31,6 +31,7 @@ import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
 import com.eischet.ews.api.core.exception.service.remote.AccountIsLockedException;
 import com.eischet.ews.api.credential.ExchangeCredentials;
 import com.eischet.ews.api.http.ExchangeHttpClient;
+import com.eischet.ews.api.metrics.IRequestMetrics;
 import com.eischet.ews.api.misc.EwsTraceListener;
 import com.eischet.ews.api.misc.ITraceListener;
 
@@ -65,9 +66,14 @@ public abstract class ExchangeServiceBase implements Closeable {
     private boolean traceEnabled;
     private EnumSet<TraceFlags> traceFlags = EnumSet.allOf(TraceFlags.class);
     private ITraceListener traceListener = new EwsTraceListener();
+    private IRequestMetrics requestMetrics;
     private boolean preAuthenticate;
     private String userAgent = ExchangeServiceBase.defaultUserAgent;
     private boolean acceptGzipEncoding = true;
+    private boolean requestTemplateCachingEnabled = true;
+    private volatile SoapEnvelopeTemplate soapEnvelopeTemplate;
+    private StringInternPool stringInternPool;
+    private boolean updateDiffingEnabled;
     private ExchangeVersion requestedServerVersion = ExchangeVersion.Exchange2010_SP2;
     private ExchangeServerInfo serverInfo;
     private Map<String, String> httpHeaders = new HashMap<>();
@@ -112,10 +118,14 @@ public abstract class ExchangeServiceBase implements Closeable {
         this.traceEnabled = service.isTraceEnabled();
         this.traceListener = service.getTraceListener();
         this.traceFlags = service.getTraceFlags();
+        this.requestMetrics = service.getRequestMetrics();
         this.timeout = service.getTimeout();
         this.preAuthenticate = service.isPreAuthenticate();
         this.userAgent = service.getUserAgent();
         this.acceptGzipEncoding = service.getAcceptGzipEncoding();
+        this.requestTemplateCachingEnabled = service.isRequestTemplateCachingEnabled();
+        this.stringInternPool = service.getStringInternPool();
+        this.updateDiffingEnabled = service.isUpdateDiffingEnabled();
         this.httpHeaders = service.getHttpHeaders();
     }
 
@@ -480,6 +490,24 @@ public abstract class ExchangeServiceBase implements Closeable {
         this.traceEnabled = (traceListener != null);
     }
 
+    /**
+     * Gets the metrics collector that is notified about every request.
+     *
+     * @return the request metrics, or null if requests are not instrumented
+     */
+    public IRequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    /**
+     * Sets the metrics collector that is notified about every request.
+     *
+     * @param requestMetrics the request metrics, or null to disable instrumentation
+     */
+    public void setRequestMetrics(IRequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
     /**
      * Gets the credential used to authenticate with the Exchange Web Services.
      *
@@ -600,6 +628,94 @@ public abstract class ExchangeServiceBase implements Closeable {
         this.acceptGzipEncoding = acceptGzipEncoding;
     }
 
+    /**
+     * Gets a value indicating whether pre-serialized request fragments are reused.
+     *
+     * @return true if request templates are cached
+     */
+    public boolean isRequestTemplateCachingEnabled() {
+        return requestTemplateCachingEnabled;
+    }
+
+    /**
+     * Sets a value indicating whether pre-serialized request fragments are reused. When
+     * enabled (the default), the SOAP envelope is rendered once per service configuration,
+     * and read-only property sets are serialized once, and both are copied into each
+     * request as bytes. Envelopes are never cached while credentials or custom SOAP header
+     * handlers contribute headers, as those may differ from request to request.
+     *
+     * @param requestTemplateCachingEnabled true to cache request templates
+     */
+    public void setRequestTemplateCachingEnabled(boolean requestTemplateCachingEnabled) {
+        this.requestTemplateCachingEnabled = requestTemplateCachingEnabled;
+        this.soapEnvelopeTemplate = null;
+    }
+
+    /**
+     * Gets the pool used to share repeated values of responses.
+     *
+     * @return the pool, or null if values aren't pooled
+     */
+    public StringInternPool getStringInternPool() {
+        return stringInternPool;
+    }
+
+    /**
+     * Sets the pool used to share repeated values of responses. When set, values that tend to
+     * repeat on every item of a response (folder ids, item and folder classes, categories,
+     * e-mail address names, addresses and routing types) are read as a single shared instance,
+     * which reduces the memory retained by large result sets. The pool may be shared by
+     * several services. Pooling is disabled by default.
+     *
+     * @param stringInternPool the pool, or null to disable pooling
+     */
+    public void setStringInternPool(StringInternPool stringInternPool) {
+        this.stringInternPool = stringInternPool;
+    }
+
+    /**
+     * Indicates whether updates only send properties whose values differ from the ones
+     * last loaded from or saved to the server.
+     *
+     * @return true if update diffing is enabled
+     */
+    public boolean isUpdateDiffingEnabled() {
+        return updateDiffingEnabled;
+    }
+
+    /**
+     * Enables or disables update diffing. When enabled, the serialized value of every
+     * updatable property is remembered when an item or folder is loaded or saved, and
+     * an update only sends the properties whose values are now different. Assigning a
+     * property its current value no longer results in an UpdateItem/UpdateFolder call,
+     * and e-mail address and attendee collections that were only appended to are sent
+     * with AppendToItemField. Snapshots are taken when objects are loaded, so objects
+     * loaded before diffing was enabled are not affected. Diffing is disabled by default.
+     *
+     * @param updateDiffingEnabled true to enable update diffing
+     */
+    public void setUpdateDiffingEnabled(boolean updateDiffingEnabled) {
+        this.updateDiffingEnabled = updateDiffingEnabled;
+    }
+
+    /**
+     * Gets the cached SOAP envelope of this service's requests.
+     *
+     * @return the envelope, or null if none has been rendered yet
+     */
+    public SoapEnvelopeTemplate getSoapEnvelopeTemplate() {
+        return soapEnvelopeTemplate;
+    }
+
+    /**
+     * Sets the cached SOAP envelope of this service's requests.
+     *
+     * @param soapEnvelopeTemplate the envelope, or null to render it again
+     */
+    public void setSoapEnvelopeTemplate(SoapEnvelopeTemplate soapEnvelopeTemplate) {
+        this.soapEnvelopeTemplate = soapEnvelopeTemplate;
+    }
+
     /**
      * Gets the requested server version.
      *
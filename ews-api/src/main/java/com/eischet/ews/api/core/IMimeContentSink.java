@@ -0,0 +1,61 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core;
+
+import com.eischet.ews.api.property.complex.ItemId;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Receives the MIME content of items exported with
+ * {@link ExchangeService#exportItemsMime(Iterable, IMimeContentSink)}. The content is
+ * decoded straight into the stream returned by {@link #openStream(ItemId)}, so it is
+ * never held in memory as a whole.
+ */
+public interface IMimeContentSink {
+
+    /**
+     * Provides the stream to which the MIME content of the specified item is written.
+     * Called only for items the server returned successfully.
+     *
+     * @param itemId the Id of the item, as it was requested
+     * @return the stream receiving the decoded MIME content
+     * @throws IOException if the stream cannot be opened
+     */
+    OutputStream openStream(ItemId itemId) throws IOException;
+
+    /**
+     * Called once the MIME content of an item has been written completely, or when
+     * reading it failed. Closes the stream by default.
+     *
+     * @param itemId the Id of the item, as it was requested
+     * @param stream the stream returned by {@link #openStream(ItemId)}
+     * @throws IOException if the stream cannot be closed
+     */
+    default void closeStream(ItemId itemId, OutputStream stream) throws IOException {
+        stream.close();
+    }
+
+}
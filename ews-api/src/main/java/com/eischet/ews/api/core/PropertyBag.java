@@ -34,8 +34,10 @@ import com.eischet.ews.api.core.exception.service.local.ServiceVersionException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.service.ServiceObject;
 import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.core.service.schema.ServiceObjectSchema;
 import com.eischet.ews.api.misc.OutParam;
 import com.eischet.ews.api.property.complex.ComplexProperty;
+import com.eischet.ews.api.property.complex.ComplexPropertyCollection;
 import com.eischet.ews.api.property.complex.IComplexPropertyChanged;
 import com.eischet.ews.api.property.complex.IComplexPropertyChangedDelegate;
 import com.eischet.ews.api.property.complex.IOwnedProperty;
@@ -43,6 +45,8 @@ import com.eischet.ews.api.property.definition.ComplexPropertyDefinitionBase;
 import com.eischet.ews.api.property.definition.PropertyDefinition;
 import com.eischet.ews.api.security.XmlNodeType;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.Map.Entry;
 
@@ -72,10 +76,20 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
     private boolean onlySummaryPropertiesRequested;
 
     /**
-     * The loaded property.
+     * The schema of the owner, resolved on first use.
      */
-    private final List<PropertyDefinition> loadedProperties =
-            new ArrayList<PropertyDefinition>();
+    private ServiceObjectSchema schema;
+
+    /**
+     * Properties that are not part of the owner's schema. They get ordinals
+     * following the schema's own, in the order they are first seen.
+     */
+    private List<PropertyDefinition> foreignProperties;
+
+    /**
+     * The ordinals of the loaded properties.
+     */
+    private final BitSet loadedProperties = new BitSet();
 
     /**
      * The property.
@@ -84,22 +98,32 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
             new HashMap<PropertyDefinition, Object>();
 
     /**
-     * The deleted property.
+     * The ordinals of the deleted properties.
      */
-    private final Map<PropertyDefinition, Object> deletedProperties =
-            new HashMap<PropertyDefinition, Object>();
+    private final BitSet deletedProperties = new BitSet();
 
     /**
-     * The modified property.
+     * The values the deleted properties had, indexed by ordinal. Allocated on
+     * the first deletion of a property that had a value.
      */
-    private final List<PropertyDefinition> modifiedProperties =
-            new ArrayList<PropertyDefinition>();
+    private Object[] deletedValues;
 
     /**
-     * The added property.
+     * The ordinals of the modified properties.
      */
-    private final List<PropertyDefinition> addedProperties =
-            new ArrayList<PropertyDefinition>();
+    private final BitSet modifiedProperties = new BitSet();
+
+    /**
+     * The ordinals of the added properties.
+     */
+    private final BitSet addedProperties = new BitSet();
+
+    /**
+     * The serialized value each updatable property had when it was last loaded
+     * from or saved to the server, indexed by ordinal. Only kept when update
+     * diffing is enabled on the service.
+     */
+    private byte[][] snapshots;
 
     /**
      * The requested property set.
@@ -141,24 +165,77 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
      * @return True if the bag has pending changes, false otherwise.
      */
     public boolean getIsDirty() {
-        int changes = this.modifiedProperties.size() +
-                this.deletedProperties.size() + this.addedProperties.size();
-        return changes > 0 || this.isDirty;
+        return this.isDirty || !this.addedProperties.isEmpty() ||
+                !this.modifiedProperties.isEmpty() || !this.deletedProperties.isEmpty();
     }
 
     /**
-     * Adds the specified property to the specified change list if it is not
-     * already present.
+     * Gets the schema of the owner.
      *
-     * @param propertyDefinition The property to add to the change list.
-     * @param changeList         The change list to add the property to.
+     * @return the schema
      */
-    protected static void addToChangeList(
-            PropertyDefinition propertyDefinition,
-            List<PropertyDefinition> changeList) {
-        if (!changeList.contains(propertyDefinition)) {
-            changeList.add(propertyDefinition);
+    private ServiceObjectSchema getSchema() {
+        if (this.schema == null) {
+            this.schema = this.getOwner().getSchema();
+        }
+        return this.schema;
+    }
+
+    /**
+     * Gets the ordinal used to track the specified property in the change log.
+     * Properties registered with the owner's schema use the schema's ordinal;
+     * any other property is assigned one past the schema's range.
+     *
+     * @param propertyDefinition the property definition
+     * @param assign             whether to assign an ordinal to a property that does not
+     *                           have one yet
+     * @return the ordinal, or -1 if the property has none and assign is false
+     */
+    private int ordinalOf(PropertyDefinition propertyDefinition, boolean assign) {
+        ServiceObjectSchema schema = this.getSchema();
+        int ordinal = schema.getPropertyOrdinal(propertyDefinition);
+        if (ordinal >= 0) {
+            return ordinal;
         }
+
+        int index = this.foreignProperties != null ?
+                this.foreignProperties.indexOf(propertyDefinition) : -1;
+        if (index < 0) {
+            if (!assign) {
+                return -1;
+            }
+            if (this.foreignProperties == null) {
+                this.foreignProperties = new ArrayList<PropertyDefinition>();
+            }
+            index = this.foreignProperties.size();
+            this.foreignProperties.add(propertyDefinition);
+        }
+        return schema.getPropertyCount() + index;
+    }
+
+    /**
+     * Gets the property tracked under the specified ordinal.
+     *
+     * @param ordinal the ordinal
+     * @return the property definition
+     */
+    private PropertyDefinition propertyAt(int ordinal) {
+        ServiceObjectSchema schema = this.getSchema();
+        int count = schema.getPropertyCount();
+        return ordinal < count ? schema.getPropertyByOrdinal(ordinal) :
+                this.foreignProperties.get(ordinal - count);
+    }
+
+    /**
+     * Checks whether the ordinal of a property is set in a change set.
+     *
+     * @param changes            the change set
+     * @param propertyDefinition the property definition
+     * @return true if the property is part of the change set
+     */
+    private boolean isTracked(BitSet changes, PropertyDefinition propertyDefinition) {
+        int ordinal = this.ordinalOf(propertyDefinition, false);
+        return ordinal >= 0 && changes.get(ordinal);
     }
 
     /**
@@ -169,7 +246,7 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
      */
     public boolean isPropertyLoaded(PropertyDefinition propertyDefinition) {
         // Is the property loaded?
-        if (this.loadedProperties.contains(propertyDefinition)) {
+        if (this.isTracked(this.loadedProperties, propertyDefinition)) {
             return true;
         } else {
             // Was the property requested?
@@ -216,8 +293,9 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
      * false.
      */
     public boolean isPropertyUpdated(PropertyDefinition propertyDefinition) {
-        return this.modifiedProperties.contains(propertyDefinition) ||
-                this.addedProperties.contains(propertyDefinition);
+        int ordinal = this.ordinalOf(propertyDefinition, false);
+        return ordinal >= 0 && (this.modifiedProperties.get(ordinal) ||
+                this.addedProperties.get(ordinal));
     }
 
     /**
@@ -401,9 +479,9 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
         while (it.hasNext()) {
             Entry<PropertyDefinition, Object> keyValuePair = it.next();
             if (keyValuePair.getValue().equals(complexProperty)) {
-                if (!this.deletedProperties.containsKey(keyValuePair.getKey())) {
-                    addToChangeList(keyValuePair.getKey(),
-                            this.modifiedProperties);
+                int ordinal = this.ordinalOf(keyValuePair.getKey(), true);
+                if (!this.deletedProperties.get(ordinal)) {
+                    this.modifiedProperties.set(ordinal);
                     this.changed();
                 }
             }
@@ -416,17 +494,22 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
      * @param propertyDefinition The property to delete.
      */
     protected void deleteProperty(PropertyDefinition propertyDefinition) {
-        if (!this.deletedProperties.containsKey(propertyDefinition)) {
-            Object propertyValue = null;
-
-            if (this.properties.containsKey(propertyDefinition)) {
-                propertyValue = this.properties.get(propertyDefinition);
+        int ordinal = this.ordinalOf(propertyDefinition, true);
+        if (!this.deletedProperties.get(ordinal)) {
+            Object propertyValue = this.properties.remove(propertyDefinition);
+
+            this.modifiedProperties.clear(ordinal);
+            this.deletedProperties.set(ordinal);
+            if (propertyValue != null) {
+                if (this.deletedValues == null) {
+                    this.deletedValues = new Object[Math.max(ordinal + 1,
+                            this.getSchema().getPropertyCount())];
+                } else if (ordinal >= this.deletedValues.length) {
+                    this.deletedValues = Arrays.copyOf(this.deletedValues, ordinal + 1);
+                }
+                this.deletedValues[ordinal] = propertyValue;
             }
 
-            this.properties.remove(propertyDefinition);
-            this.modifiedProperties.remove(propertyDefinition);
-            this.deletedProperties.put(propertyDefinition, propertyValue);
-
             if (propertyValue instanceof ComplexProperty) {
                 ComplexProperty complexProperty =
                         (ComplexProperty) propertyValue;
@@ -439,9 +522,11 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
      * Clears the bag.
      */
     protected void clear() {
+        this.snapshots = null;
         this.clearChangeLog();
         this.properties.clear();
         this.loadedProperties.clear();
+        this.foreignProperties = null;
         this.requestedPropertySet = null;
     }
 
@@ -449,7 +534,20 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
      * Clears the bag's change log.
      */
     public void clearChangeLog() {
+        // With update diffing, the values just saved become the new baseline.
+        BitSet changes = this.isUpdateDiffingEnabled() ? this.getChangedOrdinals() : null;
+        this.resetChangeLog();
+        if (changes != null) {
+            this.takeSnapshots(changes);
+        }
+    }
+
+    /**
+     * Clears the change log without touching the snapshots.
+     */
+    private void resetChangeLog() {
         this.deletedProperties.clear();
+        this.deletedValues = null;
         this.modifiedProperties.clear();
         this.addedProperties.clear();
 
@@ -490,6 +588,7 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
         this.requestedPropertySet = requestedPropertySet;
         this.onlySummaryPropertiesRequested = onlySummaryPropertiesRequested;
 
+        BitSet loaded = new BitSet();
         try {
             do {
                 reader.read();
@@ -505,7 +604,9 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
                         propertyDefinition.loadPropertyValueFromXml(reader,
                                 this);
 
-                        this.loadedProperties.add(propertyDefinition);
+                        int ordinal = this.ordinalOf(propertyDefinition, true);
+                        this.loadedProperties.set(ordinal);
+                        loaded.set(ordinal);
                     } else {
                         reader.skipCurrentElement();
                     }
@@ -513,7 +614,13 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
             } while (!reader.isEndElement(XmlNamespace.Types, this.getOwner()
                     .getXmlElementName()));
 
-            this.clearChangeLog();
+            if (this.isUpdateDiffingEnabled()) {
+                loaded.or(this.getChangedOrdinals());
+                this.resetChangeLog();
+                this.takeSnapshots(loaded);
+            } else {
+                this.clearChangeLog();
+            }
         } finally {
             this.loading = false;
         }
@@ -565,20 +672,20 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
 
         writer.writeStartElement(XmlNamespace.Types, XmlElementNames.Updates);
 
-        for (PropertyDefinition propertyDefinition : this.addedProperties) {
-            this.writeSetUpdateToXml(writer, propertyDefinition);
+        this.discardUnchangedValues(writer);
+
+        for (int i = this.addedProperties.nextSetBit(0); i >= 0; i = this.addedProperties.nextSetBit(i + 1)) {
+            this.writeSetUpdateToXml(writer, this.propertyAt(i));
         }
 
-        for (PropertyDefinition propertyDefinition : this.modifiedProperties) {
-            this.writeSetUpdateToXml(writer, propertyDefinition);
+        for (int i = this.modifiedProperties.nextSetBit(0); i >= 0; i = this.modifiedProperties.nextSetBit(i + 1)) {
+            this.writeSetUpdateToXml(writer, this.propertyAt(i));
         }
 
-        Iterator<Entry<PropertyDefinition, Object>> it = this.deletedProperties
-                .entrySet().iterator();
-        while (it.hasNext()) {
-            Entry<PropertyDefinition, Object> property = it.next();
-            this.writeDeleteUpdateToXml(writer, property.getKey(), property
-                    .getValue());
+        for (int i = this.deletedProperties.nextSetBit(0); i >= 0; i = this.deletedProperties.nextSetBit(i + 1)) {
+            Object propertyValue = this.deletedValues != null && i < this.deletedValues.length ?
+                    this.deletedValues[i] : null;
+            this.writeDeleteUpdateToXml(writer, this.propertyAt(i), propertyValue);
         }
 
         writer.writeEndElement();
@@ -589,23 +696,198 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
      * Determines whether an EWS UpdateItem/UpdateFolder call is necessary to
      * save the changes that occurred in the bag.
      *
+     * With update diffing, modified properties whose value equals the one
+     * last loaded or saved don't count; they are compared without being
+     * removed from the change log, which only happens when the update is
+     * written.
+     *
      * @return True if an UpdateItem/UpdateFolder call is necessary, false
      * otherwise.
      */
     public boolean getIsUpdateCallNecessary() {
-        List<PropertyDefinition> propertyDefinitions =
-                new ArrayList<PropertyDefinition>();
-        propertyDefinitions.addAll(this.addedProperties);
-        propertyDefinitions.addAll(this.modifiedProperties);
-        propertyDefinitions.addAll(this.deletedProperties.keySet());
-        for (PropertyDefinition propertyDefinition : propertyDefinitions) {
-            if (propertyDefinition.hasFlag(PropertyDefinitionFlags.CanUpdate)) {
+        ServiceObjectSchema schema = this.getSchema();
+        if (schema.containsUpdatableProperty(this.addedProperties) ||
+                schema.containsUpdatableProperty(this.deletedProperties)) {
+            return true;
+        }
+        if (this.snapshots == null) {
+            if (schema.containsUpdatableProperty(this.modifiedProperties)) {
                 return true;
             }
+        } else if (this.containsChangedModifiedValue()) {
+            return true;
+        }
+
+        // Properties outside the schema are rare; check their flags directly.
+        if (this.foreignProperties != null) {
+            int count = schema.getPropertyCount();
+            for (int i = 0; i < this.foreignProperties.size(); i++) {
+                int ordinal = count + i;
+                if ((this.addedProperties.get(ordinal) || this.deletedProperties.get(ordinal) ||
+                        (this.snapshots == null && this.modifiedProperties.get(ordinal))) &&
+                        this.foreignProperties.get(i).hasFlag(PropertyDefinitionFlags.CanUpdate)) {
+                    return true;
+                }
+            }
         }
         return false;
     }
 
+    /**
+     * Indicates whether the owner's service has update diffing enabled.
+     *
+     * @return true if property values are snapshotted and compared on update
+     */
+    private boolean isUpdateDiffingEnabled() {
+        ExchangeService service = this.getOwner().getService();
+        return service != null && service.isUpdateDiffingEnabled();
+    }
+
+    /**
+     * Gets the ordinals of all added, modified and deleted properties.
+     *
+     * @return a new set of ordinals
+     */
+    private BitSet getChangedOrdinals() {
+        BitSet changes = (BitSet) this.addedProperties.clone();
+        changes.or(this.modifiedProperties);
+        changes.or(this.deletedProperties);
+        return changes;
+    }
+
+    /**
+     * Gets the snapshot of the property with the specified ordinal.
+     *
+     * @param ordinal the ordinal
+     * @return the serialized value, or null if there is none
+     */
+    private byte[] getSnapshot(int ordinal) {
+        return this.snapshots != null && ordinal >= 0 && ordinal < this.snapshots.length ?
+                this.snapshots[ordinal] : null;
+    }
+
+    /**
+     * Serializes the current value of the specified property as it would be
+     * sent in an update.
+     *
+     * @param writer             a writer to render the value with
+     * @param propertyDefinition the property definition
+     * @return the serialized value, or null if it could not be serialized
+     */
+    private byte[] renderValue(EwsServiceXmlWriter writer, PropertyDefinition propertyDefinition) {
+        try {
+            return writer.renderFragment(w -> propertyDefinition.writePropertyValueToXml(w, this, true));
+        } catch (ExchangeXmlException e) {
+            // A value that can't be rendered is never considered unchanged.
+            return null;
+        }
+    }
+
+    /**
+     * Creates a writer used to render property values for comparison.
+     *
+     * @return the writer, or null if none could be created
+     */
+    private EwsServiceXmlWriter createSnapshotWriter() {
+        try {
+            return new EwsServiceXmlWriter(this.getOwner().getService(), OutputStream.nullOutputStream());
+        } catch (XMLStreamException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Remembers the current values of the specified properties, so later updates
+     * can be compared against it.
+     *
+     * @param ordinals the ordinals of the properties to snapshot
+     */
+    private void takeSnapshots(BitSet ordinals) {
+        EwsServiceXmlWriter writer = null;
+        for (int i = ordinals.nextSetBit(0); i >= 0; i = ordinals.nextSetBit(i + 1)) {
+            PropertyDefinition propertyDefinition = this.propertyAt(i);
+            byte[] snapshot = null;
+            if (propertyDefinition.hasFlag(PropertyDefinitionFlags.CanUpdate) &&
+                    this.properties.containsKey(propertyDefinition)) {
+                if (writer == null) {
+                    writer = this.createSnapshotWriter();
+                    if (writer == null) {
+                        return;
+                    }
+                }
+                snapshot = this.renderValue(writer, propertyDefinition);
+            }
+
+            if (snapshot != null) {
+                if (this.snapshots == null) {
+                    this.snapshots = new byte[Math.max(i + 1, this.getSchema().getPropertyCount())][];
+                } else if (i >= this.snapshots.length) {
+                    this.snapshots = Arrays.copyOf(this.snapshots, i + 1);
+                }
+                this.snapshots[i] = snapshot;
+            } else if (this.getSnapshot(i) != null) {
+                this.snapshots[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Tells whether an updatable modified property has a value that differs
+     * from the one last loaded or saved, stopping at the first one found.
+     *
+     * @return true if at least one modified value has really changed
+     */
+    private boolean containsChangedModifiedValue() {
+        EwsServiceXmlWriter writer = null;
+        for (int i = this.modifiedProperties.nextSetBit(0); i >= 0; i = this.modifiedProperties.nextSetBit(i + 1)) {
+            PropertyDefinition propertyDefinition = this.propertyAt(i);
+            if (!propertyDefinition.hasFlag(PropertyDefinitionFlags.CanUpdate)) {
+                continue;
+            }
+            byte[] snapshot = this.getSnapshot(i);
+            if (snapshot == null) {
+                return true;
+            }
+            if (writer == null) {
+                writer = this.createSnapshotWriter();
+                if (writer == null) {
+                    return true;
+                }
+            }
+            if (!Arrays.equals(snapshot, this.renderValue(writer, propertyDefinition))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes modified properties whose value is the same as the one last loaded
+     * or saved from the change log, so no update is sent for them.
+     *
+     * @param writer a writer to render values with, or null to create one
+     */
+    private void discardUnchangedValues(EwsServiceXmlWriter writer) {
+        if (this.snapshots == null) {
+            return;
+        }
+
+        for (int i = this.modifiedProperties.nextSetBit(0); i >= 0; i = this.modifiedProperties.nextSetBit(i + 1)) {
+            byte[] snapshot = this.getSnapshot(i);
+            if (snapshot != null) {
+                if (writer == null) {
+                    writer = this.createSnapshotWriter();
+                    if (writer == null) {
+                        return;
+                    }
+                }
+                if (Arrays.equals(snapshot, this.renderValue(writer, this.propertyAt(i)))) {
+                    this.modifiedProperties.clear(i);
+                }
+            }
+        }
+    }
+
     /**
      * Initializes a ComplexProperty instance. When a property is inserted into
      * the bag, it needs to be initialized in order for changes that occur on
@@ -643,7 +925,15 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
 
             boolean handled = false;
 
-            if (propertyValue instanceof ICustomXmlUpdateSerializer) {
+            // A loaded collection that was only appended to can be updated
+            // with just the new item.
+            if (propertyValue instanceof ComplexPropertyCollection &&
+                    this.getSnapshot(this.ordinalOf(propertyDefinition, false)) != null) {
+                handled = ((ComplexPropertyCollection<?>) propertyValue)
+                        .writeAppendUpdateToXml(writer, this.getOwner(), propertyDefinition);
+            }
+
+            if (!handled && propertyValue instanceof ICustomXmlUpdateSerializer) {
                 ICustomXmlUpdateSerializer updateSerializer =
                         (ICustomXmlUpdateSerializer) propertyValue;
                 handled = updateSerializer.writeSetUpdateToXml(writer, this
@@ -709,12 +999,12 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
      * @throws Exception the exception
      */
     public void validate() throws Exception {
-        for (PropertyDefinition propertyDefinition : this.addedProperties) {
-            this.validatePropertyValue(propertyDefinition);
+        for (int i = this.addedProperties.nextSetBit(0); i >= 0; i = this.addedProperties.nextSetBit(i + 1)) {
+            this.validatePropertyValue(this.propertyAt(i));
         }
 
-        for (PropertyDefinition propertyDefinition : this.modifiedProperties) {
-            this.validatePropertyValue(propertyDefinition);
+        for (int i = this.modifiedProperties.nextSetBit(0); i >= 0; i = this.modifiedProperties.nextSetBit(i + 1)) {
+            this.validatePropertyValue(this.propertyAt(i));
         }
     }
 
@@ -824,20 +1114,21 @@ public class PropertyBag implements IComplexPropertyChanged, IComplexPropertyCha
 
             // If the property was to be deleted, the deletion becomes an
             // update.
-            if (this.deletedProperties.containsKey(propertyDefinition)) {
-                this.deletedProperties.remove(propertyDefinition);
-                addToChangeList(propertyDefinition, this.modifiedProperties);
+            int ordinal = this.ordinalOf(propertyDefinition, true);
+            if (this.deletedProperties.get(ordinal)) {
+                this.deletedProperties.clear(ordinal);
+                if (this.deletedValues != null && ordinal < this.deletedValues.length) {
+                    this.deletedValues[ordinal] = null;
+                }
+                this.modifiedProperties.set(ordinal);
             } else {
                 // If the property value was not set, we have a newly set
                 // property.
                 if (!this.properties.containsKey(propertyDefinition)) {
-                    addToChangeList(propertyDefinition, this.addedProperties);
+                    this.addedProperties.set(ordinal);
                 } else {
                     // The last case is that we have a modified property.
-                    if (!this.modifiedProperties.contains(propertyDefinition)) {
-                        addToChangeList(propertyDefinition,
-                                this.modifiedProperties);
-                    }
+                    this.modifiedProperties.set(ordinal);
                 }
             }
 
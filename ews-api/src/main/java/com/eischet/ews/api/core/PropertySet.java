@@ -40,6 +40,7 @@ import com.eischet.ews.api.property.definition.PropertyDefinitionBase;
 
 import javax.xml.stream.XMLStreamException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a set of item or folder property. Property sets are used to
@@ -132,7 +133,24 @@ public final class PropertySet implements ISelfValidate,
     /**
      * Value indicating whether or not this PropertySet can be modified.
      */
-    private boolean isReadOnly;
+    private volatile boolean isReadOnly;
+
+    /**
+     * The hash code of a read-only property set, computed when it is frozen.
+     */
+    private int frozenHashCode;
+
+    /**
+     * The requests a read-only property set has been validated for, by requested server
+     * version, summary flag and request element name.
+     */
+    private final Set<List<Object>> validatedRequests = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Serialized shapes of a read-only property set, by service object type and requested
+     * server version.
+     */
+    private final Map<List<Object>, byte[]> xmlFragments = new ConcurrentHashMap<>();
 
     /**
      * Initializes a new instance of PropertySet.
@@ -276,10 +294,41 @@ public final class PropertySet implements ISelfValidate,
     private static PropertySet createReadonlyPropertySet(
             BasePropertySet basePropertySet) {
         PropertySet propertySet = new PropertySet(basePropertySet);
+        propertySet.frozenHashCode = propertySet.computeHashCode();
         propertySet.isReadOnly = true;
         return propertySet;
     }
 
+    /**
+     * Makes this property set read-only. A frozen property set is validated once, can be
+     * shared between threads and requests, is serialized only once per server version, and
+     * compares equal to other frozen property sets with the same contents, so it can be
+     * used as a cache key.
+     * <p>
+     * The predefined {@link #IdOnly} and {@link #FirstClassProperties} sets are frozen.
+     * </p>
+     *
+     * @return this property set
+     * @throws ExchangeValidationException if the property set is invalid
+     */
+    public PropertySet freeze() throws ExchangeValidationException {
+        if (!this.isReadOnly) {
+            this.internalValidate();
+            this.frozenHashCode = this.computeHashCode();
+            this.isReadOnly = true;
+        }
+        return this;
+    }
+
+    /**
+     * Gets a value indicating whether this property set is read-only, see {@link #freeze()}.
+     *
+     * @return true if the property set can't be modified
+     */
+    public boolean isReadOnly() {
+        return this.isReadOnly;
+    }
+
     /**
      * Throws if readonly property set.
      */
@@ -480,6 +529,21 @@ public final class PropertySet implements ISelfValidate,
      */
     public void validateForRequest(ServiceRequestBase request, boolean summaryPropertiesOnly) throws ServiceVersionException,
             ExchangeValidationException {
+        if (this.isReadOnly) {
+            // The outcome only depends on the requested version and the kind of request.
+            List<Object> key = Arrays.<Object>asList(request.getService().getRequestedServerVersion(),
+                    summaryPropertiesOnly, request.getXmlElementName());
+            if (!this.validatedRequests.contains(key)) {
+                this.internalValidateForRequest(request, summaryPropertiesOnly);
+                this.validatedRequests.add(key);
+            }
+        } else {
+            this.internalValidateForRequest(request, summaryPropertiesOnly);
+        }
+    }
+
+    private void internalValidateForRequest(ServiceRequestBase request, boolean summaryPropertiesOnly)
+            throws ServiceVersionException, ExchangeValidationException {
         for (PropertyDefinitionBase propDefBase : this.additionalProperties) {
             if (propDefBase instanceof PropertyDefinition) {
                 PropertyDefinition propertyDefinition =
@@ -529,7 +593,25 @@ public final class PropertySet implements ISelfValidate,
      * @throws XMLStreamException               the XML stream exception
      * @throws ServiceXmlSerializationException the service xml serialization exception
      */
-    public void writeToXml(EwsServiceXmlWriter writer, ServiceObjectType serviceObjectType) throws ExchangeXmlException {
+    public void writeToXml(final EwsServiceXmlWriter writer, final ServiceObjectType serviceObjectType)
+            throws ExchangeXmlException {
+        if (this.isReadOnly && writer.getService().isRequestTemplateCachingEnabled()) {
+            // A read-only property set always serializes the same way; render it once.
+            List<Object> key = Arrays.<Object>asList(serviceObjectType,
+                    writer.getService().getRequestedServerVersion());
+            byte[] fragment = this.xmlFragments.get(key);
+            if (fragment == null) {
+                fragment = writer.renderFragment(w -> this.internalWriteToXml(w, serviceObjectType));
+                this.xmlFragments.put(key, fragment);
+            }
+            writer.writeFragment(fragment);
+        } else {
+            this.internalWriteToXml(writer, serviceObjectType);
+        }
+    }
+
+    private void internalWriteToXml(EwsServiceXmlWriter writer, ServiceObjectType serviceObjectType)
+            throws ExchangeXmlException {
         writer
                 .writeStartElement(
                         XmlNamespace.Messages,
@@ -576,7 +658,42 @@ public final class PropertySet implements ISelfValidate,
      */
     @Override
     public Iterator<PropertyDefinitionBase> iterator() {
+        if (this.isReadOnly) {
+            return Collections.unmodifiableList(this.additionalProperties).iterator();
+        }
         return this.additionalProperties.iterator();
     }
 
+    /**
+     * Read-only property sets are equal if they have the same contents; property sets that
+     * can still be modified are only equal to themselves.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PropertySet)) {
+            return false;
+        }
+        PropertySet other = (PropertySet) obj;
+        return this.isReadOnly && other.isReadOnly
+                && this.frozenHashCode == other.frozenHashCode
+                && this.basePropertySet == other.basePropertySet
+                && this.requestedBodyType == other.requestedBodyType
+                && Objects.equals(this.filterHtml, other.filterHtml)
+                && Objects.equals(this.convertHtmlCodePageToUTF8, other.convertHtmlCodePageToUTF8)
+                && this.additionalProperties.equals(other.additionalProperties);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.isReadOnly ? this.frozenHashCode : System.identityHashCode(this);
+    }
+
+    private int computeHashCode() {
+        return Objects.hash(this.basePropertySet, this.requestedBodyType, this.filterHtml,
+                this.convertHtmlCodePageToUTF8, this.additionalProperties);
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core;
+
+import java.util.List;
+
+/**
+ * A pre-rendered SOAP envelope: the UTF-8 bytes before and after the body of a request,
+ * together with the service configuration they were rendered for.
+ */
+public final class SoapEnvelopeTemplate {
+
+    private final List<Object> configuration;
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param configuration the service configuration the envelope reflects
+     * @param prefix        everything up to and including the start of the SOAP body
+     * @param suffix        the end of the SOAP body and envelope
+     */
+    public SoapEnvelopeTemplate(List<Object> configuration, byte[] prefix, byte[] suffix) {
+        this.configuration = configuration;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Checks whether the envelope was rendered for the specified configuration.
+     *
+     * @param configuration the current service configuration
+     * @return true if the envelope can be reused
+     */
+    public boolean matches(List<Object> configuration) {
+        return this.configuration.equals(configuration);
+    }
+
+    /**
+     * Gets everything up to and including the start of the SOAP body.
+     *
+     * @return the prefix, which must not be modified
+     */
+    public byte[] getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Gets the end of the SOAP body and envelope.
+     *
+     * @return the suffix, which must not be modified
+     */
+    public byte[] getSuffix() {
+        return suffix;
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded pool of strings used to share a single instance of values that repeat across the
+ * items of a response, such as parent folder ids, item classes, categories and the names and
+ * addresses of frequent senders.
+ * <p>
+ * The pool is a fixed-size table without eviction bookkeeping: a value replaces whatever
+ * occupied its slot, so frequently repeated values stay in the pool while one-off values are
+ * quickly displaced. Values longer than {@link #MAX_VALUE_LENGTH} are never pooled. The pool
+ * is safe for use by multiple threads.
+ * </p>
+ *
+ * @see ExchangeServiceBase#setStringInternPool(StringInternPool)
+ */
+public final class StringInternPool {
+
+    /**
+     * The default number of slots.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The maximum length of a pooled value.
+     */
+    public static final int MAX_VALUE_LENGTH = 512;
+
+    /**
+     * The pooled values.
+     */
+    private final AtomicReferenceArray<String> slots;
+
+    /**
+     * The mask to map a hash code to a slot.
+     */
+    private final int mask;
+
+    /**
+     * Initializes a new pool with the default capacity.
+     */
+    public StringInternPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes a new pool.
+     *
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    public StringInternPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be greater than 0.");
+        }
+        int size = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<String>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Gets the pooled instance of a value, adding the value to the pool if it isn't pooled yet.
+     *
+     * @param value the value, may be null
+     * @return an instance equal to the value
+     */
+    public String intern(String value) {
+        if (value == null || value.length() > MAX_VALUE_LENGTH) {
+            return value;
+        }
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & this.mask;
+        String pooled = this.slots.get(index);
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+        this.slots.lazySet(index, value);
+        return value;
+    }
+
+    /**
+     * Gets the number of slots of this pool.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return this.slots.length();
+    }
+
+    /**
+     * Removes all values from the pool.
+     */
+    public void clear() {
+        for (int i = 0; i < this.slots.length(); i++) {
+            this.slots.set(i, null);
+        }
+    }
+
+}
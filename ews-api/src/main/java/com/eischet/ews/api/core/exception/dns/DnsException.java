@@ -43,4 +43,14 @@ public class DnsException extends ExchangeException {
     public DnsException(String exceptionMessage) {
         super(exceptionMessage);
     }
+
+    /**
+     * Instantiates a new dns exception.
+     *
+     * @param exceptionMessage the exception message
+     * @param cause            the cause
+     */
+    public DnsException(String exceptionMessage, Throwable cause) {
+        super(exceptionMessage, cause);
+    }
 }
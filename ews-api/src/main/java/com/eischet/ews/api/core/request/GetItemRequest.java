@@ -24,7 +24,9 @@
 package com.eischet.ews.api.core.request;
 
 import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.IMimeContentSink;
 import com.eischet.ews.api.core.enumeration.service.error.ServiceErrorHandling;
+import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.response.GetItemResponse;
 
 /**
@@ -32,6 +34,11 @@ import com.eischet.ews.api.core.response.GetItemResponse;
  */
 public final class GetItemRequest extends GetItemRequestBase<GetItemResponse> {
 
+    /**
+     * The sink receiving the MIME content of the items, if it is streamed.
+     */
+    private IMimeContentSink mimeContentSink;
+
     /**
      * Initializes a new instance of the class.
      *
@@ -52,9 +59,34 @@ public final class GetItemRequest extends GetItemRequestBase<GetItemResponse> {
      * @return Service response
      */
     protected GetItemResponse createServiceResponse(ExchangeService service,
-                                                    int responseIndex) {
+                                                    int responseIndex) throws ExchangeXmlException {
+        if (this.mimeContentSink != null) {
+            return new GetItemResponse(this.getItemIds().getItemIdWrapperList(
+                    responseIndex), this.getPropertySet(),
+                    this.getItemIds().getItemId(responseIndex), this.mimeContentSink);
+        }
         return new GetItemResponse(this.getItemIds().getItemIdWrapperList(
                 responseIndex), this.getPropertySet());
     }
 
+    /**
+     * Gets the sink receiving the MIME content of the items.
+     *
+     * @return the sink, or null if MIME content is loaded into the items
+     */
+    public IMimeContentSink getMimeContentSink() {
+        return this.mimeContentSink;
+    }
+
+    /**
+     * Sets the sink receiving the MIME content of the items. When set, the MIME
+     * content is decoded straight into the sink instead of being loaded into the
+     * returned items.
+     *
+     * @param mimeContentSink the sink, or null to load MIME content into the items
+     */
+    public void setMimeContentSink(IMimeContentSink mimeContentSink) {
+        this.mimeContentSink = mimeContentSink;
+    }
+
 }
@@ -173,6 +173,7 @@ public abstract class HangingServiceRequestBase<T> extends ServiceRequestBase<T>
     public void internalExecute() throws Exception {
         synchronized (this) {
             this.response = this.validateAndEmitRequest();
+            this.metricsCompleted(null, null);
             this.internalOnConnect();
         }
     }
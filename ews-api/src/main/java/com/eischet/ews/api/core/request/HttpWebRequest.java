@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -452,6 +453,20 @@ public abstract class HttpWebRequest implements Closeable {
         this.headers = headers;
     }
 
+    /**
+     * Sets a single header, in addition to the headers set with {@link #setHeaders(Map)}.
+     *
+     * @param headerName  The header name
+     * @param headerValue The header value
+     */
+    public void setHeader(String headerName, String headerValue) {
+        // The map set with setHeaders() is usually shared with the service, so don't modify it.
+        Map<String, String> copy = (this.headers != null) ? new HashMap<String, String>(this.headers)
+                : new HashMap<String, String>();
+        copy.put(headerName, headerValue);
+        this.headers = copy;
+    }
+
     /**
      * Sets the credential.
      *
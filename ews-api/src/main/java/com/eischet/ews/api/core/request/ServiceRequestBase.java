@@ -28,6 +28,7 @@ import com.eischet.ews.api.core.enumeration.misc.DateTimePrecision;
 import com.eischet.ews.api.core.enumeration.misc.ExchangeVersion;
 import com.eischet.ews.api.core.enumeration.misc.TraceFlags;
 import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
 import com.eischet.ews.api.core.exception.http.EWSHttpException;
 import com.eischet.ews.api.core.exception.http.HttpErrorException;
 import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
@@ -38,15 +39,25 @@ import com.eischet.ews.api.core.exception.service.remote.ServiceRequestException
 import com.eischet.ews.api.core.exception.service.remote.ServiceResponseException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.response.ServiceResponse;
+import com.eischet.ews.api.core.response.ServiceResponseCollection;
+import com.eischet.ews.api.credential.ExchangeCredentials;
 import com.eischet.ews.api.http.ExchangeHttpClient;
+import com.eischet.ews.api.metrics.IRequestMetrics;
+import com.eischet.ews.api.metrics.IRequestMetricsRecorder;
+import com.eischet.ews.api.misc.ImpersonatedUserId;
 import com.eischet.ews.api.misc.SoapFaultDetails;
 import com.eischet.ews.api.security.XmlNodeType;
 
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
@@ -59,11 +70,45 @@ public abstract class ServiceRequestBase<T> {
 
     private static final Logger LOG = Logger.getLogger(ServiceRequestBase.class.getCanonicalName());
 
+    /**
+     * The end of the SOAP body and envelope, spliced in after the body of a cached envelope.
+     */
+    private static final byte[] ENVELOPE_END = ("</" + EwsUtilities.getNamespacePrefix(XmlNamespace.Soap) + ":"
+            + XmlElementNames.SOAPBodyElementName + "></" + EwsUtilities.getNamespacePrefix(XmlNamespace.Soap) + ":"
+            + XmlElementNames.SOAPEnvelopeElementName + ">").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Whether a credentials class overrides the methods that write SOAP headers.
+     */
+    private static final ClassValue<Boolean> WRITES_SOAP_HEADERS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("emitExtraSoapHeaderNamespaceAliases", XMLStreamWriter.class)
+                        .getDeclaringClass() != ExchangeCredentials.class
+                        || type.getMethod("serializeExtraSoapHeaders", XMLStreamWriter.class, String.class)
+                        .getDeclaringClass() != ExchangeCredentials.class;
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        }
+    };
+
     /**
      * The service.
      */
     private final ExchangeService service;
 
+    /**
+     * The metrics recorder of the request in progress, if the service is instrumented.
+     */
+    private IRequestMetricsRecorder metricsRecorder;
+
+    /**
+     * The time the request in progress was started, in nanoseconds.
+     */
+    private long metricsStartNanos;
+
     // Methods for subclasses to override
 
     /**
@@ -180,6 +225,77 @@ public abstract class ServiceRequestBase<T> {
      * @throws Exception the exception
      */
     protected void writeToXml(EwsServiceXmlWriter writer) throws Exception {
+        final SoapEnvelopeTemplate envelope = this.getSoapEnvelopeTemplate(writer);
+        if (envelope != null) {
+            writer.writeFragment(envelope.getPrefix());
+            this.writeBodyToXml(writer);
+            writer.writeFragment(envelope.getSuffix());
+            writer.flush();
+            return;
+        }
+
+        this.writeEnvelopeStartToXml(writer);
+
+        this.writeBodyToXml(writer);
+
+        writer.writeEndElement(); // soap:Body
+        writer.writeEndElement(); // soap:Envelope
+        writer.flush();
+    }
+
+    /**
+     * Gets the pre-rendered SOAP envelope for the current service configuration, rendering
+     * it if necessary.
+     *
+     * @param writer the writer the request is written to
+     * @return the envelope, or null if it can't be cached
+     */
+    private SoapEnvelopeTemplate getSoapEnvelopeTemplate(EwsServiceXmlWriter writer) throws Exception {
+        if (!this.service.isRequestTemplateCachingEnabled() || !this.isSoapEnvelopeCacheable()) {
+            return null;
+        }
+        final ImpersonatedUserId impersonatedUserId = this.service.getImpersonatedUserId();
+        final List<Object> configuration = Arrays.<Object>asList(
+                this.getRequestedServiceVersionString(),
+                this.service.getRequestedServerVersion(),
+                this.service.getPreferredCulture(),
+                this.service.getDateTimePrecision(),
+                impersonatedUserId == null ? null : impersonatedUserId.getIdType(),
+                impersonatedUserId == null ? null : impersonatedUserId.getId(),
+                writer.isRequireWSSecurityUtilityNamespace());
+        SoapEnvelopeTemplate envelope = this.service.getSoapEnvelopeTemplate();
+        if (envelope == null || !envelope.matches(configuration)) {
+            byte[] prefix = writer.renderFragment(this::writeEnvelopeStartToXml);
+            envelope = new SoapEnvelopeTemplate(configuration, prefix, ENVELOPE_END);
+            this.service.setSoapEnvelopeTemplate(envelope);
+        }
+        return envelope;
+    }
+
+    /**
+     * Checks whether the SOAP envelope is the same for every request. Credentials that
+     * add their own SOAP headers, such as WS-Security, and custom SOAP header handlers
+     * may write different headers each time.
+     *
+     * @return true if the envelope can be cached
+     */
+    private boolean isSoapEnvelopeCacheable() {
+        final ExchangeCredentials credentials = this.service.getCredentials();
+        if (credentials != null && (credentials.isNeedSignature()
+                || WRITES_SOAP_HEADERS.get(credentials.getClass()))) {
+            return false;
+        }
+        return this.service.getOnSerializeCustomSoapHeaders() == null
+                || this.service.getOnSerializeCustomSoapHeaders().isEmpty();
+    }
+
+    /**
+     * Writes the SOAP envelope up to and including the start of the SOAP body.
+     *
+     * @param writer The writer.
+     * @throws Exception the exception
+     */
+    private void writeEnvelopeStartToXml(EwsServiceXmlWriter writer) throws Exception {
         writer.writeStartDocument();
         writer.writeStartElement(XmlNamespace.Soap, XmlElementNames.SOAPEnvelopeElementName);
         writer.writeAttributeValue("xmlns", EwsUtilities.getNamespacePrefix(XmlNamespace.Soap),
@@ -244,12 +360,6 @@ public abstract class ServiceRequestBase<T> {
         writer.writeEndElement(); // soap:Header
 
         writer.writeStartElement(XmlNamespace.Soap, XmlElementNames.SOAPBodyElementName);
-
-        this.writeBodyToXml(writer);
-
-        writer.writeEndElement(); // soap:Body
-        writer.writeEndElement(); // soap:Envelope
-        writer.flush();
     }
 
     /**
@@ -355,6 +465,24 @@ public abstract class ServiceRequestBase<T> {
      * @throws Exception on error
      */
     protected T readResponse(ExchangeHttpClient.Request response) throws Exception {
+        try {
+            T serviceResponse = this.readHttpResponse(response);
+            this.metricsCompleted(serviceResponse, null);
+            return serviceResponse;
+        } catch (Exception e) {
+            this.metricsCompleted(null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the response body of an HTTP request.
+     *
+     * @param response HTTP web request
+     * @return response response object
+     * @throws Exception on error
+     */
+    private T readHttpResponse(ExchangeHttpClient.Request response) throws Exception {
         T serviceResponse;
 
         if (!response.getResponseContentType().startsWith("text/xml")) {
@@ -370,6 +498,8 @@ public abstract class ServiceRequestBase<T> {
         try {
             this.getService().processHttpResponseHeaders(TraceFlags.EwsResponseHttpHeaders, response);
 
+            long parseStart = System.nanoTime();
+            long responseBytes;
             if (this.getService().isTraceEnabledFor(TraceFlags.EwsResponse)) {
                 ByteArrayOutputStream memoryStream = new ByteArrayOutputStream();
                 InputStream serviceResponseStream = ServiceRequestBase.getResponseStream(response);
@@ -386,10 +516,22 @@ public abstract class ServiceRequestBase<T> {
                 serviceResponse = this.readResponse(ewsXmlReader);
                 serviceResponseStream.close();
                 memoryStream.flush();
+                responseBytes = memoryStream.size();
+            } else if (this.metricsRecorder != null) {
+                CountingInputStream responseStream =
+                        new CountingInputStream(ServiceRequestBase.getResponseStream(response));
+                EwsServiceXmlReader ewsXmlReader = new EwsServiceXmlReader(responseStream, this.getService());
+                serviceResponse = this.readResponse(ewsXmlReader);
+                responseBytes = responseStream.getCount();
             } else {
                 InputStream responseStream = ServiceRequestBase.getResponseStream(response);
                 EwsServiceXmlReader ewsXmlReader = new EwsServiceXmlReader(responseStream, this.getService());
                 serviceResponse = this.readResponse(ewsXmlReader);
+                responseBytes = -1;
+            }
+
+            if (this.metricsRecorder != null) {
+                this.metricsRecorder.parsed(System.nanoTime() - parseStart, responseBytes);
             }
 
             return serviceResponse;
@@ -641,7 +783,20 @@ public abstract class ServiceRequestBase<T> {
 
         try {
             try {
-                return this.getEwsHttpWebResponse(request);
+                try {
+                    return this.getEwsHttpWebResponse(request);
+                } catch (HttpErrorException e) {
+                    ExchangeCredentials credentials = this.service.getCredentials();
+                    if (e.getHttpErrorCode() != 401 || credentials == null
+                            || !credentials.refreshAfterUnauthorized(request)) {
+                        throw e;
+                    }
+                    // The credentials were refreshed; send the request once more.
+                    request.close();
+                    this.metricsCompleted(null, e);
+                    request = buildEwsHttpWebRequest();
+                    return this.getEwsHttpWebResponse(request);
+                }
             } catch (HttpErrorException e) {
                 processWebException(e, request);
 
@@ -650,6 +805,7 @@ public abstract class ServiceRequestBase<T> {
             }
         } catch (Exception e) {
             request.close();
+            this.metricsCompleted(null, e);
             throw e;
         }
     }
@@ -681,7 +837,9 @@ public abstract class ServiceRequestBase<T> {
     }
 
     private ExchangeHttpClient.Request buildEwsHttpWebRequest(ExchangeHttpClient.Request request) throws Exception {
+        this.metricsStarted();
         try {
+            long serializeStart = System.nanoTime();
 
             service.traceHttpRequestHeaders(TraceFlags.EwsRequestHttpHeaders, request);
 
@@ -699,12 +857,20 @@ public abstract class ServiceRequestBase<T> {
                 service.getCredentials().sign(requestStream);
             }
 
+            if (this.metricsRecorder != null) {
+                this.metricsRecorder.serialized(System.nanoTime() - serializeStart, requestStream.size());
+            }
+
             service.traceXml(TraceFlags.EwsRequest, requestStream);
 
             return request;
-        } catch (IOException e) {
-            // Wrap exception.
-            throw new ServiceRequestException(String.format("The request failed. %s", e.getMessage()), e);
+        } catch (Exception e) {
+            this.metricsCompleted(null, e);
+            if (e instanceof IOException) {
+                // Wrap exception.
+                throw new ServiceRequestException(String.format("The request failed. %s", e.getMessage()), e);
+            }
+            throw e;
         }
     }
 
@@ -717,8 +883,13 @@ public abstract class ServiceRequestBase<T> {
      */
     protected ExchangeHttpClient.Request getEwsHttpWebResponse(ExchangeHttpClient.Request request) throws Exception {
         try {
+            long sendStart = System.nanoTime();
             request.executeRequest();
 
+            if (this.metricsRecorder != null) {
+                this.metricsRecorder.responseReceived(System.nanoTime() - sendStart, request.getResponseCode());
+            }
+
             if (request.getResponseCode() >= 400) {
                 throw new HttpErrorException(
                         "The remote server returned an error: (" + request.getResponseCode() + ")" +
@@ -732,6 +903,57 @@ public abstract class ServiceRequestBase<T> {
         return request;
     }
 
+    /**
+     * Starts recording metrics for this request, if the service is instrumented.
+     */
+    private void metricsStarted() {
+        IRequestMetrics requestMetrics = this.service.getRequestMetrics();
+        if (requestMetrics == null) {
+            this.metricsRecorder = null;
+            return;
+        }
+        ImpersonatedUserId impersonatedUserId = this.service.getImpersonatedUserId();
+        this.metricsStartNanos = System.nanoTime();
+        this.metricsRecorder = requestMetrics.startRequest(this.getXmlElementName(),
+                impersonatedUserId != null ? impersonatedUserId.getId() : null);
+    }
+
+    /**
+     * Completes recording metrics for this request. Reports the errors contained in the response or
+     * in the exception, and does nothing if the request has already been completed.
+     *
+     * @param serviceResponse the response, or null if the request failed
+     * @param failure         the exception the request failed with, or null
+     */
+    protected void metricsCompleted(Object serviceResponse, Exception failure) {
+        IRequestMetricsRecorder recorder = this.metricsRecorder;
+        if (recorder == null) {
+            return;
+        }
+        this.metricsRecorder = null;
+
+        if (serviceResponse instanceof ServiceResponse) {
+            reportServiceError(recorder, ((ServiceResponse) serviceResponse).getErrorCode());
+        } else if (serviceResponse instanceof ServiceResponseCollection) {
+            for (Object response : (ServiceResponseCollection<?>) serviceResponse) {
+                reportServiceError(recorder, ((ServiceResponse) response).getErrorCode());
+            }
+        }
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof ServiceResponseException) {
+                reportServiceError(recorder, ((ServiceResponseException) t).getErrorCode());
+                break;
+            }
+        }
+        recorder.completed(System.nanoTime() - this.metricsStartNanos, failure);
+    }
+
+    private static void reportServiceError(IRequestMetricsRecorder recorder, ServiceError error) {
+        if (error != null && error != ServiceError.NoError) {
+            recorder.serviceError(error);
+        }
+    }
+
     /**
      * Checks whether input string is null or empty.
      *
@@ -756,4 +978,46 @@ public abstract class ServiceRequestBase<T> {
         }
     }
 
+
+    /**
+     * Counts the bytes read from a response stream.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
 }
@@ -28,11 +28,20 @@ import com.eischet.ews.api.core.XmlElementNames;
 import com.eischet.ews.api.core.enumeration.availability.FreeBusyViewType;
 import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
 import com.eischet.ews.api.core.enumeration.property.LegacyFreeBusyStatus;
+import com.eischet.ews.api.core.enumeration.service.ServiceResult;
+import com.eischet.ews.api.misc.availability.MergedFreeBusy;
+import com.eischet.ews.api.misc.availability.TimeWindow;
 import com.eischet.ews.api.property.complex.availability.CalendarEvent;
 import com.eischet.ews.api.property.complex.availability.WorkingHours;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents the availability of an individual attendee.
@@ -45,11 +54,21 @@ public final class AttendeeAvailability extends ServiceResponse {
     private final Collection<CalendarEvent> calendarEvents =
             new ArrayList<CalendarEvent>();
 
+    /**
+     * The free busy view types by name.
+     */
+    private static final Map<String, FreeBusyViewType> VIEW_TYPES = new HashMap<>();
+
+    static {
+        for (FreeBusyViewType viewType : FreeBusyViewType.values()) {
+            VIEW_TYPES.put(viewType.toString(), viewType);
+        }
+    }
+
     /**
      * The merged free busy status.
      */
-    private final Collection<LegacyFreeBusyStatus> mergedFreeBusyStatus =
-            new ArrayList<LegacyFreeBusyStatus>();
+    private MergedFreeBusy mergedFreeBusy = MergedFreeBusy.EMPTY;
 
     /**
      * The view type.
@@ -68,6 +87,63 @@ public final class AttendeeAvailability extends ServiceResponse {
         super();
     }
 
+    /**
+     * Initializes a new instance that takes its result, view type and working hours from another one.
+     *
+     * @param first the availability of the first time window
+     */
+    private AttendeeAvailability(AttendeeAvailability first) {
+        super(first);
+        this.viewType = first.viewType;
+        this.workingHours = first.workingHours;
+    }
+
+    /**
+     * Combines the availability of one attendee over consecutive time windows into a single result,
+     * trimmed to the requested time window. The merged free/busy slots are concatenated and calendar
+     * events are combined in order, dropping events that span a window boundary and were therefore
+     * reported twice. As the server only accepts whole days, the parts may cover more than the requested
+     * time window: slots outside the given range and events outside the time window are dropped. If any
+     * part failed, that part is returned as-is.
+     * <p>
+     * The result is always a new instance, so the parts may be cached and shared. The calendar events
+     * and working hours are read-only and shared with the parts.
+     * </p>
+     *
+     * @param parts      the availability per time window, in chronological order
+     * @param timeWindow the requested time window
+     * @param fromSlot   the first merged free/busy slot of the requested time window, inclusive
+     * @param toSlot     the last merged free/busy slot of the requested time window, exclusive
+     * @return the combined availability
+     */
+    public static AttendeeAvailability concat(List<AttendeeAvailability> parts, TimeWindow timeWindow,
+            int fromSlot, int toSlot) {
+        for (AttendeeAvailability part : parts) {
+            if (part.getResult() == ServiceResult.Error) {
+                return part;
+            }
+        }
+
+        AttendeeAvailability combined = new AttendeeAvailability(parts.get(0));
+        List<MergedFreeBusy> mergedParts = new ArrayList<MergedFreeBusy>(parts.size());
+        Set<List<Object>> seenEvents = new HashSet<List<Object>>();
+        for (AttendeeAvailability part : parts) {
+            mergedParts.add(part.mergedFreeBusy);
+            for (CalendarEvent event : part.calendarEvents) {
+                if (!event.getStartTime().isBefore(timeWindow.getEndTime())
+                        || !event.getEndTime().isAfter(timeWindow.getStartTime())) {
+                    continue;
+                }
+                if (seenEvents.add(Arrays.<Object>asList(event.getStartTime(), event.getEndTime(),
+                        event.getFreeBusyStatus()))) {
+                    combined.calendarEvents.add(event);
+                }
+            }
+        }
+        combined.mergedFreeBusy = MergedFreeBusy.concat(mergedParts).slice(fromSlot, toSlot);
+        return combined;
+    }
+
     /**
      * Loads the free busy view from XML.
      *
@@ -82,31 +158,14 @@ public final class AttendeeAvailability extends ServiceResponse {
         String viewTypeString = reader.readElementValue(XmlNamespace.Types,
                 XmlElementNames.FreeBusyViewType);
 
-        for (Object o : FreeBusyViewType.class.getEnumConstants()) {
-            if (o.toString().equals(viewTypeString)) {
-                this.viewType = (FreeBusyViewType) o;
-                break;
-            }
-        }
+        this.viewType = VIEW_TYPES.get(viewTypeString);
         do {
             reader.read();
 
             if (reader.isStartElement()) {
                 if (reader.getLocalName()
                         .equals(XmlElementNames.MergedFreeBusy)) {
-                    String mergedFreeBusy = reader.readElementValue();
-
-                    for (int i = 0; i < mergedFreeBusy.length(); i++) {
-
-                        Byte b = Byte.parseByte(mergedFreeBusy.charAt(i) + "");
-                        for (LegacyFreeBusyStatus legacyStatus : LegacyFreeBusyStatus.values()) {
-                            if (b == legacyStatus.getBusyStatus()) {
-                                this.mergedFreeBusyStatus.add(legacyStatus);
-                                break;
-                            }
-                        }
-
-                    }
+                    this.mergedFreeBusy = MergedFreeBusy.parse(reader.readElementValue());
 
                 } else if (reader.getLocalName().equals(
                         XmlElementNames.CalendarEventArray)) {
@@ -148,12 +207,23 @@ public final class AttendeeAvailability extends ServiceResponse {
     }
 
     /**
-     * Gets a collection of merged free/busy status for the attendee.
+     * Gets a collection of merged free/busy status for the attendee, one element per slot.
+     * The collection is a read-only view of {@link #getMergedFreeBusy()}.
      *
      * @return the merged free busy status
      */
     public Collection<LegacyFreeBusyStatus> getMergedFreeBusyStatus() {
-        return mergedFreeBusyStatus;
+        return mergedFreeBusy.asList();
+    }
+
+    /**
+     * Gets the merged free/busy status for the attendee in its compact form, which supports searching
+     * for common free slots across attendees.
+     *
+     * @return the merged free busy status; empty if no merged view was requested
+     */
+    public MergedFreeBusy getMergedFreeBusy() {
+        return mergedFreeBusy;
     }
 
     /**
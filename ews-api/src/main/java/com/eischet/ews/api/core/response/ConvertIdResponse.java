@@ -28,11 +28,13 @@ import com.eischet.ews.api.core.EwsUtilities;
 import com.eischet.ews.api.core.XmlAttributeNames;
 import com.eischet.ews.api.core.XmlElementNames;
 import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
+import com.eischet.ews.api.core.enumeration.service.ServiceResult;
 import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
 import com.eischet.ews.api.misc.id.AlternateId;
 import com.eischet.ews.api.misc.id.AlternateIdBase;
 import com.eischet.ews.api.misc.id.AlternatePublicFolderId;
 import com.eischet.ews.api.misc.id.AlternatePublicFolderItemId;
+import com.eischet.ews.api.misc.id.ConvertIdCache;
 
 /**
  * Represents the response to an individual Id conversion operation.
@@ -51,6 +53,17 @@ public final class ConvertIdResponse extends ServiceResponse {
         super();
     }
 
+    /**
+     * Initializes a new, successful instance holding an id that was converted
+     * earlier, e.g. one taken from a {@link ConvertIdCache}.
+     *
+     * @param convertedId the converted id
+     */
+    public ConvertIdResponse(AlternateIdBase convertedId) {
+        super(ServiceResult.Success);
+        this.convertedId = convertedId;
+    }
+
     /**
      * Reads response elements from XML.
      *
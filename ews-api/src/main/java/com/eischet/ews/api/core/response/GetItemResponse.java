@@ -27,7 +27,9 @@ import com.eischet.ews.api.core.*;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.service.ServiceObject;
 import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.property.complex.ItemId;
 
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -46,6 +48,16 @@ public final class GetItemResponse extends ServiceResponse implements
      */
     private final PropertySet propertySet;
 
+    /**
+     * The sink receiving the MIME content of the item, if it is streamed.
+     */
+    private final IMimeContentSink mimeContentSink;
+
+    /**
+     * The requested item Id, passed to the MIME content sink.
+     */
+    private final ItemId requestedItemId;
+
     /**
      * Initializes a new instance of the class.
      *
@@ -53,9 +65,25 @@ public final class GetItemResponse extends ServiceResponse implements
      * @param propertySet the property set
      */
     public GetItemResponse(Item item, PropertySet propertySet) {
+        this(item, propertySet, null, null);
+    }
+
+    /**
+     * Initializes a new instance of the class that streams the MIME content of the
+     * item into a sink instead of loading it into the item.
+     *
+     * @param item            the item
+     * @param propertySet     the property set
+     * @param requestedItemId the requested item Id
+     * @param mimeContentSink the sink receiving the MIME content, or null
+     */
+    public GetItemResponse(Item item, PropertySet propertySet, ItemId requestedItemId,
+                           IMimeContentSink mimeContentSink) {
         super();
         this.item = item;
         this.propertySet = propertySet;
+        this.requestedItemId = requestedItemId;
+        this.mimeContentSink = mimeContentSink;
         EwsUtilities.ewsAssert(this.propertySet != null, "GetItemResponse.ctor", "PropertySet should not be null");
     }
 
@@ -71,13 +99,25 @@ public final class GetItemResponse extends ServiceResponse implements
             throws InstantiationException, IllegalAccessException, Exception {
         super.readElementsFromXml(reader);
 
-        List<Item> items = reader.readServiceObjectsCollectionFromXml(
-                XmlElementNames.Items, this,
-                true, /* clearPropertyBag */
-                this.propertySet, /* requestedPropertySet */
-                false); /* summaryPropertiesOnly */
+        OutputStream mimeContentTarget = null;
+        if (this.mimeContentSink != null) {
+            mimeContentTarget = this.mimeContentSink.openStream(this.requestedItemId);
+            reader.setMimeContentTarget(mimeContentTarget);
+        }
+        try {
+            List<Item> items = reader.readServiceObjectsCollectionFromXml(
+                    XmlElementNames.Items, this,
+                    true, /* clearPropertyBag */
+                    this.propertySet, /* requestedPropertySet */
+                    false); /* summaryPropertiesOnly */
 
-        this.item = items.get(0);
+            this.item = items.get(0);
+        } finally {
+            if (mimeContentTarget != null) {
+                reader.setMimeContentTarget(null);
+                this.mimeContentSink.closeStream(this.requestedItemId, mimeContentTarget);
+            }
+        }
     }
 
     /**
@@ -72,7 +72,7 @@ public class GetServerTimeZonesResponse extends ServiceResponse {
                             new TimeZoneDefinition();
                     timeZoneDefinition.loadFromXml(reader);
 
-                    this.timeZones.add(timeZoneDefinition);
+                    this.timeZones.add(TimeZoneDefinition.share(timeZoneDefinition));
                 }
             } while (!reader.isEndElement(XmlNamespace.Messages,
                     XmlElementNames.TimeZoneDefinitions));
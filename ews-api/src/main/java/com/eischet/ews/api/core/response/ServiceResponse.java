@@ -90,6 +90,29 @@ public class ServiceResponse {
         this.errorDetails = soapFaultDetails.getErrorDetails();
     }
 
+    /**
+     * Initializes a new instance with the specified result, for a response that is
+     * produced locally instead of being read from the server.
+     *
+     * @param result the result
+     */
+    protected ServiceResponse(ServiceResult result) {
+        this.result = result;
+    }
+
+    /**
+     * Initializes a new instance with the result and error information of another response.
+     *
+     * @param other the response whose result, error code, message and details are copied
+     */
+    protected ServiceResponse(ServiceResponse other) {
+        this.result = other.result;
+        this.errorCode = other.errorCode;
+        this.errorMessage = other.errorMessage;
+        this.errorDetails = new HashMap<String, String>(other.errorDetails);
+        this.errorProperties.addAll(other.errorProperties);
+    }
+
     /**
      * Loads response from XML.
      *
@@ -197,10 +220,7 @@ public class ServiceResponse {
                                                     FieldIndex)));
                 } else if (reader.getLocalName().equals(
                         XmlElementNames.ExtendedFieldURI)) {
-                    ExtendedPropertyDefinition extendedPropDef =
-                            new ExtendedPropertyDefinition();
-                    extendedPropDef.loadFromXml(reader);
-                    this.errorProperties.add(extendedPropDef);
+                    this.errorProperties.add(ExtendedPropertyDefinition.readFromXml(reader));
                 }
             }
         } while (!reader.isEndElement(XmlNamespace.Messages,
@@ -128,13 +128,18 @@ public abstract class ServiceObject {
 
     /**
      * GetXmlElementName retrieves the XmlElementName of this type based on the
-     * EwsObjectDefinition attribute that decorates it, if present.
+     * EwsObjectDefinition attribute that decorates it, if present. Types of
+     * this library are looked up in the registry generated at build time;
+     * the annotation is only read reflectively for types defined elsewhere.
      *
      * @return The XML element name associated with this type.
      */
     public String getXmlElementName() {
         if (this.isNullOrEmpty(this.xmlElementName)) {
             this.xmlElementName = this.getXmlElementNameOverride();
+            if (this.isNullOrEmpty(this.xmlElementName)) {
+                this.xmlElementName = GeneratedServiceObjectRegistry.XML_ELEMENT_NAMES.get(this.getClass());
+            }
             if (this.isNullOrEmpty(this.xmlElementName)) {
                 synchronized (this.lockObject) {
 
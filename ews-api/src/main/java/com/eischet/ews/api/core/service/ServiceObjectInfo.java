@@ -23,13 +23,6 @@
 
 package com.eischet.ews.api.core.service;
 
-import com.eischet.ews.api.core.ExchangeService;
-import com.eischet.ews.api.core.XmlElementNames;
-import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
-import com.eischet.ews.api.core.service.folder.*;
-import com.eischet.ews.api.core.service.item.*;
-import com.eischet.ews.api.property.complex.ItemAttachment;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -71,138 +64,12 @@ public class ServiceObjectInfo {
     }
 
     /**
-     * Initializes the service object class map. If you add a new ServiceObject
-     * subclass that can be returned by the Server, add the type to the class
-     * map as well as associated delegate(s) to call the constructor(s).
+     * Initializes the service object class map. The registrations are
+     * generated at build time from the ServiceObjectDefinition annotations of
+     * all ServiceObject subclasses that can be returned by the server.
      */
     private void initializeServiceObjectClassMap() {
-        // Appointment
-        this.addServiceObjectType(XmlElementNames.CalendarItem,
-                Appointment.class, new ICreateServiceObjectWithServiceParam() {
-                    public Object createServiceObjectWithServiceParam(ExchangeService srv) throws ExchangeXmlException {
-                        return new Appointment(srv);
-                    }
-                }, new ICreateServiceObjectWithAttachmentParam() {
-                    public Object createServiceObjectWithAttachmentParam(ItemAttachment itemAttachment, boolean isNew) throws ExchangeXmlException {
-                        return new Appointment(itemAttachment, isNew);
-                    }
-                });
-
-        // CalendarFolder
-        this.addServiceObjectType(XmlElementNames.CalendarFolder, CalendarFolder.class, CalendarFolder::new, null);
-
-        // Contact
-        this.addServiceObjectType(XmlElementNames.Contact, Contact.class, Contact::new, (itemAttachment, isNew) -> new Contact(itemAttachment));
-
-        // ContactsFolder
-        this.addServiceObjectType(XmlElementNames.ContactsFolder, ContactsFolder.class, ContactsFolder::new, null);
-
-        // ContactGroup
-        this.addServiceObjectType(XmlElementNames.DistributionList, ContactGroup.class, ContactGroup::new, (itemAttachment, isNew) -> new ContactGroup(itemAttachment));
-
-        // Conversation
-        this.addServiceObjectType(XmlElementNames.Conversation, Conversation.class, Conversation::new, null);
-
-        // EmailMessage
-        this.addServiceObjectType(XmlElementNames.Message, EmailMessage.class, EmailMessage::new, (itemAttachment, isNew) -> new EmailMessage(itemAttachment));
-
-        // Folder
-        this.addServiceObjectType(XmlElementNames.Folder, Folder.class, Folder::new, null);
-
-        // Item
-        this.addServiceObjectType(XmlElementNames.Item, Item.class, Item::new, (itemAttachment, isNew) -> new Item(itemAttachment));
-
-        // MeetingCancellation
-        this.addServiceObjectType(XmlElementNames.MeetingCancellation, MeetingCancellation.class, MeetingCancellation::new, (itemAttachment, isNew) -> new MeetingCancellation(itemAttachment));
-
-        // MeetingMessage
-        this.addServiceObjectType(XmlElementNames.MeetingMessage,
-                MeetingMessage.class,
-                new ICreateServiceObjectWithServiceParam() {
-                    public Object createServiceObjectWithServiceParam(
-                            ExchangeService srv) throws ExchangeXmlException {
-                        return new MeetingMessage(srv);
-                    }
-                }, new ICreateServiceObjectWithAttachmentParam() {
-                    public Object createServiceObjectWithAttachmentParam(
-                            ItemAttachment itemAttachment, boolean isNew)
-                            throws ExchangeXmlException {
-                        return new MeetingMessage(itemAttachment);
-                    }
-                });
-
-        // MeetingRequest
-        this.addServiceObjectType(XmlElementNames.MeetingRequest,
-                MeetingRequest.class,
-                new ICreateServiceObjectWithServiceParam() {
-                    public Object createServiceObjectWithServiceParam(
-                            ExchangeService srv) throws ExchangeXmlException {
-                        return new MeetingRequest(srv);
-                    }
-                }, new ICreateServiceObjectWithAttachmentParam() {
-                    public Object createServiceObjectWithAttachmentParam(
-                            ItemAttachment itemAttachment, boolean isNew)
-                            throws ExchangeXmlException {
-                        return new MeetingRequest(itemAttachment);
-                    }
-                });
-
-        // MeetingResponse
-        this.addServiceObjectType(XmlElementNames.MeetingResponse,
-                MeetingResponse.class,
-                new ICreateServiceObjectWithServiceParam() {
-                    public Object createServiceObjectWithServiceParam(
-                            ExchangeService srv) throws ExchangeXmlException {
-                        return new MeetingResponse(srv);
-                    }
-                }, new ICreateServiceObjectWithAttachmentParam() {
-                    public Object createServiceObjectWithAttachmentParam(
-                            ItemAttachment itemAttachment, boolean isNew)
-                            throws ExchangeXmlException {
-                        return new MeetingResponse(itemAttachment);
-                    }
-                });
-
-        // PostItem
-        this.addServiceObjectType(XmlElementNames.PostItem, PostItem.class,
-                new ICreateServiceObjectWithServiceParam() {
-                    public Object createServiceObjectWithServiceParam(
-                            ExchangeService srv) throws ExchangeXmlException {
-                        return new PostItem(srv);
-                    }
-                }, new ICreateServiceObjectWithAttachmentParam() {
-                    public Object createServiceObjectWithAttachmentParam(
-                            ItemAttachment itemAttachment, boolean isNew)
-                            throws ExchangeXmlException {
-                        return new PostItem(itemAttachment);
-                    }
-                });
-
-        // SearchFolder
-        this.addServiceObjectType(XmlElementNames.SearchFolder,
-                SearchFolder.class, new ICreateServiceObjectWithServiceParam() {
-                    public Object createServiceObjectWithServiceParam(
-                            ExchangeService srv) throws ExchangeXmlException {
-                        return new SearchFolder(srv);
-                    }
-                }, null);
-
-        // Task
-        this.addServiceObjectType(XmlElementNames.Task, Task.class,
-                new ICreateServiceObjectWithServiceParam() {
-                    public Object createServiceObjectWithServiceParam(
-                            ExchangeService srv) throws ExchangeXmlException {
-                        return new Task(srv);
-                    }
-                }, new ICreateServiceObjectWithAttachmentParam() {
-                    public Object createServiceObjectWithAttachmentParam(
-                            ItemAttachment itemAttachment, boolean isNew) throws ExchangeXmlException {
-                        return new Task(itemAttachment);
-                    }
-                });
-
-        // TasksFolder
-        this.addServiceObjectType(XmlElementNames.TasksFolder, TasksFolder.class, TasksFolder::new, null);
+        GeneratedServiceObjectRegistry.registerServiceObjectTypes(this);
     }
 
     /**
@@ -213,7 +80,7 @@ public class ServiceObjectInfo {
      * @param createServiceObjectWithServiceParam    the create service object with service param
      * @param createServiceObjectWithAttachmentParam the create service object with attachment param
      */
-    private void addServiceObjectType(
+    void addServiceObjectType(
             String xmlElementName,
             Class<?> cls,
             ICreateServiceObjectWithServiceParam createServiceObjectWithServiceParam,
@@ -124,7 +124,7 @@ public class FolderSchema extends ServiceObjectSchema {
                     PropertyDefinitionFlags.CanSet,
                     PropertyDefinitionFlags.CanUpdate,
                     PropertyDefinitionFlags.CanFind),
-                    ExchangeVersion.Exchange2007_SP1);
+                    ExchangeVersion.Exchange2007_SP1, true);
 
     /**
      * Defines the ParentFolderId property.
@@ -275,7 +275,7 @@ public class ItemSchema extends ServiceObjectSchema {
             PropertyDefinitionFlags.CanSet,
             PropertyDefinitionFlags.CanUpdate,
             PropertyDefinitionFlags.CanFind),
-            ExchangeVersion.Exchange2007_SP1);
+            ExchangeVersion.Exchange2007_SP1, true);
 
     /**
      * Defines the Subject property.
@@ -567,7 +567,7 @@ public class ItemSchema extends ServiceObjectSchema {
                     PropertyDefinitionFlags.CanUpdate,
                     PropertyDefinitionFlags.CanDelete,
                     PropertyDefinitionFlags.CanFind),
-                    ExchangeVersion.Exchange2007_SP1);
+                    ExchangeVersion.Exchange2007_SP1, true);
 
     /**
      * Defines the EffectiveRights property.
@@ -60,53 +60,8 @@ public abstract class ServiceObjectSchema implements
     private static final Object lockObject = new Object();
 
     /**
-     * List of all schema types. If you add a new ServiceObject subclass that
-     * has an associated schema, add the schema type to the list below.
-     */
-    private static final LazyMember<List<Class<?>>> allSchemaTypes = new
-            LazyMember<List<Class<?>>>(new
-                                               ILazyMember<List<Class<?>>>() {
-                                                   public List<Class<?>> createInstance() {
-                                                       List<Class<?>> typeList = new ArrayList<Class<?>>();
-                                                       // typeList.add()
-                                                       /*
-                                                        * typeList.add(AppointmentSchema.class);
-                                                        * typeList.add(CalendarResponseObjectSchema.class);
-                                                        * typeList.add(CancelMeetingMessageSchema.class);
-                                                        * typeList.add(ContactGroupSchema.class);
-                                                        * typeList.add(ContactSchema.class);
-                                                        * typeList.add(EmailMessageSchema.class);
-                                                        * typeList.add(FolderSchema.class);
-                                                        * typeList.add(ItemSchema.class);
-                                                        * typeList.add(MeetingMessageSchema.class);
-                                                        * typeList.add(MeetingRequestSchema.class);
-                                                        * typeList.add(PostItemSchema.class);
-                                                        * typeList.add(PostReplySchema.class);
-                                                        * typeList.add(ResponseMessageSchema.class);
-                                                        * typeList.add(ResponseObjectSchema.class);
-                                                        * typeList.add(ServiceObjectSchema.class);
-                                                        * typeList.add(SearchFolderSchema.class);
-                                                        * typeList.add(TaskSchema.class);
-                                                        */
-                                                       // Verify that all Schema types in the Managed API assembly
-                                                       // have been included.
-                                                       /*
-                                                        * var missingTypes = from type in
-                                                        * Assembly.GetExecutingAssembly().GetTypes() where
-                                                        * type.IsSubclassOf(typeof(ServiceObjectSchema)) &&
-                                                        * !typeList.Contains(type) select type; if
-                                                        * (missingTypes.Count() > 0) { throw new
-                                                        * ServiceLocalException
-                                                        * ("SchemaTypeList does not include all
-                                                        * defined schema types."
-                                                        * ); }
-                                                        */
-                                                       return typeList;
-                                                   }
-                                               });
-
-    /**
-     * Dictionary of all property definitions.
+     * Dictionary of all property definitions, built from the schema registry
+     * generated at build time.
      */
     private static final LazyMember<Map<String, PropertyDefinitionBase>>
             allSchemaProperties = new
@@ -115,11 +70,8 @@ public abstract class ServiceObjectSchema implements
                 public Map<String, PropertyDefinitionBase> createInstance() {
                     Map<String, PropertyDefinitionBase> propDefDictionary =
                             new HashMap<String, PropertyDefinitionBase>();
-                    for (Class<?> c : ServiceObjectSchema.allSchemaTypes
-                            .getMember()) {
-                        ServiceObjectSchema.addSchemaPropertiesToDictionary(c,
-                                propDefDictionary);
-                    }
+                    GeneratedSchemaRegistry.visitSchemaProperties((fieldName, propertyDefinition) ->
+                            ServiceObjectSchema.addPropertyToDictionary(propertyDefinition, propDefDictionary));
                     return propDefDictionary;
                 }
             });
@@ -140,44 +92,8 @@ public abstract class ServiceObjectSchema implements
                 try {
                     o = field.get(null);
                     if (o instanceof PropertyDefinition) {
-                        PropertyDefinition propertyDefinition =
-                                (PropertyDefinition) o;
-                        // Some property definitions descend from
-                        // ServiceObjectPropertyDefinition but don't have
-                        // a Uri, like ExtendedProperties. Ignore them.
-                        if (null != propertyDefinition.getUri() &&
-                                !propertyDefinition.getUri().isEmpty()) {
-                            PropertyDefinitionBase existingPropertyDefinition;
-                            if (propDefDictionary
-                                    .containsKey(propertyDefinition.getUri())) {
-                                existingPropertyDefinition = propDefDictionary
-                                        .get(propertyDefinition.getUri());
-                                EwsUtilities
-                                        .ewsAssert(existingPropertyDefinition == propertyDefinition,
-                                                "Schema.allSchemaProperties." + "delegate",
-                                                String.format("There are at least " +
-                                                        "two distinct property " +
-                                                        "definitions with the" +
-                                                        " following URI: %s", propertyDefinition.getUri()));
-                            } else {
-                                propDefDictionary.put(propertyDefinition
-                                        .getUri(), propertyDefinition);
-                                // The following is a "generic hack" to register
-                                // property that are not public and
-                                // thus not returned by the above GetFields
-                                // call. It is currently solely used to register
-                                // the MeetingTimeZone property.
-                                List<PropertyDefinition> associatedInternalProperties =
-                                        propertyDefinition.getAssociatedInternalProperties();
-                                for (PropertyDefinition associatedInternalProperty : associatedInternalProperties) {
-                                    propDefDictionary
-                                            .put(associatedInternalProperty
-                                                            .getUri(),
-                                                    associatedInternalProperty);
-                                }
-
-                            }
-                        }
+                        addPropertyToDictionary((PropertyDefinition) o,
+                                propDefDictionary);
                     }
                 } catch (IllegalArgumentException e) {
                     LOG.log(Level.SEVERE, "error adding schema properties", e);
@@ -193,6 +109,53 @@ public abstract class ServiceObjectSchema implements
         }
     }
 
+    /**
+     * Adds a property definition, and its associated internal properties, to
+     * the dictionary of property definitions by URI.
+     *
+     * @param propertyDefinition The property definition.
+     * @param propDefDictionary  The property definition dictionary.
+     */
+    private static void addPropertyToDictionary(PropertyDefinition propertyDefinition,
+                                                Map<String, PropertyDefinitionBase> propDefDictionary) {
+        // Some property definitions descend from
+        // ServiceObjectPropertyDefinition but don't have
+        // a Uri, like ExtendedProperties. Ignore them.
+        if (null != propertyDefinition.getUri() &&
+                !propertyDefinition.getUri().isEmpty()) {
+            PropertyDefinitionBase existingPropertyDefinition;
+            if (propDefDictionary
+                    .containsKey(propertyDefinition.getUri())) {
+                existingPropertyDefinition = propDefDictionary
+                        .get(propertyDefinition.getUri());
+                EwsUtilities
+                        .ewsAssert(existingPropertyDefinition == propertyDefinition,
+                                "Schema.allSchemaProperties." + "delegate",
+                                String.format("There are at least " +
+                                        "two distinct property " +
+                                        "definitions with the" +
+                                        " following URI: %s", propertyDefinition.getUri()));
+            } else {
+                propDefDictionary.put(propertyDefinition
+                        .getUri(), propertyDefinition);
+                // The following is a "generic hack" to register
+                // property that are not public and
+                // thus not returned by the above GetFields
+                // call. It is currently solely used to register
+                // the MeetingTimeZone property.
+                List<PropertyDefinition> associatedInternalProperties =
+                        propertyDefinition.getAssociatedInternalProperties();
+                for (PropertyDefinition associatedInternalProperty : associatedInternalProperties) {
+                    propDefDictionary
+                            .put(associatedInternalProperty
+                                            .getUri(),
+                                    associatedInternalProperty);
+                }
+
+            }
+        }
+    }
+
     /**
      * Adds the schema property names to dictionary.
      *
@@ -250,28 +213,8 @@ public abstract class ServiceObjectSchema implements
      */
     public static void initializeSchemaPropertyNames() {
         synchronized (lockObject) {
-            for (Class<?> type : ServiceObjectSchema.allSchemaTypes.getMember()) {
-                Field[] fields = type.getDeclaredFields();
-                for (Field field : fields) {
-                    int modifier = field.getModifiers();
-                    if (Modifier.isPublic(modifier) &&
-                            Modifier.isStatic(modifier)) {
-                        Object o;
-                        try {
-                            o = field.get(null);
-                            if (o instanceof PropertyDefinition) {
-                                PropertyDefinition propertyDefinition =
-                                        (PropertyDefinition) o;
-                                propertyDefinition.setName(field.getName());
-                            }
-                        } catch (IllegalArgumentException | IllegalAccessException e) {
-                            LOG.log(Level.SEVERE, "error initializing schema properties", e);
-
-                            // Skip the field
-                        }
-                    }
-                }
-            }
+            GeneratedSchemaRegistry.visitSchemaProperties((fieldName, propertyDefinition) ->
+                    propertyDefinition.setName(fieldName));
         }
     }
 
@@ -320,6 +263,23 @@ public abstract class ServiceObjectSchema implements
     private final List<IndexedPropertyDefinition> indexedProperties =
             new ArrayList<IndexedPropertyDefinition>();
 
+    /**
+     * The ordinal of each registered property, in registration order.
+     */
+    private final Map<PropertyDefinition, Integer> propertyOrdinals =
+            new IdentityHashMap<PropertyDefinition, Integer>();
+
+    /**
+     * The registered properties, indexed by ordinal.
+     */
+    private final List<PropertyDefinition> propertiesByOrdinal =
+            new ArrayList<PropertyDefinition>();
+
+    /**
+     * The ordinals of the properties that can be updated.
+     */
+    private final BitSet updatableOrdinals = new BitSet();
+
     /**
      * Registers a schema property.
      *
@@ -331,6 +291,15 @@ public abstract class ServiceObjectSchema implements
                                   boolean isInternal) {
         this.properties.put(property.getXmlElement(), property);
 
+        if (!this.propertyOrdinals.containsKey(property)) {
+            int ordinal = this.propertiesByOrdinal.size();
+            this.propertyOrdinals.put(property, ordinal);
+            this.propertiesByOrdinal.add(property);
+            if (property.hasFlag(PropertyDefinitionFlags.CanUpdate)) {
+                this.updatableOrdinals.set(ordinal);
+            }
+        }
+
         if (!isInternal) {
             this.visibleProperties.add(property);
         }
@@ -402,6 +371,49 @@ public abstract class ServiceObjectSchema implements
         return this.firstClassSummaryProperties;
     }
 
+    /**
+     * Gets the number of properties registered with this schema, internal ones
+     * included.
+     *
+     * @return the number of registered properties
+     */
+    public int getPropertyCount() {
+        return this.propertiesByOrdinal.size();
+    }
+
+    /**
+     * Gets the ordinal of a registered property. Ordinals are dense, start at
+     * zero and follow registration order.
+     *
+     * @param propertyDefinition the property definition
+     * @return the ordinal, or -1 if the property is not part of this schema
+     */
+    public int getPropertyOrdinal(PropertyDefinition propertyDefinition) {
+        Integer ordinal = this.propertyOrdinals.get(propertyDefinition);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Gets the registered property with the specified ordinal.
+     *
+     * @param ordinal the ordinal
+     * @return the property definition
+     */
+    public PropertyDefinition getPropertyByOrdinal(int ordinal) {
+        return this.propertiesByOrdinal.get(ordinal);
+    }
+
+    /**
+     * Determines whether any of the specified ordinals belongs to a property
+     * that can be updated.
+     *
+     * @param ordinals the property ordinals to check
+     * @return true if at least one of them can be updated
+     */
+    public boolean containsUpdatableProperty(BitSet ordinals) {
+        return this.updatableOrdinals.intersects(ordinals);
+    }
+
     /**
      * Tries to get property definition.
      *
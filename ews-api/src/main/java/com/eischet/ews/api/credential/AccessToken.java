@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.credential;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Represents an OAuth access token and the time it expires.
+ */
+public final class AccessToken {
+
+    /**
+     * The token.
+     */
+    private final String value;
+
+    /**
+     * The time the token expires, or null if it doesn't.
+     */
+    private final Instant expiresOn;
+
+    /**
+     * Initializes a new instance of the AccessToken class.
+     *
+     * @param value     the token
+     * @param expiresOn the time the token expires, or null if it doesn't
+     */
+    public AccessToken(String value, Instant expiresOn) {
+        this.value = Objects.requireNonNull(value, "value");
+        this.expiresOn = expiresOn;
+    }
+
+    /**
+     * Creates a token from the lifetime reported by a token endpoint.
+     *
+     * @param value     the token
+     * @param expiresIn the lifetime of the token, as in the "expires_in" field of a token response
+     * @return the token
+     */
+    public static AccessToken expiringIn(String value, Duration expiresIn) {
+        return new AccessToken(value, Instant.now().plus(expiresIn));
+    }
+
+    /**
+     * Gets the token.
+     *
+     * @return the token
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Gets the time the token expires.
+     *
+     * @return the expiry time, or null if the token doesn't expire
+     */
+    public Instant getExpiresOn() {
+        return this.expiresOn;
+    }
+
+    /**
+     * Determines whether the token expires before the given time.
+     *
+     * @param instant the time
+     * @return true if the token is no longer valid at that time
+     */
+    public boolean isExpiredAt(Instant instant) {
+        return this.expiresOn != null && !this.expiresOn.isAfter(instant);
+    }
+
+    @Override
+    public String toString() {
+        // Never expose the token itself in logs.
+        return "AccessToken{expiresOn=" + this.expiresOn + "}";
+    }
+
+}
@@ -24,6 +24,7 @@
 package com.eischet.ews.api.credential;
 
 import com.eischet.ews.api.core.exception.misc.InvalidOperationException;
+import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
 import com.eischet.ews.api.http.ExchangeHttpClient;
 
 import javax.xml.stream.XMLStreamException;
@@ -88,11 +89,25 @@ public abstract class ExchangeCredentials {
      *
      * @param client The request.
      * @throws java.net.URISyntaxException the uRI syntax exception
+     * @throws ServiceLocalException      if the credential can't be applied
      */
-    public void prepareWebRequest(ExchangeHttpClient.Request client) throws URISyntaxException {
+    public void prepareWebRequest(ExchangeHttpClient.Request client) throws URISyntaxException, ServiceLocalException {
         // do nothing by default.
     }
 
+    /**
+     * This method is called when the server rejected a request made with this credential
+     * with 401 Unauthorized. Credentials that can obtain fresh authentication, such as
+     * expiring access tokens, discard what the request was sent with and return true, and
+     * the request is then sent once more.
+     *
+     * @param request The rejected request.
+     * @return true if the request should be retried
+     */
+    public boolean refreshAfterUnauthorized(ExchangeHttpClient.Request request) {
+        return false;
+    }
+
     /**
      * Emit any extra necessary namespace aliases for the SOAP:header block.
      *
@@ -0,0 +1,292 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.credential;
+
+import com.eischet.ews.api.core.exception.http.EWSHttpException;
+import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
+import com.eischet.ews.api.http.ExchangeHttpClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * OAuthCredentials authenticates requests with an OAuth bearer token, as used by Exchange
+ * Online and by on-premises servers with modern authentication.
+ * <p>
+ * Tokens are obtained from an {@link IAccessTokenSupplier} and cached. A token that is about
+ * to expire is refreshed in the background while requests keep using it, so token acquisition
+ * is normally not on the request path. Threads that need a token while none is valid wait for
+ * a single acquisition instead of each calling the supplier. When the server rejects a token
+ * with 401 Unauthorized, the token is discarded and the request is retried once with a new one.
+ * </p>
+ */
+public final class OAuthCredentials extends ExchangeCredentials {
+
+    private static final Logger LOG = Logger.getLogger(OAuthCredentials.class.getCanonicalName());
+
+    /**
+     * The name of the authorization header.
+     */
+    private static final String AUTHORIZATION = "Authorization";
+
+    /**
+     * The scheme prefix of the authorization header.
+     */
+    private static final String BEARER = "Bearer ";
+
+    /**
+     * The default time before expiry at which a token is refreshed.
+     */
+    public static final Duration DEFAULT_REFRESH_MARGIN = Duration.ofMinutes(5);
+
+    /**
+     * The supplier of new tokens, or null for a fixed token.
+     */
+    private final IAccessTokenSupplier tokenSupplier;
+
+    /**
+     * Guards the cached token and the pending acquisition.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The cached token.
+     */
+    private volatile AccessToken token;
+
+    /**
+     * The acquisition in progress, if any.
+     */
+    private CompletableFuture<AccessToken> pendingAcquisition;
+
+    /**
+     * The time before expiry at which a token is refreshed.
+     */
+    private volatile Duration refreshMargin = DEFAULT_REFRESH_MARGIN;
+
+    /**
+     * The executor for background refreshes.
+     */
+    private volatile Executor executor;
+
+    /**
+     * The clock tokens expire by; replaced by tests.
+     */
+    private volatile Clock clock = Clock.systemUTC();
+
+    /**
+     * Initializes a new instance of the OAuthCredentials class with a fixed token, which is
+     * used as is and never refreshed.
+     *
+     * @param token the token
+     */
+    public OAuthCredentials(String token) {
+        this.token = new AccessToken(token, null);
+        this.tokenSupplier = null;
+    }
+
+    /**
+     * Initializes a new instance of the OAuthCredentials class.
+     *
+     * @param tokenSupplier the supplier of tokens
+     */
+    public OAuthCredentials(IAccessTokenSupplier tokenSupplier) {
+        this.tokenSupplier = Objects.requireNonNull(tokenSupplier, "tokenSupplier");
+    }
+
+    /**
+     * Gets the time before expiry at which a token is refreshed.
+     *
+     * @return the refresh margin
+     */
+    public Duration getRefreshMargin() {
+        return this.refreshMargin;
+    }
+
+    /**
+     * Sets the time before expiry at which a token is refreshed in the background. Defaults
+     * to {@link #DEFAULT_REFRESH_MARGIN}.
+     *
+     * @param refreshMargin the refresh margin
+     */
+    public void setRefreshMargin(Duration refreshMargin) {
+        this.refreshMargin = Objects.requireNonNull(refreshMargin, "refreshMargin");
+    }
+
+    /**
+     * Sets the executor that refreshes tokens in the background. If none is set, each refresh
+     * runs on a new daemon thread.
+     *
+     * @param value the executor, or null
+     */
+    public void setExecutor(Executor value) {
+        this.executor = value;
+    }
+
+    /**
+     * Sets the clock tokens expire by.
+     *
+     * @param value the clock
+     */
+    void setClock(Clock value) {
+        this.clock = value;
+    }
+
+    /**
+     * Gets a valid access token, obtaining one if necessary.
+     *
+     * @return the token
+     * @throws ServiceLocalException if no token could be obtained
+     */
+    public String getAccessToken() throws ServiceLocalException {
+        AccessToken current = this.token;
+        Instant now = this.clock.instant();
+        if (current != null && !current.isExpiredAt(now)) {
+            if (this.tokenSupplier != null && current.isExpiredAt(now.plus(this.refreshMargin))) {
+                this.acquire(current, true);
+            }
+            return current.getValue();
+        }
+        if (this.tokenSupplier == null) {
+            throw new ServiceLocalException("The access token has expired.");
+        }
+        try {
+            return this.acquire(current, false).get().getValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceLocalException("Interrupted while obtaining an access token.", e);
+        } catch (ExecutionException e) {
+            throw new ServiceLocalException(
+                    String.format("Failed to obtain an access token. %s", e.getCause().getMessage()), e.getCause());
+        }
+    }
+
+    /**
+     * Starts obtaining a new token, or joins the acquisition in progress.
+     *
+     * @param stale      the token to replace
+     * @param background true to obtain the token on another thread
+     * @return the new token
+     */
+    private CompletableFuture<AccessToken> acquire(AccessToken stale, boolean background) {
+        final CompletableFuture<AccessToken> future;
+        synchronized (this.lock) {
+            if (this.pendingAcquisition != null) {
+                return this.pendingAcquisition;
+            }
+            // Another thread may have replaced the token in the meantime, or discarded it.
+            AccessToken current = this.token;
+            if (current != null && current != stale && !current.isExpiredAt(this.clock.instant())) {
+                return CompletableFuture.completedFuture(current);
+            }
+            future = new CompletableFuture<AccessToken>();
+            this.pendingAcquisition = future;
+        }
+
+        Runnable acquisition = () -> {
+            try {
+                AccessToken fresh = this.tokenSupplier.getAccessToken();
+                if (fresh == null) {
+                    throw new ServiceLocalException("The token supplier returned no token.");
+                }
+                synchronized (this.lock) {
+                    this.token = fresh;
+                    this.pendingAcquisition = null;
+                }
+                future.complete(fresh);
+            } catch (Exception e) {
+                synchronized (this.lock) {
+                    this.pendingAcquisition = null;
+                }
+                if (background) {
+                    // The current token is still valid; the next request will try again.
+                    LOG.log(Level.WARNING, "error refreshing access token", e);
+                }
+                future.completeExceptionally(e);
+            }
+        };
+
+        if (!background) {
+            acquisition.run();
+        } else if (this.executor != null) {
+            this.executor.execute(acquisition);
+        } else {
+            Thread thread = new Thread(acquisition, "ews-access-token-refresh");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return future;
+    }
+
+    /**
+     * Adds the bearer token to the request.
+     *
+     * @param request The request.
+     * @throws ServiceLocalException if no token could be obtained
+     */
+    @Override
+    public void prepareWebRequest(ExchangeHttpClient.Request request) throws ServiceLocalException {
+        request.setHeader(AUTHORIZATION, BEARER + this.getAccessToken());
+    }
+
+    /**
+     * Discards the token the rejected request was sent with, so that the retry obtains a new
+     * one. A fixed token can't be replaced, so such requests are not retried.
+     *
+     * @param request The rejected request.
+     * @return true if a new token can be obtained
+     */
+    @Override
+    public boolean refreshAfterUnauthorized(ExchangeHttpClient.Request request) {
+        if (this.tokenSupplier == null) {
+            return false;
+        }
+        String rejected = null;
+        try {
+            Map<String, String> headers = request.getRequestProperty();
+            if (headers != null) {
+                rejected = headers.get(AUTHORIZATION);
+            }
+        } catch (EWSHttpException e) {
+            LOG.log(Level.FINE, "could not read the authorization header of the rejected request", e);
+        }
+        synchronized (this.lock) {
+            // Unless another thread has already replaced the rejected token.
+            AccessToken current = this.token;
+            if (current != null && (rejected == null || rejected.equals(BEARER + current.getValue()))) {
+                this.token = null;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,283 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.dns;
+
+import com.eischet.ews.api.core.exception.dns.DnsException;
+
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Resolves SRV records through JNDI, reusing DNS contexts and caching results.
+ * <p>
+ * JNDI doesn't report the time-to-live of the records it returns, so results are
+ * cached for a configurable time instead; empty results (including names that don't
+ * exist) are cached for a shorter, separate time. Concurrent lookups of the same
+ * name share a single query. The records are cached as returned by the server and
+ * ordered anew on every lookup, so that callers are spread over equally preferred
+ * targets as RFC 2782 intends.
+ * </p>
+ */
+public class CachingDnsResolver implements IDnsResolver {
+
+    /**
+     * Default time-to-live of non-empty results: five minutes.
+     */
+    public static final long DEFAULT_TTL_MILLIS = 5L * 60 * 1000;
+
+    /**
+     * Default time-to-live of empty results: thirty seconds.
+     */
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 30L * 1000;
+
+    private static final Map<String, CachingDnsResolver> sharedResolvers = new ConcurrentHashMap<>();
+
+    private static final ExecutorService defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "dns-resolver");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final String dnsServerAddress;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final Executor executor;
+    private final Random random = new Random();
+    private final Queue<DirContext> idleContexts = new ConcurrentLinkedQueue<>();
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * A cached or in-flight lookup; the future holds the records in server order.
+     */
+    private static final class Entry {
+        private final CompletableFuture<List<DnsSrvRecord>> future = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the resolver shared by all users of a DNS server.
+     *
+     * @param dnsServerAddress IPAddress of DNS server to use (may be null)
+     * @return the shared resolver
+     */
+    public static CachingDnsResolver forServer(String dnsServerAddress) {
+        final String key = (dnsServerAddress == null) ? "" : dnsServerAddress;
+        return sharedResolvers.computeIfAbsent(key, k -> new CachingDnsResolver(dnsServerAddress));
+    }
+
+    /**
+     * Creates a resolver with the default time-to-live values.
+     *
+     * @param dnsServerAddress IPAddress of DNS server to use (may be null)
+     */
+    public CachingDnsResolver(String dnsServerAddress) {
+        this(dnsServerAddress, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS, defaultExecutor);
+    }
+
+    /**
+     * Creates a resolver.
+     *
+     * @param dnsServerAddress  IPAddress (optionally followed by :port) of DNS server to use (may be null)
+     * @param ttlMillis         time-to-live of non-empty results, in milliseconds
+     * @param negativeTtlMillis time-to-live of empty results, in milliseconds
+     * @param executor          runs the lookups
+     */
+    public CachingDnsResolver(String dnsServerAddress, long ttlMillis, long negativeTtlMillis, Executor executor) {
+        if (ttlMillis < 0 || negativeTtlMillis < 0) {
+            throw new IllegalArgumentException("Time-to-live must not be negative.");
+        }
+        this.dnsServerAddress = dnsServerAddress;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the current time; overridden by tests.
+     *
+     * @return the current time in milliseconds
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public List<DnsSrvRecord> resolveSrv(String name) throws DnsException {
+        try {
+            return resolveSrvAsync(name).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DnsException) {
+                throw (DnsException) e.getCause();
+            }
+            throw new DnsException("DNS query for " + name + " failed.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DnsException("Interrupted while waiting for DNS query.", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<DnsSrvRecord>> resolveSrvAsync(final String name) {
+        final String key = name.toLowerCase(Locale.ROOT);
+        while (true) {
+            final Entry existing = cache.get(key);
+            if (existing != null && existing.expiresAt > currentTimeMillis()) {
+                return existing.future.thenApply(this::order);
+            }
+            final Entry entry = new Entry();
+            final boolean claimed = (existing == null) ?
+                    cache.putIfAbsent(key, entry) == null :
+                    cache.replace(key, existing, entry);
+            if (!claimed) {
+                // Somebody else started a lookup in the meantime, use theirs.
+                continue;
+            }
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        List<DnsSrvRecord> records = new ArrayList<>(lookup(name));
+                        entry.expiresAt = currentTimeMillis() + (records.isEmpty() ? negativeTtlMillis : ttlMillis);
+                        entry.future.complete(Collections.unmodifiableList(records));
+                    } catch (Throwable t) {
+                        // Failures are not cached, the next caller tries again.
+                        cache.remove(key, entry);
+                        entry.future.completeExceptionally(t);
+                    }
+                }
+            });
+            return entry.future.thenApply(this::order);
+        }
+    }
+
+    /**
+     * Orders cached records for one caller.
+     *
+     * @param records the records in server order
+     * @return a new, unmodifiable list in RFC 2782 order
+     */
+    private List<DnsSrvRecord> order(List<DnsSrvRecord> records) {
+        return Collections.unmodifiableList(orderByPriorityAndWeight(records, random));
+    }
+
+    /**
+     * Queries DNS for the SRV records of a name.
+     *
+     * @param name the name to look up
+     * @return the records, in the order returned by the server
+     * @throws DnsException the dns exception
+     */
+    protected List<DnsSrvRecord> lookup(String name) throws DnsException {
+        DirContext context = idleContexts.poll();
+        if (context == null) {
+            context = DnsClient.createContext(dnsServerAddress);
+        }
+        boolean reusable = false;
+        try {
+            List<DnsSrvRecord> records = DnsClient.dnsQuery(DnsSrvRecord::new, context, name);
+            reusable = true;
+            return records;
+        } finally {
+            if (reusable) {
+                idleContexts.offer(context);
+            } else {
+                try {
+                    context.close();
+                } catch (NamingException e) {
+                    // Ignore exception while closing the context.
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Orders SRV records as described in RFC 2782: by ascending priority, and within
+     * the same priority by a random selection weighted by the records' weights.
+     *
+     * @param records the records to order
+     * @param random  the source of randomness
+     * @return a new, ordered list
+     */
+    public static List<DnsSrvRecord> orderByPriorityAndWeight(List<DnsSrvRecord> records, Random random) {
+        List<DnsSrvRecord> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingInt(DnsSrvRecord::getPriority));
+
+        List<DnsSrvRecord> ordered = new ArrayList<>(sorted.size());
+        int start = 0;
+        while (start < sorted.size()) {
+            int end = start;
+            while (end < sorted.size() && sorted.get(end).getPriority() == sorted.get(start).getPriority()) {
+                end++;
+            }
+            List<DnsSrvRecord> group = new ArrayList<>(sorted.subList(start, end));
+            // Zero-weight records go first so that they have a small chance of being picked.
+            group.sort(Comparator.comparingInt(DnsSrvRecord::getWeight));
+            while (!group.isEmpty()) {
+                int totalWeight = 0;
+                for (DnsSrvRecord record : group) {
+                    totalWeight += record.getWeight();
+                }
+                int selected = 0;
+                if (totalWeight > 0) {
+                    int threshold = random.nextInt(totalWeight + 1);
+                    int runningSum = 0;
+                    for (int i = 0; i < group.size(); i++) {
+                        runningSum += group.get(i).getWeight();
+                        if (runningSum >= threshold) {
+                            selected = i;
+                            break;
+                        }
+                    }
+                }
+                ordered.add(group.remove(selected));
+            }
+            start = end;
+        }
+        return ordered;
+    }
+}
@@ -26,6 +26,7 @@ package com.eischet.ews.api.dns;
 import com.eischet.ews.api.EWSConstants;
 import com.eischet.ews.api.core.exception.dns.DnsException;
 
+import javax.naming.NameNotFoundException;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
@@ -35,6 +36,7 @@ import javax.naming.directory.InitialDirContext;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Class that represents DNS Query client.
@@ -58,6 +60,21 @@ public class DnsClient {
         return env;
     }
 
+    /**
+     * Creates a context for DNS queries.
+     *
+     * @param dnsServerAddress IPAddress of DNS server to use (may be null)
+     * @return the context
+     * @throws DnsException the dns exception
+     */
+    static DirContext createContext(String dnsServerAddress) throws DnsException {
+        try {
+            return new InitialDirContext(getEnv(dnsServerAddress));
+        } catch (NamingException ne) {
+            throw new DnsException(ne.getMessage());
+        }
+    }
+
     /**
      * Performs Dns query.
      *
@@ -69,14 +86,43 @@ public class DnsClient {
      * @throws DnsException the dns exception
      */
 
-    public static <T extends DnsRecord> List<T> dnsQuery(Class<T> cls, String domain, String dnsServerAddress) throws
+    public static <T extends DnsRecord> List<T> dnsQuery(final Class<T> cls, String domain, String dnsServerAddress) throws
+            DnsException {
+        DirContext ictx = createContext(dnsServerAddress);
+        try {
+            return dnsQuery(new Supplier<T>() {
+                public T get() {
+                    try {
+                        return cls.getDeclaredConstructor().newInstance();
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                }
+            }, ictx, domain);
+        } finally {
+            try {
+                ictx.close();
+            } catch (NamingException ne) {
+                // Ignore exception while closing the context.
+            }
+        }
+    }
+
+    /**
+     * Performs Dns query on an existing context.
+     *
+     * @param <T>     the generic type
+     * @param factory creates an empty record for each value returned
+     * @param ictx    the context to query
+     * @param domain  the domain
+     * @return DnsRecord The DNS record list (never null but may be empty)
+     * @throws DnsException the dns exception
+     */
+    static <T extends DnsRecord> List<T> dnsQuery(Supplier<T> factory, DirContext ictx, String domain) throws
             DnsException {
 
         List<T> dnsRecordList = new ArrayList<T>();
         try {
-            // Create initial context
-            DirContext ictx = new InitialDirContext(getEnv(dnsServerAddress));
-
             // Retrieve SRV record context attribute for the specified domain
             Attributes contextAttributes = ictx.getAttributes(domain,
                     new String[]{EWSConstants.SRVRECORD});
@@ -88,7 +134,7 @@ public class DnsClient {
                         NamingEnumeration<?> srvValues = attr.getAll();
                         if (srvValues != null) {
                             while (srvValues.hasMore()) {
-                                T dnsRecord = cls.newInstance();
+                                T dnsRecord = factory.get();
 
                                 // Loads the DNS SRV record
                                 dnsRecord.load((String) srvValues.next());
@@ -98,8 +144,13 @@ public class DnsClient {
                     }
                 }
             }
+        } catch (NameNotFoundException ne) {
+            // The name doesn't exist, so there are no records.
+            return dnsRecordList;
         } catch (NamingException ne) {
             throw new DnsException(ne.getMessage());
+        } catch (DnsException e) {
+            throw e;
         } catch (Exception e) {
             throw new DnsException(e.getMessage());
         }
@@ -0,0 +1,52 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.dns;
+
+import com.eischet.ews.api.core.exception.dns.DnsException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resolves DNS SRV records. Implement this to replace DNS lookups, e.g. in tests.
+ */
+public interface IDnsResolver {
+
+    /**
+     * Resolves the SRV records of a name.
+     *
+     * @param name the name to look up, e.g. _autodiscover._tcp.contoso.com
+     * @return the records, ordered by priority and weight (never null but may be empty)
+     * @throws DnsException the dns exception
+     */
+    List<DnsSrvRecord> resolveSrv(String name) throws DnsException;
+
+    /**
+     * Resolves the SRV records of a name without blocking the caller.
+     *
+     * @param name the name to look up, e.g. _autodiscover._tcp.contoso.com
+     * @return a future that completes with the records, ordered by priority and weight
+     */
+    CompletableFuture<List<DnsSrvRecord>> resolveSrvAsync(String name);
+}
@@ -33,6 +33,16 @@ public interface ExchangeHttpClient extends Closeable {
 
         void setHeaders(Map<String, String> httpHeaders);
 
+        /**
+         * Sets a single header, in addition to the headers set with {@link #setHeaders(Map)}.
+         * The bundled clients support this; other clients need to override it to be used with
+         * credentials that add headers, such as OAuth.
+         */
+        default void setHeader(String headerName, String headerValue) {
+            throw new UnsupportedOperationException(
+                    String.format("%s can't set the header %s.", getClass().getName(), headerName));
+        }
+
         void setUseDefaultCredentials(boolean useDefaultCredentials);
 
         void prepareConnection();
@@ -204,6 +204,7 @@ public abstract class RequestFields implements ExchangeHttpClient.Request {
         return getHttpHeaders();
     }
 
+    @Override
     public void setHeader(final String headerName, final String headerValue) {
         httpHeaders.put(headerName, headerValue);
     }
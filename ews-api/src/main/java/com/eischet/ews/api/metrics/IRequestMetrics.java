@@ -0,0 +1,46 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.metrics;
+
+/**
+ * Collects metrics for the EWS requests issued by a service.
+ * <p>
+ * Set an implementation with {@link com.eischet.ews.api.core.ExchangeServiceBase#setRequestMetrics(IRequestMetrics)}.
+ * When no implementation is set, requests are not instrumented at all.
+ * </p>
+ */
+@FunctionalInterface
+public interface IRequestMetrics {
+
+    /**
+     * Called when a request starts serializing. Implementations must be thread safe, as requests are
+     * issued from any number of threads.
+     *
+     * @param operation the EWS operation, e.g. "FindItem"
+     * @param mailbox   the impersonated mailbox, or null if the request is not impersonated
+     * @return the recorder that receives the phases of this request; may be null to ignore the request
+     */
+    IRequestMetricsRecorder startRequest(String operation, String mailbox);
+
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.metrics;
+
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
+
+/**
+ * Receives the phases of a single EWS request. An instance is only used by the thread executing the request.
+ * <p>
+ * Durations are in nanoseconds. Phases that do not happen (e.g. when the connection fails) are not reported,
+ * but {@link #completed(long, Throwable)} is always called last.
+ * </p>
+ * <p>
+ * Connection pool saturation is not reported: {@link com.eischet.ews.api.http.ExchangeHttpClient} leases
+ * connections inside {@code executeRequest()} and exposes neither the pool size nor the time spent waiting
+ * for a connection. That wait is part of the {@link #responseReceived(long, int)} duration.
+ * </p>
+ */
+public interface IRequestMetricsRecorder {
+
+    /**
+     * Called after the request has been written to XML.
+     *
+     * @param durationNanos the time spent serializing (and signing) the request
+     * @param requestBytes  the size of the request body
+     */
+    default void serialized(long durationNanos, long requestBytes) {
+    }
+
+    /**
+     * Called when the server has answered with a status line, i.e. the time to first byte.
+     *
+     * @param durationNanos  the time spent sending the request and waiting for the response, including
+     *                       any wait for a pooled connection
+     * @param httpStatusCode the HTTP status code of the response
+     */
+    default void responseReceived(long durationNanos, int httpStatusCode) {
+    }
+
+    /**
+     * Called after the response body has been read and parsed.
+     *
+     * @param durationNanos the time spent reading and parsing the response
+     * @param responseBytes the size of the (decompressed) response body
+     */
+    default void parsed(long durationNanos, long responseBytes) {
+    }
+
+    /**
+     * Called for every error returned by the server, e.g. ErrorServerBusy when the client is throttled.
+     * A batch request may report several errors.
+     *
+     * @param error the error code
+     */
+    default void serviceError(ServiceError error) {
+    }
+
+    /**
+     * Called when the request has completed.
+     *
+     * @param durationNanos the total time of the request
+     * @param failure       the exception the request failed with, or null on success
+     */
+    void completed(long durationNanos, Throwable failure);
+
+}
@@ -0,0 +1,244 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.metrics;
+
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps request metrics in memory, aggregated per EWS operation.
+ * <p>
+ * All counters are lock-free, so a single instance can be shared by many services and threads. The mailbox
+ * is not used as a dimension here to keep memory bounded; use {@link IRequestMetrics} directly to break
+ * metrics down by mailbox.
+ * </p>
+ */
+public class InMemoryRequestMetrics implements IRequestMetrics {
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IRequestMetricsRecorder startRequest(String operation, String mailbox) {
+        return getOrCreate(operation).new Recorder();
+    }
+
+    /**
+     * Gets the metrics of an operation.
+     *
+     * @param operation the EWS operation, e.g. "FindItem"
+     * @return the metrics, or null if the operation has not been executed
+     */
+    public OperationMetrics getOperation(String operation) {
+        return operations.get(operation);
+    }
+
+    /**
+     * Gets the metrics of all operations executed so far.
+     *
+     * @return the metrics, sorted by operation name
+     */
+    public Map<String, OperationMetrics> getOperations() {
+        return Collections.unmodifiableMap(new TreeMap<>(operations));
+    }
+
+    /**
+     * Discards all metrics.
+     */
+    public void reset() {
+        operations.clear();
+    }
+
+    private OperationMetrics getOrCreate(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        return metrics != null ? metrics : operations.computeIfAbsent(operation, OperationMetrics::new);
+    }
+
+    /**
+     * The metrics of a single EWS operation.
+     */
+    public static final class OperationMetrics {
+
+        private final String operation;
+        private final LatencyHistogram serializeTime = new LatencyHistogram();
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        private final LatencyHistogram parseTime = new LatencyHistogram();
+        private final LatencyHistogram totalTime = new LatencyHistogram();
+        private final LatencyHistogram requestBytes = new LatencyHistogram();
+        private final LatencyHistogram responseBytes = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+        private final ConcurrentMap<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+        private final AtomicLongArray serviceErrors = new AtomicLongArray(ServiceError.values().length);
+
+        OperationMetrics(String operation) {
+            this.operation = operation;
+        }
+
+        /**
+         * Gets the name of the operation.
+         *
+         * @return the operation
+         */
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * Gets the time spent serializing requests, in nanoseconds.
+         *
+         * @return the histogram
+         */
+        public LatencyHistogram getSerializeTime() {
+            return serializeTime;
+        }
+
+        /**
+         * Gets the time spent sending requests until the response arrived (time to first byte), in nanoseconds.
+         *
+         * @return the histogram
+         */
+        public LatencyHistogram getResponseTime() {
+            return responseTime;
+        }
+
+        /**
+         * Gets the time spent reading and parsing responses, in nanoseconds.
+         *
+         * @return the histogram
+         */
+        public LatencyHistogram getParseTime() {
+            return parseTime;
+        }
+
+        /**
+         * Gets the total time of requests, in nanoseconds.
+         *
+         * @return the histogram
+         */
+        public LatencyHistogram getTotalTime() {
+            return totalTime;
+        }
+
+        /**
+         * Gets the sizes of request bodies.
+         *
+         * @return the histogram
+         */
+        public LatencyHistogram getRequestBytes() {
+            return requestBytes;
+        }
+
+        /**
+         * Gets the sizes of response bodies.
+         *
+         * @return the histogram
+         */
+        public LatencyHistogram getResponseBytes() {
+            return responseBytes;
+        }
+
+        /**
+         * Gets the number of completed requests.
+         *
+         * @return the count
+         */
+        public long getRequestCount() {
+            return totalTime.getCount();
+        }
+
+        /**
+         * Gets the number of requests that failed with an exception.
+         *
+         * @return the count
+         */
+        public long getFailureCount() {
+            return failures.sum();
+        }
+
+        /**
+         * Gets the number of responses with a given HTTP status code.
+         *
+         * @param statusCode the status code
+         * @return the count
+         */
+        public long getStatusCodeCount(int statusCode) {
+            LongAdder adder = statusCodes.get(statusCode);
+            return adder == null ? 0 : adder.sum();
+        }
+
+        /**
+         * Gets the number of times the server returned an error.
+         *
+         * @param error the error, e.g. {@link ServiceError#ErrorServerBusy}
+         * @return the count
+         */
+        public long getServiceErrorCount(ServiceError error) {
+            return serviceErrors.get(error.ordinal());
+        }
+
+        private final class Recorder implements IRequestMetricsRecorder {
+
+            @Override
+            public void serialized(long durationNanos, long bytes) {
+                serializeTime.record(durationNanos);
+                requestBytes.record(bytes);
+            }
+
+            @Override
+            public void responseReceived(long durationNanos, int httpStatusCode) {
+                responseTime.record(durationNanos);
+                statusCodes.computeIfAbsent(httpStatusCode, code -> new LongAdder()).increment();
+            }
+
+            @Override
+            public void parsed(long durationNanos, long bytes) {
+                parseTime.record(durationNanos);
+                responseBytes.record(bytes);
+            }
+
+            @Override
+            public void serviceError(ServiceError error) {
+                serviceErrors.incrementAndGet(error.ordinal());
+            }
+
+            @Override
+            public void completed(long durationNanos, Throwable failure) {
+                totalTime.record(durationNanos);
+                if (failure != null) {
+                    failures.increment();
+                }
+            }
+        }
+    }
+
+}
@@ -24,7 +24,9 @@
 package com.eischet.ews.api.misc;
 
 import com.eischet.ews.api.core.EwsServiceXmlWriter;
+import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.property.complex.ItemId;
 
 /**
  * Represents the abstraction of an item Id.
@@ -46,6 +48,13 @@ abstract class AbstractItemIdWrapper {
         return null;
     }
 
+    /**
+     * Obtains the Id encapsulated in the wrapper.
+     *
+     * @return the item Id
+     */
+    public abstract ItemId getItemId() throws ExchangeXmlException;
+
     /**
      * Writes the Id encapsulated in the wrapper to XML.
      *
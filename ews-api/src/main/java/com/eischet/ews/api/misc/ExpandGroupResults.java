@@ -55,6 +55,21 @@ public final class ExpandGroupResults implements Iterable<EmailAddress> {
     public ExpandGroupResults() {
     }
 
+    /**
+     * Creates a copy of these results whose members can be changed without
+     * affecting them.
+     *
+     * @return the copy
+     */
+    public ExpandGroupResults copy() {
+        ExpandGroupResults copy = new ExpandGroupResults();
+        copy.includesAllMembers = this.includesAllMembers;
+        for (EmailAddress member : this.members) {
+            copy.members.add(member.copy());
+        }
+        return copy;
+    }
+
     /**
      * Gets the number of members that were returned by the ExpandGroup
      * operation. Count might be less than the total number of members in the
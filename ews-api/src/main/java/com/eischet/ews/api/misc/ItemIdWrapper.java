@@ -47,6 +47,16 @@ class ItemIdWrapper extends AbstractItemIdWrapper {
         this.itemId = itemId;
     }
 
+    /**
+     * Obtains the Id encapsulated in the wrapper.
+     *
+     * @return the item Id
+     */
+    @Override
+    public ItemId getItemId() {
+        return this.itemId;
+    }
+
     /**
      * Writes the Id encapsulated in the wrapper to XML.
      *
@@ -123,6 +123,16 @@ public class ItemIdWrapperList implements Iterable<AbstractItemIdWrapper> {
         return this.itemIds.size();
     }
 
+    /**
+     * Gets the item Id at the specified index.
+     *
+     * @param i the index
+     * @return the item Id
+     */
+    public ItemId getItemId(int i) throws ExchangeXmlException {
+        return this.itemIds.get(i).getItemId();
+    }
+
     /**
      * Gets the item at the specified index.
      *
@@ -28,6 +28,7 @@ import com.eischet.ews.api.core.EwsUtilities;
 import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.property.complex.ItemId;
 
 /**
  * Represents an item Id provided by a ItemBase object.
@@ -59,6 +60,16 @@ class ItemWrapper extends AbstractItemIdWrapper {
         return this.item;
     }
 
+    /**
+     * Obtains the Id of the wrapped item.
+     *
+     * @return the item Id
+     */
+    @Override
+    public ItemId getItemId() throws ExchangeXmlException {
+        return this.item.getId();
+    }
+
     /**
      * Writes the Id encapsulated in the wrapper to XML.
      *
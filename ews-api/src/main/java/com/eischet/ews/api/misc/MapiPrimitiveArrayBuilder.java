@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc;
+
+import com.eischet.ews.api.core.enumeration.property.MapiPropertyType;
+import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the elements of an integer, long or double MAPI array value
+ * straight into a primitive array, without boxing every element.
+ */
+public final class MapiPrimitiveArrayBuilder {
+
+    /**
+     * The initial capacity of the buffer.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * The MAPI type of the array.
+     */
+    private final MapiPropertyType mapiType;
+
+    /**
+     * The primitive array type being built.
+     */
+    private final Class<?> arrayType;
+
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private int size;
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param mapiType  the MAPI type of the array
+     * @param arrayType the primitive array type being built
+     */
+    private MapiPrimitiveArrayBuilder(MapiPropertyType mapiType, Class<?> arrayType) {
+        this.mapiType = mapiType;
+        this.arrayType = arrayType;
+        if (arrayType == int[].class) {
+            this.ints = new int[INITIAL_CAPACITY];
+        } else if (arrayType == long[].class) {
+            this.longs = new long[INITIAL_CAPACITY];
+        } else {
+            this.doubles = new double[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Creates a builder for a MAPI array type that is backed by a primitive
+     * array.
+     *
+     * @param mapiType the MAPI type
+     * @return the builder, or null if the type is not backed by a primitive array
+     */
+    public static MapiPrimitiveArrayBuilder create(MapiPropertyType mapiType) {
+        final Class<?> arrayType = MapiTypeConverter.getPrimitiveArrayType(mapiType);
+        return arrayType != null ? new MapiPrimitiveArrayBuilder(mapiType, arrayType) : null;
+    }
+
+    /**
+     * Parses and appends an element.
+     *
+     * @param stringValue the element as sent by the server
+     * @throws ExchangeXmlException if the element is not a valid number
+     */
+    public void add(String stringValue) throws ExchangeXmlException {
+        final String s = stringValue == null ? "" : stringValue.trim();
+        try {
+            if (this.ints != null) {
+                if (this.size == this.ints.length) {
+                    this.ints = Arrays.copyOf(this.ints, this.size * 2);
+                }
+                this.ints[this.size++] = s.isEmpty() ? 0 : Integer.parseInt(s);
+            } else if (this.longs != null) {
+                if (this.size == this.longs.length) {
+                    this.longs = Arrays.copyOf(this.longs, this.size * 2);
+                }
+                this.longs[this.size++] = s.isEmpty() ? 0L : Long.parseLong(s);
+            } else {
+                if (this.size == this.doubles.length) {
+                    this.doubles = Arrays.copyOf(this.doubles, this.size * 2);
+                }
+                this.doubles[this.size++] = s.isEmpty() ? 0.0d : Double.parseDouble(s);
+            }
+        } catch (NumberFormatException ex) {
+            throw new ExchangeXmlException(String.format("The value '%s' couldn't be converted to type %s.",
+                    stringValue, this.mapiType), ex);
+        }
+    }
+
+    /**
+     * Gets the primitive array built so far.
+     *
+     * @return an int[], long[] or double[]
+     */
+    public Object toArray() {
+        if (this.arrayType == int[].class) {
+            return Arrays.copyOf(this.ints, this.size);
+        } else if (this.arrayType == long[].class) {
+            return Arrays.copyOf(this.longs, this.size);
+        } else {
+            return Arrays.copyOf(this.doubles, this.size);
+        }
+    }
+}
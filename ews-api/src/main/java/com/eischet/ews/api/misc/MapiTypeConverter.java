@@ -51,6 +51,12 @@ public class MapiTypeConverter {
         }
     };
 
+    private static final IFunction<String, Object> SHORT_PARSER = s -> Short.parseShort(s.trim());
+    private static final IFunction<String, Object> INTEGER_PARSER = s -> Integer.parseInt(s.trim());
+    private static final IFunction<String, Object> LONG_PARSER = s -> Long.parseLong(s.trim());
+    private static final IFunction<String, Object> FLOAT_PARSER = s -> Float.parseFloat(s.trim());
+    private static final IFunction<String, Object> DOUBLE_PARSER = s -> Double.parseDouble(s.trim());
+
     /**
      * The mapi type converter map.
      */
@@ -60,18 +66,22 @@ public class MapiTypeConverter {
                 public MapiTypeConverterMap createInstance() {
                     MapiTypeConverterMap map = new MapiTypeConverterMap();
 
-                    map.put(MapiPropertyType.ApplicationTime, new MapiTypeConverterMapEntry(Double.class));
-
                     MapiTypeConverterMapEntry mapitype = new MapiTypeConverterMapEntry(Double.class);
+                    mapitype.setParse(DOUBLE_PARSER);
+                    map.put(MapiPropertyType.ApplicationTime, mapitype);
+
+                    mapitype = new MapiTypeConverterMapEntry(Double.class);
+                    mapitype.setParse(DOUBLE_PARSER);
                     mapitype.setIsArray(true);
+                    mapitype.setPrimitiveArrayType(double[].class);
                     map.put(MapiPropertyType.ApplicationTimeArray, mapitype);
 
-                    mapitype = new MapiTypeConverterMapEntry(Byte[].class);
+                    mapitype = new MapiTypeConverterMapEntry(byte[].class);
                     mapitype.setParse(IFunctions.Base64Decoder.INSTANCE);
                     mapitype.setConvertToString(IFunctions.Base64Encoder.INSTANCE);
                     map.put(MapiPropertyType.Binary, mapitype);
 
-                    mapitype = new MapiTypeConverterMapEntry(Byte[].class);
+                    mapitype = new MapiTypeConverterMapEntry(byte[].class);
                     mapitype.setParse(IFunctions.Base64Decoder.INSTANCE);
                     mapitype.setConvertToString(IFunctions.Base64Encoder.INSTANCE);
                     mapitype.setIsArray(true);
@@ -93,22 +103,36 @@ public class MapiTypeConverter {
                     mapitype.setIsArray(true);
                     map.put(MapiPropertyType.CLSIDArray, mapitype);
 
-                    map.put(MapiPropertyType.Currency, new MapiTypeConverterMapEntry(Long.class));
+                    mapitype = new MapiTypeConverterMapEntry(Long.class);
+                    mapitype.setParse(LONG_PARSER);
+                    map.put(MapiPropertyType.Currency, mapitype);
 
                     mapitype = new MapiTypeConverterMapEntry(Long.class);
+                    mapitype.setParse(LONG_PARSER);
                     mapitype.setIsArray(true);
+                    mapitype.setPrimitiveArrayType(long[].class);
                     map.put(MapiPropertyType.CurrencyArray, mapitype);
 
-                    map.put(MapiPropertyType.Double, new MapiTypeConverterMapEntry(Double.class));
+                    mapitype = new MapiTypeConverterMapEntry(Double.class);
+                    mapitype.setParse(DOUBLE_PARSER);
+                    map.put(MapiPropertyType.Double, mapitype);
 
                     mapitype = new MapiTypeConverterMapEntry(Double.class);
+                    mapitype.setParse(DOUBLE_PARSER);
                     mapitype.setIsArray(true);
+                    mapitype.setPrimitiveArrayType(double[].class);
                     map.put(MapiPropertyType.DoubleArray, mapitype);
 
-                    map.put(MapiPropertyType.Error, new MapiTypeConverterMapEntry(Integer.class));
-                    map.put(MapiPropertyType.Float, new MapiTypeConverterMapEntry(Float.class));
+                    mapitype = new MapiTypeConverterMapEntry(Integer.class);
+                    mapitype.setParse(INTEGER_PARSER);
+                    map.put(MapiPropertyType.Error, mapitype);
 
                     mapitype = new MapiTypeConverterMapEntry(Float.class);
+                    mapitype.setParse(FLOAT_PARSER);
+                    map.put(MapiPropertyType.Float, mapitype);
+
+                    mapitype = new MapiTypeConverterMapEntry(Float.class);
+                    mapitype.setParse(FLOAT_PARSER);
                     mapitype.setIsArray(true);
                     map.put(MapiPropertyType.FloatArray, mapitype);
 
@@ -117,13 +141,19 @@ public class MapiTypeConverter {
                     map.put(MapiPropertyType.Integer, mapitype);
 
                     mapitype = new MapiTypeConverterMapEntry(Integer.class);
+                    mapitype.setParse(INTEGER_PARSER);
                     mapitype.setIsArray(true);
+                    mapitype.setPrimitiveArrayType(int[].class);
                     map.put(MapiPropertyType.IntegerArray, mapitype);
 
-                    map.put(MapiPropertyType.Long, new MapiTypeConverterMapEntry(Long.class));
+                    mapitype = new MapiTypeConverterMapEntry(Long.class);
+                    mapitype.setParse(LONG_PARSER);
+                    map.put(MapiPropertyType.Long, mapitype);
 
                     mapitype = new MapiTypeConverterMapEntry(Long.class);
+                    mapitype.setParse(LONG_PARSER);
                     mapitype.setIsArray(true);
+                    mapitype.setPrimitiveArrayType(long[].class);
                     map.put(MapiPropertyType.LongArray, mapitype);
 
                     mapitype = new MapiTypeConverterMapEntry(String.class);
@@ -135,9 +165,12 @@ public class MapiTypeConverter {
                     mapitype.setIsArray(true);
                     map.put(MapiPropertyType.ObjectArray, mapitype);
 
-                    map.put(MapiPropertyType.Short, new MapiTypeConverterMapEntry(Short.class));
+                    mapitype = new MapiTypeConverterMapEntry(Short.class);
+                    mapitype.setParse(SHORT_PARSER);
+                    map.put(MapiPropertyType.Short, mapitype);
 
                     mapitype = new MapiTypeConverterMapEntry(Short.class);
+                    mapitype.setParse(SHORT_PARSER);
                     mapitype.setIsArray(true);
                     map.put(MapiPropertyType.ShortArray, mapitype);
 
@@ -181,15 +214,87 @@ public class MapiTypeConverter {
                 .get(mapiPropType);
         List<Object> array = new ArrayList<>();
 
-        int index = 0;
-
         while (strings.hasNext()) {
-            Object value = typeConverter.convertToValueOrDefault(strings.next());
-            array.add(index, value);
+            array.add(typeConverter.convertToValueOrDefault(strings.next()));
         }
         return array;
     }
 
+    /**
+     * Gets the primitive array type that backs values of a MAPI array type,
+     * such as int[] for IntegerArray.
+     *
+     * @param mapiType the mapi type
+     * @return the primitive array type, or null if values are held as a list
+     */
+    public static Class<?> getPrimitiveArrayType(MapiPropertyType mapiType) {
+        return getMapiTypeConverterMap().get(mapiType).getPrimitiveArrayType();
+    }
+
+    /**
+     * Converts a primitive-backed array value to the list of boxed elements
+     * that array values used to be represented with. Other values are
+     * returned unchanged.
+     *
+     * @param value the value
+     * @return the boxed list, or the value itself
+     */
+    public static Object toBoxedValue(Object value) {
+        if (value instanceof int[]) {
+            final int[] ints = (int[]) value;
+            final List<Object> list = new ArrayList<>(ints.length);
+            for (int i : ints) {
+                list.add(i);
+            }
+            return list;
+        } else if (value instanceof long[]) {
+            final long[] longs = (long[]) value;
+            final List<Object> list = new ArrayList<>(longs.length);
+            for (long l : longs) {
+                list.add(l);
+            }
+            return list;
+        } else if (value instanceof double[]) {
+            final double[] doubles = (double[]) value;
+            final List<Object> list = new ArrayList<>(doubles.length);
+            for (double d : doubles) {
+                list.add(d);
+            }
+            return list;
+        }
+        return value;
+    }
+
+    /**
+     * Converts the elements of an array value to strings, in the format sent
+     * to the server.
+     *
+     * @param mapiPropType the mapi prop type
+     * @param value        a primitive array or a list
+     * @return the element strings
+     */
+    public static List<String> convertArrayToStrings(MapiPropertyType mapiPropType, Object value) {
+        final List<String> strings = new ArrayList<>();
+        if (value instanceof int[]) {
+            for (int i : (int[]) value) {
+                strings.add(Integer.toString(i));
+            }
+        } else if (value instanceof long[]) {
+            for (long l : (long[]) value) {
+                strings.add(Long.toString(l));
+            }
+        } else if (value instanceof double[]) {
+            for (double d : (double[]) value) {
+                strings.add(Double.toString(d));
+            }
+        } else if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                strings.add(convertToString(mapiPropType, element));
+            }
+        }
+        return strings;
+    }
+
     /**
      * Converts a string to value consistent with MAPI type.
      *
@@ -33,6 +33,7 @@ import com.eischet.ews.api.core.exception.service.local.ExchangeValidationExcept
 import com.eischet.ews.api.core.exception.service.local.ServiceXmlDeserializationException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 
+import java.lang.reflect.Array;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -58,6 +59,7 @@ public class MapiTypeConverterMapEntry {
 
                     map.put(Boolean.class, false);
                     map.put(Byte[].class, null);
+                    map.put(byte[].class, null);
                     map.put(Short.class, (short) 0);
                     map.put(Integer.class, 0);
                     map.put(Long.class, 0L);
@@ -86,6 +88,11 @@ public class MapiTypeConverterMapEntry {
      */
     Class<?> type;
 
+    /**
+     * The primitive array type backing array values, if any.
+     */
+    Class<?> primitiveArrayType;
+
     /**
      * The convert to string.
      */
@@ -130,10 +137,26 @@ public class MapiTypeConverterMapEntry {
      */
     public Object changeType(Object value) throws ExchangeValidationException {
         if (this.getIsArray()) {
+            if (this.primitiveArrayType != null && this.primitiveArrayType.isInstance(value)) {
+                if (Array.getLength(value) == 0) {
+                    throw new ArgumentException("The Array value must have at least one element.");
+                }
+                return value;
+            }
             this.validateValueAsArray(value);
+            if (this.primitiveArrayType != null && value instanceof List) {
+                return this.toPrimitiveArray((List<?>) value);
+            }
             return value;
         } else if (value.getClass() == this.getType()) {
             return value;
+        } else if (this.getType() == byte[].class && value instanceof Byte[]) {
+            final Byte[] boxed = (Byte[]) value;
+            final byte[] bytes = new byte[boxed.length];
+            for (int i = 0; i < boxed.length; i++) {
+                bytes[i] = boxed[i];
+            }
+            return bytes;
         } else {
             try {
                 if (this.getType().isInstance(Integer.valueOf(0))) {
@@ -164,6 +187,36 @@ public class MapiTypeConverterMapEntry {
         }
     }
 
+    /**
+     * Copies a list of numbers into the primitive array type backing this
+     * entry's values.
+     *
+     * @param list the list
+     * @return the primitive array
+     */
+    private Object toPrimitiveArray(List<?> list) {
+        final int size = list.size();
+        if (this.primitiveArrayType == int[].class) {
+            final int[] ints = new int[size];
+            for (int i = 0; i < size; i++) {
+                ints[i] = ((Number) list.get(i)).intValue();
+            }
+            return ints;
+        } else if (this.primitiveArrayType == long[].class) {
+            final long[] longs = new long[size];
+            for (int i = 0; i < size; i++) {
+                longs[i] = ((Number) list.get(i)).longValue();
+            }
+            return longs;
+        } else {
+            final double[] doubles = new double[size];
+            for (int i = 0; i < size; i++) {
+                doubles[i] = ((Number) list.get(i)).doubleValue();
+            }
+            return doubles;
+        }
+    }
+
     /**
      * Converts a string to value consistent with type.
      * <p/>
@@ -190,7 +243,7 @@ public class MapiTypeConverterMapEntry {
      * @return Value.
      */
     public Object convertToValueOrDefault(final String stringValue) throws ExchangeXmlException {
-        return (stringValue != null && !stringValue.isEmpty())
+        return (stringValue == null || stringValue.isEmpty())
                 ? getDefaultValue() : convertToValue(stringValue);
     }
 
@@ -255,6 +308,25 @@ public class MapiTypeConverterMapEntry {
         type = cls;
     }
 
+    /**
+     * Gets the primitive array type backing array values, such as int[] for
+     * IntegerArray.
+     *
+     * @return the primitive array type, or null if values are held as a list
+     */
+    public Class<?> getPrimitiveArrayType() {
+        return this.primitiveArrayType;
+    }
+
+    /**
+     * Sets the primitive array type backing array values.
+     *
+     * @param primitiveArrayType the primitive array type
+     */
+    protected void setPrimitiveArrayType(Class<?> primitiveArrayType) {
+        this.primitiveArrayType = primitiveArrayType;
+    }
+
     /**
      * Gets  a value indicating whether this instance is array.
      *
@@ -44,7 +44,7 @@ public final class NameResolution {
     /**
      * The mailbox.
      */
-    private final EmailAddress mailbox = new EmailAddress();
+    private final EmailAddress mailbox;
 
     /**
      * The contact.
@@ -60,6 +60,20 @@ public final class NameResolution {
         EwsUtilities.ewsAssert(owner != null, "NameResolution.ctor", "owner is null.");
 
         this.owner = owner;
+        this.mailbox = new EmailAddress();
+    }
+
+    /**
+     * Initializes a new instance of the class as a copy of another
+     * resolution. The mailbox is copied, the contact is shared.
+     *
+     * @param owner  the owner of the copy
+     * @param source the resolution to copy
+     */
+    NameResolution(NameResolutionCollection owner, NameResolution source) {
+        this.owner = owner;
+        this.mailbox = source.mailbox.copy();
+        this.contact = source.contact;
     }
 
     /**
@@ -62,6 +62,21 @@ public final class NameResolutionCollection implements
         this.service = service;
     }
 
+    /**
+     * Creates a copy of this collection whose mailboxes can be changed without
+     * affecting it. The contacts of the resolutions are shared.
+     *
+     * @return the copy
+     */
+    public NameResolutionCollection copy() {
+        NameResolutionCollection copy = new NameResolutionCollection(this.service);
+        copy.includesAllResolutions = this.includesAllResolutions;
+        for (NameResolution item : this.items) {
+            copy.items.add(new NameResolution(copy, item));
+        }
+        return copy;
+    }
+
     /**
      * Loads from XML.
      *
@@ -0,0 +1,450 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.availability;
+
+import com.eischet.ews.api.core.EwsUtilities;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.availability.AvailabilityData;
+import com.eischet.ews.api.core.enumeration.service.ServiceResult;
+import com.eischet.ews.api.core.response.AttendeeAvailability;
+import com.eischet.ews.api.core.response.ServiceResponseCollection;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Retrieves free/busy information for any number of attendees over any time window.
+ * <p>
+ * A single GetUserAvailability request is limited by the server to a number of mailboxes
+ * (100 by default) and a time window (42 days by default). The engine splits the attendees
+ * and the time window into requests within those limits, runs them concurrently with bounded
+ * parallelism, and stitches the results back together so that there is one
+ * {@link AttendeeAvailability} per attendee, in input order, covering exactly the requested time window.
+ * </p>
+ * <p>
+ * Optionally, the availability of each mailbox and time window chunk can be cached for a short time,
+ * which helps applications that repeatedly search the same room lists. Only the free/busy view is
+ * retrieved; meeting suggestions depend on all attendees at once and can't be computed in chunks.
+ * </p>
+ */
+public class AvailabilityEngine {
+
+    /**
+     * The default maximum number of mailboxes in a single request.
+     */
+    public static final int DEFAULT_MAX_ATTENDEES_PER_REQUEST = 100;
+
+    /**
+     * The default maximum time window of a single request.
+     */
+    public static final Duration DEFAULT_MAX_TIME_WINDOW = Duration.ofDays(42);
+
+    /**
+     * The default maximum number of concurrent requests.
+     */
+    public static final int DEFAULT_MAX_PARALLEL_REQUESTS = 4;
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final ExchangeService service;
+    private int maxAttendeesPerRequest = DEFAULT_MAX_ATTENDEES_PER_REQUEST;
+    private Duration maxTimeWindow = DEFAULT_MAX_TIME_WINDOW;
+    private int maxParallelRequests = DEFAULT_MAX_PARALLEL_REQUESTS;
+    private long cacheTtlMillis;
+    private ExecutorService executor;
+    private final Map<List<Object>, CacheEntry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * A cached availability.
+     */
+    private static final class CacheEntry {
+        private final AttendeeAvailability availability;
+        private final long expiresAt;
+
+        private CacheEntry(AttendeeAvailability availability, long expiresAt) {
+            this.availability = availability;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * A single request: a batch of attendees in one time window chunk.
+     */
+    private static final class Batch {
+        private final int window;
+        private final int[] attendeeIndexes;
+
+        private Batch(int window, int[] attendeeIndexes) {
+            this.window = window;
+            this.attendeeIndexes = attendeeIndexes;
+        }
+    }
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param service the service used to send the requests
+     */
+    public AvailabilityEngine(ExchangeService service) {
+        this.service = service;
+    }
+
+    /**
+     * Gets the free/busy information of the attendees.
+     *
+     * @param attendees  the attendees
+     * @param timeWindow the time window
+     * @param options    the options; the merged free/busy interval and the requested view apply to all chunks
+     * @return the availability of each attendee over the whole time window, in the order of the attendees;
+     * new instances that are not shared with the cache
+     * @throws Exception the first exception thrown by any of the requests
+     */
+    public List<AttendeeAvailability> getUserAvailability(List<AttendeeInfo> attendees, TimeWindow timeWindow,
+            AvailabilityOptions options) throws Exception {
+        EwsUtilities.validateParamCollection(attendees.iterator(), "attendees");
+        EwsUtilities.validateParam(timeWindow, "timeWindow");
+        EwsUtilities.validateParam(options, "options");
+
+        final List<TimeWindow> windows = splitTimeWindow(timeWindow, options.getMergedFreeBusyInterval());
+        final AttendeeAvailability[][] results = new AttendeeAvailability[windows.size()][attendees.size()];
+        final long now = currentTimeMillis();
+        if (cacheTtlMillis > 0) {
+            purgeExpired(now);
+        }
+
+        final Queue<Batch> batches = new ConcurrentLinkedQueue<>();
+        for (int w = 0; w < windows.size(); w++) {
+            List<Integer> pending = new ArrayList<>();
+            for (int a = 0; a < attendees.size(); a++) {
+                CacheEntry cached = (cacheTtlMillis > 0) ?
+                        cache.get(cacheKey(attendees.get(a), windows.get(w), options)) : null;
+                if (cached != null && cached.expiresAt > now) {
+                    results[w][a] = cached.availability;
+                } else {
+                    pending.add(a);
+                }
+            }
+            for (int from = 0; from < pending.size(); from += maxAttendeesPerRequest) {
+                List<Integer> chunk = pending.subList(from, Math.min(pending.size(), from + maxAttendeesPerRequest));
+                int[] indexes = new int[chunk.size()];
+                for (int i = 0; i < indexes.length; i++) {
+                    indexes[i] = chunk.get(i);
+                }
+                batches.add(new Batch(w, indexes));
+            }
+        }
+
+        runBatches(batches, attendees, windows, options, results);
+
+        // The chunks cover whole days; only report the slots that overlap the requested time window.
+        long interval = options.getMergedFreeBusyInterval();
+        LocalDateTime viewStart = windows.get(0).getStartTime();
+        int fromSlot = (int) (Duration.between(viewStart, timeWindow.getStartTime()).toMinutes() / interval);
+        int toSlot = (int) ((Duration.between(viewStart, timeWindow.getEndTime()).toMinutes() + interval - 1)
+                / interval);
+        List<AttendeeAvailability> stitched = new ArrayList<>(attendees.size());
+        List<AttendeeAvailability> parts = new ArrayList<>(windows.size());
+        for (int a = 0; a < attendees.size(); a++) {
+            parts.clear();
+            for (int w = 0; w < windows.size(); w++) {
+                parts.add(results[w][a]);
+            }
+            stitched.add(AttendeeAvailability.concat(parts, timeWindow, fromSlot, toSlot));
+        }
+        return stitched;
+    }
+
+    /**
+     * Runs the batches, at most {@link #getMaxParallelRequests()} at a time.
+     */
+    private void runBatches(final Queue<Batch> batches, final List<AttendeeInfo> attendees,
+            final List<TimeWindow> windows, final AvailabilityOptions options,
+            final AttendeeAvailability[][] results) throws Exception {
+        if (batches.isEmpty()) {
+            return;
+        }
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Runnable worker = new Runnable() {
+            public void run() {
+                Batch batch;
+                while (failure.get() == null && (batch = batches.poll()) != null) {
+                    try {
+                        runBatch(batch, attendees, windows.get(batch.window), options, results);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }
+        };
+
+        int workers = Math.min(maxParallelRequests, batches.size());
+        if (workers == 1) {
+            worker.run();
+        } else {
+            final ExecutorService pool = (this.executor != null) ? this.executor :
+                    Executors.newFixedThreadPool(workers, new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "availability-request");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            List<Future<?>> futures = new ArrayList<>(workers);
+            try {
+                for (int i = 0; i < workers; i++) {
+                    futures.add(pool.submit(worker));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                failure.compareAndSet(null, new IllegalStateException(e.getCause()));
+            } finally {
+                // Also stops the workers if we were interrupted while waiting.
+                batches.clear();
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+                if (pool != this.executor) {
+                    pool.shutdownNow();
+                }
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Sends a single request and stores its results.
+     */
+    private void runBatch(Batch batch, List<AttendeeInfo> attendees, TimeWindow window,
+            AvailabilityOptions options, AttendeeAvailability[][] results) throws Exception {
+        List<AttendeeInfo> requested = new ArrayList<>(batch.attendeeIndexes.length);
+        for (int index : batch.attendeeIndexes) {
+            requested.add(attendees.get(index));
+        }
+        ServiceResponseCollection<AttendeeAvailability> responses =
+                service.getUserAvailability(requested, window, AvailabilityData.FreeBusy, options)
+                        .getAttendeesAvailability();
+        if (responses == null || responses.getCount() != requested.size()) {
+            throw new IllegalStateException(String.format(
+                    "Expected %d availability responses, got %d.",
+                    requested.size(), responses == null ? 0 : responses.getCount()));
+        }
+        long expiresAt = currentTimeMillis() + cacheTtlMillis;
+        for (int i = 0; i < requested.size(); i++) {
+            AttendeeAvailability availability = responses.getResponseAtIndex(i);
+            results[batch.window][batch.attendeeIndexes[i]] = availability;
+            if (cacheTtlMillis > 0 && availability.getResult() != ServiceResult.Error) {
+                cache.put(cacheKey(requested.get(i), window, options), new CacheEntry(availability, expiresAt));
+            }
+        }
+    }
+
+    /**
+     * Splits a time window into consecutive chunks of whole days, no longer than the maximum time window.
+     * The free/busy time window is sent to the server as dates only, so the chunks start and end at midnight:
+     * the first chunk starts at the midnight before the time window, the last ends at the first midnight
+     * after it. Every chunk but the last is a multiple of the merged free/busy interval, so that the merged
+     * free/busy slots of the chunks can be concatenated.
+     *
+     * @param timeWindow             the time window
+     * @param mergedFreeBusyInterval the merged free/busy interval, in minutes
+     * @return the chunks, in chronological order
+     */
+    List<TimeWindow> splitTimeWindow(TimeWindow timeWindow, int mergedFreeBusyInterval) {
+        long chunkDays = maxTimeWindow.toDays();
+        while (chunkDays > 0 && chunkDays * MINUTES_PER_DAY % mergedFreeBusyInterval != 0) {
+            chunkDays--;
+        }
+        if (chunkDays <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum time window must hold a whole number of days and merged free/busy intervals.");
+        }
+        LocalDateTime start = timeWindow.getStartTime().truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime end = timeWindow.getEndTime().truncatedTo(ChronoUnit.DAYS);
+        if (end.isBefore(timeWindow.getEndTime()) || !end.isAfter(start)) {
+            end = end.plusDays(1);
+        }
+        List<TimeWindow> windows = new ArrayList<>();
+        do {
+            LocalDateTime chunkEnd = start.plusDays(chunkDays);
+            if (chunkEnd.isAfter(end)) {
+                chunkEnd = end;
+            }
+            windows.add(new TimeWindow(start, chunkEnd));
+            start = chunkEnd;
+        } while (start.isBefore(end));
+        return windows;
+    }
+
+    private static List<Object> cacheKey(AttendeeInfo attendee, TimeWindow window, AvailabilityOptions options) {
+        return Arrays.<Object>asList(attendee.getSmtpAddress().toLowerCase(), attendee.getAttendeeType(),
+                attendee.isExcludeConflicts(), window.getStartTime(), window.getEndTime(),
+                options.getMergedFreeBusyInterval(), options.getRequestedFreeBusyView());
+    }
+
+    private void purgeExpired(long now) {
+        for (Iterator<CacheEntry> it = cache.values().iterator(); it.hasNext(); ) {
+            if (it.next().expiresAt <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the current time; overridden by tests.
+     *
+     * @return the current time in milliseconds
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Removes all cached availability.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * Gets the maximum number of mailboxes in a single request.
+     *
+     * @return the maximum number of mailboxes
+     */
+    public int getMaxAttendeesPerRequest() {
+        return maxAttendeesPerRequest;
+    }
+
+    /**
+     * Sets the maximum number of mailboxes in a single request. Lower it if the server's
+     * throttling policy is more restrictive than the default.
+     *
+     * @param value the maximum number of mailboxes
+     */
+    public void setMaxAttendeesPerRequest(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("MaxAttendeesPerRequest must be at least 1.");
+        }
+        this.maxAttendeesPerRequest = value;
+    }
+
+    /**
+     * Gets the maximum time window of a single request.
+     *
+     * @return the maximum time window
+     */
+    public Duration getMaxTimeWindow() {
+        return maxTimeWindow;
+    }
+
+    /**
+     * Sets the maximum time window of a single request. Requests always cover whole days, so any
+     * fraction of a day is ignored.
+     *
+     * @param value the maximum time window
+     */
+    public void setMaxTimeWindow(Duration value) {
+        if (value == null || value.toDays() < 1) {
+            throw new IllegalArgumentException("MaxTimeWindow must be at least one day.");
+        }
+        this.maxTimeWindow = value;
+    }
+
+    /**
+     * Gets the maximum number of concurrent requests.
+     *
+     * @return the maximum number of concurrent requests
+     */
+    public int getMaxParallelRequests() {
+        return maxParallelRequests;
+    }
+
+    /**
+     * Sets the maximum number of concurrent requests. 1 sends the requests one after the other,
+     * on the calling thread.
+     *
+     * @param value the maximum number of concurrent requests
+     */
+    public void setMaxParallelRequests(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("MaxParallelRequests must be at least 1.");
+        }
+        this.maxParallelRequests = value;
+    }
+
+    /**
+     * Gets how long the availability of a mailbox is cached, in milliseconds.
+     *
+     * @return the time-to-live; 0 if caching is disabled
+     */
+    public long getCacheTtlMillis() {
+        return cacheTtlMillis;
+    }
+
+    /**
+     * Sets how long the availability of a mailbox is cached, in milliseconds. Entries are keyed by
+     * mailbox, time window chunk, merged free/busy interval and view, so repeated searches starting
+     * at the same time hit the cache. Failed lookups are never cached. Caching is disabled by default.
+     *
+     * @param value the time-to-live; 0 disables caching
+     */
+    public void setCacheTtlMillis(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Time-to-live must not be negative.");
+        }
+        this.cacheTtlMillis = value;
+        if (value == 0) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Sets the executor that runs concurrent requests. If none is set, a temporary
+     * pool of daemon threads is created for each call.
+     *
+     * @param value the executor, or null
+     */
+    public void setExecutor(ExecutorService value) {
+        this.executor = value;
+    }
+
+}
@@ -0,0 +1,428 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.availability;
+
+import com.eischet.ews.api.core.enumeration.property.LegacyFreeBusyStatus;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * A compact, immutable representation of an attendee's merged free/busy string.
+ * <p>
+ * Each slot covers the merged free/busy interval requested in
+ * {@link AvailabilityOptions#setMergedFreeBusyInterval(int)}, starting at the beginning of the requested
+ * time window, so slot {@code i} starts at {@code start + i * interval}. The statuses are kept as one bitmap
+ * per {@link LegacyFreeBusyStatus}, which makes the slot search across many attendees a matter of
+ * and-ing 64 slots at a time.
+ * </p>
+ */
+public final class MergedFreeBusy {
+
+    private static final LegacyFreeBusyStatus[] STATUSES = LegacyFreeBusyStatus.values();
+    private static final int STATUS_COUNT = STATUSES.length;
+
+    /**
+     * Maps the digits of a MergedFreeBusy string to status ordinals.
+     */
+    private static final int[] ORDINAL_BY_DIGIT = new int[10];
+
+    static {
+        Arrays.fill(ORDINAL_BY_DIGIT, LegacyFreeBusyStatus.NoData.ordinal());
+        for (LegacyFreeBusyStatus status : STATUSES) {
+            ORDINAL_BY_DIGIT[status.getBusyStatus()] = status.ordinal();
+        }
+    }
+
+    /**
+     * A merged free/busy view without any slots.
+     */
+    public static final MergedFreeBusy EMPTY = new MergedFreeBusy(0, new long[0]);
+
+    private final int slotCount;
+    private final int words;
+
+    /**
+     * One bitmap of {@link #words} longs per status, in ordinal order.
+     */
+    private final long[] bitmaps;
+
+    private MergedFreeBusy(int slotCount, long[] bitmaps) {
+        this.slotCount = slotCount;
+        this.words = wordCount(slotCount);
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * Decodes a MergedFreeBusy string as returned by GetUserAvailability, one digit per slot.
+     * Characters other than the digits of a known status are decoded as {@link LegacyFreeBusyStatus#NoData},
+     * so slot positions are never shifted.
+     *
+     * @param mergedFreeBusy the string, e.g. "0022220000"
+     * @return the decoded view
+     */
+    public static MergedFreeBusy parse(CharSequence mergedFreeBusy) {
+        int slotCount = mergedFreeBusy.length();
+        if (slotCount == 0) {
+            return EMPTY;
+        }
+        int words = wordCount(slotCount);
+        long[] bitmaps = new long[words * STATUS_COUNT];
+        int noData = LegacyFreeBusyStatus.NoData.ordinal();
+        for (int i = 0; i < slotCount; i++) {
+            int digit = mergedFreeBusy.charAt(i) - '0';
+            int status = digit >= 0 && digit < ORDINAL_BY_DIGIT.length ? ORDINAL_BY_DIGIT[digit] : noData;
+            bitmaps[status * words + (i >>> 6)] |= 1L << i;
+        }
+        return new MergedFreeBusy(slotCount, bitmaps);
+    }
+
+    /**
+     * Concatenates consecutive views, e.g. of adjacent time windows.
+     *
+     * @param parts the views, in chronological order
+     * @return the combined view
+     */
+    public static MergedFreeBusy concat(List<MergedFreeBusy> parts) {
+        int slotCount = 0;
+        for (MergedFreeBusy part : parts) {
+            slotCount += part.slotCount;
+        }
+        if (slotCount == 0) {
+            return EMPTY;
+        }
+        int words = wordCount(slotCount);
+        long[] bitmaps = new long[words * STATUS_COUNT];
+        int offset = 0;
+        for (MergedFreeBusy part : parts) {
+            for (int status = 0; status < STATUS_COUNT; status++) {
+                int base = status * words;
+                int partBase = status * part.words;
+                for (int w = 0; w < part.words; w++) {
+                    long bits = part.bitmaps[partBase + w];
+                    if (bits == 0) {
+                        continue;
+                    }
+                    int slot = offset + (w << 6);
+                    int shift = slot & 63;
+                    bitmaps[base + (slot >>> 6)] |= bits << shift;
+                    if (shift != 0 && (slot >>> 6) + 1 < words) {
+                        bitmaps[base + (slot >>> 6) + 1] |= bits >>> (64 - shift);
+                    }
+                }
+            }
+            offset += part.slotCount;
+        }
+        return new MergedFreeBusy(slotCount, bitmaps);
+    }
+
+    /**
+     * Gets a range of slots of this view, e.g. to trim a view that covers whole days to the requested time window.
+     *
+     * @param fromSlot the first slot, inclusive
+     * @param toSlot   the last slot, exclusive; clamped to the slot count
+     * @return the range, or this view if the range covers all slots
+     */
+    public MergedFreeBusy slice(int fromSlot, int toSlot) {
+        if (fromSlot < 0 || fromSlot > toSlot) {
+            throw new IndexOutOfBoundsException("slots " + fromSlot + " to " + toSlot + " of " + slotCount);
+        }
+        toSlot = Math.min(toSlot, slotCount);
+        if (fromSlot == 0 && toSlot == slotCount) {
+            return this;
+        }
+        int slotCount = toSlot - fromSlot;
+        if (slotCount <= 0) {
+            return EMPTY;
+        }
+        int words = wordCount(slotCount);
+        int shift = fromSlot & 63;
+        long lastWordMask = -1L >>> (-slotCount & 63);
+        long[] bitmaps = new long[words * STATUS_COUNT];
+        for (int status = 0; status < STATUS_COUNT; status++) {
+            int base = status * words;
+            int partBase = status * this.words;
+            for (int w = 0; w < words; w++) {
+                int word = (fromSlot >>> 6) + w;
+                long bits = this.bitmaps[partBase + word] >>> shift;
+                if (shift != 0 && word + 1 < this.words) {
+                    bits |= this.bitmaps[partBase + word + 1] << (64 - shift);
+                }
+                bitmaps[base + w] = bits;
+            }
+            bitmaps[base + words - 1] &= lastWordMask;
+        }
+        return new MergedFreeBusy(slotCount, bitmaps);
+    }
+
+    private static int wordCount(int slotCount) {
+        return (slotCount + 63) >>> 6;
+    }
+
+    /**
+     * Gets the number of slots.
+     *
+     * @return the slot count
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Gets the status of a slot.
+     *
+     * @param slot the slot index
+     * @return the status
+     */
+    public LegacyFreeBusyStatus getStatus(int slot) {
+        if (slot < 0 || slot >= slotCount) {
+            throw new IndexOutOfBoundsException("slot " + slot + " of " + slotCount);
+        }
+        long mask = 1L << slot;
+        int word = slot >>> 6;
+        for (int status = 0; status < STATUS_COUNT; status++) {
+            if ((bitmaps[status * words + word] & mask) != 0) {
+                return STATUSES[status];
+            }
+        }
+        return LegacyFreeBusyStatus.NoData;
+    }
+
+    /**
+     * Counts the slots that have a status.
+     *
+     * @param status the status
+     * @return the number of slots
+     */
+    public int count(LegacyFreeBusyStatus status) {
+        int base = status.ordinal() * words;
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(bitmaps[base + w]);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the slots whose status is one of the given statuses, as a bitmap: bit {@code i % 64} of
+     * element {@code i / 64} is set if slot {@code i} matches.
+     *
+     * @param statuses the statuses
+     * @return a new bitmap
+     */
+    public long[] toBitmap(Collection<LegacyFreeBusyStatus> statuses) {
+        long[] result = new long[words];
+        for (LegacyFreeBusyStatus status : statuses) {
+            orInto(result, status.ordinal());
+        }
+        return result;
+    }
+
+    private void orInto(long[] target, int status) {
+        int base = status * words;
+        for (int w = 0; w < words; w++) {
+            target[w] |= bitmaps[base + w];
+        }
+    }
+
+    private void andInto(long[] target, int statusMask) {
+        int n = Math.min(words, target.length);
+        for (int w = 0; w < n; w++) {
+            long available = 0;
+            for (int status = 0; status < STATUS_COUNT; status++) {
+                if ((statusMask & (1 << status)) != 0) {
+                    available |= bitmaps[status * words + w];
+                }
+            }
+            target[w] &= available;
+        }
+        for (int w = n; w < target.length; w++) {
+            target[w] = 0;
+        }
+    }
+
+    /**
+     * Gets the slots in which all attendees have one of the given statuses, e.g. Free, or Free and Tentative.
+     * Slots beyond the end of the shortest view are never available.
+     *
+     * @param attendees the attendees' views
+     * @param available the statuses that count as available
+     * @return a bitmap of the common available slots, in the format of {@link #toBitmap(Collection)}
+     */
+    public static long[] intersect(Collection<MergedFreeBusy> attendees, Collection<LegacyFreeBusyStatus> available) {
+        int slotCount = Integer.MAX_VALUE;
+        for (MergedFreeBusy attendee : attendees) {
+            slotCount = Math.min(slotCount, attendee.slotCount);
+        }
+        if (attendees.isEmpty() || slotCount == 0) {
+            return new long[0];
+        }
+        int statusMask = 0;
+        for (LegacyFreeBusyStatus status : available) {
+            statusMask |= 1 << status.ordinal();
+        }
+        long[] result = new long[wordCount(slotCount)];
+        Arrays.fill(result, -1L);
+        if ((slotCount & 63) != 0) {
+            result[result.length - 1] = (1L << slotCount) - 1;
+        }
+        for (MergedFreeBusy attendee : attendees) {
+            attendee.andInto(result, statusMask);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the first run of consecutive slots in which all attendees are free.
+     *
+     * @param attendees the attendees' views
+     * @param slots     the number of consecutive slots needed
+     * @return the index of the first slot of the run, or -1 if there is none
+     */
+    public static int findFirstCommonFreeSlot(Collection<MergedFreeBusy> attendees, int slots) {
+        return findFirstCommonSlot(attendees, EnumSet.of(LegacyFreeBusyStatus.Free), 0, slots);
+    }
+
+    /**
+     * Finds the first run of consecutive slots in which all attendees have one of the given statuses.
+     *
+     * @param attendees the attendees' views
+     * @param available the statuses that count as available
+     * @param fromSlot  the first slot to consider
+     * @param slots     the number of consecutive slots needed
+     * @return the index of the first slot of the run, or -1 if there is none
+     */
+    public static int findFirstCommonSlot(Collection<MergedFreeBusy> attendees,
+                                          Collection<LegacyFreeBusyStatus> available, int fromSlot, int slots) {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("slots must be positive");
+        }
+        return findRun(intersect(attendees, available), Math.max(0, fromSlot), slots);
+    }
+
+    /**
+     * Finds the first run of set bits in a bitmap.
+     *
+     * @param bitmap   the bitmap
+     * @param fromBit  the first bit to consider
+     * @param length   the length of the run
+     * @return the index of the first bit of the run, or -1 if there is none
+     */
+    static int findRun(long[] bitmap, int fromBit, int length) {
+        int limit = bitmap.length << 6;
+        int start = nextSetBit(bitmap, fromBit, limit);
+        while (start >= 0) {
+            int end = nextClearBit(bitmap, start, limit);
+            if (end - start >= length) {
+                return start;
+            }
+            start = nextSetBit(bitmap, end, limit);
+        }
+        return -1;
+    }
+
+    private static int nextSetBit(long[] bitmap, int from, int limit) {
+        if (from >= limit) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = bitmap[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == bitmap.length) {
+                return -1;
+            }
+            word = bitmap[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static int nextClearBit(long[] bitmap, int from, int limit) {
+        if (from >= limit) {
+            return limit;
+        }
+        int w = from >>> 6;
+        long word = ~bitmap[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == bitmap.length) {
+                return limit;
+            }
+            word = ~bitmap[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Gets the statuses as a list, one element per slot. The list is a read-only view and does not copy the slots.
+     *
+     * @return the statuses
+     */
+    public List<LegacyFreeBusyStatus> asList() {
+        return new AbstractList<LegacyFreeBusyStatus>() {
+            @Override
+            public LegacyFreeBusyStatus get(int index) {
+                return getStatus(index);
+            }
+
+            @Override
+            public int size() {
+                return slotCount;
+            }
+        };
+    }
+
+    /**
+     * Encodes the view as a MergedFreeBusy string.
+     *
+     * @return the string
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            sb.append((char) ('0' + getStatus(i).getBusyStatus()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MergedFreeBusy)) {
+            return false;
+        }
+        MergedFreeBusy other = (MergedFreeBusy) o;
+        return slotCount == other.slotCount && Arrays.equals(bitmaps, other.bitmaps);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * slotCount + Arrays.hashCode(bitmaps);
+    }
+
+}
@@ -0,0 +1,627 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.directory;
+
+import com.eischet.ews.api.core.EwsUtilities;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.property.MailboxType;
+import com.eischet.ews.api.core.enumeration.search.ResolveNameSearchLocation;
+import com.eischet.ews.api.misc.ExpandGroupResults;
+import com.eischet.ews.api.misc.ImpersonatedUserId;
+import com.eischet.ews.api.misc.NameResolutionCollection;
+import com.eischet.ews.api.property.complex.EmailAddress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the results of ResolveNames and ExpandGroup calls of a service.
+ * <p>
+ * A result is returned from the cache for the time-to-live after it was fetched. After that,
+ * it is still returned for the stale period, while a single request refreshes it in the
+ * background; older results are fetched again before they are returned. Concurrent lookups of
+ * the same name or group share a single request. Failed lookups are not cached.
+ * </p>
+ * <p>
+ * {@link #expandGroupRecursively(EmailAddress)} expands nested groups, one level at a time,
+ * expanding the groups of a level in parallel. Each group is expanded once, so groups that
+ * contain each other don't cause endless expansion.
+ * </p>
+ * <p>
+ * Each caller gets its own copy of a cached result, which it may change. Results depend on
+ * the mailbox whose contacts are searched: they are cached separately for each user the
+ * service impersonates, and a cache must only be used with the service it was created for.
+ * The cache is safe for use by multiple threads.
+ * </p>
+ */
+public class DirectoryCache {
+
+    /**
+     * Default time-to-live of results: fifteen minutes.
+     */
+    public static final long DEFAULT_TTL_MILLIS = 15L * 60 * 1000;
+
+    /**
+     * Default time an expired result is still returned while it is refreshed: one hour.
+     */
+    public static final long DEFAULT_STALE_MILLIS = 60L * 60 * 1000;
+
+    /**
+     * The default maximum number of cached results.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * The default maximum number of requests sent at the same time.
+     */
+    public static final int DEFAULT_MAX_PARALLEL_REQUESTS = 4;
+
+    /**
+     * Separates the parts of a key; can't occur in names or addresses.
+     */
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final ExchangeService service;
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong staleHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * The cached results, in access order. Guarded by itself.
+     */
+    private final LinkedHashMap<String, CachedResult> entries;
+
+    /**
+     * The lookups in progress, shared by all callers asking for the same key.
+     */
+    private final Map<String, Load> loads = new ConcurrentHashMap<>();
+
+    private int maxParallelRequests = DEFAULT_MAX_PARALLEL_REQUESTS;
+    private ExecutorService executor;
+    private ThreadPoolExecutor defaultExecutor;
+
+    /**
+     * A cached result and the time it was fetched at.
+     */
+    private static final class CachedResult {
+        private final Object value;
+        private final long loadedAt;
+
+        private CachedResult(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * A lookup in progress. Whoever needs the result first runs it; everybody else waits for it.
+     */
+    private final class Load extends FutureTask<Object> {
+        private final String key;
+
+        private Load(String key, Callable<Object> lookup) {
+            super(lookup);
+            this.key = key;
+        }
+
+        @Override
+        protected void done() {
+            loads.remove(this.key, this);
+        }
+    }
+
+    /**
+     * Initializes a new cache with the default time-to-live, stale period and capacity.
+     *
+     * @param service the service used to send the requests
+     */
+    public DirectoryCache(ExchangeService service) {
+        this(service, DEFAULT_TTL_MILLIS, DEFAULT_STALE_MILLIS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes a new cache.
+     *
+     * @param service     the service used to send the requests
+     * @param ttlMillis   time-to-live of results, in milliseconds
+     * @param staleMillis time an expired result is still returned while it is refreshed, in
+     *                    milliseconds; 0 always fetches expired results before returning them
+     * @param capacity    the maximum number of cached results
+     */
+    public DirectoryCache(ExchangeService service, long ttlMillis, long staleMillis, final int capacity) {
+        if (ttlMillis < 0 || staleMillis < 0) {
+            throw new IllegalArgumentException("Time-to-live must not be negative.");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be greater than 0.");
+        }
+        this.service = service;
+        this.ttlMillis = ttlMillis;
+        this.staleMillis = staleMillis;
+        this.entries = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the current time; overridden by tests.
+     *
+     * @return the current time in milliseconds
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Finds contacts in the user's Contacts folder and the Global Address List (in that
+     * order) that have names that match the one passed as a parameter.
+     *
+     * @param nameToResolve the name to resolve
+     * @return a copy of the cached name resolutions
+     * @throws Exception the exception
+     * @see ExchangeService#resolveName(String)
+     */
+    public NameResolutionCollection resolveName(String nameToResolve) throws Exception {
+        return this.resolveName(nameToResolve, ResolveNameSearchLocation.ContactsThenDirectory, false);
+    }
+
+    /**
+     * Finds contacts in the Global Address List and/or the user's Contacts folder that have
+     * names that match the one passed as a parameter. Names are compared case-insensitively.
+     *
+     * @param nameToResolve        the name to resolve
+     * @param searchScope          the search scope
+     * @param returnContactDetails whether full contact information should be returned
+     * @return a copy of the cached name resolutions
+     * @throws Exception the exception
+     * @see ExchangeService#resolveName(String, ResolveNameSearchLocation, boolean)
+     */
+    public NameResolutionCollection resolveName(final String nameToResolve,
+                                                final ResolveNameSearchLocation searchScope,
+                                                final boolean returnContactDetails) throws Exception {
+        EwsUtilities.validateParam(nameToResolve, "nameToResolve");
+        EwsUtilities.validateParam(searchScope, "searchScope");
+
+        String key = new StringBuilder(this.mailboxKey())
+                .append('R').append(KEY_SEPARATOR)
+                .append(searchScope.ordinal()).append(KEY_SEPARATOR)
+                .append(returnContactDetails ? '1' : '0').append(KEY_SEPARATOR)
+                .append(nameToResolve.toLowerCase(Locale.ROOT)).toString();
+        NameResolutionCollection resolutions = (NameResolutionCollection) this.get(key, new Callable<Object>() {
+            public Object call() throws Exception {
+                return service.resolveName(nameToResolve, searchScope, returnContactDetails);
+            }
+        });
+        return resolutions.copy();
+    }
+
+    /**
+     * Expands a group by retrieving a list of its members.
+     *
+     * @param smtpAddress the SMTP address of the group
+     * @return a copy of the cached members of the group
+     * @throws Exception the exception
+     */
+    public ExpandGroupResults expandGroup(String smtpAddress) throws Exception {
+        EwsUtilities.validateParam(smtpAddress, "smtpAddress");
+        return this.expandGroup(new EmailAddress(smtpAddress));
+    }
+
+    /**
+     * Expands a group by retrieving a list of its members. Groups are identified by their
+     * id if they have one, otherwise by their address and routing type.
+     *
+     * @param emailAddress the group
+     * @return a copy of the cached members of the group
+     * @throws Exception the exception
+     * @see ExchangeService#expandGroup(EmailAddress)
+     */
+    public ExpandGroupResults expandGroup(final EmailAddress emailAddress) throws Exception {
+        EwsUtilities.validateParam(emailAddress, "emailAddress");
+
+        Callable<Object> lookup = new Callable<Object>() {
+            public Object call() throws Exception {
+                return service.expandGroup(emailAddress);
+            }
+        };
+        String key = groupKeyOf(emailAddress);
+        if (key == null) {
+            return (ExpandGroupResults) lookup.call();
+        }
+        return ((ExpandGroupResults) this.get(this.mailboxKey() + key, lookup)).copy();
+    }
+
+    /**
+     * Expands a group and all groups nested in it.
+     *
+     * @param smtpAddress the SMTP address of the group
+     * @return the members that aren't groups, without duplicates
+     * @throws Exception the exception
+     */
+    public List<EmailAddress> expandGroupRecursively(String smtpAddress) throws Exception {
+        EwsUtilities.validateParam(smtpAddress, "smtpAddress");
+        return this.expandGroupRecursively(new EmailAddress(smtpAddress));
+    }
+
+    /**
+     * Expands a group and all groups nested in it. The groups of each nesting level are
+     * expanded in parallel, up to {@link #getMaxParallelRequests()} at the same time. Each
+     * group is expanded only once, even if it is a member of several groups or of itself.
+     *
+     * @param emailAddress the group
+     * @return the members that aren't groups, without duplicates, in the order they were found
+     * @throws Exception the exception thrown by the first expansion that failed
+     */
+    public List<EmailAddress> expandGroupRecursively(EmailAddress emailAddress) throws Exception {
+        EwsUtilities.validateParam(emailAddress, "emailAddress");
+
+        Set<String> expandedGroups = new HashSet<>();
+        Set<String> foundMembers = new HashSet<>();
+        List<EmailAddress> members = new ArrayList<>();
+        expandedGroups.add(groupKeyOf(emailAddress));
+        List<EmailAddress> level = Collections.singletonList(emailAddress);
+        while (!level.isEmpty()) {
+            List<EmailAddress> nextLevel = new ArrayList<>();
+            for (ExpandGroupResults results : this.expandAll(level)) {
+                for (EmailAddress member : results) {
+                    if (isGroup(member)) {
+                        String key = groupKeyOf(member);
+                        if (key != null && expandedGroups.add(key)) {
+                            nextLevel.add(member);
+                        }
+                    } else {
+                        String key = memberKeyOf(member);
+                        if (key == null || foundMembers.add(key)) {
+                            members.add(member);
+                        }
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        return members;
+    }
+
+    /**
+     * Expands several groups in parallel.
+     *
+     * @return the results, in the order of the groups
+     */
+    private List<ExpandGroupResults> expandAll(List<EmailAddress> groups) throws Exception {
+        List<ExpandGroupResults> results = new ArrayList<>(groups.size());
+        if (groups.size() == 1) {
+            results.add(this.expandGroup(groups.get(0)));
+            return results;
+        }
+
+        List<FutureTask<ExpandGroupResults>> tasks = new ArrayList<>(groups.size());
+        for (final EmailAddress group : groups) {
+            tasks.add(new FutureTask<>(new Callable<ExpandGroupResults>() {
+                public ExpandGroupResults call() throws Exception {
+                    return expandGroup(group);
+                }
+            }));
+        }
+        try {
+            ExecutorService pool = this.getExecutor();
+            for (FutureTask<ExpandGroupResults> task : tasks) {
+                try {
+                    pool.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // Run on the calling thread below.
+                    break;
+                }
+            }
+            for (FutureTask<ExpandGroupResults> task : tasks) {
+                // Runs the task here if no pool thread has started it yet, so that nested
+                // use from within the pool can't starve it.
+                task.run();
+                results.add(await(task));
+            }
+        } finally {
+            for (FutureTask<ExpandGroupResults> task : tasks) {
+                task.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets a result from the cache, fetching it if it isn't cached or is too old, and
+     * starting a refresh if it has expired.
+     */
+    private Object get(final String key, final Callable<Object> lookup) throws Exception {
+        CachedResult entry;
+        synchronized (this.entries) {
+            entry = this.entries.get(key);
+        }
+        if (entry != null) {
+            long age = currentTimeMillis() - entry.loadedAt;
+            if (age < ttlMillis) {
+                this.hitCount.incrementAndGet();
+                return entry.value;
+            }
+            if (age < ttlMillis + staleMillis) {
+                this.staleHitCount.incrementAndGet();
+                this.refresh(key, lookup);
+                return entry.value;
+            }
+        }
+        this.missCount.incrementAndGet();
+        Load load = this.loads.get(key);
+        if (load == null) {
+            Load created = this.newLoad(key, lookup);
+            load = this.loads.putIfAbsent(key, created);
+            if (load == null) {
+                load = created;
+            }
+        }
+        // Does nothing if someone else is already running it.
+        load.run();
+        return await(load);
+    }
+
+    /**
+     * Starts refreshing an expired result in the background, unless it is already being
+     * fetched. If the refresh fails, the expired result is kept until it is too old.
+     */
+    private void refresh(String key, Callable<Object> lookup) {
+        Load created = this.newLoad(key, lookup);
+        if (this.loads.putIfAbsent(key, created) == null) {
+            try {
+                this.getExecutor().execute(created);
+            } catch (RejectedExecutionException e) {
+                this.loads.remove(key, created);
+            }
+        }
+    }
+
+    private Load newLoad(final String key, final Callable<Object> lookup) {
+        return new Load(key, new Callable<Object>() {
+            public Object call() throws Exception {
+                // The result may have been stored just before this load was registered.
+                CachedResult entry;
+                synchronized (entries) {
+                    entry = entries.get(key);
+                }
+                if (entry != null && currentTimeMillis() - entry.loadedAt < ttlMillis) {
+                    return entry.value;
+                }
+                Object value = lookup.call();
+                if (value != null) {
+                    synchronized (entries) {
+                        entries.put(key, new CachedResult(value, currentTimeMillis()));
+                    }
+                }
+                return value;
+            }
+        });
+    }
+
+    private static <T> T await(FutureTask<T> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isGroup(EmailAddress emailAddress) {
+        return emailAddress.getMailboxType() == MailboxType.PublicGroup
+                || emailAddress.getMailboxType() == MailboxType.ContactGroup;
+    }
+
+    /**
+     * Builds the part of a key that identifies the mailbox searched: the user the service
+     * impersonates at the time of the lookup, if any.
+     *
+     * @return the key, empty if no user is impersonated
+     */
+    private String mailboxKey() {
+        ImpersonatedUserId user = this.service.getImpersonatedUserId();
+        if (user == null) {
+            return "";
+        }
+        return "U" + KEY_SEPARATOR + user.getIdType() + KEY_SEPARATOR + user.getId() + KEY_SEPARATOR;
+    }
+
+    /**
+     * Builds the key of a group from its id, or from its routing type and address, which is
+     * compared case-insensitively.
+     *
+     * @return the key, or null if the group can't be identified
+     */
+    private static String groupKeyOf(EmailAddress emailAddress) {
+        if (emailAddress.getId() != null && emailAddress.getId().getUniqueId() != null) {
+            return "G" + KEY_SEPARATOR + "I" + KEY_SEPARATOR + emailAddress.getId().getUniqueId();
+        }
+        if (emailAddress.getAddress() == null) {
+            return null;
+        }
+        String routingType = emailAddress.getRoutingType() == null ? "SMTP" : emailAddress.getRoutingType();
+        return "G" + KEY_SEPARATOR + routingType.toUpperCase(Locale.ROOT) + KEY_SEPARATOR
+                + emailAddress.getAddress().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds the key that identifies duplicate members.
+     *
+     * @return the key, or null if the member can't be identified
+     */
+    private static String memberKeyOf(EmailAddress emailAddress) {
+        if (emailAddress.getAddress() != null) {
+            String routingType = emailAddress.getRoutingType() == null ? "SMTP" : emailAddress.getRoutingType();
+            return routingType.toUpperCase(Locale.ROOT) + KEY_SEPARATOR
+                    + emailAddress.getAddress().toLowerCase(Locale.ROOT);
+        }
+        if (emailAddress.getId() != null && emailAddress.getId().getUniqueId() != null) {
+            return "I" + KEY_SEPARATOR + emailAddress.getId().getUniqueId();
+        }
+        return null;
+    }
+
+    /**
+     * Gets the executor that runs refreshes and parallel expansions, creating the default
+     * pool on first use.
+     */
+    private synchronized ExecutorService getExecutor() {
+        if (this.executor != null) {
+            return this.executor;
+        }
+        if (this.defaultExecutor == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxParallelRequests, maxParallelRequests,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+                        Thread thread = new Thread(r, "directory-cache");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            // Idle caches don't keep threads around.
+            pool.allowCoreThreadTimeOut(true);
+            this.defaultExecutor = pool;
+        }
+        return this.defaultExecutor;
+    }
+
+    /**
+     * Gets the number of lookups answered with an unexpired result.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Gets the number of lookups answered with an expired result while it was refreshed.
+     *
+     * @return the number of stale hits
+     */
+    public long getStaleHitCount() {
+        return this.staleHitCount.get();
+    }
+
+    /**
+     * Gets the number of lookups that had to wait for a request, either their own or one
+     * that was already in progress.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Gets the number of cached results.
+     *
+     * @return the size
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * Removes all results from the cache and resets the statistics.
+     */
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+        this.hitCount.set(0);
+        this.staleHitCount.set(0);
+        this.missCount.set(0);
+    }
+
+    /**
+     * Gets the maximum number of requests the default pool sends at the same time.
+     *
+     * @return the maximum number of concurrent requests
+     */
+    public synchronized int getMaxParallelRequests() {
+        return maxParallelRequests;
+    }
+
+    /**
+     * Sets the maximum number of requests the default pool sends at the same time. If the
+     * pool already exists it is resized; requests already running are not interrupted.
+     *
+     * @param value the maximum number of concurrent requests
+     */
+    public synchronized void setMaxParallelRequests(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("MaxParallelRequests must be at least 1.");
+        }
+        this.maxParallelRequests = value;
+        ThreadPoolExecutor pool = this.defaultExecutor;
+        if (pool != null) {
+            // The core size may never exceed the maximum size, so the order matters.
+            if (value > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(value);
+                pool.setCorePoolSize(value);
+            } else {
+                pool.setCorePoolSize(value);
+                pool.setMaximumPoolSize(value);
+            }
+        }
+    }
+
+    /**
+     * Sets the executor that runs background refreshes and parallel expansions. If none is
+     * set, a pool of {@link #getMaxParallelRequests()} daemon threads is created on first use.
+     *
+     * @param value the executor, or null
+     */
+    public synchronized void setExecutor(ExecutorService value) {
+        this.executor = value;
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.export;
+
+import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.property.complex.ItemId;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Receives the items exported by a {@link MailboxExporter}.
+ * <p>
+ * The MIME content of each item is decoded straight into the stream returned by
+ * {@link #openItem(ItemId)}. Every opened stream is handed back exactly once, either to
+ * {@link #commitItem(ItemId, OutputStream, Item)} or to
+ * {@link #abortItem(ItemId, OutputStream, Exception)}. Items are exported by several
+ * threads at once, so implementations must be thread-safe.
+ * </p>
+ */
+public interface IMailboxExportSink {
+
+    /**
+     * Provides the stream to which the MIME content of the specified item is written.
+     *
+     * @param itemId the Id of the item
+     * @return the stream receiving the MIME content
+     * @throws IOException if the stream cannot be opened
+     */
+    OutputStream openItem(ItemId itemId) throws IOException;
+
+    /**
+     * Called once the MIME content of an item has been written completely. The sink is
+     * responsible for closing the stream.
+     *
+     * @param itemId the Id of the item
+     * @param stream the stream returned by {@link #openItem(ItemId)}
+     * @param item   the item, holding the additional properties requested from the exporter
+     * @throws IOException if the item cannot be committed; this fails the export
+     */
+    void commitItem(ItemId itemId, OutputStream stream, Item item) throws IOException;
+
+    /**
+     * Called when an item could not be exported, for example because it was deleted after it
+     * was enumerated. The sink should discard anything written to the stream and close it.
+     *
+     * @param itemId the Id of the item
+     * @param stream the stream returned by {@link #openItem(ItemId)}, or null if none was opened
+     * @param cause  the reason the item was not exported
+     * @throws IOException if the stream cannot be discarded
+     */
+    void abortItem(ItemId itemId, OutputStream stream, Exception cause) throws IOException;
+
+    /**
+     * Called, on the thread running the export, whenever every item enumerated before the
+     * checkpoint has been committed or aborted. Passing the checkpoint to
+     * {@link MailboxExporter#export} resumes the export after those items.
+     *
+     * @param checkpoint the opaque checkpoint
+     * @throws IOException if the checkpoint cannot be stored; this fails the export
+     */
+    default void checkpoint(String checkpoint) throws IOException {
+    }
+
+}
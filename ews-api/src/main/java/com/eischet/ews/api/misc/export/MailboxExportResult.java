@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.export;
+
+/**
+ * Summarizes a run of a {@link MailboxExporter}.
+ */
+public final class MailboxExportResult {
+
+    private final long exportedCount;
+    private final long failedCount;
+    private final String checkpoint;
+
+    MailboxExportResult(long exportedCount, long failedCount, String checkpoint) {
+        this.exportedCount = exportedCount;
+        this.failedCount = failedCount;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Gets the number of items committed to the sink.
+     *
+     * @return the number of exported items
+     */
+    public long getExportedCount() {
+        return exportedCount;
+    }
+
+    /**
+     * Gets the number of items the server failed to return, which were aborted.
+     *
+     * @return the number of failed items
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Gets the checkpoint after the last enumerated item; passing it to a later export only
+     * exports what changed in between (for {@link ItemEnumerationMode#SyncFolderItems}).
+     *
+     * @return the final checkpoint
+     */
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+}
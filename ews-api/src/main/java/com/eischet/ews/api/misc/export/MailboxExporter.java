@@ -0,0 +1,532 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.export;
+
+import com.eischet.ews.api.core.EwsUtilities;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.IMimeContentSink;
+import com.eischet.ews.api.core.PropertySet;
+import com.eischet.ews.api.core.enumeration.property.BasePropertySet;
+import com.eischet.ews.api.core.enumeration.service.ServiceResult;
+import com.eischet.ews.api.core.enumeration.service.SyncFolderItemsScope;
+import com.eischet.ews.api.core.enumeration.service.error.ServiceErrorHandling;
+import com.eischet.ews.api.core.enumeration.sync.ChangeType;
+import com.eischet.ews.api.core.exception.service.remote.ServiceResponseException;
+import com.eischet.ews.api.core.request.GetItemRequest;
+import com.eischet.ews.api.core.response.GetItemResponse;
+import com.eischet.ews.api.core.response.ServiceResponseCollection;
+import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.core.service.schema.ItemSchema;
+import com.eischet.ews.api.property.complex.FolderId;
+import com.eischet.ews.api.property.complex.ItemId;
+import com.eischet.ews.api.property.definition.PropertyDefinitionBase;
+import com.eischet.ews.api.search.FindItemsResults;
+import com.eischet.ews.api.search.ItemView;
+import com.eischet.ews.api.sync.ChangeCollection;
+import com.eischet.ews.api.sync.ItemChange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exports the items of a folder, as MIME, to an {@link IMailboxExportSink}.
+ * <p>
+ * The export runs as a pipeline. The calling thread enumerates the item ids page by page
+ * (with SyncFolderItems or FindItem) and queues them in batches; a bounded number of workers
+ * fetch the batches with GetItem, requesting only the MIME content and a few additional
+ * properties, and decode the MIME content of each item straight into the sink. The queue
+ * between the two stages is bounded, so enumeration never runs far ahead of the fetches,
+ * and no message is ever held in memory as a whole.
+ * </p>
+ * <p>
+ * Whenever all items of the pages enumerated so far have been handed to the sink, the
+ * calling thread reports a checkpoint through {@link IMailboxExportSink#checkpoint(String)}.
+ * Passing the last checkpoint to {@link #export(FolderId, String, IMailboxExportSink)}
+ * resumes an interrupted export. Items of the page that was in progress are exported again,
+ * so sinks should overwrite items they already hold.
+ * </p>
+ */
+public class MailboxExporter {
+
+    /**
+     * The default number of item ids enumerated per request; the maximum SyncFolderItems allows.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 512;
+
+    /**
+     * The default number of items fetched per GetItem request.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 20;
+
+    /**
+     * The default maximum number of concurrent GetItem requests.
+     */
+    public static final int DEFAULT_MAX_PARALLEL_REQUESTS = 4;
+
+    /**
+     * The default number of batches queued between enumeration and fetching.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /**
+     * How often the calling thread checks for failures and checkpoints while it waits.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    private final ExchangeService service;
+    private ItemEnumerationMode enumerationMode = ItemEnumerationMode.SyncFolderItems;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int maxParallelRequests = DEFAULT_MAX_PARALLEL_REQUESTS;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private List<PropertyDefinitionBase> additionalProperties =
+            Arrays.asList(ItemSchema.ItemClass, ItemSchema.Subject, ItemSchema.DateTimeReceived);
+    private ExecutorService executor;
+
+    /**
+     * A page of enumerated item ids.
+     */
+    private static final class Page {
+        private final List<ItemId> itemIds;
+        private final String checkpoint;
+        private final boolean moreAvailable;
+        private final AtomicInteger pendingBatches = new AtomicInteger();
+
+        private Page(List<ItemId> itemIds, String checkpoint, boolean moreAvailable) {
+            this.itemIds = itemIds;
+            this.checkpoint = checkpoint;
+            this.moreAvailable = moreAvailable;
+        }
+    }
+
+    /**
+     * The item ids of a single GetItem request.
+     */
+    private static final class Batch {
+        private final Page page;
+        private final List<ItemId> itemIds;
+
+        private Batch(Page page, List<ItemId> itemIds) {
+            this.page = page;
+            this.itemIds = itemIds;
+        }
+    }
+
+    /**
+     * Tells a worker that there are no more batches.
+     */
+    private static final Batch END = new Batch(null, Collections.<ItemId>emptyList());
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param service the service used to send the requests
+     */
+    public MailboxExporter(ExchangeService service) {
+        this.service = service;
+    }
+
+    /**
+     * Exports the items of a folder.
+     *
+     * @param folderId   the folder to export
+     * @param checkpoint a checkpoint reported by an earlier export of the same folder with the same
+     *                   enumeration mode, or null to export the whole folder
+     * @param sink       the sink receiving the items
+     * @return the number of exported and failed items, and the final checkpoint
+     * @throws Exception the first exception thrown by any of the requests or by the sink
+     */
+    public MailboxExportResult export(FolderId folderId, String checkpoint, final IMailboxExportSink sink)
+            throws Exception {
+        EwsUtilities.validateParam(folderId, "folderId");
+        EwsUtilities.validateParam(sink, "sink");
+
+        List<PropertyDefinitionBase> properties = new ArrayList<>(additionalProperties);
+        properties.add(ItemSchema.MimeContent);
+        final PropertySet propertySet = new PropertySet(BasePropertySet.IdOnly, properties.iterator());
+        final BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(queueCapacity);
+        final Deque<Page> pages = new ArrayDeque<>();
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final AtomicLong exported = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+
+        final Runnable worker = new Runnable() {
+            public void run() {
+                try {
+                    Batch batch;
+                    while (failure.get() == null && (batch = batches.take()) != END) {
+                        exportBatch(batch.itemIds, propertySet, sink, exported, failed);
+                        batch.page.pendingBatches.decrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        };
+
+        final ExecutorService pool = (this.executor != null) ? this.executor :
+                Executors.newFixedThreadPool(maxParallelRequests, new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "mailbox-export");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        List<Future<?>> futures = new ArrayList<>(maxParallelRequests);
+        String current = checkpoint;
+        try {
+            for (int i = 0; i < maxParallelRequests; i++) {
+                futures.add(pool.submit(worker));
+            }
+            boolean moreAvailable = true;
+            while (moreAvailable) {
+                Page page = nextPage(folderId, current);
+                int batchCount = (page.itemIds.size() + batchSize - 1) / batchSize;
+                page.pendingBatches.set(batchCount);
+                pages.add(page);
+                for (int from = 0; from < page.itemIds.size(); from += batchSize) {
+                    List<ItemId> itemIds = page.itemIds.subList(from, Math.min(page.itemIds.size(), from + batchSize));
+                    enqueue(batches, new Batch(page, itemIds), pages, sink, failure);
+                }
+                current = page.checkpoint;
+                moreAvailable = page.moreAvailable;
+                reportCheckpoints(pages, sink);
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                enqueue(batches, END, pages, sink, failure);
+            }
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        throwIfFailed(failure);
+                        reportCheckpoints(pages, sink);
+                    }
+                }
+            }
+            throwIfFailed(failure);
+            reportCheckpoints(pages, sink);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // Also stops the workers if we failed or were interrupted.
+            batches.clear();
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            if (pool != this.executor) {
+                pool.shutdownNow();
+            }
+        }
+        return new MailboxExportResult(exported.get(), failed.get(), current);
+    }
+
+    /**
+     * Queues a batch, reporting checkpoints while the queue is full.
+     */
+    private static void enqueue(BlockingQueue<Batch> batches, Batch batch, Deque<Page> pages,
+            IMailboxExportSink sink, AtomicReference<Exception> failure) throws Exception {
+        throwIfFailed(failure);
+        while (!batches.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            throwIfFailed(failure);
+            reportCheckpoints(pages, sink);
+        }
+    }
+
+    private static void throwIfFailed(AtomicReference<Exception> failure) throws Exception {
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Reports the checkpoint of every leading page whose batches are all done.
+     */
+    private static void reportCheckpoints(Deque<Page> pages, IMailboxExportSink sink) throws Exception {
+        while (!pages.isEmpty() && pages.peek().pendingBatches.get() == 0) {
+            sink.checkpoint(pages.poll().checkpoint);
+        }
+    }
+
+    /**
+     * Enumerates the next page of item ids.
+     *
+     * @param folderId   the folder
+     * @param checkpoint the checkpoint of the previous page, or null for the first page
+     * @return the page
+     */
+    private Page nextPage(FolderId folderId, String checkpoint) throws Exception {
+        List<ItemId> itemIds = new ArrayList<>();
+        if (enumerationMode == ItemEnumerationMode.FindItem) {
+            int offset = (checkpoint == null) ? 0 : Integer.parseInt(checkpoint);
+            ItemView view = new ItemView(pageSize, offset);
+            view.setPropertySet(new PropertySet(BasePropertySet.IdOnly));
+            FindItemsResults<Item> results = service.findItems(folderId, view);
+            for (Item item : results.getItems()) {
+                itemIds.add(item.getId());
+            }
+            int next = (results.getNextPageOffset() != null) ?
+                    results.getNextPageOffset() : offset + itemIds.size();
+            return new Page(itemIds, Integer.toString(next), results.isMoreAvailable());
+        }
+        ChangeCollection<ItemChange> changes = service.syncFolderItems(folderId,
+                new PropertySet(BasePropertySet.IdOnly), null, pageSize,
+                SyncFolderItemsScope.NormalItems, checkpoint);
+        for (ItemChange change : changes) {
+            // Deletions and read flag changes carry no content to export.
+            if (change.getChangeType() == ChangeType.Create || change.getChangeType() == ChangeType.Update) {
+                itemIds.add(change.getItemId());
+            }
+        }
+        return new Page(itemIds, changes.getSyncState(), changes.getMoreChangesAvailable());
+    }
+
+    /**
+     * Fetches a batch of items, decoding their MIME content into the sink.
+     */
+    private void exportBatch(List<ItemId> itemIds, PropertySet propertySet, final IMailboxExportSink sink,
+            AtomicLong exported, AtomicLong failed) throws Exception {
+        final Map<ItemId, OutputStream> streams = new IdentityHashMap<>();
+        GetItemRequest request = new GetItemRequest(service, ServiceErrorHandling.ReturnErrors);
+        request.getItemIds().addRange(itemIds);
+        request.setPropertySet(propertySet);
+        request.setMimeContentSink(new IMimeContentSink() {
+            @Override
+            public OutputStream openStream(ItemId itemId) throws IOException {
+                OutputStream stream = sink.openItem(itemId);
+                streams.put(itemId, stream);
+                return stream;
+            }
+
+            @Override
+            public void closeStream(ItemId itemId, OutputStream stream) {
+                // Committed or aborted below, once the whole response is known.
+            }
+        });
+
+        Exception failure = null;
+        try {
+            ServiceResponseCollection<GetItemResponse> responses = request.execute();
+            for (int i = 0; i < itemIds.size(); i++) {
+                ItemId itemId = itemIds.get(i);
+                GetItemResponse response = responses.getResponseAtIndex(i);
+                OutputStream stream = streams.remove(itemId);
+                if (response.getResult() == ServiceResult.Error) {
+                    sink.abortItem(itemId, stream, new ServiceResponseException(response));
+                    failed.incrementAndGet();
+                } else {
+                    sink.commitItem(itemId, stream, response.getItem());
+                    exported.incrementAndGet();
+                }
+            }
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (!streams.isEmpty()) {
+                abortUnfinished(streams, sink, (failure != null) ? failure :
+                        new IOException("The export of the batch was interrupted."));
+            }
+        }
+    }
+
+    /**
+     * Hands the streams that were neither committed nor aborted back to the sink, so that none
+     * is left open when a request or the sink fails halfway through a batch. Failures to abort
+     * are added to the cause as suppressed exceptions.
+     */
+    private static void abortUnfinished(Map<ItemId, OutputStream> streams, IMailboxExportSink sink,
+            Exception cause) {
+        for (Map.Entry<ItemId, OutputStream> entry : streams.entrySet()) {
+            try {
+                sink.abortItem(entry.getKey(), entry.getValue(), cause);
+            } catch (IOException | RuntimeException e) {
+                cause.addSuppressed(e);
+            }
+        }
+        streams.clear();
+    }
+
+    /**
+     * Gets how item ids are enumerated.
+     *
+     * @return the enumeration mode
+     */
+    public ItemEnumerationMode getEnumerationMode() {
+        return enumerationMode;
+    }
+
+    /**
+     * Sets how item ids are enumerated. Checkpoints of one mode can't be used with the other.
+     *
+     * @param value the enumeration mode
+     */
+    public void setEnumerationMode(ItemEnumerationMode value) {
+        if (value == null) {
+            throw new IllegalArgumentException("EnumerationMode must not be null.");
+        }
+        this.enumerationMode = value;
+    }
+
+    /**
+     * Gets the number of item ids enumerated per request.
+     *
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of item ids enumerated per request, which is also how often checkpoints
+     * are reported.
+     *
+     * @param value the page size, between 1 and 512
+     */
+    public void setPageSize(int value) {
+        if (value < 1 || value > 512) {
+            throw new IllegalArgumentException("PageSize must be between 1 and 512.");
+        }
+        this.pageSize = value;
+    }
+
+    /**
+     * Gets the number of items fetched per GetItem request.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of items fetched per GetItem request.
+     *
+     * @param value the batch size
+     */
+    public void setBatchSize(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("BatchSize must be at least 1.");
+        }
+        this.batchSize = value;
+    }
+
+    /**
+     * Gets the maximum number of concurrent GetItem requests.
+     *
+     * @return the maximum number of concurrent requests
+     */
+    public int getMaxParallelRequests() {
+        return maxParallelRequests;
+    }
+
+    /**
+     * Sets the maximum number of concurrent GetItem requests.
+     *
+     * @param value the maximum number of concurrent requests
+     */
+    public void setMaxParallelRequests(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("MaxParallelRequests must be at least 1.");
+        }
+        this.maxParallelRequests = value;
+    }
+
+    /**
+     * Gets the number of batches queued between enumeration and fetching.
+     *
+     * @return the queue capacity
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Sets the number of batches queued between enumeration and fetching. Enumeration pauses
+     * while the queue is full.
+     *
+     * @param value the queue capacity
+     */
+    public void setQueueCapacity(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("QueueCapacity must be at least 1.");
+        }
+        this.queueCapacity = value;
+    }
+
+    /**
+     * Gets the properties requested along with the MIME content.
+     *
+     * @return the additional properties
+     */
+    public List<PropertyDefinitionBase> getAdditionalProperties() {
+        return Collections.unmodifiableList(additionalProperties);
+    }
+
+    /**
+     * Sets the properties requested along with the MIME content, which are available on the
+     * item passed to {@link IMailboxExportSink#commitItem}. Defaults to the item class, subject
+     * and received time.
+     *
+     * @param properties the additional properties
+     */
+    public void setAdditionalProperties(PropertyDefinitionBase... properties) {
+        this.additionalProperties = new ArrayList<>(Arrays.asList(properties));
+    }
+
+    /**
+     * Sets the executor that runs the fetch workers. If none is set, a temporary
+     * pool of daemon threads is created for each export.
+     *
+     * @param value the executor, or null
+     */
+    public void setExecutor(ExecutorService value) {
+        this.executor = value;
+    }
+
+}
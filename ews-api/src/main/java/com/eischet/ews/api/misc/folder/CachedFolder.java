@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.folder;
+
+import com.eischet.ews.api.core.service.folder.Folder;
+import com.eischet.ews.api.property.complex.FolderId;
+
+/**
+ * A read-only view of a folder in a {@link FolderHierarchyCache}. The view never changes;
+ * each synchronization that changes the folder replaces it with a new one. To change the
+ * folder itself, bind to it by its id.
+ */
+public final class CachedFolder {
+
+    private final String uniqueId;
+    private final String changeKey;
+    private final String parentId;
+    private final String displayName;
+    private final String folderClass;
+
+    /**
+     * Initializes a view of the properties of a folder loaded by the cache.
+     *
+     * @param folder the folder
+     * @throws Exception the exception
+     */
+    CachedFolder(Folder folder) throws Exception {
+        this.uniqueId = folder.getId().getUniqueId();
+        this.changeKey = folder.getId().getChangeKey();
+        this.parentId = folder.getParentFolderId() == null ? null : folder.getParentFolderId().getUniqueId();
+        this.displayName = folder.getDisplayName();
+        this.folderClass = folder.getFolderClass();
+    }
+
+    /**
+     * Gets the id of the folder. Each call returns a new instance.
+     *
+     * @return the id
+     */
+    public FolderId getId() {
+        FolderId id = new FolderId();
+        id.setUniqueId(this.uniqueId);
+        id.setChangeKey(this.changeKey);
+        return id;
+    }
+
+    /**
+     * Gets the id of the parent folder. Each call returns a new instance.
+     *
+     * @return the id of the parent folder, or null if it isn't known
+     */
+    public FolderId getParentFolderId() {
+        if (this.parentId == null) {
+            return null;
+        }
+        FolderId id = new FolderId();
+        id.setUniqueId(this.parentId);
+        return id;
+    }
+
+    /**
+     * Gets the display name of the folder.
+     *
+     * @return the display name
+     */
+    public String getDisplayName() {
+        return this.displayName;
+    }
+
+    /**
+     * Gets the class of the folder, e.g. IPF.Note.
+     *
+     * @return the folder class
+     */
+    public String getFolderClass() {
+        return this.folderClass;
+    }
+
+    String getUniqueId() {
+        return this.uniqueId;
+    }
+
+    String getParentId() {
+        return this.parentId;
+    }
+
+}
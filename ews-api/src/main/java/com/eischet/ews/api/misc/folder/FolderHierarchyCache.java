@@ -0,0 +1,507 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.folder;
+
+import com.eischet.ews.api.core.EwsUtilities;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.PropertySet;
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
+import com.eischet.ews.api.core.enumeration.property.BasePropertySet;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.enumeration.sync.ChangeType;
+import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
+import com.eischet.ews.api.core.exception.service.remote.ServiceResponseException;
+import com.eischet.ews.api.core.service.folder.Folder;
+import com.eischet.ews.api.core.service.schema.FolderSchema;
+import com.eischet.ews.api.property.complex.FolderId;
+import com.eischet.ews.api.property.complex.Mailbox;
+import com.eischet.ews.api.sync.ChangeCollection;
+import com.eischet.ews.api.sync.FolderChange;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory index of the folder hierarchy of a mailbox, for looking up folders by id, by
+ * path and by well-known name without a request.
+ * <p>
+ * The index is filled with SyncFolderHierarchy requests starting at the message folder root.
+ * The first lookup loads the whole hierarchy; {@link #synchronize()} applies the changes made
+ * since then, using the stored sync state, so keeping the index current costs one small
+ * request per call. If the server no longer accepts the sync state, the hierarchy is loaded
+ * again from scratch.
+ * </p>
+ * <p>
+ * Paths are the display names of the folders below the message folder root, separated by
+ * '/', e.g. {@code Inbox/Projects/2026}; the root itself has the empty path. A '/' or '\' in
+ * a name is escaped with a '\', see {@link #escape(String)}. Paths are compared
+ * case-insensitively, unless folders exist whose paths only differ in case: those are only
+ * found by their exact path.
+ * </p>
+ * <p>
+ * Folders are returned as read-only {@link CachedFolder} views of their id, parent id,
+ * display name and folder class.
+ * </p>
+ * <p>
+ * Lookups may be done by many threads at the same time; synchronizations are serialized.
+ * </p>
+ */
+public class FolderHierarchyCache {
+
+    /**
+     * Separates the names in a path.
+     */
+    public static final char PATH_SEPARATOR = '/';
+
+    /**
+     * Escapes a separator or itself in a name.
+     */
+    public static final char ESCAPE_CHARACTER = '\\';
+
+    /**
+     * The properties synchronized for each folder.
+     */
+    private static final PropertySet PROPERTY_SET = new PropertySet(BasePropertySet.IdOnly,
+            FolderSchema.ParentFolderId, FolderSchema.DisplayName, FolderSchema.FolderClass);
+
+    private final ExchangeService service;
+    private final Mailbox mailbox;
+
+    /**
+     * The folders, by unique id.
+     */
+    private final Map<String, CachedFolder> folders = new ConcurrentHashMap<>();
+
+    /**
+     * The unique ids of the well-known folders looked up so far.
+     */
+    private final Map<WellKnownFolderName, String> wellKnownFolderIds = new ConcurrentHashMap<>();
+
+    private volatile String syncState;
+    private volatile Paths paths = new Paths();
+
+    /**
+     * The message folder root, once it has been asked for.
+     */
+    private volatile CachedFolder root;
+
+    /**
+     * The unique id of the message folder root, which is the parent of the top-level folders.
+     * Guarded by this.
+     */
+    private String rootId;
+
+    /**
+     * The paths of the folders, rebuilt after each synchronization and replaced as a whole.
+     */
+    private static final class Paths {
+        /**
+         * The unique ids, by lower-case path.
+         */
+        private final Map<String, String> ids = new HashMap<>();
+
+        /**
+         * The lower-case paths shared by several folders.
+         */
+        private final Set<String> ambiguous = new HashSet<>();
+
+        /**
+         * The unique ids of the folders with an ambiguous path, by exact path.
+         */
+        private final Map<String, String> exactIds = new HashMap<>();
+
+        /**
+         * The paths, by unique id.
+         */
+        private final Map<String, String> paths = new HashMap<>();
+    }
+
+    /**
+     * Initializes a cache of the folders of the mailbox the service connects to.
+     *
+     * @param service the service used to send the requests
+     */
+    public FolderHierarchyCache(ExchangeService service) {
+        this(service, null);
+    }
+
+    /**
+     * Initializes a cache of the folders of a mailbox.
+     *
+     * @param service the service used to send the requests
+     * @param mailbox the mailbox, or null for the mailbox the service connects to
+     */
+    public FolderHierarchyCache(ExchangeService service, Mailbox mailbox) {
+        this.service = service;
+        this.mailbox = mailbox;
+    }
+
+    /**
+     * Applies the changes made to the folder hierarchy since the last synchronization, or
+     * loads the whole hierarchy if it hasn't been loaded yet.
+     *
+     * @return the number of changes applied
+     * @throws Exception the exception
+     */
+    public synchronized int synchronize() throws Exception {
+        FolderId syncFolderId = new FolderId(WellKnownFolderName.MsgFolderRoot, this.mailbox);
+        int applied = 0;
+        while (true) {
+            ChangeCollection<FolderChange> changes;
+            try {
+                changes = this.service.syncFolderHierarchy(syncFolderId, PROPERTY_SET, this.syncState);
+            } catch (ServiceResponseException e) {
+                if (this.syncState == null || e.getErrorCode() != ServiceError.ErrorInvalidSyncStateData) {
+                    throw e;
+                }
+                // Start over; the full hierarchy replaces everything we know.
+                this.folders.clear();
+                this.rootId = this.root == null ? null : this.root.getUniqueId();
+                this.syncState = null;
+                continue;
+            }
+            for (FolderChange change : changes) {
+                if (change.getChangeType() == ChangeType.Delete) {
+                    this.folders.remove(change.getFolderId().getUniqueId());
+                    applied++;
+                } else if (change.getFolder() != null) {
+                    this.folders.put(change.getFolderId().getUniqueId(), new CachedFolder(change.getFolder()));
+                    applied++;
+                }
+            }
+            // Stored per page, so that a failure only repeats the missing pages.
+            this.syncState = changes.getSyncState();
+            if (!changes.getMoreChangesAvailable()) {
+                break;
+            }
+        }
+        this.rebuildPaths();
+        return applied;
+    }
+
+    /**
+     * Rebuilds the paths of all folders, and drops folders whose parent was deleted.
+     */
+    private void rebuildPaths() {
+        if (this.rootId == null) {
+            // Only the message folder root is the parent of folders without being one.
+            Set<String> unknownParents = new HashSet<>();
+            for (CachedFolder folder : this.folders.values()) {
+                String parentId = folder.getParentId();
+                if (parentId != null && !this.folders.containsKey(parentId)) {
+                    unknownParents.add(parentId);
+                }
+            }
+            if (unknownParents.size() == 1) {
+                this.rootId = unknownParents.iterator().next();
+            }
+        }
+
+        Paths rebuilt = new Paths();
+        List<String> orphans = new ArrayList<>();
+        for (String id : this.folders.keySet()) {
+            if (this.pathOf(id, rebuilt.paths) == null) {
+                orphans.add(id);
+            }
+        }
+        for (String id : orphans) {
+            this.folders.remove(id);
+        }
+        if (this.root != null) {
+            rebuilt.paths.put(this.root.getUniqueId(), "");
+        }
+        for (Map.Entry<String, String> entry : rebuilt.paths.entrySet()) {
+            String key = entry.getValue().toLowerCase(Locale.ROOT);
+            String previous = rebuilt.ids.put(key, entry.getKey());
+            if (previous != null) {
+                rebuilt.ambiguous.add(key);
+            }
+        }
+        for (Map.Entry<String, String> entry : rebuilt.paths.entrySet()) {
+            if (rebuilt.ambiguous.contains(entry.getValue().toLowerCase(Locale.ROOT))) {
+                rebuilt.exactIds.put(entry.getValue(), entry.getKey());
+            }
+        }
+        this.paths = rebuilt;
+    }
+
+    /**
+     * Computes the path of a folder, memoizing the paths of its ancestors.
+     *
+     * @return the path, or null if the folder isn't below the root
+     */
+    private String pathOf(String id, Map<String, String> computed) {
+        String path = computed.get(id);
+        if (path != null) {
+            return path;
+        }
+        // Walk up to the first ancestor with a known path, then down again.
+        List<CachedFolder> chain = new ArrayList<>();
+        String parentPath = null;
+        String current = id;
+        while (true) {
+            CachedFolder folder = this.folders.get(current);
+            if (folder == null || chain.size() > this.folders.size()) {
+                // A deleted parent, or a loop in inconsistent data.
+                return null;
+            }
+            chain.add(folder);
+            String parentId = folder.getParentId();
+            if (parentId == null || parentId.equals(this.rootId)
+                    || (this.rootId == null && !this.folders.containsKey(parentId))) {
+                parentPath = "";
+                break;
+            }
+            parentPath = computed.get(parentId);
+            if (parentPath != null) {
+                break;
+            }
+            current = parentId;
+        }
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            CachedFolder folder = chain.get(i);
+            String name = escape(folder.getDisplayName() == null ? "" : folder.getDisplayName());
+            parentPath = parentPath.isEmpty() ? name : parentPath + PATH_SEPARATOR + name;
+            computed.put(folder.getUniqueId(), parentPath);
+        }
+        return parentPath;
+    }
+
+    /**
+     * Loads the hierarchy if it hasn't been loaded yet.
+     */
+    private void ensureLoaded() throws Exception {
+        if (this.syncState == null) {
+            synchronized (this) {
+                if (this.syncState == null) {
+                    this.synchronize();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a folder of the hierarchy, or the message folder root, by unique id.
+     */
+    private CachedFolder find(String id) {
+        CachedFolder folder = this.folders.get(id);
+        if (folder == null) {
+            CachedFolder root = this.root;
+            if (root != null && root.getUniqueId().equals(id)) {
+                return root;
+            }
+        }
+        return folder;
+    }
+
+    /**
+     * Gets a folder by id. Ids of well-known folders are resolved as by
+     * {@link #getFolder(WellKnownFolderName)}.
+     *
+     * @param folderId the id of the folder
+     * @return the folder, or null if it isn't in the hierarchy
+     * @throws Exception the exception
+     */
+    public CachedFolder getFolder(FolderId folderId) throws Exception {
+        EwsUtilities.validateParam(folderId, "folderId");
+        if (folderId.getUniqueId() == null && folderId.getFolderName() != null) {
+            return this.getFolder(folderId.getFolderName());
+        }
+        this.ensureLoaded();
+        return folderId.getUniqueId() == null ? null : this.find(folderId.getUniqueId());
+    }
+
+    /**
+     * Gets a folder by path.
+     *
+     * @param path the escaped display names of the folder and its parents below the message
+     *             folder root, separated by '/'; leading and trailing separators are ignored
+     * @return the folder, or null if there is no folder with that path
+     * @throws ServiceLocalException if several folders have the path, ignoring case, and none
+     *                               of them has exactly this path
+     * @throws Exception             the exception
+     */
+    public CachedFolder getFolder(String path) throws Exception {
+        EwsUtilities.validateParam(path, "path");
+        this.ensureLoaded();
+        Paths current = this.paths;
+        String normalized = normalize(path);
+        String key = normalized.toLowerCase(Locale.ROOT);
+        String id;
+        if (current.ambiguous.contains(key)) {
+            id = current.exactIds.get(normalized);
+            if (id == null) {
+                throw new ServiceLocalException(String.format(
+                        "The path %s matches several folders whose paths only differ in case.", path));
+            }
+        } else {
+            id = current.ids.get(key);
+        }
+        return id == null ? null : this.find(id);
+    }
+
+    /**
+     * Gets a well-known folder. The id of each well-known folder is fetched once, with a
+     * GetFolder request, and remembered from then on; the message folder root is fetched
+     * with its properties.
+     *
+     * @param folderName the name of the well-known folder
+     * @return the folder, or null if it is neither the message folder root nor below it
+     * @throws Exception the exception
+     */
+    public CachedFolder getFolder(WellKnownFolderName folderName) throws Exception {
+        EwsUtilities.validateParam(folderName, "folderName");
+        this.ensureLoaded();
+        if (folderName == WellKnownFolderName.MsgFolderRoot) {
+            return this.getRoot();
+        }
+        String id = this.wellKnownFolderIds.get(folderName);
+        if (id == null) {
+            Folder folder = this.service.bindToFolder(new FolderId(folderName, this.mailbox),
+                    new PropertySet(BasePropertySet.IdOnly));
+            id = folder.getId().getUniqueId();
+            this.wellKnownFolderIds.put(folderName, id);
+        }
+        return this.find(id);
+    }
+
+    /**
+     * Gets the message folder root, fetching it on first use.
+     */
+    private CachedFolder getRoot() throws Exception {
+        CachedFolder current = this.root;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (this.root == null) {
+                Folder folder = this.service.bindToFolder(
+                        new FolderId(WellKnownFolderName.MsgFolderRoot, this.mailbox), PROPERTY_SET);
+                this.root = new CachedFolder(folder);
+                this.rootId = this.root.getUniqueId();
+                this.wellKnownFolderIds.put(WellKnownFolderName.MsgFolderRoot, this.rootId);
+                this.rebuildPaths();
+            }
+            return this.root;
+        }
+    }
+
+    /**
+     * Gets the path of a folder.
+     *
+     * @param folderId the id of the folder
+     * @return the path, or null if the folder isn't in the hierarchy
+     * @throws Exception the exception
+     */
+    public String getPath(FolderId folderId) throws Exception {
+        CachedFolder folder = this.getFolder(folderId);
+        return folder == null ? null : this.paths.paths.get(folder.getUniqueId());
+    }
+
+    /**
+     * Gets the number of folders in the hierarchy.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return this.folders.size();
+    }
+
+    /**
+     * Gets the state of the last synchronization.
+     *
+     * @return the sync state, or null if the hierarchy hasn't been loaded yet
+     */
+    public String getSyncState() {
+        return this.syncState;
+    }
+
+    /**
+     * Forgets the hierarchy, so that it is loaded again from scratch on the next lookup.
+     */
+    public synchronized void clear() {
+        this.folders.clear();
+        this.wellKnownFolderIds.clear();
+        this.root = null;
+        this.rootId = null;
+        this.syncState = null;
+        this.paths = new Paths();
+    }
+
+    /**
+     * Escapes a display name for use in a path, by putting a '\' before each '/' and '\'.
+     *
+     * @param name the display name of a folder
+     * @return the escaped name
+     */
+    public static String escape(String name) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == PATH_SEPARATOR || c == ESCAPE_CHARACTER) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(name.length() + 4).append(name, 0, i);
+                }
+                escaped.append(ESCAPE_CHARACTER);
+            }
+            if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped == null ? name : escaped.toString();
+    }
+
+    /**
+     * Removes the leading and trailing separators from a path, keeping escaped ones.
+     */
+    private static String normalize(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == PATH_SEPARATOR) {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == PATH_SEPARATOR && !isEscaped(path, start, end - 1)) {
+            end--;
+        }
+        return path.substring(start, end);
+    }
+
+    /**
+     * Tells whether a character is escaped: preceded by an odd number of escape characters.
+     */
+    private static boolean isEscaped(String path, int start, int index) {
+        int escapes = 0;
+        while (index - escapes - 1 >= start && path.charAt(index - escapes - 1) == ESCAPE_CHARACTER) {
+            escapes++;
+        }
+        return escapes % 2 == 1;
+    }
+
+}
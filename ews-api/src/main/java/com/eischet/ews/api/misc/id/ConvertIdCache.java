@@ -0,0 +1,244 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.id;
+
+import com.eischet.ews.api.core.enumeration.misc.IdFormat;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of ConvertId results.
+ * <p>
+ * Converting an id from one format to another only depends on the source id, its format,
+ * its mailbox and the destination format, so the result can be reused for as long as the
+ * item exists. When a cache is set on a service, ids found in it are returned without a
+ * request, and only the remaining ids are sent to the server, in a single ConvertId request.
+ * Only successful conversions are cached. When the cache is full, the least recently used
+ * entry is evicted. The cache is safe for use by multiple threads and may be shared by
+ * several services that connect to the same organization.
+ * </p>
+ *
+ * @see com.eischet.ews.api.core.ExchangeService#setConvertIdCache(ConvertIdCache)
+ */
+public final class ConvertIdCache {
+
+    /**
+     * The default maximum number of entries.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * Separates the parts of a key; can't occur in ids or SMTP addresses.
+     */
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final int capacity;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * The converted ids, in access order. Guarded by itself.
+     */
+    private final LinkedHashMap<String, AlternateIdBase> entries;
+
+    /**
+     * Initializes a new cache with the default capacity.
+     */
+    public ConvertIdCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes a new cache.
+     *
+     * @param capacity the maximum number of entries
+     */
+    public ConvertIdCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be greater than 0.");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, AlternateIdBase>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AlternateIdBase> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached conversion of an id.
+     *
+     * @param id                the id to convert
+     * @param destinationFormat the format to convert to
+     * @return a copy of the converted id, or null if it isn't cached
+     */
+    public AlternateIdBase get(AlternateIdBase id, IdFormat destinationFormat) {
+        String key = keyOf(id, destinationFormat);
+        if (key == null) {
+            return null;
+        }
+        AlternateIdBase convertedId;
+        synchronized (this.entries) {
+            convertedId = this.entries.get(key);
+        }
+        if (convertedId == null) {
+            this.missCount.incrementAndGet();
+            return null;
+        }
+        this.hitCount.incrementAndGet();
+        return copyOf(convertedId);
+    }
+
+    /**
+     * Remembers the conversion of an id.
+     *
+     * @param id                the id that was converted
+     * @param destinationFormat the format it was converted to
+     * @param convertedId       the converted id
+     */
+    public void put(AlternateIdBase id, IdFormat destinationFormat, AlternateIdBase convertedId) {
+        String key = keyOf(id, destinationFormat);
+        AlternateIdBase copy = copyOf(convertedId);
+        if (key != null && copy != null) {
+            synchronized (this.entries) {
+                this.entries.put(key, copy);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of lookups that found a cached conversion.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Gets the number of lookups that found no cached conversion.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Gets the number of cached conversions.
+     *
+     * @return the size
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * Gets the maximum number of cached conversions.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Removes all conversions from the cache and resets the statistics.
+     */
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+        this.hitCount.set(0);
+        this.missCount.set(0);
+    }
+
+    /**
+     * Builds the key of a conversion from the source format, id and mailbox and the
+     * destination format. Mailboxes are compared case-insensitively, ids are not.
+     *
+     * @return the key, or null if the id can't be cached
+     */
+    private static String keyOf(AlternateIdBase id, IdFormat destinationFormat) {
+        if (id == null || id.getFormat() == null || destinationFormat == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(128)
+                .append(destinationFormat.ordinal()).append(KEY_SEPARATOR)
+                .append(id.getFormat().ordinal()).append(KEY_SEPARATOR);
+        if (id instanceof AlternateId) {
+            AlternateId alternateId = (AlternateId) id;
+            if (alternateId.getUniqueId() == null || alternateId.getMailbox() == null) {
+                return null;
+            }
+            key.append(alternateId.getIsArchive() ? 'A' : 'M').append(KEY_SEPARATOR)
+                    .append(alternateId.getMailbox().toLowerCase(Locale.ROOT)).append(KEY_SEPARATOR)
+                    .append(alternateId.getUniqueId());
+        } else if (id instanceof AlternatePublicFolderItemId) {
+            AlternatePublicFolderItemId itemId = (AlternatePublicFolderItemId) id;
+            if (itemId.getFolderId() == null || itemId.getItemId() == null) {
+                return null;
+            }
+            key.append('I').append(KEY_SEPARATOR).append(itemId.getFolderId())
+                    .append(KEY_SEPARATOR).append(itemId.getItemId());
+        } else if (id instanceof AlternatePublicFolderId) {
+            AlternatePublicFolderId folderId = (AlternatePublicFolderId) id;
+            if (folderId.getFolderId() == null) {
+                return null;
+            }
+            key.append('F').append(KEY_SEPARATOR).append(folderId.getFolderId());
+        } else {
+            return null;
+        }
+        return key.toString();
+    }
+
+    /**
+     * Copies an id, so that neither callers nor the cache see changes made to the other's
+     * instance.
+     *
+     * @return the copy, or null if the type of id is unknown
+     */
+    private static AlternateIdBase copyOf(AlternateIdBase id) {
+        if (id instanceof AlternateId) {
+            AlternateId alternateId = (AlternateId) id;
+            return new AlternateId(alternateId.getFormat(), alternateId.getUniqueId(),
+                    alternateId.getMailbox(), alternateId.getIsArchive());
+        } else if (id instanceof AlternatePublicFolderItemId) {
+            AlternatePublicFolderItemId itemId = (AlternatePublicFolderItemId) id;
+            return new AlternatePublicFolderItemId(itemId.getFormat(), itemId.getFolderId(), itemId.getItemId());
+        } else if (id instanceof AlternatePublicFolderId) {
+            AlternatePublicFolderId folderId = (AlternatePublicFolderId) id;
+            return new AlternatePublicFolderId(folderId.getFormat(), folderId.getFolderId());
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.impersonation;
+
+import com.eischet.ews.api.core.EwsUtilities;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.misc.ConnectingIdType;
+import com.eischet.ews.api.core.enumeration.misc.TraceFlags;
+import com.eischet.ews.api.core.exception.http.EWSHttpException;
+import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
+import com.eischet.ews.api.http.ExchangeHttpClient;
+import com.eischet.ews.api.misc.ImpersonatedUserId;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Derives services that impersonate single mailboxes from one configured service, and routes
+ * their requests to the server that hosts the mailbox.
+ * <p>
+ * Each service returned by {@link #forMailbox(String)} copies the settings of the template
+ * service and shares its HTTP client, so creating one is cheap. Besides the impersonation
+ * SOAP header, its requests carry the {@code X-AnchorMailbox} and
+ * {@code X-PreferServerAffinity} headers, which let the front end route them to the mailbox's
+ * back end server. The back end answers with an {@code X-BackEndOverrideCookie}, which is kept
+ * per mailbox and sent with all later requests for that mailbox, by any service derived from
+ * this router, so that they keep reaching the same server.
+ * </p>
+ * <p>
+ * The router is safe for use by multiple threads. A derived service never changes its HTTP
+ * headers; the affinity cookie is set on each request, so requests sent by several threads at
+ * the same time don't interfere. Settings changed on the template service after a mailbox
+ * service was derived don't affect that mailbox service.
+ * </p>
+ */
+public class ImpersonationRouter {
+
+    /**
+     * Names the mailbox the front end routes a request to.
+     */
+    public static final String ANCHOR_MAILBOX_HEADER = "X-AnchorMailbox";
+
+    /**
+     * Asks the front end to route requests by the affinity cookie.
+     */
+    public static final String PREFER_SERVER_AFFINITY_HEADER = "X-PreferServerAffinity";
+
+    /**
+     * The cookie naming the back end server of a mailbox.
+     */
+    public static final String BACK_END_OVERRIDE_COOKIE = "X-BackEndOverrideCookie";
+
+    private static final String COOKIE_HEADER = "Cookie";
+    private static final String SET_COOKIE_HEADER = "Set-Cookie";
+
+    private final ExchangeService template;
+
+    /**
+     * The affinity cookie values, by lower-case SMTP address.
+     */
+    private final Map<String, String> affinityCookies = new ConcurrentHashMap<>();
+
+    /**
+     * A service that impersonates one mailbox.
+     */
+    private final class MailboxService extends ExchangeService {
+
+        private final String mailboxKey;
+        private final Map<String, String> httpHeaders;
+
+        private MailboxService(ExchangeService template, String smtpAddress) {
+            super(template, template.getRequestedServerVersion());
+            this.mailboxKey = smtpAddress.toLowerCase(Locale.ROOT);
+            this.httpHeaders = new HashMap<>(template.getHttpHeaders());
+            this.httpHeaders.put(ANCHOR_MAILBOX_HEADER, smtpAddress);
+            this.httpHeaders.put(PREFER_SERVER_AFFINITY_HEADER, "true");
+            this.setImpersonatedUserId(new ImpersonatedUserId(ConnectingIdType.SmtpAddress, smtpAddress));
+        }
+
+        @Override
+        public Map<String, String> getHttpHeaders() {
+            return this.httpHeaders;
+        }
+
+        /**
+         * Adds the current affinity cookie of the mailbox to the Cookie header of the request.
+         * Called after the headers of the service were set on the request and before its
+         * connection is prepared, like the headers added by credentials.
+         */
+        @Override
+        protected void prepareCredentials(ExchangeHttpClient.Request request)
+                throws ServiceLocalException, URISyntaxException {
+            String value = affinityCookies.get(this.mailboxKey);
+            if (value != null) {
+                String cookie = BACK_END_OVERRIDE_COOKIE + '=' + value;
+                String serviceCookie = this.httpHeaders.get(COOKIE_HEADER);
+                request.setHeader(COOKIE_HEADER, serviceCookie == null ? cookie : serviceCookie + "; " + cookie);
+            }
+            super.prepareCredentials(request);
+        }
+
+        @Override
+        public void processHttpResponseHeaders(TraceFlags traceType, ExchangeHttpClient.Request request)
+                throws XMLStreamException, IOException, EWSHttpException {
+            super.processHttpResponseHeaders(traceType, request);
+            // Read from the request, since the saved headers may already belong to another one.
+            for (Map.Entry<String, String> header : request.getResponseHeaders().entrySet()) {
+                if (SET_COOKIE_HEADER.equalsIgnoreCase(header.getKey())) {
+                    updateAffinityCookie(this.mailboxKey, header.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param template the service whose settings, credentials and HTTP client are used for all
+     *                 mailboxes; its URL must be set
+     */
+    public ImpersonationRouter(ExchangeService template) {
+        EwsUtilities.ewsAssert(template != null, "ImpersonationRouter.ctor", "template is null.");
+        this.template = template;
+    }
+
+    /**
+     * Gets a service that impersonates a mailbox and routes its requests to the mailbox's
+     * server.
+     *
+     * @param smtpAddress the SMTP address of the mailbox
+     * @return a new service for the mailbox
+     * @throws Exception if the address is missing
+     */
+    public ExchangeService forMailbox(String smtpAddress) throws Exception {
+        EwsUtilities.validateParam(smtpAddress, "smtpAddress");
+        return new MailboxService(this.template, smtpAddress);
+    }
+
+    /**
+     * Gets the affinity cookie last received for a mailbox.
+     *
+     * @param smtpAddress the SMTP address of the mailbox
+     * @return the cookie value, or null if none was received
+     */
+    public String getAffinityCookie(String smtpAddress) {
+        return smtpAddress == null ? null : this.affinityCookies.get(smtpAddress.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the number of mailboxes with an affinity cookie.
+     *
+     * @return the count
+     */
+    public int getAffinityCount() {
+        return this.affinityCookies.size();
+    }
+
+    /**
+     * Forgets the affinity cookies of all mailboxes, e.g. after the servers were rebalanced.
+     */
+    public void clearAffinity() {
+        this.affinityCookies.clear();
+    }
+
+    /**
+     * Remembers the affinity cookie set by a response, or forgets it if the server cleared it.
+     *
+     * @param mailboxKey the lower-case SMTP address of the mailbox
+     * @param setCookie  the value of the Set-Cookie header; several cookies may be separated by
+     *                   commas
+     */
+    private void updateAffinityCookie(String mailboxKey, String setCookie) {
+        if (setCookie == null) {
+            return;
+        }
+        int start = setCookie.indexOf(BACK_END_OVERRIDE_COOKIE + '=');
+        if (start < 0) {
+            return;
+        }
+        start += BACK_END_OVERRIDE_COOKIE.length() + 1;
+        int end = start;
+        while (end < setCookie.length() && setCookie.charAt(end) != ';' && setCookie.charAt(end) != ','
+                && !Character.isWhitespace(setCookie.charAt(end))) {
+            end++;
+        }
+        if (end == start) {
+            this.affinityCookies.remove(mailboxKey);
+        } else {
+            this.affinityCookies.put(mailboxKey, setCookie.substring(start, end));
+        }
+    }
+
+}
@@ -0,0 +1,480 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.update;
+
+import com.eischet.ews.api.core.EwsUtilities;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.PropertySet;
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
+import com.eischet.ews.api.core.enumeration.property.BasePropertySet;
+import com.eischet.ews.api.core.enumeration.service.ConflictResolutionMode;
+import com.eischet.ews.api.core.enumeration.service.MessageDisposition;
+import com.eischet.ews.api.core.enumeration.service.SendInvitationsOrCancellationsMode;
+import com.eischet.ews.api.core.enumeration.service.ServiceResult;
+import com.eischet.ews.api.core.enumeration.service.error.ServiceErrorHandling;
+import com.eischet.ews.api.core.exception.service.remote.ServiceResponseException;
+import com.eischet.ews.api.core.request.GetItemRequest;
+import com.eischet.ews.api.core.request.UpdateItemRequest;
+import com.eischet.ews.api.core.response.GetItemResponse;
+import com.eischet.ews.api.core.response.ServiceResponseCollection;
+import com.eischet.ews.api.core.response.UpdateItemResponse;
+import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.property.complex.ItemId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Applies a mutation to each of many items and saves them with as few requests as possible.
+ * <p>
+ * The items are processed in batches. The items of a batch are fetched with a single GetItem
+ * request, requesting only the properties of {@link #getPropertySet()}, the mutations are
+ * applied, and all items that actually changed are saved with a single UpdateItem request.
+ * Items whose update fails because they were changed on the server in the meantime
+ * ({@link ServiceError#ErrorIrresolvableConflict}, {@link ServiceError#ErrorStaleObject}) are
+ * fetched again in one GetItem request, their mutations are applied to the fresh copies, and
+ * their update is retried, up to {@link #getMaxConflictRetries()} times. Up to
+ * {@link #getMaxParallelRequests()} batches are processed at the same time.
+ * </p>
+ * <p>
+ * Failures of single items are collected in the {@link BulkUpdateResult}; a request that fails
+ * as a whole stops the run and its exception is thrown.
+ * </p>
+ */
+public class BulkItemUpdater {
+
+    /**
+     * The default number of items fetched and saved per request.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * The default maximum number of batches processed at the same time.
+     */
+    public static final int DEFAULT_MAX_PARALLEL_REQUESTS = 4;
+
+    /**
+     * The default number of times the update of a conflicting item is retried.
+     */
+    public static final int DEFAULT_MAX_CONFLICT_RETRIES = 3;
+
+    /**
+     * The errors that are resolved by fetching the item again.
+     */
+    private static final EnumSet<ServiceError> CONFLICT_ERRORS =
+            EnumSet.of(ServiceError.ErrorIrresolvableConflict, ServiceError.ErrorStaleObject);
+
+    private final ExchangeService service;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int maxParallelRequests = DEFAULT_MAX_PARALLEL_REQUESTS;
+    private int maxConflictRetries = DEFAULT_MAX_CONFLICT_RETRIES;
+    private PropertySet propertySet = new PropertySet(BasePropertySet.IdOnly);
+    private ConflictResolutionMode conflictResolutionMode = ConflictResolutionMode.AutoResolve;
+    private MessageDisposition messageDisposition = MessageDisposition.SaveOnly;
+    private SendInvitationsOrCancellationsMode sendInvitationsOrCancellationsMode;
+    private ExecutorService executor;
+
+    /**
+     * An item to update.
+     */
+    private static final class Task {
+        private final ItemId itemId;
+        private final IItemMutation mutation;
+        private Item item;
+
+        private Task(ItemId itemId, IItemMutation mutation) {
+            this.itemId = itemId;
+            this.mutation = mutation;
+        }
+    }
+
+    /**
+     * The counters and failures of a run, shared by the workers.
+     */
+    private static final class Progress {
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong unchanged = new AtomicLong();
+        private final AtomicLong conflicts = new AtomicLong();
+        private final Map<ItemId, Exception> failures =
+                Collections.synchronizedMap(new LinkedHashMap<ItemId, Exception>());
+    }
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param service the service used to send the requests
+     */
+    public BulkItemUpdater(ExchangeService service) {
+        this.service = service;
+    }
+
+    /**
+     * Applies the same mutation to each of the specified items.
+     *
+     * @param itemIds  the items to update
+     * @param mutation the mutation
+     * @return the number of updated, unchanged and failed items
+     * @throws Exception the first exception thrown by a request that failed as a whole
+     */
+    public BulkUpdateResult update(Iterable<ItemId> itemIds, IItemMutation mutation) throws Exception {
+        EwsUtilities.validateParam(itemIds, "itemIds");
+        EwsUtilities.validateParam(mutation, "mutation");
+
+        Map<ItemId, IItemMutation> mutations = new LinkedHashMap<>();
+        for (ItemId itemId : itemIds) {
+            mutations.put(itemId, mutation);
+        }
+        return this.update(mutations);
+    }
+
+    /**
+     * Applies a mutation to each of the specified items.
+     *
+     * @param mutations the mutation of each item to update
+     * @return the number of updated, unchanged and failed items
+     * @throws Exception the first exception thrown by a request that failed as a whole
+     */
+    public BulkUpdateResult update(Map<ItemId, IItemMutation> mutations) throws Exception {
+        EwsUtilities.validateParam(mutations, "mutations");
+
+        final Queue<List<Task>> batches = new ConcurrentLinkedQueue<>();
+        List<Task> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<ItemId, IItemMutation> entry : mutations.entrySet()) {
+            batch.add(new Task(entry.getKey(), entry.getValue()));
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        final Progress progress = new Progress();
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Runnable worker = new Runnable() {
+            public void run() {
+                try {
+                    List<Task> next;
+                    while (failure.get() == null && (next = batches.poll()) != null) {
+                        updateBatch(next, progress);
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        };
+
+        int workers = Math.min(maxParallelRequests, batches.size());
+        final ExecutorService pool = (this.executor != null || workers <= 1) ? this.executor :
+                Executors.newFixedThreadPool(workers, new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "bulk-update");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        List<Future<?>> futures = new ArrayList<>(workers);
+        try {
+            if (pool == null) {
+                // A single batch, or a single worker, runs on the calling thread.
+                worker.run();
+            } else {
+                for (int i = 0; i < workers; i++) {
+                    futures.add(pool.submit(worker));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // Also stops the workers if we were interrupted.
+            batches.clear();
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            if (pool != null && pool != this.executor) {
+                pool.shutdownNow();
+            }
+        }
+        return new BulkUpdateResult(progress.updated.get(), progress.unchanged.get(),
+                progress.conflicts.get(), new LinkedHashMap<>(progress.failures));
+    }
+
+    /**
+     * Fetches, mutates and saves the items of a batch, retrying the ones that ran into a
+     * conflict.
+     */
+    private void updateBatch(List<Task> batch, Progress progress) throws Exception {
+        List<Task> pending = batch;
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            List<Task> changed = new ArrayList<>(pending.size());
+            for (Task task : this.fetchItems(pending, progress)) {
+                try {
+                    task.mutation.apply(task.item);
+                } catch (Exception e) {
+                    progress.failures.put(task.itemId, e);
+                    continue;
+                }
+                if (task.item.isDirty() && task.item.getPropertyBag().getIsUpdateCallNecessary()) {
+                    changed.add(task);
+                } else {
+                    progress.unchanged.incrementAndGet();
+                }
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+
+            UpdateItemRequest request = new UpdateItemRequest(service, ServiceErrorHandling.ReturnErrors);
+            for (Task task : changed) {
+                request.getItems().add(task.item);
+            }
+            request.setConflictResolutionMode(conflictResolutionMode);
+            request.setMessageDisposition(messageDisposition);
+            request.setSendInvitationsOrCancellationsMode(sendInvitationsOrCancellationsMode);
+            ServiceResponseCollection<UpdateItemResponse> responses = request.execute();
+
+            List<Task> conflicting = new ArrayList<>();
+            for (int i = 0; i < changed.size(); i++) {
+                Task task = changed.get(i);
+                UpdateItemResponse response = responses.getResponseAtIndex(i);
+                if (response.getResult() != ServiceResult.Error) {
+                    progress.updated.incrementAndGet();
+                } else if (CONFLICT_ERRORS.contains(response.getErrorCode()) && attempt < maxConflictRetries) {
+                    progress.conflicts.incrementAndGet();
+                    conflicting.add(task);
+                } else {
+                    progress.failures.put(task.itemId, new ServiceResponseException(response));
+                }
+            }
+            pending = conflicting;
+        }
+    }
+
+    /**
+     * Fetches the current version of the items of a batch with a single GetItem request.
+     *
+     * @return the tasks whose item was fetched
+     */
+    private List<Task> fetchItems(List<Task> tasks, Progress progress) throws Exception {
+        List<ItemId> itemIds = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            itemIds.add(task.itemId);
+        }
+        GetItemRequest request = new GetItemRequest(service, ServiceErrorHandling.ReturnErrors);
+        request.getItemIds().addRange(itemIds);
+        request.setPropertySet(propertySet);
+        ServiceResponseCollection<GetItemResponse> responses = request.execute();
+
+        List<Task> fetched = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            GetItemResponse response = responses.getResponseAtIndex(i);
+            if (response.getResult() == ServiceResult.Error) {
+                progress.failures.put(task.itemId, new ServiceResponseException(response));
+            } else {
+                task.item = response.getItem();
+                fetched.add(task);
+            }
+        }
+        return fetched;
+    }
+
+    /**
+     * Gets the number of items fetched and saved per request.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of items fetched and saved per request.
+     *
+     * @param value the batch size
+     */
+    public void setBatchSize(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("BatchSize must be at least 1.");
+        }
+        this.batchSize = value;
+    }
+
+    /**
+     * Gets the maximum number of batches processed at the same time.
+     *
+     * @return the maximum number of concurrent requests
+     */
+    public int getMaxParallelRequests() {
+        return maxParallelRequests;
+    }
+
+    /**
+     * Sets the maximum number of batches processed at the same time.
+     *
+     * @param value the maximum number of concurrent requests
+     */
+    public void setMaxParallelRequests(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("MaxParallelRequests must be at least 1.");
+        }
+        this.maxParallelRequests = value;
+    }
+
+    /**
+     * Gets how often the update of a conflicting item is retried.
+     *
+     * @return the maximum number of retries
+     */
+    public int getMaxConflictRetries() {
+        return maxConflictRetries;
+    }
+
+    /**
+     * Sets how often the update of a conflicting item is retried before it is reported
+     * as failed.
+     *
+     * @param value the maximum number of retries, or 0 to never retry
+     */
+    public void setMaxConflictRetries(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("MaxConflictRetries must not be negative.");
+        }
+        this.maxConflictRetries = value;
+    }
+
+    /**
+     * Gets the properties fetched before the mutations are applied.
+     *
+     * @return the property set
+     */
+    public PropertySet getPropertySet() {
+        return propertySet;
+    }
+
+    /**
+     * Sets the properties fetched before the mutations are applied. Defaults to the ids only,
+     * which is enough for mutations that just assign new values; mutations that read the
+     * current values need them requested here.
+     *
+     * @param value the property set
+     */
+    public void setPropertySet(PropertySet value) {
+        if (value == null) {
+            throw new IllegalArgumentException("PropertySet must not be null.");
+        }
+        this.propertySet = value;
+    }
+
+    /**
+     * Gets the conflict resolution mode of the UpdateItem requests.
+     *
+     * @return the conflict resolution mode
+     */
+    public ConflictResolutionMode getConflictResolutionMode() {
+        return conflictResolutionMode;
+    }
+
+    /**
+     * Sets the conflict resolution mode of the UpdateItem requests. Defaults to
+     * {@link ConflictResolutionMode#AutoResolve}.
+     *
+     * @param value the conflict resolution mode
+     */
+    public void setConflictResolutionMode(ConflictResolutionMode value) {
+        if (value == null) {
+            throw new IllegalArgumentException("ConflictResolutionMode must not be null.");
+        }
+        this.conflictResolutionMode = value;
+    }
+
+    /**
+     * Gets the message disposition of the UpdateItem requests.
+     *
+     * @return the message disposition
+     */
+    public MessageDisposition getMessageDisposition() {
+        return messageDisposition;
+    }
+
+    /**
+     * Sets the message disposition of the UpdateItem requests. Defaults to
+     * {@link MessageDisposition#SaveOnly}.
+     *
+     * @param value the message disposition
+     */
+    public void setMessageDisposition(MessageDisposition value) {
+        this.messageDisposition = value;
+    }
+
+    /**
+     * Gets whether meeting invitations or cancellations are sent for updated calendar items.
+     *
+     * @return the mode, or null if not specified
+     */
+    public SendInvitationsOrCancellationsMode getSendInvitationsOrCancellationsMode() {
+        return sendInvitationsOrCancellationsMode;
+    }
+
+    /**
+     * Sets whether meeting invitations or cancellations are sent for updated calendar items.
+     * Required when calendar items are updated.
+     *
+     * @param value the mode, or null
+     */
+    public void setSendInvitationsOrCancellationsMode(SendInvitationsOrCancellationsMode value) {
+        this.sendInvitationsOrCancellationsMode = value;
+    }
+
+    /**
+     * Sets the executor that runs the batches. If none is set, a temporary pool of daemon
+     * threads is created for each run.
+     *
+     * @param value the executor, or null
+     */
+    public void setExecutor(ExecutorService value) {
+        this.executor = value;
+    }
+
+}
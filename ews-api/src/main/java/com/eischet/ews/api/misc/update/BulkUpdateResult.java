@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.update;
+
+import com.eischet.ews.api.property.complex.ItemId;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Summarizes a run of a {@link BulkItemUpdater}.
+ */
+public final class BulkUpdateResult {
+
+    private final long updatedCount;
+    private final long unchangedCount;
+    private final long conflictCount;
+    private final Map<ItemId, Exception> failures;
+
+    BulkUpdateResult(long updatedCount, long unchangedCount, long conflictCount, Map<ItemId, Exception> failures) {
+        this.updatedCount = updatedCount;
+        this.unchangedCount = unchangedCount;
+        this.conflictCount = conflictCount;
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Gets the number of items that were updated on the server.
+     *
+     * @return the number of updated items
+     */
+    public long getUpdatedCount() {
+        return updatedCount;
+    }
+
+    /**
+     * Gets the number of items that needed no update, because their mutation did not
+     * change anything.
+     *
+     * @return the number of unchanged items
+     */
+    public long getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * Gets the number of conflicts that were resolved by fetching an item again and
+     * retrying its update.
+     *
+     * @return the number of retried conflicts
+     */
+    public long getConflictCount() {
+        return conflictCount;
+    }
+
+    /**
+     * Gets the items that could not be updated, with the reason.
+     *
+     * @return the failed items
+     */
+    public Map<ItemId, Exception> getFailures() {
+        return failures;
+    }
+
+}
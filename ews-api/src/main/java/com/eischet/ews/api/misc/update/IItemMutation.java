@@ -0,0 +1,50 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.update;
+
+import com.eischet.ews.api.core.service.item.Item;
+
+/**
+ * Applies the changes of a bulk update to a single item.
+ * <p>
+ * A mutation may be applied more than once: when the update of an item runs into a
+ * conflict, the item is fetched again and the mutation is applied to the fresh copy.
+ * Mutations should therefore derive the new values from the item they are given.
+ * </p>
+ *
+ * @see BulkItemUpdater
+ */
+@FunctionalInterface
+public interface IItemMutation {
+
+    /**
+     * Changes the properties of an item. Properties the mutation reads have to be
+     * requested with {@link BulkItemUpdater#setPropertySet}.
+     *
+     * @param item the item to change
+     * @throws Exception the exception
+     */
+    void apply(Item item) throws Exception;
+
+}
@@ -143,4 +143,14 @@ public final class AttendeeCollection extends ComplexPropertyCollection<Attendee
     protected String getCollectionItemXmlElementName(Attendee attendee) {
         return XmlElementNames.Attendee;
     }
+
+    /**
+     * Attendees can be appended to with AppendToItemField.
+     *
+     * @return true
+     */
+    @Override
+    protected boolean canAppendItems() {
+        return true;
+    }
 }
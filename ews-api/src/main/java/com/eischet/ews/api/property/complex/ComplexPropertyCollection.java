@@ -28,10 +28,12 @@ import com.eischet.ews.api.core.EwsServiceXmlReader;
 import com.eischet.ews.api.core.EwsServiceXmlWriter;
 import com.eischet.ews.api.core.EwsUtilities;
 import com.eischet.ews.api.core.ICustomXmlUpdateSerializer;
+import com.eischet.ews.api.core.XmlElementNames;
 import com.eischet.ews.api.core.enumeration.attribute.EditorBrowsableState;
 import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.service.ServiceObject;
+import com.eischet.ews.api.core.service.item.Item;
 import com.eischet.ews.api.property.definition.PropertyDefinition;
 
 import java.util.ArrayList;
@@ -307,7 +309,7 @@ public abstract class ComplexPropertyCollection
     private void internalAdd(TComplexProperty complexProperty, boolean loading) {
         EwsUtilities.ewsAssert(complexProperty != null, "ComplexPropertyCollection.InternalAdd", "complexProperty is null");
 
-        if (!this.items.contains(complexProperty)) {
+        if (!this.containsItem(complexProperty)) {
             this.items.add(complexProperty);
             if (!loading) {
                 this.removedItems.remove(complexProperty);
@@ -318,6 +320,18 @@ public abstract class ComplexPropertyCollection
         }
     }
 
+    /**
+     * Determines whether the collection already holds a property equal to the
+     * given one before it is added. Collections that index their items can
+     * override this to avoid scanning the whole list.
+     *
+     * @param complexProperty The complex property.
+     * @return True if an equal property is in the collection.
+     */
+    protected boolean containsItem(TComplexProperty complexProperty) {
+        return this.items.contains(complexProperty);
+    }
+
     /**
      * Complex property changed.
      *
@@ -460,6 +474,49 @@ public abstract class ComplexPropertyCollection
         }
     }
 
+    /**
+     * Indicates whether the server can append items to this collection with
+     * AppendToItemField, instead of replacing the whole collection.
+     *
+     * @return true if items can be appended
+     */
+    protected boolean canAppendItems() {
+        return false;
+    }
+
+    /**
+     * Writes an AppendToItemField update holding only the items added since the
+     * change log was last cleared. This is only possible when the collection
+     * supports appending and no item has been removed or modified since.
+     *
+     * @param writer             The writer.
+     * @param ewsObject          The ews object.
+     * @param propertyDefinition The property definition.
+     * @return True if the update was written, false if the whole collection has
+     * to be set instead.
+     * @throws Exception the exception
+     */
+    public boolean writeAppendUpdateToXml(EwsServiceXmlWriter writer,
+                                          ServiceObject ewsObject, PropertyDefinition propertyDefinition)
+            throws Exception {
+        if (!this.canAppendItems() || !(ewsObject instanceof Item) || this.addedItems.isEmpty() ||
+                !this.removedItems.isEmpty() || !this.modifiedItems.isEmpty()) {
+            return false;
+        }
+
+        writer.writeStartElement(XmlNamespace.Types, XmlElementNames.AppendToItemField);
+        propertyDefinition.writeToXml(writer);
+        writer.writeStartElement(XmlNamespace.Types, ewsObject.getXmlElementName());
+        writer.writeStartElement(XmlNamespace.Types, propertyDefinition.getXmlElement());
+        for (TComplexProperty complexProperty : this.addedItems) {
+            complexProperty.writeToXml(writer, this.getCollectionItemXmlElementName(complexProperty));
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndElement();
+        return true;
+    }
+
     /**
      * Writes the deletion update to XML.
      *
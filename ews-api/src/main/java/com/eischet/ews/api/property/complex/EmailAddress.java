@@ -164,6 +164,21 @@ public class EmailAddress extends ComplexProperty implements ISearchStringProvid
 
     }
 
+    /**
+     * Creates a copy of this e-mail address that can be changed without
+     * affecting it. Unlike the copy constructor, the ItemId is copied too.
+     *
+     * @return the copy
+     */
+    public EmailAddress copy() {
+        EmailAddress copy = new EmailAddress(this.name, this.address, this.routingType, this.mailboxType);
+        if (this.id != null) {
+            copy.id = new ItemId();
+            copy.id.assign(this.id);
+        }
+        return copy;
+    }
+
     /**
      * Gets the name associated with the e-mail address.
      *
@@ -296,15 +311,15 @@ public class EmailAddress extends ComplexProperty implements ISearchStringProvid
     public boolean tryReadElementFromXml(EwsServiceXmlReader reader) throws ExchangeXmlException {
         try {
             if (reader.getLocalName().equals(XmlElementNames.Name)) {
-                this.name = reader.readElementValue();
+                this.name = reader.intern(reader.readElementValue());
                 return true;
             } else if (reader.getLocalName().equals(
                     XmlElementNames.EmailAddress)) {
-                this.address = reader.readElementValue();
+                this.address = reader.intern(reader.readElementValue());
                 return true;
             } else if (reader.getLocalName()
                     .equals(XmlElementNames.RoutingType)) {
-                this.routingType = reader.readElementValue();
+                this.routingType = reader.intern(reader.readElementValue());
                 return true;
             } else if (reader.getLocalName()
                     .equals(XmlElementNames.MailboxType)) {
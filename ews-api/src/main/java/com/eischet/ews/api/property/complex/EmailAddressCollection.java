@@ -189,4 +189,14 @@ public final class EmailAddressCollection extends ComplexPropertyCollection<Emai
     public boolean shouldWriteToXml() {
         return true;
     }
+
+    /**
+     * Recipients can be appended to with AppendToItemField.
+     *
+     * @return true
+     */
+    @Override
+    protected boolean canAppendItems() {
+        return true;
+    }
 }
@@ -30,15 +30,23 @@ import com.eischet.ews.api.core.XmlElementNames;
 import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
 import com.eischet.ews.api.core.exception.service.local.ServiceXmlSerializationException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
+import com.eischet.ews.api.misc.MapiPrimitiveArrayBuilder;
 import com.eischet.ews.api.misc.MapiTypeConverter;
 import com.eischet.ews.api.property.definition.ExtendedPropertyDefinition;
 
 import javax.xml.stream.XMLStreamException;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Represents an extended property.
+ * <p>
+ * Binary values are held as byte[], and integer, long and double array values
+ * as int[], long[] and double[], decoded straight from the response. The
+ * typed accessors return copies of them; {@link #getValue()} keeps
+ * returning a list of boxed elements for array values, which can't be
+ * modified. Values are changed with {@link #setValue(Object)}.
  */
 public final class ExtendedProperty extends ComplexProperty {
 
@@ -52,6 +60,12 @@ public final class ExtendedProperty extends ComplexProperty {
      */
     private Object value;
 
+    /**
+     * The unmodifiable, boxed list view of a primitive array value, created
+     * on demand.
+     */
+    private Object boxedValue;
+
     /**
      * Initializes a new instance.
      */
@@ -81,24 +95,41 @@ public final class ExtendedProperty extends ComplexProperty {
     public boolean tryReadElementFromXml(EwsServiceXmlReader reader) throws ExchangeXmlException {
 
         if (reader.getLocalName().equals(XmlElementNames.ExtendedFieldURI)) {
-            this.propertyDefinition = new ExtendedPropertyDefinition();
-            this.propertyDefinition.loadFromXml(reader);
+            this.propertyDefinition = ExtendedPropertyDefinition.readFromXml(reader);
             return true;
         } else if (reader.getLocalName().equals(XmlElementNames.Value)) {
             EwsUtilities.ewsAssert(this.getPropertyDefinition() != null, "ExtendedProperty.TryReadElementFromXml",
                     "PropertyDefintion is missing");
             String stringValue = reader.readElementValue();
             this.value = MapiTypeConverter.convertToValue(this.getPropertyDefinition().getMapiType(), stringValue);
+            this.boxedValue = null;
             return true;
         } else if (reader.getLocalName().equals(XmlElementNames.Values)) {
             EwsUtilities.ewsAssert(this.getPropertyDefinition() != null, "ExtendedProperty.TryReadElementFromXml",
                     "PropertyDefintion is missing");
 
-            StringList stringList = new StringList(XmlElementNames.Value);
-            stringList.loadFromXml(reader, reader.getLocalName());
-            this.value = MapiTypeConverter.convertToValue(this
-                    .getPropertyDefinition().getMapiType(), stringList
-                    .iterator());
+            MapiPrimitiveArrayBuilder builder = MapiPrimitiveArrayBuilder.create(
+                    this.getPropertyDefinition().getMapiType());
+            if (builder != null) {
+                if (!reader.isEmptyElement()) {
+                    do {
+                        reader.read();
+                        if (reader.isStartElement(XmlNamespace.Types, XmlElementNames.Value)) {
+                            builder.add(reader.readElementValue());
+                        }
+                    } while (!reader.isEndElement(XmlNamespace.Types, XmlElementNames.Values));
+                } else {
+                    reader.read();
+                }
+                this.value = builder.toArray();
+            } else {
+                StringList stringList = new StringList(XmlElementNames.Value);
+                stringList.loadFromXml(reader, reader.getLocalName());
+                this.value = MapiTypeConverter.convertToValue(this
+                        .getPropertyDefinition().getMapiType(), stringList
+                        .iterator());
+            }
+            this.boxedValue = null;
             return true;
         } else {
             return false;
@@ -116,15 +147,13 @@ public final class ExtendedProperty extends ComplexProperty {
 
         if (MapiTypeConverter.isArrayType(this.getPropertyDefinition()
                 .getMapiType())) {
-            ArrayList<?> array = (ArrayList<?>) this.getValue();
             writer
                     .writeStartElement(XmlNamespace.Types,
                             XmlElementNames.Values);
-            for (int index = 0; index < array.size(); index++) {
+            for (String element : MapiTypeConverter.convertArrayToStrings(
+                    this.getPropertyDefinition().getMapiType(), this.value)) {
                 writer.writeElementValue(XmlNamespace.Types,
-                        XmlElementNames.Value, MapiTypeConverter
-                                .convertToString(this.getPropertyDefinition()
-                                        .getMapiType(), array.get(index)));
+                        XmlElementNames.Value, element);
             }
             writer.writeEndElement();
         } else {
@@ -145,14 +174,60 @@ public final class ExtendedProperty extends ComplexProperty {
     }
 
     /**
-     * Gets the value of the extended property.
+     * Gets the value of the extended property. Integer, long and double
+     * array values are returned as an unmodifiable list of boxed elements;
+     * use the typed accessors to get them without boxing, and
+     * {@link #setValue(Object)} to change them.
      *
      * @return the value
      */
     public Object getValue() {
+        if (this.value instanceof int[] || this.value instanceof long[] || this.value instanceof double[]) {
+            if (this.boxedValue == null) {
+                this.boxedValue = Collections.unmodifiableList((List<?>) MapiTypeConverter.toBoxedValue(this.value));
+            }
+            return this.boxedValue;
+        }
         return this.value;
     }
 
+    /**
+     * Gets the value of a Binary extended property.
+     *
+     * @return a copy of the bytes, or null if the value is not binary
+     */
+    public byte[] getBinaryValue() {
+        return this.value instanceof byte[] ? ((byte[]) this.value).clone() : null;
+    }
+
+    /**
+     * Gets the value of an IntegerArray extended property.
+     *
+     * @return a copy of the elements, or null if the value is not an integer array
+     */
+    public int[] getIntArrayValue() {
+        return this.value instanceof int[] ? ((int[]) this.value).clone() : null;
+    }
+
+    /**
+     * Gets the value of a LongArray or CurrencyArray extended property.
+     *
+     * @return a copy of the elements, or null if the value is not a long array
+     */
+    public long[] getLongArrayValue() {
+        return this.value instanceof long[] ? ((long[]) this.value).clone() : null;
+    }
+
+    /**
+     * Gets the value of a DoubleArray or ApplicationTimeArray extended
+     * property.
+     *
+     * @return a copy of the elements, or null if the value is not a double array
+     */
+    public double[] getDoubleArrayValue() {
+        return this.value instanceof double[] ? ((double[]) this.value).clone() : null;
+    }
+
     /**
      * Sets the value of the extended property.
      *
@@ -161,10 +236,11 @@ public final class ExtendedProperty extends ComplexProperty {
      */
     public void setValue(Object val) throws Exception {
         EwsUtilities.validateParam(val, "value");
-        if (this.canSetFieldValue(this.value, MapiTypeConverter.changeType(this
-                .getPropertyDefinition().getMapiType(), val))) {
-            this.value = MapiTypeConverter.changeType(this
-                    .getPropertyDefinition().getMapiType(), val);
+        Object newValue = MapiTypeConverter.changeType(this
+                .getPropertyDefinition().getMapiType(), val);
+        if (this.canSetFieldValue(this.value, newValue)) {
+            this.value = newValue;
+            this.boxedValue = null;
             this.changed();
         }
     }
@@ -177,16 +253,14 @@ public final class ExtendedProperty extends ComplexProperty {
     private String getStringValue() {
         if (MapiTypeConverter.isArrayType(this.getPropertyDefinition()
                 .getMapiType())) {
-            ArrayList<?> array = (ArrayList<?>) this.getValue();
-            if (array == null) {
+            if (this.value == null) {
                 return null;
             } else {
                 StringBuilder sb = new StringBuilder();
                 sb.append("[");
-                for (int index = 0; index < array.size(); index++) {
-                    sb.append(MapiTypeConverter.convertToString(this
-                            .getPropertyDefinition().getMapiType(), array
-                            .get(index)));
+                for (String element : MapiTypeConverter.convertArrayToStrings(
+                        this.getPropertyDefinition().getMapiType(), this.value)) {
+                    sb.append(element);
                     sb.append(",");
                 }
                 sb.append("]");
@@ -225,9 +299,8 @@ public final class ExtendedProperty extends ComplexProperty {
      */
     @Override
     public int hashCode() {
-        String printableName = this.getPropertyDefinition() != null ? this
-                .getPropertyDefinition().getPrintableName() : "";
-        String stringVal = this.getStringValue();
-        return (printableName + stringVal).hashCode();
+        int definitionHash = this.getPropertyDefinition() != null ? this
+                .getPropertyDefinition().hashCode() : 0;
+        return 31 * definitionHash + Objects.hashCode(this.getStringValue());
     }
 }
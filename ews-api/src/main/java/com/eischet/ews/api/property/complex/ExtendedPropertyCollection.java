@@ -35,7 +35,9 @@ import com.eischet.ews.api.property.definition.ExtendedPropertyDefinition;
 import com.eischet.ews.api.property.definition.PropertyDefinition;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a collection of extended property.
@@ -44,6 +46,17 @@ import java.util.List;
 public final class ExtendedPropertyCollection extends ComplexPropertyCollection<ExtendedProperty> implements
         ICustomXmlUpdateSerializer {
 
+    /**
+     * The items of the collection by their property definition.
+     */
+    private final Map<ExtendedPropertyDefinition, ExtendedProperty> itemsByDefinition = new HashMap<>();
+
+    /**
+     * Whether the collection holds several items with the same definition,
+     * which only happens when a response repeats an extended property.
+     */
+    private boolean hasDuplicateDefinitions;
+
     /**
      * Creates the complex property.
      *
@@ -95,6 +108,62 @@ public final class ExtendedPropertyCollection extends ComplexPropertyCollection<
         }
     }
 
+    /**
+     * Determines whether an equal property is already in the collection,
+     * looking it up by definition.
+     *
+     * @param complexProperty The complex property.
+     * @return True if an equal property is in the collection.
+     */
+    @Override
+    protected boolean containsItem(ExtendedProperty complexProperty) {
+        final ExtendedProperty existing = this.itemsByDefinition.get(complexProperty.getPropertyDefinition());
+        if (existing == null) {
+            return false;
+        }
+        return existing == complexProperty || existing.equals(complexProperty)
+                || (this.hasDuplicateDefinitions && super.containsItem(complexProperty));
+    }
+
+    /**
+     * Adds an extended property and indexes it by definition.
+     *
+     * @param complexProperty The extended property.
+     */
+    @Override
+    protected void internalAdd(ExtendedProperty complexProperty) {
+        final int count = this.getCount();
+        super.internalAdd(complexProperty);
+        if (this.getCount() > count) {
+            final ExtendedProperty existing =
+                    this.itemsByDefinition.putIfAbsent(complexProperty.getPropertyDefinition(), complexProperty);
+            this.hasDuplicateDefinitions |= existing != null;
+        }
+    }
+
+    /**
+     * Removes an extended property and drops it from the definition index.
+     *
+     * @param complexProperty The extended property.
+     * @return True if the property was removed.
+     */
+    @Override
+    protected boolean internalRemove(ExtendedProperty complexProperty) {
+        if (!super.internalRemove(complexProperty)) {
+            return false;
+        }
+        if (this.hasDuplicateDefinitions) {
+            this.itemsByDefinition.clear();
+            for (ExtendedProperty item : this.getItems()) {
+                this.itemsByDefinition.putIfAbsent(item.getPropertyDefinition(), item);
+            }
+            this.hasDuplicateDefinitions = this.itemsByDefinition.size() < this.getCount();
+        } else {
+            this.itemsByDefinition.remove(complexProperty.getPropertyDefinition());
+        }
+        return true;
+    }
+
     /**
      * Gets existing or adds new extended property.
      *
@@ -161,16 +230,9 @@ public final class ExtendedPropertyCollection extends ComplexPropertyCollection<
     private boolean tryGetProperty(
             ExtendedPropertyDefinition propertyDefinition,
             OutParam<ExtendedProperty> extendedPropertyOut) {
-        boolean found = false;
-        extendedPropertyOut.setParam(null);
-        for (ExtendedProperty prop : this.getItems()) {
-            if (prop.getPropertyDefinition().equals(propertyDefinition)) {
-                found = true;
-                extendedPropertyOut.setParam(prop);
-                break;
-            }
-        }
-        return found;
+        final ExtendedProperty extendedProperty = this.itemsByDefinition.get(propertyDefinition);
+        extendedPropertyOut.setParam(extendedProperty);
+        return extendedProperty != null;
     }
 
     /**
@@ -23,6 +23,7 @@
 
 package com.eischet.ews.api.property.complex;
 
+import com.eischet.ews.api.core.EwsServiceXmlReader;
 import com.eischet.ews.api.core.EwsServiceXmlWriter;
 import com.eischet.ews.api.core.EwsUtilities;
 import com.eischet.ews.api.core.XmlAttributeNames;
@@ -103,6 +104,19 @@ public final class FolderId extends ServiceId {
         }
     }
 
+    /**
+     * Reads attributes from XML. The items of a response usually share a few parent folders,
+     * so folder ids are pooled if the service pools strings. Change keys are not: they change
+     * whenever the folder does, so pooling them would mostly displace the ids.
+     *
+     * @param reader The reader.
+     */
+    @Override
+    public void readAttributesFromXml(EwsServiceXmlReader reader) throws ExchangeXmlException {
+        super.readAttributesFromXml(reader);
+        this.setUniqueId(reader.intern(this.getUniqueId()));
+    }
+
     /**
      * Writes attribute to XML.
      *
@@ -31,6 +31,9 @@ import com.eischet.ews.api.core.exception.service.local.ServiceXmlSerializationE
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 
 import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Base64;
 
 /**
@@ -48,6 +51,11 @@ public final class MimeContent extends ComplexProperty {
      */
     private byte[] content;
 
+    /**
+     * The stream the content is read from when writing to XML.
+     */
+    private InputStream contentStream;
+
     /**
      * Initializes a new instance of the class.
      */
@@ -66,6 +74,20 @@ public final class MimeContent extends ComplexProperty {
         this.content = content;
     }
 
+    /**
+     * Initializes a new instance of the class whose content is streamed from the
+     * specified stream when the item is saved, rather than being held in memory.
+     * The stream is consumed by the first request that writes it.
+     *
+     * @param characterSet  the character set
+     * @param contentStream the stream providing the content
+     */
+    public MimeContent(String characterSet, InputStream contentStream) {
+        this();
+        this.characterSet = characterSet;
+        this.contentStream = contentStream;
+    }
+
     /**
      * Reads attribute from XML.
      *
@@ -83,7 +105,14 @@ public final class MimeContent extends ComplexProperty {
      */
     @Override
     public void readTextValueFromXml(EwsServiceXmlReader reader) throws ExchangeXmlException {
-        this.content = Base64.getMimeDecoder().decode(reader.readValue());
+        final OutputStream target = reader.getMimeContentTarget();
+        if (target != null) {
+            reader.readBase64Value(target);
+        } else {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            reader.readBase64Value(stream);
+            this.content = stream.toByteArray();
+        }
     }
 
     /**
@@ -103,7 +132,9 @@ public final class MimeContent extends ComplexProperty {
      * @param writer the writer
      */
     public void writeElementsToXml(EwsServiceXmlWriter writer) throws ExchangeXmlException {
-        if (this.content != null && this.content.length > 0) {
+        if (this.contentStream != null) {
+            writer.writeBase64ElementValue(this.contentStream);
+        } else if (this.content != null && this.content.length > 0) {
             writer.writeBase64ElementValue(this.content);
         }
     }
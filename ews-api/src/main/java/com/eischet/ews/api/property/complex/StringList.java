@@ -86,7 +86,7 @@ public class StringList extends ComplexProperty implements Iterable<String> {
         boolean returnValue = false;
         if (reader.getLocalName().equals(this.itemXmlElementName)) {
             if (!reader.isEmptyElement()) {
-                this.add(reader.readValue());
+                this.add(reader.intern(reader.readValue()));
                 returnValue = true;
             } else {
                 reader.read();
@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.property.complex.recurrence;
+
+import com.eischet.ews.api.property.complex.ItemId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents an occurrence of a recurring series, computed locally by a {@link RecurrenceExpander}.
+ * All times are in UTC, like the times of appointments returned by the server.
+ */
+public final class ExpandedOccurrence {
+
+    private final int index;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final LocalDateTime originalStart;
+    private final ItemId itemId;
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param index         the one-based index of the occurrence in the series
+     * @param start         the start time
+     * @param end           the end time
+     * @param originalStart the start time according to the recurrence pattern
+     * @param itemId        the id of the modified occurrence, or null
+     */
+    ExpandedOccurrence(int index, LocalDateTime start, LocalDateTime end, LocalDateTime originalStart, ItemId itemId) {
+        this.index = index;
+        this.start = start;
+        this.end = end;
+        this.originalStart = originalStart;
+        this.itemId = itemId;
+    }
+
+    /**
+     * Gets the one-based index of the occurrence in the series, as expected by
+     * {@code Appointment.bindToOccurrence}.
+     *
+     * @return the index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the start time of the occurrence.
+     *
+     * @return the start time
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end time of the occurrence.
+     *
+     * @return the end time
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the start time of the occurrence according to the recurrence pattern, which differs from
+     * the start time if the occurrence was moved.
+     *
+     * @return the original start time
+     */
+    public LocalDateTime getOriginalStart() {
+        return originalStart;
+    }
+
+    /**
+     * Gets the id of the occurrence if it was modified, i.e. is an exception stored as an item of its own.
+     *
+     * @return the item id, or null if the occurrence is unmodified
+     */
+    public ItemId getItemId() {
+        return itemId;
+    }
+
+    /**
+     * Gets a value indicating whether the occurrence was modified.
+     *
+     * @return true if the occurrence is an exception
+     */
+    public boolean isModified() {
+        return itemId != null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s - %s%s", index, start, end, isModified() ? " (modified)" : "");
+    }
+
+}
@@ -0,0 +1,473 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.property.complex.recurrence;
+
+import com.eischet.ews.api.core.enumeration.property.time.DayOfTheWeek;
+import com.eischet.ews.api.core.enumeration.property.time.DayOfTheWeekIndex;
+import com.eischet.ews.api.core.exception.misc.ArgumentException;
+import com.eischet.ews.api.core.exception.service.local.ExchangeValidationException;
+import com.eischet.ews.api.core.service.item.Appointment;
+import com.eischet.ews.api.core.service.schema.AppointmentSchema;
+import com.eischet.ews.api.misc.OutParam;
+import com.eischet.ews.api.property.complex.DeletedOccurrenceInfo;
+import com.eischet.ews.api.property.complex.DeletedOccurrenceInfoCollection;
+import com.eischet.ews.api.property.complex.OccurrenceInfo;
+import com.eischet.ews.api.property.complex.OccurrenceInfoCollection;
+import com.eischet.ews.api.property.complex.recurrence.pattern.Recurrence;
+import com.eischet.ews.api.property.complex.time.TimeZoneDefinition;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Expands a recurring series into its occurrences locally, without asking the server for a calendar view.
+ * <p>
+ * The expander needs the recurring master's recurrence pattern and range, its start and end, and the time
+ * zone the series was created in: occurrences happen at the same wall clock time in that time zone, so their
+ * UTC times move when daylight saving time starts or ends. Deleted and modified occurrences are applied if
+ * provided. Occurrences are computed lazily, so a series without end can be expanded over any window.
+ * </p>
+ * <p>
+ * Regeneration patterns, as used by tasks, depend on when the previous occurrence was completed and
+ * can't be expanded.
+ * </p>
+ */
+public class RecurrenceExpander {
+
+    /**
+     * How many consecutive recurrence periods may pass without an occurrence before the expansion gives up.
+     */
+    private static final int MAX_EMPTY_PERIODS = 1000;
+
+    private final Recurrence recurrence;
+    private final LocalDate patternStart;
+    private final LocalTime startTime;
+    private final Duration wallDuration;
+    private final ZoneRules startZone;
+    private final ZoneRules endZone;
+    private final Set<LocalDate> deletedDates = new HashSet<>();
+    private final Map<LocalDate, OccurrenceInfo> modifiedByDate = new HashMap<>();
+    private DayOfWeek firstDayOfWeek = DayOfWeek.SUNDAY;
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param recurrence the recurrence pattern and range of the series
+     * @param start      the start of the first occurrence, in UTC
+     * @param end        the end of the first occurrence, in UTC
+     * @param startZone  the time zone of the start times
+     * @param endZone    the time zone of the end times; null to use the start time zone
+     * @throws ExchangeValidationException if the pattern is a regeneration pattern or incomplete
+     */
+    public RecurrenceExpander(Recurrence recurrence, LocalDateTime start, LocalDateTime end,
+            ZoneRules startZone, ZoneRules endZone) throws ExchangeValidationException {
+        if (recurrence.isRegenerationPattern()) {
+            throw new ArgumentException("Regeneration patterns can't be expanded.", "recurrence");
+        }
+        recurrence.internalValidate();
+        this.recurrence = recurrence;
+        this.patternStart = recurrence.getStartDate();
+        this.startZone = startZone;
+        this.endZone = (endZone != null) ? endZone : startZone;
+        LocalDateTime localStart = toLocal(start, this.startZone);
+        this.startTime = localStart.toLocalTime();
+        this.wallDuration = Duration.between(localStart, toLocal(end, this.endZone));
+        if (recurrence instanceof Recurrence.WeeklyPattern
+                && ((Recurrence.WeeklyPattern) recurrence).hasFirstDayOfWeek()) {
+            this.firstDayOfWeek = toDayOfWeek(((Recurrence.WeeklyPattern) recurrence).getFirstDayOfWeek());
+        }
+    }
+
+    /**
+     * Creates an expander for a recurring master. The appointment must have been loaded with its
+     * recurrence, start and end; the start and end time zones, the modified occurrences and the deleted
+     * occurrences are used if they were loaded. Without a start time zone, the series is assumed to
+     * recur in UTC.
+     *
+     * @param master the recurring master
+     * @return the expander
+     * @throws Exception if a required property wasn't loaded, or the time zone can't be compiled
+     */
+    public static RecurrenceExpander forAppointment(Appointment master) throws Exception {
+        OutParam<TimeZoneDefinition> startTimeZone = new OutParam<>();
+        OutParam<TimeZoneDefinition> endTimeZone = new OutParam<>();
+        ZoneRules startZone = ZoneOffset.UTC.getRules();
+        if (master.tryGetProperty(TimeZoneDefinition.class, AppointmentSchema.StartTimeZone, startTimeZone)
+                && startTimeZone.getParam() != null) {
+            startZone = startTimeZone.getParam().toZoneRules();
+        }
+        ZoneRules endZone = null;
+        if (master.tryGetProperty(TimeZoneDefinition.class, AppointmentSchema.EndTimeZone, endTimeZone)
+                && endTimeZone.getParam() != null) {
+            endZone = endTimeZone.getParam().toZoneRules();
+        }
+
+        RecurrenceExpander expander = new RecurrenceExpander(master.getRecurrence(), master.getStart(),
+                master.getEnd(), startZone, endZone);
+
+        OutParam<DeletedOccurrenceInfoCollection> deleted = new OutParam<>();
+        if (master.tryGetProperty(DeletedOccurrenceInfoCollection.class, AppointmentSchema.DeletedOccurrences, deleted)
+                && deleted.getParam() != null) {
+            expander.setDeletedOccurrences(deleted.getParam());
+        }
+        OutParam<OccurrenceInfoCollection> modified = new OutParam<>();
+        if (master.tryGetProperty(OccurrenceInfoCollection.class, AppointmentSchema.ModifiedOccurrences, modified)
+                && modified.getParam() != null) {
+            expander.setModifiedOccurrences(modified.getParam());
+        }
+        return expander;
+    }
+
+    /**
+     * Sets the occurrences that were deleted from the series.
+     *
+     * @param deletedOccurrences the deleted occurrences
+     */
+    public void setDeletedOccurrences(Iterable<DeletedOccurrenceInfo> deletedOccurrences) {
+        deletedDates.clear();
+        for (DeletedOccurrenceInfo deleted : deletedOccurrences) {
+            deletedDates.add(toLocal(deleted.getOriginalStart(), startZone).toLocalDate());
+        }
+    }
+
+    /**
+     * Sets the occurrences that were modified. They are reported with their modified start and end.
+     *
+     * @param modifiedOccurrences the modified occurrences
+     */
+    public void setModifiedOccurrences(Iterable<OccurrenceInfo> modifiedOccurrences) {
+        modifiedByDate.clear();
+        for (OccurrenceInfo modified : modifiedOccurrences) {
+            modifiedByDate.put(toLocal(modified.getOriginalStart(), startZone).toLocalDate(), modified);
+        }
+    }
+
+    /**
+     * Gets the first day of the week, which determines which weeks a weekly pattern with an
+     * interval greater than one skips.
+     *
+     * @return the first day of the week
+     */
+    public DayOfWeek getFirstDayOfWeek() {
+        return firstDayOfWeek;
+    }
+
+    /**
+     * Sets the first day of the week. Defaults to the weekly pattern's first day of the week if it
+     * has one, and to Sunday otherwise.
+     *
+     * @param value the first day of the week
+     */
+    public void setFirstDayOfWeek(DayOfWeek value) {
+        this.firstDayOfWeek = value;
+    }
+
+    /**
+     * Gets the occurrences that overlap a time window. Deleted occurrences are skipped; modified
+     * occurrences are reported with their modified times. The result is ordered by original start.
+     *
+     * @param windowStart the start of the window, in UTC
+     * @param windowEnd   the end of the window, in UTC
+     * @return the occurrences
+     */
+    public List<ExpandedOccurrence> expand(LocalDateTime windowStart, LocalDateTime windowEnd) {
+        List<ExpandedOccurrence> occurrences = new ArrayList<>();
+        for (Iterator<ExpandedOccurrence> it = iterator(windowStart, windowEnd); it.hasNext(); ) {
+            occurrences.add(it.next());
+        }
+        return occurrences;
+    }
+
+    /**
+     * Lazily iterates over the occurrences that overlap a time window, see {@link #expand}.
+     *
+     * @param windowStart the start of the window, in UTC
+     * @param windowEnd   the end of the window, in UTC
+     * @return the occurrences
+     */
+    public Iterator<ExpandedOccurrence> iterator(final LocalDateTime windowStart, final LocalDateTime windowEnd) {
+        // Occurrences are generated in pattern order; a modified occurrence may have moved into the window
+        // from a later date, so keep going until we're past those as well.
+        LocalDate lastDate = toLocal(windowEnd, startZone).toLocalDate().plusDays(1);
+        for (Map.Entry<LocalDate, OccurrenceInfo> modified : modifiedByDate.entrySet()) {
+            if (overlaps(modified.getValue().getStart(), modified.getValue().getEnd(), windowStart, windowEnd)
+                    && modified.getKey().isAfter(lastDate)) {
+                lastDate = modified.getKey();
+            }
+        }
+        final LocalDate last = lastDate;
+        final Iterator<LocalDate> dates = dates();
+
+        return new Iterator<ExpandedOccurrence>() {
+            private int index;
+            private ExpandedOccurrence next;
+            private boolean done;
+
+            public boolean hasNext() {
+                while (next == null && !done) {
+                    if (!dates.hasNext()) {
+                        done = true;
+                        break;
+                    }
+                    LocalDate date = dates.next();
+                    if (date.isAfter(last)) {
+                        done = true;
+                        break;
+                    }
+                    index++;
+                    if (deletedDates.contains(date)) {
+                        continue;
+                    }
+                    ExpandedOccurrence occurrence = occurrenceOn(index, date);
+                    if (overlaps(occurrence.getStart(), occurrence.getEnd(), windowStart, windowEnd)) {
+                        next = occurrence;
+                    }
+                }
+                return next != null;
+            }
+
+            public ExpandedOccurrence next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ExpandedOccurrence result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    private ExpandedOccurrence occurrenceOn(int index, LocalDate date) {
+        LocalDateTime localStart = date.atTime(startTime);
+        LocalDateTime originalStart = toUtc(localStart, startZone);
+        OccurrenceInfo modified = modifiedByDate.get(date);
+        if (modified != null) {
+            return new ExpandedOccurrence(index, modified.getStart(), modified.getEnd(), originalStart,
+                    modified.getItemId());
+        }
+        return new ExpandedOccurrence(index, originalStart, toUtc(localStart.plus(wallDuration), endZone),
+                originalStart, null);
+    }
+
+    private static boolean overlaps(LocalDateTime start, LocalDateTime end,
+            LocalDateTime windowStart, LocalDateTime windowEnd) {
+        if (start.equals(end)) {
+            return !start.isBefore(windowStart) && start.isBefore(windowEnd);
+        }
+        return start.isBefore(windowEnd) && end.isAfter(windowStart);
+    }
+
+    /**
+     * Lazily iterates over the dates of all occurrences of the series, including deleted ones, in the
+     * time zone of the series.
+     *
+     * @return the dates
+     */
+    Iterator<LocalDate> dates() {
+        final Integer count = recurrence.getNumberOfOccurrences();
+        final LocalDate endDate = recurrence.getEndDate();
+
+        return new Iterator<LocalDate>() {
+            private long period;
+            private final List<LocalDate> buffer = new ArrayList<>();
+            private int position;
+            private int produced;
+            private boolean done;
+
+            public boolean hasNext() {
+                if (done) {
+                    return false;
+                }
+                if (count != null && produced >= count) {
+                    done = true;
+                    return false;
+                }
+                int emptyPeriods = 0;
+                while (position >= buffer.size()) {
+                    buffer.clear();
+                    position = 0;
+                    for (LocalDate date : datesInPeriod(period++)) {
+                        if (!date.isBefore(patternStart)) {
+                            buffer.add(date);
+                        }
+                    }
+                    if (buffer.isEmpty() && ++emptyPeriods > MAX_EMPTY_PERIODS) {
+                        done = true;
+                        return false;
+                    }
+                }
+                if (endDate != null && buffer.get(position).isAfter(endDate)) {
+                    done = true;
+                    return false;
+                }
+                return true;
+            }
+
+            public LocalDate next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                produced++;
+                return buffer.get(position++);
+            }
+        };
+    }
+
+    /**
+     * Gets the candidate dates of a recurrence period (a day, week, month or year times the interval), in order.
+     */
+    private List<LocalDate> datesInPeriod(long period) {
+        try {
+            if (recurrence instanceof Recurrence.DailyPattern) {
+                int interval = ((Recurrence.DailyPattern) recurrence).getInterval();
+                return Collections.singletonList(patternStart.plusDays(period * interval));
+
+            } else if (recurrence instanceof Recurrence.WeeklyPattern) {
+                Recurrence.WeeklyPattern weekly = (Recurrence.WeeklyPattern) recurrence;
+                LocalDate weekStart = patternStart.with(TemporalAdjusters.previousOrSame(firstDayOfWeek))
+                        .plusWeeks(period * weekly.getInterval());
+                Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+                for (DayOfTheWeek day : weekly.getDaysOfTheWeek()) {
+                    days.addAll(daysOf(day));
+                }
+                List<LocalDate> dates = new ArrayList<>(days.size());
+                for (int i = 0; i < 7; i++) {
+                    LocalDate date = weekStart.plusDays(i);
+                    if (days.contains(date.getDayOfWeek())) {
+                        dates.add(date);
+                    }
+                }
+                return dates;
+
+            } else if (recurrence instanceof Recurrence.MonthlyPattern) {
+                Recurrence.MonthlyPattern monthly = (Recurrence.MonthlyPattern) recurrence;
+                LocalDate month = patternStart.withDayOfMonth(1).plusMonths(period * monthly.getInterval());
+                return Collections.singletonList(month.withDayOfMonth(
+                        Math.min(monthly.getDayOfMonth(), month.lengthOfMonth())));
+
+            } else if (recurrence instanceof Recurrence.RelativeMonthlyPattern) {
+                Recurrence.RelativeMonthlyPattern monthly = (Recurrence.RelativeMonthlyPattern) recurrence;
+                LocalDate month = patternStart.withDayOfMonth(1).plusMonths(period * monthly.getInterval());
+                return Collections.singletonList(
+                        nthDayOfMonth(month, monthly.getDayOfTheWeek(), monthly.getDayOfTheWeekIndex()));
+
+            } else if (recurrence instanceof Recurrence.YearlyPattern) {
+                Recurrence.YearlyPattern yearly = (Recurrence.YearlyPattern) recurrence;
+                LocalDate month = LocalDate.of(patternStart.getYear(), yearly.getMonth().ordinal() + 1, 1)
+                        .plusYears(period);
+                return Collections.singletonList(month.withDayOfMonth(
+                        Math.min(yearly.getDayOfMonth(), month.lengthOfMonth())));
+
+            } else if (recurrence instanceof Recurrence.RelativeYearlyPattern) {
+                Recurrence.RelativeYearlyPattern yearly = (Recurrence.RelativeYearlyPattern) recurrence;
+                LocalDate month = LocalDate.of(patternStart.getYear(), yearly.getMonth().ordinal() + 1, 1)
+                        .plusYears(period);
+                return Collections.singletonList(
+                        nthDayOfMonth(month, yearly.getDayOfTheWeek(), yearly.getDayOfTheWeekIndex()));
+            }
+        } catch (ExchangeValidationException e) {
+            // Can't happen, the pattern was validated in the constructor.
+            throw new IllegalStateException(e);
+        }
+        throw new IllegalStateException("Unsupported recurrence pattern: " + recurrence.getClass().getName());
+    }
+
+    /**
+     * Gets the n-th (or last) day of a month that matches a day of the week, which may also be
+     * "any day", "weekday" or "weekend day".
+     */
+    static LocalDate nthDayOfMonth(LocalDate month, DayOfTheWeek dayOfTheWeek, DayOfTheWeekIndex index) {
+        Set<DayOfWeek> days = daysOf(dayOfTheWeek);
+        LocalDate match = null;
+        int found = 0;
+        for (LocalDate date = month.withDayOfMonth(1); date.getMonth() == month.getMonth(); date = date.plusDays(1)) {
+            if (days.contains(date.getDayOfWeek())) {
+                match = date;
+                if (index != DayOfTheWeekIndex.Last && found++ == index.ordinal()) {
+                    return match;
+                }
+            }
+        }
+        return match;
+    }
+
+    private static Set<DayOfWeek> daysOf(DayOfTheWeek dayOfTheWeek) {
+        switch (dayOfTheWeek) {
+            case Day:
+                return EnumSet.allOf(DayOfWeek.class);
+            case Weekday:
+                return EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+            case WeekendDay:
+                return EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY);
+            default:
+                return EnumSet.of(toDayOfWeek(dayOfTheWeek));
+        }
+    }
+
+    /**
+     * Converts a single day of the week.
+     */
+    private static DayOfWeek toDayOfWeek(DayOfTheWeek dayOfTheWeek) {
+        return DayOfWeek.valueOf(dayOfTheWeek.name().toUpperCase());
+    }
+
+    /**
+     * Converts a UTC time to the wall clock time of a zone.
+     */
+    static LocalDateTime toLocal(LocalDateTime utc, ZoneRules zone) {
+        return utc.plusSeconds(zone.getOffset(utc.toInstant(ZoneOffset.UTC)).getTotalSeconds());
+    }
+
+    /**
+     * Converts a wall clock time of a zone to UTC. Times in a gap are moved forward by the length of the gap,
+     * ambiguous times use the earlier offset, just like {@code ZonedDateTime.ofLocal}.
+     */
+    static LocalDateTime toUtc(LocalDateTime local, ZoneRules zone) {
+        List<ZoneOffset> offsets = zone.getValidOffsets(local);
+        if (offsets.isEmpty()) {
+            ZoneOffsetTransition gap = zone.getTransition(local);
+            return local.plusSeconds(gap.getDuration().getSeconds())
+                    .minusSeconds(gap.getOffsetAfter().getTotalSeconds());
+        }
+        return local.minusSeconds(offsets.get(0).getTotalSeconds());
+    }
+
+}
@@ -1034,7 +1034,10 @@ public abstract class Recurrence extends ComplexProperty {
         private final DayOfTheWeekCollection daysOfTheWeek =
                 new DayOfTheWeekCollection();
 
-        private Calendar firstDayOfWeek;
+        /**
+         * The first day of the week, which decides which weeks an interval greater than one skips.
+         */
+        private DayOfTheWeek firstDayOfWeek;
 
         /**
          * Initializes a new instance of the WeeklyPattern class. specific days
@@ -1127,7 +1130,7 @@ public abstract class Recurrence extends ComplexProperty {
                     return true;
                 } else if (reader.getLocalName().equals(XmlElementNames.FirstDayOfWeek)) {
                     this.firstDayOfWeek = reader.
-                            readElementValue(Calendar.class,
+                            readElementValue(DayOfTheWeek.class,
                                     XmlNamespace.Types,
                                     XmlElementNames.FirstDayOfWeek);
                     return true;
@@ -1161,12 +1164,36 @@ public abstract class Recurrence extends ComplexProperty {
             return this.daysOfTheWeek;
         }
 
-        public Calendar getFirstDayOfWeek() throws ExchangeValidationException {
-            return this.getFieldValueOrThrowIfNull(Calendar.class,
+        /**
+         * Gets the first day of the week.
+         *
+         * @return the first day of the week
+         * @throws ExchangeValidationException if the first day of the week isn't set
+         */
+        public DayOfTheWeek getFirstDayOfWeek() throws ExchangeValidationException {
+            return this.getFieldValueOrThrowIfNull(DayOfTheWeek.class,
                     this.firstDayOfWeek, "FirstDayOfWeek");
         }
 
-        public void setFirstDayOfWeek(Calendar value) {
+        /**
+         * Gets a value indicating whether the first day of the week is set.
+         *
+         * @return true if the first day of the week is set
+         */
+        public boolean hasFirstDayOfWeek() {
+            return this.firstDayOfWeek != null;
+        }
+
+        /**
+         * Sets the first day of the week. Requires Exchange 2010 SP1 or later.
+         *
+         * @param value the first day of the week; Day, Weekday and WeekendDay are not allowed
+         * @throws ArgumentException if the value is Day, Weekday or WeekendDay
+         */
+        public void setFirstDayOfWeek(DayOfTheWeek value) throws ArgumentException {
+            if (value == DayOfTheWeek.Day || value == DayOfTheWeek.Weekday || value == DayOfTheWeek.WeekendDay) {
+                throw new ArgumentException("The first day of the week must be a single day.", "value");
+            }
             if (this.canSetFieldValue(this.firstDayOfWeek, value)) {
                 this.firstDayOfWeek = value;
                 this.changed();
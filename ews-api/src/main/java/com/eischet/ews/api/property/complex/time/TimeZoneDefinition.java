@@ -35,9 +35,12 @@ import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
 import com.eischet.ews.api.core.exception.service.local.ServiceXmlSerializationException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.property.complex.ComplexProperty;
+import com.eischet.ews.api.property.complex.IComplexPropertyChangedDelegate;
 
 import java.time.LocalDateTime;
+import java.time.zone.ZoneRules;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a time zone as defined by the EWS schema.
@@ -97,6 +100,32 @@ public class TimeZoneDefinition extends ComplexProperty implements Comparator<Ti
     private final List<TimeZoneTransition> transitions =
             new ArrayList<TimeZoneTransition>();
 
+    /**
+     * The maximum number of distinct shared definitions; the pool is reset when it grows beyond.
+     */
+    private static final int MAX_SHARED_DEFINITIONS = 1024;
+
+    /**
+     * The shared definitions, by fingerprint.
+     */
+    private static final Map<String, TimeZoneDefinition> sharedDefinitions =
+            new ConcurrentHashMap<String, TimeZoneDefinition>();
+
+    /**
+     * Whether this definition is shared, and therefore must not change.
+     */
+    private volatile boolean shared;
+
+    /**
+     * The fingerprint of a shared definition.
+     */
+    private String fingerprint;
+
+    /**
+     * The compiled rules of a shared definition.
+     */
+    private volatile ZoneRules zoneRules;
+
     /**
      * Compares the transitions.
      *
@@ -390,26 +419,166 @@ public class TimeZoneDefinition extends ComplexProperty implements Comparator<Ti
      * @param id the new id
      */
     public void setId(String id) {
+        if (this.shared) {
+            throw new UnsupportedOperationException("Shared time zone definitions can't be changed.");
+        }
         this.id = id;
     }
 
     /**
-     * Adds a transition group with a single transition to the specified period.
+     * Gets the shared instance of a time zone definition. Definitions with the same id, periods and
+     * transitions are represented by a single instance, so that items in the same time zone don't each
+     * keep a copy, and the compiled rules are computed only once.
+     * <p>
+     * Shared definitions must not be modified. They don't notify their owners of changes; to change the
+     * time zone of an item, set a new definition instead.
+     * </p>
      *
-     * @return A TimeZoneTransitionGroup.
+     * @param definition the definition
+     * @return the shared definition with the same contents
+     */
+    public static TimeZoneDefinition share(TimeZoneDefinition definition) {
+        if (definition.shared) {
+            return definition;
+        }
+        String key = definition.computeFingerprint();
+        TimeZoneDefinition existing = sharedDefinitions.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (sharedDefinitions.size() >= MAX_SHARED_DEFINITIONS) {
+            sharedDefinitions.clear();
+        }
+        definition.fingerprint = key;
+        definition.shared = true;
+        existing = sharedDefinitions.putIfAbsent(key, definition);
+        return (existing != null) ? existing : definition;
+    }
+
+    /**
+     * Gets a value indicating whether this definition is shared, see {@link #share}.
+     *
+     * @return true if this definition is shared
+     */
+    public boolean isShared() {
+        return this.shared;
+    }
+
+    /**
+     * Shared definitions never change, so they don't keep track of their owners.
+     *
+     * @param change change event
+     */
+    @Override
+    public void addOnChangeEvent(IComplexPropertyChangedDelegate change) {
+        if (!this.shared) {
+            super.addOnChangeEvent(change);
+        }
+    }
+
+    /**
+     * Gets a string that identifies the contents of this definition: its id and name, and its periods,
+     * transition groups and transitions. Two definitions with the same fingerprint compile to the same rules.
+     *
+     * @return the fingerprint
+     */
+    String getFingerprint() {
+        return this.shared ? this.fingerprint : this.computeFingerprint();
+    }
+
+    private String computeFingerprint() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(this.id).append('|').append(this.name);
+        for (TimeZonePeriod period : new TreeMap<String, TimeZonePeriod>(this.periods).values()) {
+            sb.append("|P:").append(period.getId()).append(',').append(period.getName()).append(',')
+                    .append(period.getBias() == null ? null : period.getBias().getTotalMilliseconds());
+        }
+        for (TimeZoneTransitionGroup group : new TreeMap<String, TimeZoneTransitionGroup>(
+                this.transitionGroups).values()) {
+            sb.append("|G:").append(group.getId());
+            for (TimeZoneTransition transition : group.getTransitions()) {
+                appendFingerprint(sb, transition);
+            }
+        }
+        sb.append("|T");
+        for (TimeZoneTransition transition : this.transitions) {
+            appendFingerprint(sb, transition);
+        }
+        return sb.toString();
+    }
+
+    private static void appendFingerprint(StringBuilder sb, TimeZoneTransition transition) {
+        sb.append(';').append(transition.getClass().getSimpleName()).append(',');
+        if (transition.getTargetPeriod() != null) {
+            sb.append("P=").append(transition.getTargetPeriod().getId());
+        } else if (transition.getTargetGroup() != null) {
+            sb.append("G=").append(transition.getTargetGroup().getId());
+        }
+        if (transition instanceof AbsoluteDateTransition) {
+            sb.append(',').append(((AbsoluteDateTransition) transition).getDateTime());
+        }
+        if (transition instanceof AbsoluteMonthTransition) {
+            AbsoluteMonthTransition monthTransition = (AbsoluteMonthTransition) transition;
+            sb.append(',').append(monthTransition.getMonth()).append(',')
+                    .append(monthTransition.getTimeOffset() == null ? null :
+                            monthTransition.getTimeOffset().getTotalMilliseconds());
+        }
+        if (transition instanceof RelativeDayOfMonthTransition) {
+            RelativeDayOfMonthTransition relative = (RelativeDayOfMonthTransition) transition;
+            sb.append(',').append(relative.getDayOfTheWeek()).append(',').append(relative.getWeekIndex());
+        } else if (transition instanceof AbsoluteDayOfMonthTransition) {
+            sb.append(',').append(((AbsoluteDayOfMonthTransition) transition).getDayOfMonth());
+        }
+    }
+
+    /**
+     * Gets the periods associated with this time zone definition, indexed by Id.
+     * The map can't be modified; shared definitions are used by many items.
+     *
+     * @return the periods
      */
     public Map<String, TimeZonePeriod> getPeriods() {
-        return this.periods;
+        return Collections.unmodifiableMap(this.periods);
+    }
+
+    /**
+     * Gets the transitions of this time zone definition, ordered by start date.
+     *
+     * @return the transitions
+     */
+    List<TimeZoneTransition> getTransitions() {
+        return this.transitions;
+    }
+
+    /**
+     * Compiles this time zone definition into java.time rules, so that times in this
+     * time zone can be converted to and from UTC. Compiled rules are cached by the
+     * definition's contents.
+     *
+     * @return the rules
+     * @throws InvalidOrUnsupportedTimeZoneDefinitionException if this definition has no
+     *                                                         transitions or can't be compiled
+     */
+    public ZoneRules toZoneRules() throws InvalidOrUnsupportedTimeZoneDefinitionException {
+        if (!this.shared) {
+            return ZoneRulesCompiler.compile(this);
+        }
+        ZoneRules rules = this.zoneRules;
+        if (rules == null) {
+            rules = ZoneRulesCompiler.compile(this);
+            this.zoneRules = rules;
+        }
+        return rules;
     }
 
     /**
      * Gets the transition groups associated with this time zone definition,
-     * indexed by Id.
+     * indexed by Id. The map can't be modified; shared definitions are used by many items.
      *
      * @return the transition groups
      */
     public Map<String, TimeZoneTransitionGroup> getTransitionGroups() {
-        return this.transitionGroups;
+        return Collections.unmodifiableMap(this.transitionGroups);
     }
 
     /**
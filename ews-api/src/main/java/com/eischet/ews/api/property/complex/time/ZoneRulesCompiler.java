@@ -0,0 +1,337 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.property.complex.time;
+
+import com.eischet.ews.api.core.enumeration.property.time.DayOfTheWeek;
+import com.eischet.ews.api.core.exception.service.local.InvalidOrUnsupportedTimeZoneDefinitionException;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneOffsetTransitionRule;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles an EWS time zone definition into {@link ZoneRules}.
+ * <p>
+ * A definition is a sequence of transition groups, each valid from an absolute date on. A group either
+ * switches to a single period, or alternates between a standard and a daylight period on recurring dates.
+ * The recurring transitions of the last group become the "last rules" of the compiled zone; the
+ * transitions of earlier groups are materialized year by year.
+ * </p>
+ */
+final class ZoneRulesCompiler {
+
+    /**
+     * The first year for which the transitions of a group that has no start date are materialized.
+     */
+    static final int FIRST_YEAR = 1970;
+
+    /**
+     * The maximum number of cached rules; the cache is reset when it grows beyond.
+     */
+    private static final int MAX_CACHED_RULES = 1024;
+
+    /**
+     * The compiled rules, by definition fingerprint: the id of a definition plus its contents, which
+     * tell apart different versions of a time zone with the same id.
+     */
+    private static final Map<String, ZoneRules> cache = new ConcurrentHashMap<String, ZoneRules>();
+
+    private static final Comparator<ZoneOffsetTransition> BY_INSTANT = new Comparator<ZoneOffsetTransition>() {
+        public int compare(ZoneOffsetTransition x, ZoneOffsetTransition y) {
+            return x.compareTo(y);
+        }
+    };
+
+    private ZoneRulesCompiler() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * A transition group, compiled.
+     */
+    private static final class Segment {
+        private final LocalDateTime start;
+        private final ZoneOffset standardOffset;
+        private final ZoneOffset fixedOffset;
+        private final List<ZoneOffsetTransitionRule> rules;
+
+        private Segment(LocalDateTime start, ZoneOffset standardOffset, ZoneOffset fixedOffset,
+                List<ZoneOffsetTransitionRule> rules) {
+            this.start = start;
+            this.standardOffset = standardOffset;
+            this.fixedOffset = fixedOffset;
+            this.rules = rules;
+        }
+
+        private List<ZoneOffsetTransition> transitionsOf(int year) {
+            List<ZoneOffsetTransition> transitions = new ArrayList<ZoneOffsetTransition>(rules.size());
+            for (ZoneOffsetTransitionRule rule : rules) {
+                transitions.add(rule.createTransition(year));
+            }
+            Collections.sort(transitions, BY_INSTANT);
+            return transitions;
+        }
+
+        /**
+         * Gets the offset in effect at an instant, judging by this segment's rules alone.
+         */
+        private ZoneOffset offsetAt(Instant instant) {
+            if (fixedOffset != null) {
+                return fixedOffset;
+            }
+            List<ZoneOffsetTransition> transitions =
+                    transitionsOf(LocalDateTime.ofInstant(instant, standardOffset).getYear());
+            ZoneOffset offset = transitions.get(0).getOffsetBefore();
+            for (ZoneOffsetTransition transition : transitions) {
+                if (!transition.getInstant().isAfter(instant)) {
+                    offset = transition.getOffsetAfter();
+                }
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * Compiles a time zone definition, or gets the rules of an identical definition compiled before.
+     *
+     * @param definition the definition, as returned by the server
+     * @return the rules
+     * @throws InvalidOrUnsupportedTimeZoneDefinitionException if the definition has no transitions or
+     *                                                         a transition group can't be compiled
+     */
+    static ZoneRules compile(TimeZoneDefinition definition) throws InvalidOrUnsupportedTimeZoneDefinitionException {
+        String key = definition.getFingerprint();
+        ZoneRules rules = cache.get(key);
+        if (rules == null) {
+            rules = compileUncached(definition);
+            if (cache.size() >= MAX_CACHED_RULES) {
+                cache.clear();
+            }
+            cache.put(key, rules);
+        }
+        return rules;
+    }
+
+    /**
+     * Compiles a time zone definition.
+     *
+     * @param definition the definition
+     * @return the rules
+     * @throws InvalidOrUnsupportedTimeZoneDefinitionException if the definition can't be compiled
+     */
+    static ZoneRules compileUncached(TimeZoneDefinition definition)
+            throws InvalidOrUnsupportedTimeZoneDefinitionException {
+        List<TimeZoneTransition> transitions = new ArrayList<TimeZoneTransition>(definition.getTransitions());
+        if (transitions.isEmpty()) {
+            throw new InvalidOrUnsupportedTimeZoneDefinitionException(String.format(
+                    "Time zone definition %s has no transitions and can't be compiled.", definition.getId()));
+        }
+        Collections.sort(transitions, definition);
+
+        List<Segment> segments = new ArrayList<Segment>(transitions.size());
+        for (TimeZoneTransition transition : transitions) {
+            LocalDateTime start = (transition instanceof AbsoluteDateTransition) ?
+                    ((AbsoluteDateTransition) transition).getDateTime() : null;
+            if (start == null && !segments.isEmpty()) {
+                throw new InvalidOrUnsupportedTimeZoneDefinitionException();
+            }
+            if (transition.getTargetGroup() != null) {
+                segments.add(compileGroup(start, transition.getTargetGroup()));
+            } else if (transition.getTargetPeriod() != null) {
+                ZoneOffset offset = offsetOf(transition.getTargetPeriod());
+                segments.add(new Segment(start, offset, offset, null));
+            } else {
+                throw new InvalidOrUnsupportedTimeZoneDefinitionException();
+            }
+        }
+
+        Segment first = segments.get(0);
+        ZoneOffset wallOffset = (first.fixedOffset != null) ? first.fixedOffset :
+                first.transitionsOf(FIRST_YEAR).get(0).getOffsetBefore();
+        ZoneOffset standardOffset = first.standardOffset;
+        ZoneOffset baseWallOffset = wallOffset;
+        ZoneOffset baseStandardOffset = standardOffset;
+        List<ZoneOffsetTransition> wallTransitions = new ArrayList<ZoneOffsetTransition>();
+        List<ZoneOffsetTransition> standardTransitions = new ArrayList<ZoneOffsetTransition>();
+        List<ZoneOffsetTransitionRule> lastRules = Collections.emptyList();
+
+        Instant segmentStart = LocalDateTime.of(FIRST_YEAR, 1, 1, 0, 0).toInstant(wallOffset);
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            if (i > 0) {
+                LocalDateTime local = segment.start;
+                segmentStart = local.toInstant(wallOffset);
+                ZoneOffset newWallOffset = segment.offsetAt(segmentStart);
+                if (!newWallOffset.equals(wallOffset)) {
+                    wallTransitions.add(ZoneOffsetTransition.of(local, wallOffset, newWallOffset));
+                    wallOffset = newWallOffset;
+                }
+                if (!segment.standardOffset.equals(standardOffset)) {
+                    standardTransitions.add(ZoneOffsetTransition.of(local, standardOffset, segment.standardOffset));
+                    standardOffset = segment.standardOffset;
+                }
+            }
+            if (segment.fixedOffset != null) {
+                continue;
+            }
+
+            boolean last = (i == segments.size() - 1);
+            Instant segmentEnd = last ? null : segments.get(i + 1).start.toInstant(wallOffset);
+            int fromYear = LocalDateTime.ofInstant(segmentStart, wallOffset).getYear();
+            // The last rules take over after the last materialized transition, so materialize the
+            // first year of the last group as well: that also keeps the transition list from being
+            // empty, which some JDK versions don't handle together with last rules.
+            int toYear = last ? fromYear : LocalDateTime.ofInstant(segmentEnd, wallOffset).getYear();
+            for (int year = fromYear; year <= toYear; year++) {
+                for (ZoneOffsetTransition transition : segment.transitionsOf(year)) {
+                    Instant instant = transition.getInstant();
+                    if (!instant.isAfter(segmentStart) || (segmentEnd != null && !instant.isBefore(segmentEnd))) {
+                        continue;
+                    }
+                    if (!transition.getOffsetAfter().equals(wallOffset)) {
+                        wallTransitions.add(ZoneOffsetTransition.of(
+                                LocalDateTime.ofInstant(instant, wallOffset), wallOffset, transition.getOffsetAfter()));
+                        wallOffset = transition.getOffsetAfter();
+                    }
+                }
+            }
+            if (last) {
+                lastRules = segment.rules;
+            }
+        }
+
+        return ZoneRules.of(baseStandardOffset, baseWallOffset, standardTransitions, wallTransitions, lastRules);
+    }
+
+    private static Segment compileGroup(LocalDateTime start, TimeZoneTransitionGroup group)
+            throws InvalidOrUnsupportedTimeZoneDefinitionException {
+        List<TimeZoneTransition> transitions = group.getTransitions();
+        if (transitions.size() == 1) {
+            ZoneOffset offset = offsetOf(transitions.get(0).getTargetPeriod());
+            return new Segment(start, offset, offset, null);
+        }
+        if (transitions.size() != 2) {
+            throw new InvalidOrUnsupportedTimeZoneDefinitionException();
+        }
+
+        TimeZoneTransition toStandard = transitions.get(0);
+        TimeZoneTransition toDaylight = transitions.get(1);
+        if (!toStandard.getTargetPeriod().isStandardPeriod()) {
+            toStandard = transitions.get(1);
+            toDaylight = transitions.get(0);
+        }
+        ZoneOffset standardOffset = offsetOf(toStandard.getTargetPeriod());
+        ZoneOffset daylightOffset = offsetOf(toDaylight.getTargetPeriod());
+        if (standardOffset.equals(daylightOffset)) {
+            return new Segment(start, standardOffset, standardOffset, null);
+        }
+        List<ZoneOffsetTransitionRule> rules = new ArrayList<ZoneOffsetTransitionRule>(2);
+        rules.add(ruleOf(toDaylight, standardOffset, standardOffset, daylightOffset));
+        rules.add(ruleOf(toStandard, standardOffset, daylightOffset, standardOffset));
+        return new Segment(start, standardOffset, null, rules);
+    }
+
+    private static ZoneOffsetTransitionRule ruleOf(TimeZoneTransition transition, ZoneOffset standardOffset,
+            ZoneOffset offsetBefore, ZoneOffset offsetAfter) throws InvalidOrUnsupportedTimeZoneDefinitionException {
+        if (!(transition instanceof AbsoluteMonthTransition)) {
+            throw new InvalidOrUnsupportedTimeZoneDefinitionException();
+        }
+        AbsoluteMonthTransition monthTransition = (AbsoluteMonthTransition) transition;
+        java.time.Month month = java.time.Month.of(monthTransition.getMonth());
+
+        long offsetMillis = (monthTransition.getTimeOffset() == null) ? 0 :
+                monthTransition.getTimeOffset().getTotalMilliseconds();
+        boolean endOfDay = offsetMillis >= 24L * 60 * 60 * 1000;
+        LocalTime time = endOfDay ? LocalTime.MIDNIGHT :
+                LocalTime.ofSecondOfDay(Math.max(0, offsetMillis / 1000));
+        // Windows expresses "end of day" as 23:59:59.999; java.time wants a whole second or midnight.
+        if (time.equals(LocalTime.of(23, 59, 59)) && offsetMillis % 1000 != 0) {
+            time = LocalTime.MIDNIGHT;
+            endOfDay = true;
+        }
+
+        int dayOfMonthIndicator;
+        DayOfWeek dayOfWeek;
+        if (transition instanceof RelativeDayOfMonthTransition) {
+            RelativeDayOfMonthTransition relative = (RelativeDayOfMonthTransition) transition;
+            dayOfWeek = toDayOfWeek(relative.getDayOfTheWeek());
+            int weekIndex = relative.getWeekIndex();
+            if (weekIndex >= 5 || weekIndex == -1) {
+                // The last such day of the month.
+                dayOfMonthIndicator = -1;
+            } else {
+                dayOfMonthIndicator = 1 + (Math.max(1, weekIndex) - 1) * 7;
+            }
+        } else {
+            dayOfMonthIndicator = ((AbsoluteDayOfMonthTransition) transition).getDayOfMonth();
+            dayOfWeek = null;
+        }
+        return ZoneOffsetTransitionRule.of(month, dayOfMonthIndicator, dayOfWeek, time, endOfDay,
+                ZoneOffsetTransitionRule.TimeDefinition.WALL, standardOffset, offsetBefore, offsetAfter);
+    }
+
+    private static DayOfWeek toDayOfWeek(DayOfTheWeek dayOfTheWeek) throws InvalidOrUnsupportedTimeZoneDefinitionException {
+        switch (dayOfTheWeek) {
+            case Monday:
+                return DayOfWeek.MONDAY;
+            case Tuesday:
+                return DayOfWeek.TUESDAY;
+            case Wednesday:
+                return DayOfWeek.WEDNESDAY;
+            case Thursday:
+                return DayOfWeek.THURSDAY;
+            case Friday:
+                return DayOfWeek.FRIDAY;
+            case Saturday:
+                return DayOfWeek.SATURDAY;
+            case Sunday:
+                return DayOfWeek.SUNDAY;
+            default:
+                throw new InvalidOrUnsupportedTimeZoneDefinitionException(
+                        String.format("Unsupported day of the week in time zone transition: %s", dayOfTheWeek));
+        }
+    }
+
+    /**
+     * EWS biases are the number of minutes to add to local time to get UTC, i.e. the negated offset.
+     */
+    private static ZoneOffset offsetOf(TimeZonePeriod period) throws InvalidOrUnsupportedTimeZoneDefinitionException {
+        if (period == null || period.getBias() == null) {
+            throw new InvalidOrUnsupportedTimeZoneDefinitionException();
+        }
+        return ZoneOffset.ofTotalSeconds((int) (-period.getBias().getTotalMilliseconds() / 1000));
+    }
+
+}
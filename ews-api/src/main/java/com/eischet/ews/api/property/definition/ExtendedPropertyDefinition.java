@@ -27,7 +27,7 @@ import com.eischet.ews.api.core.*;
 import com.eischet.ews.api.core.enumeration.misc.ExchangeVersion;
 import com.eischet.ews.api.core.enumeration.property.DefaultExtendedPropertySet;
 import com.eischet.ews.api.core.enumeration.property.MapiPropertyType;
-import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
+import com.eischet.ews.api.core.exception.service.local.ExchangeValidationException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.misc.MapiTypeConverter;
 
@@ -35,6 +35,11 @@ import java.util.UUID;
 
 /**
  * Represents the definition of an extended property.
+ * <p>
+ * Definitions are immutable; their printable name and hash code are computed
+ * once on construction, so they can be used as cheap map keys. Definitions
+ * read from responses are shared through the
+ * {@link ExtendedPropertyDefinitionRegistry}.
  */
 public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
 
@@ -69,34 +74,45 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
     /**
      * The property set.
      */
-    private DefaultExtendedPropertySet propertySet;
+    private final DefaultExtendedPropertySet propertySet;
     /**
      * The property set id.
      */
-    private UUID propertySetId;
+    private final UUID propertySetId;
     /**
      * The tag.
      */
-    private Integer tag;
+    private final Integer tag;
     /**
      * The name.
      */
-    private String name;
+    private final String name;
     /**
      * The id.
      */
-    private Integer id;
+    private final Integer id;
     /**
      * The mapi type.
      */
-    private MapiPropertyType mapiType;
+    private final MapiPropertyType mapiType;
+    /**
+     * The printable name, which doubles as the canonical key of the definition.
+     */
+    private final String printableName;
+    /**
+     * The precomputed hash code.
+     */
+    private final int hashCode;
 
     /**
-     * Initializes a new instance.
+     * Initializes a new instance with no property set, tag, name or id, and the String type.
+     *
+     * @deprecated Definitions are immutable, so this one can't be filled in later; it only ever
+     * describes an unnamed String property. Use one of the constructors that identify the property.
      */
+    @Deprecated
     public ExtendedPropertyDefinition() {
-        super();
-        this.mapiType = MapiPropertyType.String;
+        this(MapiPropertyType.String);
     }
 
     /**
@@ -105,8 +121,37 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
      * @param mapiType The MAPI type of the extended property.
      */
     protected ExtendedPropertyDefinition(MapiPropertyType mapiType) {
-        this();
+        this(null, null, null, null, null, mapiType);
+    }
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param propertySet   The extended property set of the extended property.
+     * @param propertySetId The property set Id of the extended property.
+     * @param tag           The tag of the extended property.
+     * @param name          The name of the extended property.
+     * @param id            The Id of the extended property.
+     * @param mapiType      The MAPI type of the extended property.
+     */
+    private ExtendedPropertyDefinition(DefaultExtendedPropertySet propertySet, UUID propertySetId, Integer tag,
+                                       String name, Integer id, MapiPropertyType mapiType) {
+        super();
+        this.propertySet = propertySet;
+        this.propertySetId = propertySetId;
+        this.tag = tag;
+        this.name = name;
+        this.id = id;
         this.mapiType = mapiType;
+        this.printableName = "{" +
+                formatField(NameFieldName, name) +
+                formatField(MapiTypeFieldName, mapiType) +
+                formatField(IdFieldName, id) +
+                formatField(PropertySetFieldName, propertySet) +
+                formatField(PropertySetIdFieldName, propertySetId) +
+                formatField(TagFieldName, tag) +
+                "}";
+        this.hashCode = this.printableName.hashCode();
     }
 
     /**
@@ -116,11 +161,7 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
      * @param mapiType The MAPI type of the extended property.
      */
     public ExtendedPropertyDefinition(int tag, MapiPropertyType mapiType) {
-        this(mapiType);
-        if (tag < 0) {
-            throw new IllegalArgumentException("Argument out of range : tag " + "The extended property tag value must be in the range of 0 to 65,535.");
-        }
-        this.tag = tag;
+        this(null, null, validateTag(tag), null, null, mapiType);
     }
 
     /**
@@ -132,10 +173,7 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
      * @throws Exception the exception
      */
     public ExtendedPropertyDefinition(DefaultExtendedPropertySet propertySet, String name, MapiPropertyType mapiType) throws ExchangeXmlException {
-        this(mapiType);
-        EwsUtilities.validateParam(name, "name");
-        this.propertySet = propertySet;
-        this.name = name;
+        this(propertySet, null, null, validateName(name), null, mapiType);
     }
 
     /**
@@ -147,9 +185,7 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
      */
     public ExtendedPropertyDefinition(DefaultExtendedPropertySet propertySet,
                                       int id, MapiPropertyType mapiType) {
-        this(mapiType);
-        this.propertySet = propertySet;
-        this.id = id;
+        this(propertySet, null, null, null, id, mapiType);
     }
 
     /**
@@ -162,11 +198,7 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
      */
     public ExtendedPropertyDefinition(UUID propertySetId, String name,
                                       MapiPropertyType mapiType) throws Exception {
-        this(mapiType);
-        EwsUtilities.validateParam(name, "name");
-
-        this.propertySetId = propertySetId;
-        this.name = name;
+        this(null, propertySetId, null, validateName(name), null, mapiType);
     }
 
     /**
@@ -178,9 +210,32 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
      */
     public ExtendedPropertyDefinition(UUID propertySetId, int id,
                                       MapiPropertyType mapiType) {
-        this(mapiType);
-        this.propertySetId = propertySetId;
-        this.id = id;
+        this(null, propertySetId, null, null, id, mapiType);
+    }
+
+    /**
+     * Validates an extended property tag.
+     *
+     * @param tag the tag
+     * @return the tag
+     */
+    private static Integer validateTag(int tag) {
+        if (tag < 0) {
+            throw new IllegalArgumentException("Argument out of range : tag " + "The extended property tag value must be in the range of 0 to 65,535.");
+        }
+        return tag;
+    }
+
+    /**
+     * Validates an extended property name.
+     *
+     * @param name the name
+     * @return the name
+     * @throws ExchangeValidationException if the name is null or empty
+     */
+    private static String validateName(String name) throws ExchangeValidationException {
+        EwsUtilities.validateParam(name, "name");
+        return name;
     }
 
     /**
@@ -196,7 +251,8 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
             return true;
         }
 
-        if (extPropDef1 == null || extPropDef2 == null) {
+        if (extPropDef1 == null || extPropDef2 == null
+                || extPropDef1.hashCode != extPropDef2.hashCode) {
             return false;
         }
 
@@ -289,38 +345,62 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
     }
 
     /**
-     * Loads from XML.
+     * Reads an extended property definition from the attributes of the
+     * current ExtendedFieldURI element. Equal definitions read from different
+     * responses share one instance through the
+     * {@link ExtendedPropertyDefinitionRegistry}.
      *
      * @param reader The reader.
-     * @throws Exception the exception
+     * @return the extended property definition
+     * @throws ExchangeXmlException if the attributes cannot be read
      */
-    public void loadFromXml(EwsServiceXmlReader reader) throws ExchangeXmlException {
+    public static ExtendedPropertyDefinition readFromXml(EwsServiceXmlReader reader) throws ExchangeXmlException {
+        DefaultExtendedPropertySet propertySet = null;
         String attributeValue = reader.readAttributeValue(XmlAttributeNames.DistinguishedPropertySetId);
         if (null != attributeValue && !attributeValue.isEmpty()) {
-            this.propertySet = DefaultExtendedPropertySet
-                    .valueOf(attributeValue);
+            propertySet = DefaultExtendedPropertySet.valueOf(attributeValue);
         }
 
+        UUID propertySetId = null;
         attributeValue = reader.readAttributeValue(XmlAttributeNames.PropertySetId);
         if (null != attributeValue && !attributeValue.isEmpty()) {
-            this.propertySetId = UUID.fromString(attributeValue);
+            propertySetId = UUID.fromString(attributeValue);
         }
 
+        Integer tag = null;
         attributeValue = reader.readAttributeValue(XmlAttributeNames.PropertyTag);
         if (null != attributeValue && !attributeValue.isEmpty()) {
-            this.tag = Integer.decode(attributeValue);
+            tag = Integer.decode(attributeValue);
         }
 
-        this.name = reader.readAttributeValue(XmlAttributeNames.PropertyName);
+        final String name = reader.readAttributeValue(XmlAttributeNames.PropertyName);
+        Integer id = null;
         attributeValue = reader.readAttributeValue(XmlAttributeNames.PropertyId);
         if (null != attributeValue && !attributeValue.isEmpty()) {
-            this.id = Integer.parseInt(attributeValue);
+            id = Integer.parseInt(attributeValue);
         }
 
-        this.mapiType = reader.readAttributeValue(MapiPropertyType.class,
+        final MapiPropertyType mapiType = reader.readAttributeValue(MapiPropertyType.class,
                 XmlAttributeNames.PropertyType);
+        return ExtendedPropertyDefinitionRegistry.intern(
+                new ExtendedPropertyDefinition(propertySet, propertySetId, tag, name, id, mapiType));
     }
 
+    /**
+     * Used to fill this definition from the attributes of the current
+     * ExtendedFieldURI element. Definitions are immutable now, so this always
+     * fails instead of leaving the definition unnamed.
+     *
+     * @param reader The reader.
+     * @throws UnsupportedOperationException always
+     * @deprecated Use {@link #readFromXml(EwsServiceXmlReader)}, which returns the
+     * definition read.
+     */
+    @Deprecated
+    public void loadFromXml(EwsServiceXmlReader reader) {
+        throw new UnsupportedOperationException(
+                "Extended property definitions are immutable; use ExtendedPropertyDefinition.readFromXml(reader).");
+    }
 
     /**
      * Determines whether two specified instances of ExtendedPropertyDefinition
@@ -349,7 +429,7 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
      */
     @Override
     public int hashCode() {
-        return this.getPrintableName().hashCode();
+        return this.hashCode;
     }
 
     /**
@@ -359,14 +439,7 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
      */
     @Override
     public String getPrintableName() {
-        return "{" +
-                formatField(NameFieldName, this.getName()) +
-                formatField(MapiTypeFieldName, this.getMapiType()) +
-                formatField(IdFieldName, this.getId()) +
-                formatField(PropertySetFieldName, this.getPropertySet()) +
-                formatField(PropertySetIdFieldName, this.getPropertySetId()) +
-                formatField(TagFieldName, this.getTag()) +
-                "}";
+        return this.printableName;
     }
 
     /**
@@ -377,7 +450,7 @@ public final class ExtendedPropertyDefinition extends PropertyDefinitionBase {
      * @param fieldValue The field value.
      * @return the string
      */
-    protected <T> String formatField(String name, T fieldValue) {
+    private static <T> String formatField(String name, T fieldValue) {
         return (fieldValue != null) ? String.format(FieldFormat, name,
                 fieldValue) : "";
     }
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.property.definition;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns extended property definitions, so that every response mentioning
+ * the same extended property shares a single definition instance.
+ * <p>
+ * The registry is shared by all services in the JVM and is bounded: the
+ * first {@link #MAX_SIZE} distinct definitions seen are retained for the
+ * lifetime of the JVM and are never evicted. Definitions seen after that are
+ * returned as they are, without being interned, so they work as before but
+ * are not shared.
+ */
+public final class ExtendedPropertyDefinitionRegistry {
+
+    /**
+     * The maximum number of definitions retained by the registry.
+     */
+    public static final int MAX_SIZE = 4096;
+
+    /**
+     * The interned definitions.
+     */
+    private static final ConcurrentMap<ExtendedPropertyDefinition, ExtendedPropertyDefinition> definitions =
+            new ConcurrentHashMap<>();
+
+    private ExtendedPropertyDefinitionRegistry() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the registered definition equal to the given one, registering
+     * the given definition if there is none yet.
+     *
+     * @param definition the definition
+     * @return the canonical instance of the definition
+     */
+    public static ExtendedPropertyDefinition intern(ExtendedPropertyDefinition definition) {
+        if (definition == null) {
+            return null;
+        }
+        final ExtendedPropertyDefinition existing = definitions.get(definition);
+        if (existing != null) {
+            return existing;
+        }
+        if (definitions.size() >= MAX_SIZE) {
+            return definition;
+        }
+        final ExtendedPropertyDefinition raced = definitions.putIfAbsent(definition, definition);
+        return raced != null ? raced : definition;
+    }
+
+    /**
+     * Gets the number of registered definitions.
+     *
+     * @return the number of registered definitions
+     */
+    public static int size() {
+        return definitions.size();
+    }
+
+    /**
+     * Removes all registered definitions. Only for tests, since the registry
+     * is shared by all services.
+     */
+    static void clear() {
+        definitions.clear();
+    }
+}
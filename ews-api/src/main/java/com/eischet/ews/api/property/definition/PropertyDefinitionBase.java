@@ -65,9 +65,7 @@ public abstract class PropertyDefinitionBase {
             reader.skipCurrentElement();
             return true;
         } else if (strLocalName.equals(XmlElementNames.ExtendedFieldURI)) {
-            ExtendedPropertyDefinition p = new ExtendedPropertyDefinition();
-            p.loadFromXml(reader);
-            propertyDefinition.setParam(p);
+            propertyDefinition.setParam(ExtendedPropertyDefinition.readFromXml(reader));
             return true;
         } else {
             return false;
@@ -23,8 +23,12 @@
 
 package com.eischet.ews.api.property.definition;
 
+import com.eischet.ews.api.core.EwsServiceXmlReader;
+import com.eischet.ews.api.core.PropertyBag;
 import com.eischet.ews.api.core.enumeration.misc.ExchangeVersion;
+import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
 import com.eischet.ews.api.core.enumeration.property.PropertyDefinitionFlags;
+import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 
 import java.util.EnumSet;
 
@@ -33,6 +37,11 @@ import java.util.EnumSet;
  */
 public class StringPropertyDefinition extends TypedPropertyDefinition<String> {
 
+    /**
+     * Whether values of this property typically repeat across items.
+     */
+    private final boolean repeating;
+
     /**
      * Initializes a new instance of the "StringPropertyDefinition" class.
      *
@@ -43,7 +52,41 @@ public class StringPropertyDefinition extends TypedPropertyDefinition<String> {
      */
     public StringPropertyDefinition(String xmlElementName, String uri, EnumSet<PropertyDefinitionFlags> flags,
                                     ExchangeVersion version) {
+        this(xmlElementName, uri, flags, version, false);
+    }
+
+    /**
+     * Initializes a new instance of the "StringPropertyDefinition" class.
+     *
+     * @param xmlElementName Name of the XML element.
+     * @param uri            The URI.
+     * @param flags          The flags.
+     * @param version        The version.
+     * @param repeating      Whether values typically repeat across items, and are pooled when
+     *                       the service pools strings.
+     */
+    public StringPropertyDefinition(String xmlElementName, String uri, EnumSet<PropertyDefinitionFlags> flags,
+                                    ExchangeVersion version, boolean repeating) {
         super(xmlElementName, uri, flags, version);
+        this.repeating = repeating;
+    }
+
+    /**
+     * Loads the property value from XML, sharing repeating values.
+     *
+     * @param reader      The reader.
+     * @param propertyBag The property bag.
+     */
+    @Override
+    public void loadPropertyValueFromXml(EwsServiceXmlReader reader, PropertyBag propertyBag) throws ExchangeXmlException {
+        if (!this.repeating) {
+            super.loadPropertyValueFromXml(reader, propertyBag);
+            return;
+        }
+        String value = reader.readElementValue(XmlNamespace.Types, this.getXmlElement());
+        if (value != null && !value.isEmpty()) {
+            propertyBag.setObjectFromPropertyDefinition(this, reader.intern(value));
+        }
     }
 
     /**
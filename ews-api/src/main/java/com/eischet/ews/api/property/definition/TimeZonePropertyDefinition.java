@@ -62,7 +62,8 @@ public class TimeZonePropertyDefinition extends PropertyDefinition {
     public void loadPropertyValueFromXml(EwsServiceXmlReader reader, PropertyBag propertyBag) throws ExchangeXmlException {
         TimeZoneDefinition timeZoneDefinition = new TimeZoneDefinition();
         timeZoneDefinition.loadFromXml(reader, this.getXmlElement());
-        propertyBag.setObjectFromPropertyDefinition(this, timeZoneDefinition);
+        // Items in the same time zone share a single definition.
+        propertyBag.setObjectFromPropertyDefinition(this, TimeZoneDefinition.share(timeZoneDefinition));
     }
 
     /**
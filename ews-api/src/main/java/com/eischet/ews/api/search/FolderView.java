@@ -29,9 +29,11 @@ import com.eischet.ews.api.core.XmlElementNames;
 import com.eischet.ews.api.core.enumeration.search.FolderTraversal;
 import com.eischet.ews.api.core.enumeration.search.OffsetBasePoint;
 import com.eischet.ews.api.core.enumeration.service.ServiceObjectType;
+import com.eischet.ews.api.core.exception.service.local.ExchangeValidationException;
 import com.eischet.ews.api.core.exception.service.local.ServiceXmlSerializationException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -126,6 +128,31 @@ public final class FolderView extends PagedView {
      * @param traversal the new traversal
      */
     public void setTraversal(FolderTraversal traversal) {
+        this.throwIfFrozen();
         this.traversal = traversal;
     }
+
+    /**
+     * Makes this view and its property set immutable, so that it can be shared between
+     * threads and reused across requests. A frozen view is serialized only once per
+     * server version and compares equal to other frozen views with the same settings.
+     *
+     * @return this view
+     * @throws ExchangeValidationException if the property set is invalid
+     */
+    public FolderView freeze() throws ExchangeValidationException {
+        this.freezeView();
+        return this;
+    }
+
+    /**
+     * Adds the traversal to the state of a frozen view.
+     *
+     * @param state the list to add to
+     */
+    @Override
+    protected void addStateTo(List<Object> state) {
+        super.addStateTo(state);
+        state.add(this.traversal);
+    }
 }
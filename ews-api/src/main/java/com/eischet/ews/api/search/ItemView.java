@@ -29,11 +29,17 @@ import com.eischet.ews.api.core.XmlAttributeNames;
 import com.eischet.ews.api.core.XmlElementNames;
 import com.eischet.ews.api.core.enumeration.search.ItemTraversal;
 import com.eischet.ews.api.core.enumeration.search.OffsetBasePoint;
+import com.eischet.ews.api.core.enumeration.search.SortDirection;
 import com.eischet.ews.api.core.enumeration.service.ServiceObjectType;
 import com.eischet.ews.api.core.exception.service.local.ExchangeValidationException;
 import com.eischet.ews.api.core.exception.service.local.ServiceVersionException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.request.ServiceRequestBase;
+import com.eischet.ews.api.property.definition.PropertyDefinitionBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Represents the view settings in a folder search operation.
@@ -156,6 +162,7 @@ public final class ItemView extends PagedView {
      * @param value the new traversal
      */
     public void setTraversal(ItemTraversal value) {
+        this.throwIfFrozen();
         this.traversal = value;
     }
 
@@ -167,4 +174,36 @@ public final class ItemView extends PagedView {
     public OrderByCollection getOrderBy() {
         return this.orderBy;
     }
+
+    /**
+     * Makes this view, its property set and its sort order immutable, so that it can be
+     * shared between threads and reused across requests. A frozen view is serialized only
+     * once per server version and compares equal to other frozen views with the same
+     * settings.
+     *
+     * @return this view
+     * @throws ExchangeValidationException if the property set is invalid
+     */
+    public ItemView freeze() throws ExchangeValidationException {
+        this.orderBy.freeze();
+        this.freezeView();
+        return this;
+    }
+
+    /**
+     * Adds the traversal and sort order to the state of a frozen view.
+     *
+     * @param state the list to add to
+     */
+    @Override
+    protected void addStateTo(List<Object> state) {
+        super.addStateTo(state);
+        state.add(this.traversal);
+        List<Map<PropertyDefinitionBase, SortDirection>> sortOrder =
+                new ArrayList<Map<PropertyDefinitionBase, SortDirection>>();
+        for (Map<PropertyDefinitionBase, SortDirection> pair : this.orderBy) {
+            sortOrder.add(pair);
+        }
+        state.add(sortOrder);
+    }
 }
@@ -50,6 +50,11 @@ public final class OrderByCollection implements
     private final List<Map<PropertyDefinitionBase,
             SortDirection>> propDefSortOrderPairList;
 
+    /**
+     * Whether this collection belongs to a frozen view.
+     */
+    private volatile boolean readOnly;
+
     /**
      * Initializes a new instance of the OrderByCollection class.
      */
@@ -58,6 +63,31 @@ public final class OrderByCollection implements
                 ArrayList<Map<PropertyDefinitionBase, SortDirection>>();
     }
 
+    /**
+     * Makes this collection read-only, along with the view it belongs to.
+     */
+    void freeze() {
+        if (!this.readOnly) {
+            List<Map<PropertyDefinitionBase, SortDirection>> pairs =
+                    new ArrayList<Map<PropertyDefinitionBase, SortDirection>>();
+            for (Map<PropertyDefinitionBase, SortDirection> pair : this.propDefSortOrderPairList) {
+                pairs.add(Collections.unmodifiableMap(pair));
+            }
+            this.propDefSortOrderPairList.clear();
+            this.propDefSortOrderPairList.addAll(pairs);
+            this.readOnly = true;
+        }
+    }
+
+    /**
+     * Throws if this collection is read-only.
+     */
+    private void throwIfReadOnly() {
+        if (this.readOnly) {
+            throw new UnsupportedOperationException("The sort order of a frozen view can't be modified.");
+        }
+    }
+
     /**
      * Adds the specified property definition / sort direction pair to the
      * collection.
@@ -68,6 +98,7 @@ public final class OrderByCollection implements
      */
     public void add(PropertyDefinitionBase propertyDefinition,
                     SortDirection sortDirection) throws ServiceLocalException {
+        this.throwIfReadOnly();
         if (this.contains(propertyDefinition)) {
             throw new ServiceLocalException(String.format("Property %s already exists in OrderByCollection.",
                     propertyDefinition.getPrintableName()));
@@ -83,6 +114,7 @@ public final class OrderByCollection implements
      * Removes all elements from the collection.
      */
     public void clear() {
+        this.throwIfReadOnly();
         this.propDefSortOrderPairList.clear();
     }
 
@@ -118,6 +150,7 @@ public final class OrderByCollection implements
      * otherwise, false
      */
     public boolean remove(PropertyDefinitionBase propertyDefinition) {
+        this.throwIfReadOnly();
         List<Map<PropertyDefinitionBase, SortDirection>> removeList = new
                 ArrayList<Map<PropertyDefinitionBase, SortDirection>>();
         for (Map<PropertyDefinitionBase, SortDirection> propDefSortOrderPair : propDefSortOrderPairList) {
@@ -135,6 +168,7 @@ public final class OrderByCollection implements
      * @param index the index
      */
     public void removeAt(int index) {
+        this.throwIfReadOnly();
         this.propDefSortOrderPairList.remove(index);
     }
 
@@ -194,6 +228,9 @@ public final class OrderByCollection implements
      */
     @Override
     public Iterator<Map<PropertyDefinitionBase, SortDirection>> iterator() {
+        if (this.readOnly) {
+            return Collections.unmodifiableList(this.propDefSortOrderPairList).iterator();
+        }
         return this.propDefSortOrderPairList.iterator();
     }
 
@@ -216,7 +253,7 @@ public final class OrderByCollection implements
      */
     public Iterator<Map<PropertyDefinitionBase,
             SortDirection>> getEnumerator() {
-        return (this.propDefSortOrderPairList.iterator());
+        return this.iterator();
     }
 
 }
@@ -33,6 +33,8 @@ import com.eischet.ews.api.core.exception.service.local.ServiceVersionException;
 import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.request.ServiceRequestBase;
 
+import java.util.List;
+
 /**
  * Represents a view settings that support paging in a search operation.
  */
@@ -116,6 +118,19 @@ public abstract class PagedView extends ViewBase {
         super.internalValidate(request);
     }
 
+    /**
+     * Adds the paging settings to the state of a frozen view.
+     *
+     * @param state the list to add to
+     */
+    @Override
+    protected void addStateTo(List<Object> state) {
+        super.addStateTo(state);
+        state.add(this.pageSize);
+        state.add(this.offset);
+        state.add(this.offsetBasePoint);
+    }
+
     /**
      * Initializes a new instance of the "PagedView" class.
      *
@@ -170,6 +185,7 @@ public abstract class PagedView extends ViewBase {
      * @param pageSize the new page size
      */
     public void setPageSize(int pageSize) {
+        this.throwIfFrozen();
         if (pageSize <= 0) {
             throw new IllegalArgumentException("The value must be greater than 0.");
         }
@@ -191,6 +207,7 @@ public abstract class PagedView extends ViewBase {
      * @param offsetBasePoint the new offset base point
      */
     public void setOffsetBasePoint(OffsetBasePoint offsetBasePoint) {
+        this.throwIfFrozen();
         this.offsetBasePoint = offsetBasePoint;
     }
 
@@ -209,6 +226,7 @@ public abstract class PagedView extends ViewBase {
      * @param offset the new offset
      */
     public void setOffset(int offset) {
+        this.throwIfFrozen();
         if (offset >= 0) {
             this.offset = offset;
         } else {
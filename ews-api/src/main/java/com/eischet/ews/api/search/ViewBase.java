@@ -28,6 +28,7 @@ import com.eischet.ews.api.core.EwsServiceXmlWriter;
 import com.eischet.ews.api.core.PropertySet;
 import com.eischet.ews.api.core.XmlAttributeNames;
 import com.eischet.ews.api.core.enumeration.attribute.EditorBrowsableState;
+import com.eischet.ews.api.core.enumeration.misc.ExchangeVersion;
 import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
 import com.eischet.ews.api.core.enumeration.service.ServiceObjectType;
 import com.eischet.ews.api.core.exception.service.local.ExchangeValidationException;
@@ -37,6 +38,11 @@ import com.eischet.ews.api.core.exception.xml.ExchangeXmlException;
 import com.eischet.ews.api.core.request.ServiceRequestBase;
 
 import javax.xml.stream.XMLStreamException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents the base view class for search operations.
@@ -49,6 +55,26 @@ public abstract class ViewBase {
      */
     private PropertySet propertySet;
 
+    /**
+     * Whether this view is frozen, and therefore must not change.
+     */
+    private volatile boolean frozen;
+
+    /**
+     * The settings of a frozen view, which define its equality.
+     */
+    private List<Object> frozenState;
+
+    /**
+     * The hash code of a frozen view.
+     */
+    private int frozenHashCode;
+
+    /**
+     * Serialized shapes and views of a frozen view, by requested server version.
+     */
+    private final Map<ExchangeVersion, byte[]> xmlFragments = new ConcurrentHashMap<>();
+
     /**
      * Initializes a new instance of the "ViewBase" class.
      */
@@ -142,6 +168,21 @@ public abstract class ViewBase {
      */
     public void writeToXml(EwsServiceXmlWriter writer, Grouping groupBy)
             throws Exception {
+        if (this.frozen && groupBy == null && writer.getService().isRequestTemplateCachingEnabled()) {
+            ExchangeVersion version = writer.getService().getRequestedServerVersion();
+            byte[] fragment = this.xmlFragments.get(version);
+            if (fragment == null) {
+                fragment = writer.renderFragment(w -> this.internalWriteToXml(w, null));
+                this.xmlFragments.put(version, fragment);
+            }
+            writer.writeFragment(fragment);
+        } else {
+            this.internalWriteToXml(writer, groupBy);
+        }
+    }
+
+    private void internalWriteToXml(EwsServiceXmlWriter writer, Grouping groupBy)
+            throws Exception {
         this.getPropertySetOrDefault().writeToXml(writer,
                 this.getServiceObjectType());
         writer.writeStartElement(XmlNamespace.Messages, this
@@ -183,7 +224,77 @@ public abstract class ViewBase {
      * @param propertySet The property set
      */
     public void setPropertySet(PropertySet propertySet) {
+        this.throwIfFrozen();
         this.propertySet = propertySet;
     }
 
+    /**
+     * Makes this view immutable. Its property set is frozen as well, see
+     * {@link PropertySet#freeze()}.
+     *
+     * @throws ExchangeValidationException if the property set is invalid
+     */
+    protected void freezeView() throws ExchangeValidationException {
+        if (!this.frozen) {
+            if (this.propertySet != null) {
+                this.propertySet.freeze();
+            }
+            List<Object> state = new ArrayList<Object>();
+            this.addStateTo(state);
+            this.frozenState = Collections.unmodifiableList(state);
+            this.frozenHashCode = this.frozenState.hashCode();
+            this.frozen = true;
+        }
+    }
+
+    /**
+     * Adds the settings that make up the identity of a frozen view.
+     *
+     * @param state the list to add to
+     */
+    protected void addStateTo(List<Object> state) {
+        state.add(this.getPropertySetOrDefault());
+    }
+
+    /**
+     * Gets a value indicating whether this view is frozen and can no longer be modified.
+     *
+     * @return true if the view is frozen
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * Throws if this view is frozen.
+     */
+    protected void throwIfFrozen() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("This view is frozen and can't be modified.");
+        }
+    }
+
+    /**
+     * Frozen views are equal if they are of the same type and have the same settings;
+     * views that can still be modified are only equal to themselves.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != this.getClass()) {
+            return false;
+        }
+        ViewBase other = (ViewBase) obj;
+        return this.frozen && other.frozen
+                && this.frozenHashCode == other.frozenHashCode
+                && this.frozenState.equals(other.frozenState);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.frozen ? this.frozenHashCode : System.identityHashCode(this);
+    }
+
 }
@@ -29,6 +29,7 @@ import com.eischet.ews.api.core.EwsServiceXmlWriter;
 import com.eischet.ews.api.core.XmlAttributeNames;
 import com.eischet.ews.api.core.XmlElementNames;
 import com.eischet.ews.api.core.enumeration.attribute.EditorBrowsableState;
+import com.eischet.ews.api.core.enumeration.misc.ExchangeVersion;
 import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
 import com.eischet.ews.api.core.enumeration.search.ComparisonMode;
 import com.eischet.ews.api.core.enumeration.search.ContainmentMode;
@@ -41,7 +42,11 @@ import com.eischet.ews.api.property.complex.IComplexPropertyChangedDelegate;
 import com.eischet.ews.api.property.definition.PropertyDefinitionBase;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -51,12 +56,128 @@ import java.util.logging.Logger;
  */
 public abstract class SearchFilter extends ComplexProperty {
 
+    /**
+     * Whether this filter is frozen, and therefore must not change.
+     */
+    private volatile boolean frozen;
+
+    /**
+     * The settings of a frozen filter, which define its equality.
+     */
+    private List<Object> frozenState;
+
+    /**
+     * The hash code of a frozen filter.
+     */
+    private int frozenHashCode;
+
+    /**
+     * Serialized forms of a frozen filter, by requested server version.
+     */
+    private final Map<ExchangeVersion, byte[]> xmlFragments = new ConcurrentHashMap<>();
+
     /**
      * Initializes a new instance of the SearchFilter class.
      */
     protected SearchFilter() {
     }
 
+    /**
+     * Makes this filter and all filters it contains immutable. A frozen filter is validated
+     * once, doesn't raise change events, can be shared between threads and reused across
+     * requests, is serialized only once per server version, and compares equal to other
+     * frozen filters with the same conditions, so it can be used as a cache key.
+     *
+     * @return this filter
+     * @throws ExchangeValidationException if the filter is invalid
+     */
+    public SearchFilter freeze() throws ExchangeValidationException {
+        if (!this.frozen) {
+            this.internalValidate();
+            List<Object> state = new ArrayList<Object>();
+            this.freezeStateTo(state);
+            this.frozenState = Collections.unmodifiableList(state);
+            this.frozenHashCode = this.getClass().hashCode() * 31 + this.frozenState.hashCode();
+            this.clearChangeEvents();
+            this.frozen = true;
+        }
+        return this;
+    }
+
+    /**
+     * Freezes the filters contained in this filter and adds the settings that make up the
+     * identity of a frozen filter.
+     *
+     * @param state the list to add to
+     * @throws ExchangeValidationException if a contained filter is invalid
+     */
+    protected abstract void freezeStateTo(List<Object> state) throws ExchangeValidationException;
+
+    /**
+     * Gets a value indicating whether this filter is frozen and can no longer be modified.
+     *
+     * @return true if the filter is frozen
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * Throws if this filter is frozen.
+     */
+    protected void throwIfFrozen() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("This search filter is frozen and can't be modified.");
+        }
+    }
+
+    /**
+     * A frozen filter never changes, so it doesn't keep track of listeners.
+     *
+     * @param change the change
+     */
+    @Override
+    public void addOnChangeEvent(IComplexPropertyChangedDelegate change) {
+        if (!this.frozen) {
+            super.addOnChangeEvent(change);
+        }
+    }
+
+    /**
+     * Validates this filter; a frozen filter has been validated already.
+     *
+     * @throws ExchangeValidationException the service validation exception
+     */
+    @Override
+    public void validate() throws ExchangeValidationException {
+        if (!this.frozen) {
+            super.validate();
+        }
+    }
+
+    /**
+     * Frozen filters are equal if they are of the same type and have the same conditions;
+     * filters that can still be modified are only equal to themselves.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != this.getClass()) {
+            return false;
+        }
+        SearchFilter other = (SearchFilter) obj;
+        return this.frozen && other.frozen
+                && this.frozenHashCode == other.frozenHashCode
+                && this.frozenState.equals(other.frozenState);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.frozen ? this.frozenHashCode : System.identityHashCode(this);
+    }
+
 
     /**
      * Loads from XML.
@@ -130,6 +251,26 @@ public abstract class SearchFilter extends ComplexProperty {
      * @throws Exception the exception
      */
     public void writeToXml(EwsServiceXmlWriter writer) throws ExchangeXmlException {
+        if (this.frozen && writer.getService().isRequestTemplateCachingEnabled()) {
+            ExchangeVersion version = writer.getService().getRequestedServerVersion();
+            byte[] fragment = this.xmlFragments.get(version);
+            if (fragment == null) {
+                fragment = writer.renderFragment(this::internalWriteToXml);
+                this.xmlFragments.put(version, fragment);
+            }
+            writer.writeFragment(fragment);
+        } else {
+            this.internalWriteToXml(writer);
+        }
+    }
+
+    /**
+     * Writes the filter to XML.
+     *
+     * @param writer the writer
+     * @throws ExchangeXmlException the exception
+     */
+    protected void internalWriteToXml(EwsServiceXmlWriter writer) throws ExchangeXmlException {
         super.writeToXml(writer, this.getXmlElementName());
     }
 
@@ -204,6 +345,19 @@ public abstract class SearchFilter extends ComplexProperty {
             }
         }
 
+        /**
+         * Adds the containment and comparison modes and the value to the state of a frozen filter.
+         *
+         * @param state the list to add to
+         */
+        @Override
+        protected void freezeStateTo(List<Object> state) throws ExchangeValidationException {
+            super.freezeStateTo(state);
+            state.add(this.containmentMode);
+            state.add(this.comparisonMode);
+            state.add(this.value);
+        }
+
         /**
          * Gets the name of the XML element.
          *
@@ -299,6 +453,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param containmentMode the new containment mode
          */
         public void setContainmentMode(ContainmentMode containmentMode) {
+            this.throwIfFrozen();
             this.containmentMode = containmentMode;
         }
 
@@ -317,6 +472,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param comparisonMode the new comparison mode
          */
         public void setComparisonMode(ComparisonMode comparisonMode) {
+            this.throwIfFrozen();
             this.comparisonMode = comparisonMode;
         }
 
@@ -335,6 +491,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param value the new value
          */
         public void setValue(String value) {
+            this.throwIfFrozen();
             this.value = value;
         }
     }
@@ -371,6 +528,17 @@ public abstract class SearchFilter extends ComplexProperty {
             this.bitmask = bitmask;
         }
 
+        /**
+         * Adds the bitmask to the state of a frozen filter.
+         *
+         * @param state the list to add to
+         */
+        @Override
+        protected void freezeStateTo(List<Object> state) throws ExchangeValidationException {
+            super.freezeStateTo(state);
+            state.add(this.bitmask);
+        }
+
         /**
          * Gets the name of the XML element.
          *
@@ -430,6 +598,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param bitmask the new bitmask
          */
         public void setBitmask(int bitmask) {
+            this.throwIfFrozen();
             this.bitmask = bitmask;
         }
 
@@ -807,6 +976,16 @@ public abstract class SearchFilter extends ComplexProperty {
             }
         }
 
+        /**
+         * Freezes the negated filter and adds it to the state of a frozen filter.
+         *
+         * @param state the list to add to
+         */
+        @Override
+        protected void freezeStateTo(List<Object> state) throws ExchangeValidationException {
+            state.add(this.searchFilter.freeze());
+        }
+
         /**
          * Gets the name of the XML element.
          *
@@ -859,6 +1038,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param searchFilter the new search filter
          */
         public void setSearchFilter(SearchFilter searchFilter) {
+            this.throwIfFrozen();
             if (this.searchFilter != null) {
                 this.searchFilter.removeChangeEvent(this);
             }
@@ -931,6 +1111,16 @@ public abstract class SearchFilter extends ComplexProperty {
             }
         }
 
+        /**
+         * Adds the property definition to the state of a frozen filter.
+         *
+         * @param state the list to add to
+         */
+        @Override
+        protected void freezeStateTo(List<Object> state) throws ExchangeValidationException {
+            state.add(this.propertyDefinition);
+        }
+
         /**
          * Tries to read element from XML.
          *
@@ -975,6 +1165,7 @@ public abstract class SearchFilter extends ComplexProperty {
          */
         public void setPropertyDefinition(
                 PropertyDefinitionBase propertyDefinition) {
+            this.throwIfFrozen();
             this.propertyDefinition = propertyDefinition;
         }
     }
@@ -1043,6 +1234,18 @@ public abstract class SearchFilter extends ComplexProperty {
             }
         }
 
+        /**
+         * Adds the value or the other property definition to the state of a frozen filter.
+         *
+         * @param state the list to add to
+         */
+        @Override
+        protected void freezeStateTo(List<Object> state) throws ExchangeValidationException {
+            super.freezeStateTo(state);
+            state.add(this.otherPropertyDefinition);
+            state.add(this.value);
+        }
+
         /**
          * Tries to read element from XML.
          *
@@ -1112,6 +1315,7 @@ public abstract class SearchFilter extends ComplexProperty {
          */
         public void setOtherPropertyDefinition(
                 PropertyDefinitionBase OtherPropertyDefinition) {
+            this.throwIfFrozen();
             this.otherPropertyDefinition = OtherPropertyDefinition;
             this.value = null;
         }
@@ -1131,6 +1335,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param value the new value
          */
         public void setValue(Object value) {
+            this.throwIfFrozen();
             this.value = value;
             this.otherPropertyDefinition = null;
         }
@@ -1225,6 +1430,22 @@ public abstract class SearchFilter extends ComplexProperty {
             }
         }
 
+        /**
+         * Freezes the filters in the collection and adds them and the logical operator to the
+         * state of a frozen filter.
+         *
+         * @param state the list to add to
+         */
+        @Override
+        protected void freezeStateTo(List<Object> state) throws ExchangeValidationException {
+            state.add(this.logicalOperator);
+            List<SearchFilter> filters = new ArrayList<SearchFilter>(this.searchFilters.size());
+            for (SearchFilter searchFilter : this.searchFilters) {
+                filters.add(searchFilter.freeze());
+            }
+            state.add(filters);
+        }
+
         /**
          * A search filter has changed.
          *
@@ -1275,7 +1496,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param writer the writer
          */
         @Override
-        public void writeToXml(EwsServiceXmlWriter writer) throws ExchangeXmlException {
+        protected void internalWriteToXml(EwsServiceXmlWriter writer) throws ExchangeXmlException {
             // If there is only one filter in the collection, which developers
             // tend
             // to do,
@@ -1287,7 +1508,7 @@ public abstract class SearchFilter extends ComplexProperty {
             if (this.getCount() == 1) {
                 this.searchFilters.get(0).writeToXml(writer);
             } else {
-                super.writeToXml(writer);
+                super.internalWriteToXml(writer);
             }
         }
 
@@ -1300,6 +1521,7 @@ public abstract class SearchFilter extends ComplexProperty {
          *                     SearchFilter.SearchFilterCollection.
          */
         public void add(SearchFilter searchFilter) {
+            this.throwIfFrozen();
             if (searchFilter == null) {
                 throw new IllegalArgumentException("searchFilter");
             }
@@ -1317,6 +1539,7 @@ public abstract class SearchFilter extends ComplexProperty {
          *                      SearchFilter.SearchFilterCollection
          */
         public void addRange(Iterable<SearchFilter> searchFilters) {
+            this.throwIfFrozen();
             if (searchFilters == null) {
                 throw new IllegalArgumentException("searchFilters");
             }
@@ -1332,6 +1555,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * Clears the collection.
          */
         public void clear() {
+            this.throwIfFrozen();
             if (this.getCount() > 0) {
                 for (SearchFilter searchFilter : this.searchFilters) {
                     searchFilter.removeChangeEvent(this);
@@ -1358,6 +1582,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param searchFilter The search filter to remove
          */
         public void remove(SearchFilter searchFilter) {
+            this.throwIfFrozen();
             if (searchFilter == null) {
                 throw new IllegalArgumentException("searchFilter");
             }
@@ -1375,6 +1600,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param index The zero-based index of the search filter to remove.
          */
         public void removeAt(int index) {
+            this.throwIfFrozen();
             if (index < 0 || index >= this.getCount()) {
                 throw new IllegalArgumentException(
                         String.format("index %d is out of range [0..%d[.", index, this.getCount()));
@@ -1417,6 +1643,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param searchFilter the search filter
          */
         public void setSearchFilter(int index, SearchFilter searchFilter) {
+            this.throwIfFrozen();
             if (index < 0 || index >= this.getCount()) {
                 throw new IllegalArgumentException(
                         String.format("index %d is out of range [0..%d[.", index, this.getCount())
@@ -1442,6 +1669,7 @@ public abstract class SearchFilter extends ComplexProperty {
          * @param logicalOperator the new logical operator
          */
         public void setLogicalOperator(LogicalOperator logicalOperator) {
+            this.throwIfFrozen();
             this.logicalOperator = logicalOperator;
         }
 
@@ -1466,6 +1694,9 @@ public abstract class SearchFilter extends ComplexProperty {
          */
         @Override
         public Iterator<SearchFilter> iterator() {
+            if (this.isFrozen()) {
+                return Collections.unmodifiableList(this.searchFilters).iterator();
+            }
             return this.searchFilters.iterator();
         }
 
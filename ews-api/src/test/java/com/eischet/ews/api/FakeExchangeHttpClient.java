@@ -0,0 +1,244 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api;
+
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.http.ExchangeHttpClient;
+import com.eischet.ews.api.http.RequestFields;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An ExchangeHttpClient for tests that answers every request with a canned SOAP response instead of
+ * contacting a server. The requests are recorded so that tests can inspect what was sent.
+ */
+public class FakeExchangeHttpClient implements ExchangeHttpClient {
+
+    public static final String URL = "https://mail.contoso.com/EWS/Exchange.asmx";
+
+    /**
+     * The start of a SOAP response from an Exchange 2016 server, up to the opening Body element.
+     */
+    public static final String HEADER = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+            + "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+            + "<s:Header>"
+            + "<h:ServerVersionInfo MajorVersion=\"15\" MinorVersion=\"1\" MajorBuildNumber=\"2507\""
+            + " MinorBuildNumber=\"6\" Version=\"V2017_07_11\""
+            + " xmlns:h=\"http://schemas.microsoft.com/exchange/services/2006/types\"/>"
+            + "</s:Header>"
+            + "<s:Body>";
+
+    public static final String FOOTER = "</s:Body></s:Envelope>";
+
+    /**
+     * The declarations of the "m" (messages) and "t" (types) namespace prefixes.
+     */
+    public static final String NAMESPACES = " xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\""
+            + " xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"";
+
+    /**
+     * Produces the response to a request.
+     */
+    @FunctionalInterface
+    public interface Responder {
+
+        /**
+         * Called when the request is executed. The responder may also set the status code and response headers.
+         *
+         * @param request the request, with its body written
+         * @return the response body
+         * @throws Exception to fail the request, like a broken connection
+         */
+        String respond(FakeRequest request) throws Exception;
+    }
+
+    private final Responder responder;
+    private final List<FakeRequest> requests = Collections.synchronizedList(new ArrayList<FakeRequest>());
+
+    public FakeExchangeHttpClient(Responder responder) {
+        this.responder = responder;
+    }
+
+    /**
+     * Creates a client that answers every request the same way.
+     *
+     * @param response the response body
+     * @return the client
+     */
+    public static FakeExchangeHttpClient returning(final String response) {
+        return new FakeExchangeHttpClient(request -> response);
+    }
+
+    /**
+     * Wraps response messages in a SOAP envelope.
+     *
+     * @param body the content of the Body element
+     * @return the response
+     */
+    public static String envelope(String body) {
+        return HEADER + body + FOOTER;
+    }
+
+    /**
+     * Creates a service that sends its requests to this client.
+     *
+     * @return the service, with tracing disabled
+     * @throws URISyntaxException never
+     */
+    public ExchangeService createService() throws URISyntaxException {
+        ExchangeService service = new ExchangeService(this);
+        service.setUrl(new URI(URL));
+        service.setTraceEnabled(false);
+        return service;
+    }
+
+    /**
+     * Gets the requests executed so far, in order. Iteration must be synchronized on the list.
+     *
+     * @return the live list of requests
+     */
+    public List<FakeRequest> getRequests() {
+        return requests;
+    }
+
+    public int getRequestCount() {
+        return requests.size();
+    }
+
+    /**
+     * Gets the body of the request executed last.
+     *
+     * @return the SOAP request
+     */
+    public String getLastRequestBody() {
+        synchronized (requests) {
+            return requests.get(requests.size() - 1).getBody();
+        }
+    }
+
+    @Override
+    public Request createRequest() {
+        return new FakeRequest();
+    }
+
+    @Override
+    public Request createPoolingRequest() {
+        return new FakeRequest();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * A request that is answered by the responder when it is executed.
+     */
+    public class FakeRequest extends RequestFields {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final Map<String, String> responseHeaders = new HashMap<>();
+        private byte[] response = new byte[0];
+
+        FakeRequest() {
+            setResponseCode(200);
+            setResponseContentType("text/xml; charset=utf-8");
+        }
+
+        /**
+         * Gets the request body.
+         *
+         * @return the SOAP request
+         */
+        public String getBody() {
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Map<String, String> getResponseHeaders() {
+            return responseHeaders;
+        }
+
+        @Override
+        public String getResponseHeaderField(String headerName) {
+            return responseHeaders.get(headerName);
+        }
+
+        @Override
+        public void prepareConnection() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return body;
+        }
+
+        @Override
+        public int executeRequest() throws IOException {
+            requests.add(this);
+            try {
+                response = responder.respond(this).getBytes(StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+            return getResponseCode();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(response);
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(response);
+        }
+
+        @Override
+        public void setCredentials(String domain, String user, String pwd) {
+        }
+    }
+
+}
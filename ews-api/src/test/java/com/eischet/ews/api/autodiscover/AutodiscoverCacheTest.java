@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.autodiscover;
+
+import com.eischet.ews.api.autodiscover.enumeration.UserSettingName;
+import com.eischet.ews.api.autodiscover.response.GetUserSettingsResponse;
+import com.eischet.ews.api.http.ExchangeHttpClient;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class AutodiscoverCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static class ManualClockCache extends AutodiscoverCache {
+        private long now;
+
+        ManualClockCache() {
+            super(1000, 100);
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    @Test
+    public void testEndpointsExpire() throws Exception {
+        ManualClockCache cache = new ManualClockCache();
+        URI endpoint = new URI("https://autodiscover.contoso.com/autodiscover/autodiscover.svc");
+        cache.putEndpoint("Contoso.com", endpoint);
+        Assert.assertEquals(endpoint, cache.getEndpoint("contoso.com"));
+        cache.now = 999;
+        Assert.assertEquals(endpoint, cache.getEndpoint("contoso.com"));
+        cache.now = 1000;
+        Assert.assertNull(cache.getEndpoint("contoso.com"));
+    }
+
+    @Test
+    public void testFailedEndpointsUseNegativeTtl() {
+        ManualClockCache cache = new ManualClockCache();
+        Assert.assertFalse(cache.isFailedEndpoint("contoso.com"));
+        cache.putFailedEndpoint("contoso.com");
+        Assert.assertTrue(cache.isFailedEndpoint("CONTOSO.COM"));
+        cache.now = 100;
+        Assert.assertFalse(cache.isFailedEndpoint("contoso.com"));
+    }
+
+    @Test
+    public void testUserSettingsAreKeyedByRequestedSettings() {
+        AutodiscoverCache cache = new AutodiscoverCache();
+        GetUserSettingsResponse response = new GetUserSettingsResponse();
+        response.getSettings().put(UserSettingName.ExternalEwsUrl, "https://mail.contoso.com/EWS/Exchange.asmx");
+        cache.putUserSettings("user@contoso.com",
+                Arrays.asList(UserSettingName.InternalEwsUrl, UserSettingName.ExternalEwsUrl), response);
+
+        Assert.assertSame(response, cache.getUserSettings("User@Contoso.com",
+                Arrays.asList(UserSettingName.ExternalEwsUrl, UserSettingName.InternalEwsUrl)));
+        Assert.assertNull(cache.getUserSettings("user@contoso.com",
+                Arrays.asList(UserSettingName.ExternalEwsUrl)));
+    }
+
+    @Test
+    public void testServiceHandsOutCopiesOfCachedSettings() throws Exception {
+        AutodiscoverCache cache = new AutodiscoverCache();
+        GetUserSettingsResponse response = new GetUserSettingsResponse();
+        response.getSettings().put(UserSettingName.ExternalEwsUrl, "https://mail.contoso.com/EWS/Exchange.asmx");
+        cache.putUserSettings("user@contoso.com", Arrays.asList(UserSettingName.ExternalEwsUrl), response);
+        AutodiscoverService service = new AutodiscoverService((ExchangeHttpClient) null);
+        service.setAutodiscoverCache(cache);
+
+        GetUserSettingsResponse first = service.getUserSettings("user@contoso.com", UserSettingName.ExternalEwsUrl);
+        Assert.assertNotSame(response, first);
+        Assert.assertEquals(response.getSettings(), first.getSettings());
+        first.getSettings().clear();
+
+        GetUserSettingsResponse second = service.getUserSettings("user@contoso.com", UserSettingName.ExternalEwsUrl);
+        Assert.assertEquals("https://mail.contoso.com/EWS/Exchange.asmx",
+                second.getSettings().get(UserSettingName.ExternalEwsUrl));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        File file = new File(folder.getRoot(), "autodiscover.properties");
+        List<UserSettingName> names = Arrays.asList(UserSettingName.InternalEwsUrl, UserSettingName.ExternalEwsUrl);
+        URI endpoint = new URI("https://autodiscover.contoso.com/autodiscover/autodiscover.svc");
+
+        AutodiscoverCache cache = new AutodiscoverCache(60000, 60000, file);
+        GetUserSettingsResponse response = new GetUserSettingsResponse();
+        response.getSettings().put(UserSettingName.ExternalEwsUrl, "https://mail.contoso.com/EWS/Exchange.asmx");
+        cache.putUserSettings("user@contoso.com", names, response);
+        cache.putEndpoint("contoso.com", endpoint);
+        cache.putFailedEndpoint("contoso.com");
+        cache.putRedirectAddress("alias@contoso.com", "user@contoso.com");
+        cache.save();
+
+        AutodiscoverCache loaded = new AutodiscoverCache(60000, 60000, file);
+        Assert.assertEquals(endpoint, loaded.getEndpoint("contoso.com"));
+        Assert.assertTrue(loaded.isFailedEndpoint("contoso.com"));
+        Assert.assertEquals("user@contoso.com", loaded.getRedirectAddress("alias@contoso.com"));
+        GetUserSettingsResponse loadedResponse = loaded.getUserSettings("user@contoso.com", names);
+        Assert.assertNotNull(loadedResponse);
+        Assert.assertEquals("user@contoso.com", loadedResponse.getSmtpAddress());
+        Assert.assertEquals("https://mail.contoso.com/EWS/Exchange.asmx",
+                loadedResponse.getSettings().get(UserSettingName.ExternalEwsUrl));
+    }
+}
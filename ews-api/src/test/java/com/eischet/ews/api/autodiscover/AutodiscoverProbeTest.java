@@ -0,0 +1,237 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.autodiscover;
+
+import com.eischet.ews.api.http.ExchangeHttpClient;
+import com.eischet.ews.api.misc.OutParam;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class AutodiscoverProbeTest {
+
+  private static final List<String> HOSTS = Arrays.asList("a.contoso.com", "b.contoso.com", "c.contoso.com");
+
+  /**
+   * Runs every task on the calling thread, so that all probes finish in order before the
+   * results are ranked.
+   */
+  private static final class DirectExecutorService extends AbstractExecutorService {
+    private boolean shutdown;
+
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      shutdown = true;
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
+
+  /**
+   * Answers the probes from a table of healthy hosts instead of contacting them.
+   */
+  private static class FakeProbeService extends AutodiscoverService {
+    private final Map<String, CountDownLatch> startedHosts = new HashMap<>();
+    private final Map<String, CountDownLatch> blockedHosts = new HashMap<>();
+    private final List<String> healthyHosts = new ArrayList<>();
+    private final List<String> contacted = Collections.synchronizedList(new ArrayList<String>());
+    private URI redirectUrl;
+
+    FakeProbeService() throws Exception {
+      super((ExchangeHttpClient) null);
+      setAutodiscoverCache(new AutodiscoverCache());
+    }
+
+    @Override
+    boolean tryGetAutodiscoverEndpointUrl(String host, OutParam<URI> url) throws Exception {
+      contacted.add(host);
+      CountDownLatch started = startedHosts.get(host);
+      if (started != null) {
+        started.countDown();
+      }
+      CountDownLatch blocked = blockedHosts.get(host);
+      if (blocked != null) {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          // Like an HTTP request that is aborted by the interruption.
+          return false;
+        }
+      }
+      if (!healthyHosts.contains(host)) {
+        return false;
+      }
+      url.setParam(endpointOf(host));
+      return true;
+    }
+
+    @Override
+    URI getRedirectUrl(String domainName) {
+      contacted.add("redirect");
+      return redirectUrl;
+    }
+
+    @Override
+    protected URI getRedirectionUrlFromDnsSrvRecord(String domainName) {
+      contacted.add("srv");
+      return null;
+    }
+
+    URI probe(OutParam<Integer> winningProbe) throws Exception {
+      return probeAutodiscoverEndpoints("contoso.com", HOSTS, winningProbe);
+    }
+  }
+
+  private static URI endpointOf(String host) throws Exception {
+    return new URI("https://" + host + "/autodiscover/autodiscover.svc");
+  }
+
+  private static FakeProbeService newDirectService() throws Exception {
+    FakeProbeService service = new FakeProbeService();
+    service.setProbeStaggerDelay(0);
+    service.setProbeExecutor(new DirectExecutorService());
+    return service;
+  }
+
+  @Test
+  public void testRanksResultsInSequentialOrder() throws Exception {
+    FakeProbeService service = newDirectService();
+    service.healthyHosts.addAll(Arrays.asList("b.contoso.com", "c.contoso.com"));
+
+    OutParam<Integer> winningProbe = new OutParam<>();
+    Assert.assertEquals(endpointOf("b.contoso.com"), service.probe(winningProbe));
+    Assert.assertEquals(Integer.valueOf(1), winningProbe.getParam());
+    Assert.assertEquals(Arrays.asList("a.contoso.com", "b.contoso.com", "c.contoso.com", "redirect", "srv"),
+        service.contacted);
+    Assert.assertTrue(service.getAutodiscoverCache().isFailedEndpoint("a.contoso.com"));
+    Assert.assertFalse(service.getAutodiscoverCache().isFailedEndpoint("c.contoso.com"));
+  }
+
+  @Test
+  public void testSkipsNegativelyCachedHosts() throws Exception {
+    FakeProbeService service = newDirectService();
+    service.healthyHosts.addAll(HOSTS);
+    service.getAutodiscoverCache().putFailedEndpoint("a.contoso.com");
+
+    OutParam<Integer> winningProbe = new OutParam<>();
+    Assert.assertEquals(endpointOf("b.contoso.com"), service.probe(winningProbe));
+    Assert.assertFalse(service.contacted.contains("a.contoso.com"));
+  }
+
+  @Test
+  public void testFollowsRedirectionOnlyIfValidated() throws Exception {
+    FakeProbeService service = newDirectService();
+    service.healthyHosts.add("mail.contoso.com");
+    service.redirectUrl = new URI("https://mail.contoso.com/autodiscover/autodiscover.xml");
+    final List<String> validated = new ArrayList<>();
+    service.setRedirectionUrlValidationCallback(redirectionUrl -> {
+      validated.add(redirectionUrl);
+      return false;
+    });
+
+    Assert.assertNull(service.probe(new OutParam<Integer>()));
+    Assert.assertEquals(Collections.singletonList(service.redirectUrl.toString()), validated);
+    Assert.assertFalse(service.contacted.contains("mail.contoso.com"));
+
+    service.setRedirectionUrlValidationCallback(redirectionUrl -> true);
+    OutParam<Integer> winningProbe = new OutParam<>();
+    Assert.assertEquals(endpointOf("mail.contoso.com"), service.probe(winningProbe));
+    Assert.assertEquals(Integer.valueOf(HOSTS.size()), winningProbe.getParam());
+  }
+
+  @Test
+  public void testStaggeredProbesDoNotStartAfterWinner() throws Exception {
+    FakeProbeService service = new FakeProbeService();
+    ExecutorService executor = Executors.newCachedThreadPool();
+    service.setProbeExecutor(executor);
+    service.setProbeStaggerDelay(10000);
+    service.healthyHosts.addAll(HOSTS);
+
+    Assert.assertEquals(endpointOf("a.contoso.com"), service.probe(new OutParam<Integer>()));
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    Assert.assertEquals(Collections.singletonList("a.contoso.com"), service.contacted);
+  }
+
+  @Test
+  public void testCancelledProbesAreNotCachedAsFailed() throws Exception {
+    FakeProbeService service = new FakeProbeService();
+    ExecutorService executor = Executors.newCachedThreadPool();
+    service.setProbeExecutor(executor);
+    service.setProbeStaggerDelay(0);
+    // Only a is healthy, so that no other probe can win while a waits for b.
+    service.healthyHosts.add("a.contoso.com");
+    // a answers once b is in flight; b then loses the race and only returns when interrupted.
+    CountDownLatch bStarted = new CountDownLatch(1);
+    service.startedHosts.put("b.contoso.com", bStarted);
+    service.blockedHosts.put("a.contoso.com", bStarted);
+    service.blockedHosts.put("b.contoso.com", new CountDownLatch(1));
+
+    Assert.assertEquals(endpointOf("a.contoso.com"), service.probe(new OutParam<Integer>()));
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    Assert.assertTrue(service.contacted.contains("b.contoso.com"));
+    Assert.assertFalse(service.getAutodiscoverCache().isFailedEndpoint("b.contoso.com"));
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core;
+
+import com.eischet.ews.api.attribute.EwsEnum;
+import com.eischet.ews.api.attribute.RequiredServerVersion;
+import com.eischet.ews.api.core.enumeration.misc.ExchangeVersion;
+import com.eischet.ews.api.core.enumeration.notification.EventType;
+import com.eischet.ews.api.core.enumeration.property.MailboxType;
+import com.eischet.ews.api.core.enumeration.property.RuleProperty;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.enumeration.search.ItemTraversal;
+import com.eischet.ews.api.core.enumeration.service.FileAsMapping;
+import com.eischet.ews.api.core.enumeration.service.MeetingRequestsDeliveryScope;
+import com.eischet.ews.api.core.exception.service.local.ServiceVersionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GeneratedEnumRegistryTest {
+
+  private static final List<Class<?>> VERSIONED_ENUMS = Arrays.asList(WellKnownFolderName.class,
+      ItemTraversal.class, FileAsMapping.class, EventType.class, MeetingRequestsDeliveryScope.class);
+
+  private static final List<Class<?>> SCHEMA_NAMED_ENUMS = Arrays.asList(EventType.class, MailboxType.class,
+      FileAsMapping.class, RuleProperty.class);
+
+  @Test
+  public void testEnumVersionDictionariesMatchAnnotations() {
+    Map<Class<?>, Map<String, ExchangeVersion>> dictionaries = GeneratedEnumRegistry.createEnumVersionDictionaries();
+    for (Class<?> c : VERSIONED_ENUMS) {
+      Map<String, ExchangeVersion> expected = new HashMap<>();
+      for (Field f : c.getDeclaredFields()) {
+        if (f.isEnumConstant() && f.isAnnotationPresent(RequiredServerVersion.class)) {
+          expected.put(f.getName(), f.getAnnotation(RequiredServerVersion.class).version());
+        }
+      }
+      Assert.assertEquals(c.getName(), expected, dictionaries.get(c));
+    }
+  }
+
+  @Test
+  public void testSchemaNameDictionariesMatchAnnotations() {
+    Map<Class<?>, Map<String, String>> enumToSchema = GeneratedEnumRegistry.createEnumToSchemaDictionaries();
+    Map<Class<?>, Map<String, String>> schemaToEnum = GeneratedEnumRegistry.createSchemaToEnumDictionaries();
+    for (Class<?> c : SCHEMA_NAMED_ENUMS) {
+      Map<String, String> expected = new HashMap<>();
+      Map<String, String> expectedInverse = new HashMap<>();
+      for (Field f : c.getDeclaredFields()) {
+        if (f.isEnumConstant() && f.isAnnotationPresent(EwsEnum.class)) {
+          String schemaName = f.getAnnotation(EwsEnum.class).schemaName();
+          if (!schemaName.isEmpty()) {
+            expected.put(f.getName(), schemaName);
+            expectedInverse.put(schemaName, f.getName());
+          }
+        }
+      }
+      Assert.assertEquals(c.getName(), expected, enumToSchema.get(c));
+      Assert.assertEquals(c.getName(), expectedInverse, schemaToEnum.get(c));
+    }
+  }
+
+  @Test
+  public void testSerializeAndParseUseGeneratedDictionaries() throws Exception {
+    Assert.assertEquals("NewMailEvent", EwsUtilities.serializeEnum(EventType.NewMail));
+    Assert.assertEquals(EventType.NewMail, EwsUtilities.parse(EventType.class, "NewMailEvent"));
+  }
+
+  @Test(expected = ServiceVersionException.class)
+  public void testValidateEnumVersionValue() throws Exception {
+    EwsUtilities.validateEnumVersionValue(WellKnownFolderName.ArchiveRoot, ExchangeVersion.Exchange2007_SP1);
+  }
+
+}
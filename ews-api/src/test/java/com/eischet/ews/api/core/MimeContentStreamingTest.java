@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.response.GetItemResponse;
+import com.eischet.ews.api.core.response.ServiceResponseCollection;
+import com.eischet.ews.api.property.complex.FolderId;
+import com.eischet.ews.api.property.complex.ItemId;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.eischet.ews.api.FakeExchangeHttpClient.FOOTER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.HEADER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.NAMESPACES;
+
+@RunWith(JUnit4.class)
+public class MimeContentStreamingTest {
+
+  private FakeExchangeHttpClient httpClient;
+
+  private static byte[] randomMime(int size, long seed) {
+    byte[] content = new byte[size];
+    new Random(seed).nextBytes(content);
+    return content;
+  }
+
+  private static String itemMessage(String id, byte[] mime) {
+    return "<m:GetItemResponseMessage ResponseClass=\"Success\">"
+        + "<m:ResponseCode>NoError</m:ResponseCode>"
+        + "<m:Items><t:Message>"
+        + "<t:MimeContent CharacterSet=\"UTF-8\">" + Base64.getMimeEncoder().encodeToString(mime) + "</t:MimeContent>"
+        + "<t:ItemId Id=\"" + id + "\" ChangeKey=\"ck\"/>"
+        + "</t:Message></m:Items>"
+        + "</m:GetItemResponseMessage>";
+  }
+
+  private ExchangeService serviceReturning(String response) throws Exception {
+    httpClient = FakeExchangeHttpClient.returning(response);
+    return httpClient.createService();
+  }
+
+  @Test
+  public void testExportItemMimeDecodesIntoStream() throws Exception {
+    byte[] mime = randomMime(300_000, 1);
+    ExchangeService service = serviceReturning(HEADER
+        + "<m:GetItemResponse" + NAMESPACES + "><m:ResponseMessages>"
+        + itemMessage("AAA", mime)
+        + "</m:ResponseMessages></m:GetItemResponse>" + FOOTER);
+
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    service.exportItemMime(new ItemId("AAA"), target);
+
+    Assert.assertArrayEquals(mime, target.toByteArray());
+    String request = httpClient.getRequests().get(0).getBody();
+    Assert.assertTrue(request.contains("IdOnly"));
+    Assert.assertTrue(request.contains("item:MimeContent"));
+  }
+
+  @Test
+  public void testExportItemsMimeUsesOneStreamPerItem() throws Exception {
+    byte[] first = randomMime(100_000, 2);
+    byte[] second = randomMime(10, 3);
+    ExchangeService service = serviceReturning(HEADER
+        + "<m:GetItemResponse" + NAMESPACES + "><m:ResponseMessages>"
+        + itemMessage("AAA", first)
+        + "<m:GetItemResponseMessage ResponseClass=\"Error\">"
+        + "<m:MessageText>The specified object was not found in the store.</m:MessageText>"
+        + "<m:ResponseCode>ErrorItemNotFound</m:ResponseCode>"
+        + "<m:DescriptiveLinkKey>0</m:DescriptiveLinkKey>"
+        + "<m:Items/>"
+        + "</m:GetItemResponseMessage>"
+        + itemMessage("CCC", second)
+        + "</m:ResponseMessages></m:GetItemResponse>" + FOOTER);
+
+    final Map<String, ByteArrayOutputStream> streams = new HashMap<>();
+    final List<String> closed = new CopyOnWriteArrayList<>();
+    ServiceResponseCollection<GetItemResponse> responses = service.exportItemsMime(
+        Arrays.asList(new ItemId("AAA"), new ItemId("BBB"), new ItemId("CCC")),
+        new IMimeContentSink() {
+          @Override
+          public OutputStream openStream(ItemId itemId) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            streams.put(itemId.getUniqueId(), stream);
+            return stream;
+          }
+
+          @Override
+          public void closeStream(ItemId itemId, OutputStream stream) {
+            closed.add(itemId.getUniqueId());
+          }
+        });
+
+    Assert.assertEquals(3, responses.getCount());
+    Assert.assertArrayEquals(first, streams.get("AAA").toByteArray());
+    Assert.assertFalse(streams.containsKey("BBB"));
+    Assert.assertArrayEquals(second, streams.get("CCC").toByteArray());
+    Assert.assertEquals(Arrays.asList("AAA", "CCC"), closed);
+    Assert.assertNull(responses.getResponseAtIndex(0).getItem().getMimeContent().getContent());
+    Assert.assertEquals("CCC", responses.getResponseAtIndex(2).getItem().getId().getUniqueId());
+  }
+
+  @Test
+  public void testImportItemMimeEncodesFromStream() throws Exception {
+    byte[] mime = randomMime(200_000, 4);
+    ExchangeService service = serviceReturning(HEADER
+        + "<m:CreateItemResponse" + NAMESPACES + "><m:ResponseMessages>"
+        + "<m:CreateItemResponseMessage ResponseClass=\"Success\">"
+        + "<m:ResponseCode>NoError</m:ResponseCode>"
+        + "<m:Items><t:Message><t:ItemId Id=\"NEW\" ChangeKey=\"ck\"/></t:Message></m:Items>"
+        + "</m:CreateItemResponseMessage>"
+        + "</m:ResponseMessages></m:CreateItemResponse>" + FOOTER);
+
+    ItemId id = service.importItemMime(new FolderId(WellKnownFolderName.Inbox), new ByteArrayInputStream(mime));
+
+    Assert.assertEquals("NEW", id.getUniqueId());
+    String request = httpClient.getRequests().get(0).getBody();
+    int start = request.indexOf('>', request.indexOf("<t:MimeContent")) + 1;
+    int end = request.indexOf("</t:MimeContent>");
+    Assert.assertArrayEquals(mime, Base64.getMimeDecoder().decode(request.substring(start, end)));
+  }
+
+}
@@ -24,17 +24,31 @@
 package com.eischet.ews.api.core;
 
 import com.eischet.ews.api.core.enumeration.misc.ExchangeVersion;
+import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
+import com.eischet.ews.api.core.enumeration.property.PropertyDefinitionFlags;
 import com.eischet.ews.api.core.exception.misc.ArgumentException;
 import com.eischet.ews.api.core.exception.service.local.ServiceObjectPropertyException;
 import com.eischet.ews.api.core.service.ServiceObject;
+import com.eischet.ews.api.core.service.item.EmailMessage;
 import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.core.service.schema.ItemSchema;
 import com.eischet.ews.api.misc.OutParam;
+import com.eischet.ews.api.property.complex.EmailAddress;
 import com.eischet.ews.api.property.definition.IntPropertyDefinition;
+import com.eischet.ews.api.property.definition.PropertyDefinition;
 import com.eischet.ews.api.property.definition.RecurrencePropertyDefinition;
+import com.eischet.ews.api.property.definition.StringPropertyDefinition;
+import com.eischet.ews.api.security.XmlNodeType;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+
 @RunWith(JUnit4.class)
 public class PropertyBagTest {
 
@@ -56,6 +70,140 @@ public class PropertyBagTest {
         pb.getObjectFromPropertyDefinition(new IntPropertyDefinition("", "none", ExchangeVersion.Exchange2007_SP1));
     }
 
+    @Test
+    public void testChangeLogTracksSchemaProperties() throws Exception {
+        PropertyBag pb = createPropertyBag();
+        Assert.assertFalse(pb.getIsDirty());
+        Assert.assertFalse(pb.getIsUpdateCallNecessary());
+
+        pb.setObjectFromPropertyDefinition(ItemSchema.Subject, "first");
+        Assert.assertTrue(pb.getIsDirty());
+        Assert.assertTrue(pb.isPropertyUpdated(ItemSchema.Subject));
+        Assert.assertTrue(pb.getIsUpdateCallNecessary());
+
+        pb.clearChangeLog();
+        Assert.assertFalse(pb.getIsDirty());
+        Assert.assertFalse(pb.isPropertyUpdated(ItemSchema.Subject));
+        Assert.assertFalse(pb.getIsUpdateCallNecessary());
+
+        pb.setObjectFromPropertyDefinition(ItemSchema.Subject, "second");
+        Assert.assertTrue(pb.isPropertyUpdated(ItemSchema.Subject));
+        Assert.assertEquals("second", pb.getObjectFromPropertyDefinition(ItemSchema.Subject));
+
+        pb.setObjectFromPropertyDefinition(ItemSchema.Subject, null);
+        Assert.assertFalse(pb.contains(ItemSchema.Subject));
+        Assert.assertFalse(pb.isPropertyUpdated(ItemSchema.Subject));
+        Assert.assertTrue(pb.getIsDirty());
+
+        pb.setObjectFromPropertyDefinition(ItemSchema.Subject, "third");
+        Assert.assertTrue(pb.isPropertyUpdated(ItemSchema.Subject));
+    }
+
+    @Test
+    public void testChangeLogTracksPropertiesOutsideTheSchema() throws Exception {
+        PropertyBag pb = createPropertyBag();
+        PropertyDefinition foreign = new StringPropertyDefinition("Foreign", "test:Foreign",
+                EnumSet.of(PropertyDefinitionFlags.CanSet), ExchangeVersion.Exchange2007_SP1);
+
+        Assert.assertFalse(pb.isPropertyUpdated(foreign));
+        pb.setObjectFromPropertyDefinition(foreign, "value");
+        Assert.assertTrue(pb.isPropertyUpdated(foreign));
+        Assert.assertFalse(pb.isPropertyUpdated(ItemSchema.Subject));
+        Assert.assertFalse(pb.getIsUpdateCallNecessary());
+
+        pb.clearChangeLog();
+        Assert.assertFalse(pb.getIsDirty());
+        Assert.assertEquals("value", pb.getObjectFromPropertyDefinition(foreign));
+    }
+
+    @Test
+    public void testUpdateDiffingSkipsUnchangedValues() throws Exception {
+        EmailMessage message = loadMessage(true);
+        PropertyBag pb = message.getPropertyBag();
+
+        message.setSubject("Hello");
+        message.getCategories().add("Blue");
+        message.getCategories().remove("Blue");
+        Assert.assertTrue(message.isDirty());
+        Assert.assertFalse(pb.getIsUpdateCallNecessary());
+
+        message.setSubject("Changed");
+        Assert.assertTrue(pb.getIsUpdateCallNecessary());
+        String xml = writeUpdate(message);
+        Assert.assertTrue(xml, xml.contains("Changed"));
+        Assert.assertFalse(xml, xml.contains("Categories"));
+        Assert.assertFalse(xml, xml.contains("ToRecipients"));
+    }
+
+    @Test
+    public void testUpdateCallCheckLeavesTheChangeLogAlone() throws Exception {
+        EmailMessage message = loadMessage(true);
+        PropertyBag pb = message.getPropertyBag();
+
+        message.setSubject("Hello");
+        Assert.assertFalse(pb.getIsUpdateCallNecessary());
+        Assert.assertTrue(pb.isPropertyUpdated(ItemSchema.Subject));
+        Assert.assertFalse(pb.getIsUpdateCallNecessary());
+
+        // Only writing the update drops the unchanged value.
+        String xml = writeUpdate(message);
+        Assert.assertFalse(xml, xml.contains("Subject"));
+        Assert.assertFalse(pb.isPropertyUpdated(ItemSchema.Subject));
+    }
+
+    @Test
+    public void testUpdateDiffingAppendsNewRecipientsOnly() throws Exception {
+        EmailMessage message = loadMessage(true);
+        message.getToRecipients().add(new EmailAddress("b@example.com"));
+
+        String xml = writeUpdate(message);
+        Assert.assertTrue(xml, xml.contains("AppendToItemField"));
+        Assert.assertTrue(xml, xml.contains("b@example.com"));
+        Assert.assertFalse(xml, xml.contains("a@example.com"));
+        Assert.assertFalse(xml, xml.contains("SetItemField"));
+
+        message.getPropertyBag().clearChangeLog();
+        Assert.assertFalse(message.getPropertyBag().getIsUpdateCallNecessary());
+    }
+
+    @Test
+    public void testWithoutUpdateDiffingAllAssignmentsAreSent() throws Exception {
+        EmailMessage message = loadMessage(false);
+        message.setSubject("Hello");
+        message.getToRecipients().add(new EmailAddress("b@example.com"));
+
+        Assert.assertTrue(message.getPropertyBag().getIsUpdateCallNecessary());
+        String xml = writeUpdate(message);
+        Assert.assertTrue(xml, xml.contains("Hello"));
+        Assert.assertFalse(xml, xml.contains("AppendToItemField"));
+        Assert.assertTrue(xml, xml.contains("a@example.com"));
+    }
+
+    private EmailMessage loadMessage(boolean updateDiffing) throws Exception {
+        ExchangeService es = new ExchangeService(null);
+        es.setUpdateDiffingEnabled(updateDiffing);
+        EwsServiceXmlReader reader = new EwsServiceXmlReader(new ByteArrayInputStream((
+                "<t:Message xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\">"
+                        + "<t:ItemId Id=\"AAA=\" ChangeKey=\"CK\"/>"
+                        + "<t:Subject>Hello</t:Subject>"
+                        + "<t:Categories><t:String>Red</t:String></t:Categories>"
+                        + "<t:ToRecipients><t:Mailbox><t:EmailAddress>a@example.com</t:EmailAddress></t:Mailbox></t:ToRecipients>"
+                        + "</t:Message>").getBytes(StandardCharsets.UTF_8)), es);
+        reader.read(new XmlNodeType(XmlNodeType.START_DOCUMENT));
+        reader.readStartElement(XmlNamespace.Types, XmlElementNames.Message);
+        EmailMessage message = new EmailMessage(es);
+        message.getPropertyBag().loadFromXml(reader, true, null, false);
+        Assert.assertEquals("a@example.com", message.getToRecipients().getPropertyAtIndex(0).getAddress());
+        return message;
+    }
+
+    private static String writeUpdate(Item item) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EwsServiceXmlWriter writer = new EwsServiceXmlWriter(item.getService(), out);
+        item.getPropertyBag().writeToXmlForUpdate(writer);
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
 
     private PropertyBag createPropertyBag() throws Exception {
         ExchangeService es = new ExchangeService(null);
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.property.complex.time.TimeZoneDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+@RunWith(JUnit4.class)
+public class ServerTimeZonesCacheTest {
+
+  private static final String RESPONSE = FakeExchangeHttpClient.envelope(
+      "<m:GetServerTimeZonesResponse" + FakeExchangeHttpClient.NAMESPACES + ">"
+          + "<m:ResponseMessages>"
+          + "<m:GetServerTimeZonesResponseMessage ResponseClass=\"Success\">"
+          + "<m:ResponseCode>NoError</m:ResponseCode>"
+          + "<m:TimeZoneDefinitions>"
+          + "<t:TimeZoneDefinition Name=\"(UTC+09:00) Osaka, Sapporo, Tokyo\" Id=\"Tokyo Standard Time\">"
+          + "<t:Periods><t:Period Bias=\"-P0DT9H0M0.0S\" Name=\"Standard\" Id=\"Std\"/></t:Periods>"
+          + "<t:TransitionsGroups><t:TransitionsGroup Id=\"0\">"
+          + "<t:Transition><t:To Kind=\"Period\">Std</t:To></t:Transition>"
+          + "</t:TransitionsGroup></t:TransitionsGroups>"
+          + "<t:Transitions><t:Transition><t:To Kind=\"Group\">0</t:To></t:Transition></t:Transitions>"
+          + "</t:TimeZoneDefinition>"
+          + "<t:TimeZoneDefinition Name=\"(UTC) Coordinated Universal Time\" Id=\"UTC\">"
+          + "<t:Periods><t:Period Bias=\"P0DT0H0M0.0S\" Name=\"Standard\" Id=\"Std\"/></t:Periods>"
+          + "<t:TransitionsGroups><t:TransitionsGroup Id=\"0\">"
+          + "<t:Transition><t:To Kind=\"Period\">Std</t:To></t:Transition>"
+          + "</t:TransitionsGroup></t:TransitionsGroups>"
+          + "<t:Transitions><t:Transition><t:To Kind=\"Group\">0</t:To></t:Transition></t:Transitions>"
+          + "</t:TimeZoneDefinition>"
+          + "</m:TimeZoneDefinitions>"
+          + "</m:GetServerTimeZonesResponseMessage>"
+          + "</m:ResponseMessages>"
+          + "</m:GetServerTimeZonesResponse>");
+
+  @Test
+  public void testCachesServerTimeZonesPerUrl() throws Exception {
+    FakeExchangeHttpClient httpClient = FakeExchangeHttpClient.returning(RESPONSE);
+    ExchangeService service = httpClient.createService();
+
+    Collection<TimeZoneDefinition> timeZones = service.getServerTimeZones();
+    Assert.assertEquals(2, timeZones.size());
+    Iterator<TimeZoneDefinition> it = service.getServerTimeZones(Arrays.asList("UTC", "Tokyo Standard Time"))
+        .iterator();
+    Assert.assertEquals("UTC", it.next().getId());
+    TimeZoneDefinition tokyo = it.next();
+    Assert.assertTrue(tokyo.isShared());
+    Assert.assertEquals(1, httpClient.getRequestCount());
+
+    service.setUrl(new URI("https://mail2.contoso.com/EWS/Exchange.asmx"));
+    service.getServerTimeZones();
+    Assert.assertEquals(2, httpClient.getRequestCount());
+
+    service.clearServerTimeZonesCache();
+    Assert.assertSame(tokyo, service.getServerTimeZones(Arrays.asList("Tokyo Standard Time")).iterator().next());
+    Assert.assertEquals(3, httpClient.getRequestCount());
+  }
+
+  @Test
+  public void testCachedDefinitionsCanNotBeModified() throws Exception {
+    ExchangeService service = FakeExchangeHttpClient.returning(RESPONSE).createService();
+    TimeZoneDefinition tokyo = service.getServerTimeZones(Arrays.asList("Tokyo Standard Time")).iterator().next();
+    Assert.assertEquals(1, tokyo.getPeriods().size());
+    try {
+      tokyo.getPeriods().clear();
+      Assert.fail("the periods of a shared definition were modified");
+    } catch (UnsupportedOperationException expected) {
+      // expected
+    }
+    try {
+      tokyo.getTransitionGroups().remove("0");
+      Assert.fail("the transition groups of a shared definition were modified");
+    } catch (UnsupportedOperationException expected) {
+      // expected
+    }
+    Assert.assertEquals(1, service.getServerTimeZones(Arrays.asList("Tokyo Standard Time")).iterator().next()
+        .getTransitionGroups().size());
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core;
+
+import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
+import com.eischet.ews.api.property.complex.ComplexProperty;
+import com.eischet.ews.api.property.complex.EmailAddress;
+import com.eischet.ews.api.property.complex.FolderId;
+import com.eischet.ews.api.property.complex.StringList;
+import com.eischet.ews.api.security.XmlNodeType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+public class StringInternPoolTest {
+
+  private static <T extends ComplexProperty> T parse(ExchangeService service, T property, String elementName,
+      String xml) throws Exception {
+    EwsServiceXmlReader reader = new EwsServiceXmlReader(new ByteArrayInputStream(
+        ("<t:" + elementName + " xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"" + xml)
+            .getBytes(StandardCharsets.UTF_8)), service);
+    reader.read(new XmlNodeType(XmlNodeType.START_DOCUMENT));
+    reader.readStartElement(XmlNamespace.Types, elementName);
+    property.loadFromXml(reader, elementName);
+    return property;
+  }
+
+  private static EmailAddress parseSender(ExchangeService service) throws Exception {
+    return parse(service, new EmailAddress(), "Mailbox", "><t:Name>Contoso Newsletter</t:Name>"
+        + "<t:EmailAddress>news@contoso.com</t:EmailAddress><t:RoutingType>SMTP</t:RoutingType></t:Mailbox>");
+  }
+
+  private static FolderId parseFolderId(ExchangeService service) throws Exception {
+    return parse(service, new FolderId(), "ParentFolderId", " Id=\"AAMkADk0\" ChangeKey=\"AQAAABYA\"/>");
+  }
+
+  @Test
+  public void testPoolReturnsSharedInstances() {
+    StringInternPool pool = new StringInternPool(100);
+    Assert.assertEquals(128, pool.getCapacity());
+    String first = pool.intern(new String("IPM.Note"));
+    Assert.assertSame(first, pool.intern(new String("IPM.Note")));
+    Assert.assertNull(pool.intern(null));
+
+    StringBuilder longValue = new StringBuilder();
+    for (int i = 0; i <= StringInternPool.MAX_VALUE_LENGTH; i++) {
+      longValue.append('x');
+    }
+    String value = longValue.toString();
+    Assert.assertSame(value, pool.intern(value));
+    Assert.assertNotSame(value, pool.intern(new String(value)));
+
+    pool.clear();
+    Assert.assertNotSame(first, pool.intern(new String("IPM.Note")));
+  }
+
+  @Test
+  public void testRepeatedValuesAreSharedWhenPoolingIsEnabled() throws Exception {
+    ExchangeService service = new ExchangeService(null);
+    service.setStringInternPool(new StringInternPool());
+
+    EmailAddress first = parseSender(service);
+    EmailAddress second = parseSender(service);
+    Assert.assertSame(first.getName(), second.getName());
+    Assert.assertSame(first.getAddress(), second.getAddress());
+    Assert.assertSame(first.getRoutingType(), second.getRoutingType());
+
+    FolderId firstFolder = parseFolderId(service);
+    FolderId secondFolder = parseFolderId(service);
+    Assert.assertSame(firstFolder.getUniqueId(), secondFolder.getUniqueId());
+    Assert.assertNotSame(firstFolder.getChangeKey(), secondFolder.getChangeKey());
+    Assert.assertEquals(firstFolder.getChangeKey(), secondFolder.getChangeKey());
+
+    StringList categories = parse(service, new StringList(), "Categories",
+        "><t:String>Red</t:String><t:String>Red</t:String></t:Categories>");
+    Assert.assertSame(categories.getString(0), categories.getString(1));
+  }
+
+  @Test
+  public void testValuesAreNotSharedByDefault() throws Exception {
+    ExchangeService service = new ExchangeService(null);
+    Assert.assertNull(service.getStringInternPool());
+
+    EmailAddress first = parseSender(service);
+    EmailAddress second = parseSender(service);
+    Assert.assertEquals(first.getAddress(), second.getAddress());
+    Assert.assertNotSame(first.getAddress(), second.getAddress());
+  }
+
+}
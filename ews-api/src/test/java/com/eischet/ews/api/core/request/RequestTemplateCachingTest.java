@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core.request;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.ICustomXmlSerialization;
+import com.eischet.ews.api.core.enumeration.misc.ConnectingIdType;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.misc.ImpersonatedUserId;
+import com.eischet.ews.api.search.ItemView;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.Collections;
+
+@RunWith(JUnit4.class)
+public class RequestTemplateCachingTest {
+
+  private static final String RESPONSE = FakeExchangeHttpClient.envelope(
+      "<m:FindItemResponse" + FakeExchangeHttpClient.NAMESPACES + ">"
+          + "<m:ResponseMessages>"
+          + "<m:FindItemResponseMessage ResponseClass=\"Success\">"
+          + "<m:ResponseCode>NoError</m:ResponseCode>"
+          + "<m:RootFolder TotalItemsInView=\"0\" IncludesLastItemInRange=\"true\"><t:Items/></m:RootFolder>"
+          + "</m:FindItemResponseMessage>"
+          + "</m:ResponseMessages>"
+          + "</m:FindItemResponse>");
+
+  private final FakeExchangeHttpClient httpClient = FakeExchangeHttpClient.returning(RESPONSE);
+
+  private ExchangeService createService(boolean caching) throws Exception {
+    ExchangeService service = httpClient.createService();
+    service.setRequestTemplateCachingEnabled(caching);
+    return service;
+  }
+
+  private String lastRequest() {
+    return httpClient.getLastRequestBody();
+  }
+
+  @Test
+  public void testCachedRequestsMatchUncachedRequests() throws Exception {
+    ExchangeService uncached = createService(false);
+    uncached.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    String expected = lastRequest();
+
+    ExchangeService cached = createService(true);
+    cached.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    Assert.assertEquals(expected, lastRequest());
+    Assert.assertNotNull(cached.getSoapEnvelopeTemplate());
+    cached.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    Assert.assertEquals(expected, lastRequest());
+  }
+
+  @Test
+  public void testEnvelopeFollowsServiceConfiguration() throws Exception {
+    ExchangeService service = createService(true);
+    service.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    Assert.assertFalse(lastRequest().contains("ExchangeImpersonation"));
+
+    service.setImpersonatedUserId(new ImpersonatedUserId(ConnectingIdType.SmtpAddress, "someone@contoso.com"));
+    service.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    Assert.assertTrue(lastRequest().contains("<t:SmtpAddress>someone@contoso.com</t:SmtpAddress>"));
+
+    service.setImpersonatedUserId(new ImpersonatedUserId(ConnectingIdType.SmtpAddress, "other@contoso.com"));
+    service.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    Assert.assertTrue(lastRequest().contains("<t:SmtpAddress>other@contoso.com</t:SmtpAddress>"));
+  }
+
+  @Test
+  public void testCustomSoapHeadersAreNotCached() throws Exception {
+    ExchangeService service = createService(true);
+    final int[] calls = new int[1];
+    service.setOnSerializeCustomSoapHeaders(Collections.<ICustomXmlSerialization>singletonList(writer -> {
+      try {
+        writer.writeEmptyElement("t", "Custom" + (++calls[0]), "http://schemas.microsoft.com/exchange/services/2006/types");
+      } catch (XMLStreamException e) {
+        throw new IllegalStateException(e);
+      }
+    }));
+    service.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    service.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    Assert.assertTrue(lastRequest().contains("t:Custom2"));
+    Assert.assertNull(service.getSoapEnvelopeTemplate());
+  }
+
+}
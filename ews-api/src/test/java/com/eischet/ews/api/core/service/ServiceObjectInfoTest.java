@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core.service;
+
+import com.eischet.ews.api.attribute.ServiceObjectDefinition;
+import com.eischet.ews.api.core.XmlElementNames;
+import com.eischet.ews.api.core.service.folder.Folder;
+import com.eischet.ews.api.core.service.item.Appointment;
+import com.eischet.ews.api.core.service.item.EmailMessage;
+import com.eischet.ews.api.core.service.response.PostReply;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class ServiceObjectInfoTest {
+
+  @Test
+  public void testServiceObjectsReturnedByServerAreRegistered() {
+    ServiceObjectInfo info = new ServiceObjectInfo();
+
+    Assert.assertEquals(17, info.getXmlElementNameToServiceObjectClassMap().size());
+    Assert.assertEquals(Appointment.class, info.getXmlElementNameToServiceObjectClassMap().get(XmlElementNames.CalendarItem));
+    Assert.assertEquals(EmailMessage.class, info.getXmlElementNameToServiceObjectClassMap().get(XmlElementNames.Message));
+    Assert.assertFalse(info.getXmlElementNameToServiceObjectClassMap().containsValue(PostReply.class));
+
+    Assert.assertNotNull(info.getServiceObjectConstructorsWithServiceParam().get(Folder.class));
+    Assert.assertNotNull(info.getServiceObjectConstructorsWithAttachmentParam().get(Appointment.class));
+    Assert.assertNull(info.getServiceObjectConstructorsWithAttachmentParam().get(Folder.class));
+  }
+
+  @Test
+  public void testXmlElementNamesMatchAnnotations() {
+    for (Map.Entry<Class<?>, String> entry : GeneratedServiceObjectRegistry.XML_ELEMENT_NAMES.entrySet()) {
+      Assert.assertEquals(entry.getKey().getAnnotation(ServiceObjectDefinition.class)
+          .xmlElementName(), entry.getValue());
+    }
+    Assert.assertEquals(XmlElementNames.PostReplyItem, GeneratedServiceObjectRegistry.XML_ELEMENT_NAMES.get(PostReply.class));
+  }
+
+}
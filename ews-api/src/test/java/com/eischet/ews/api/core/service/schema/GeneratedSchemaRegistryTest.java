@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core.service.schema;
+
+import com.eischet.ews.api.property.definition.PropertyDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class GeneratedSchemaRegistryTest {
+
+  private static String describe(String name, PropertyDefinition propertyDefinition) {
+    return name + "@" + System.identityHashCode(propertyDefinition);
+  }
+
+  @Test
+  public void testRegistryMatchesSchemaFields() throws Exception {
+    List<String> reflected = new ArrayList<>();
+    for (Class<? extends ServiceObjectSchema> type : GeneratedSchemaRegistry.SCHEMA_TYPES) {
+      for (Field field : type.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isPublic(modifiers) && Modifier.isStatic(modifiers)
+            && field.get(null) instanceof PropertyDefinition) {
+          reflected.add(describe(field.getName(), (PropertyDefinition) field.get(null)));
+        }
+      }
+    }
+    List<String> generated = new ArrayList<>();
+    GeneratedSchemaRegistry.visitSchemaProperties((fieldName, propertyDefinition) ->
+        generated.add(describe(fieldName, propertyDefinition)));
+
+    Collections.sort(reflected);
+    Collections.sort(generated);
+    Assert.assertFalse(generated.isEmpty());
+    Assert.assertEquals(reflected, generated);
+  }
+
+  @Test
+  public void testRegistryContainsAllSchemaTypes() {
+    Assert.assertTrue(GeneratedSchemaRegistry.SCHEMA_TYPES.contains(ServiceObjectSchema.class));
+    Assert.assertTrue(GeneratedSchemaRegistry.SCHEMA_TYPES.contains(ItemSchema.class));
+    Assert.assertTrue(GeneratedSchemaRegistry.SCHEMA_TYPES.contains(AppointmentSchema.class));
+    Assert.assertTrue(GeneratedSchemaRegistry.SCHEMA_TYPES.contains(ResponseObjectSchema.class));
+    Assert.assertTrue(GeneratedSchemaRegistry.SCHEMA_TYPES.contains(FolderSchema.class));
+  }
+
+  @Test
+  public void testFindPropertyDefinitionByUri() {
+    Assert.assertSame(ItemSchema.Subject, ServiceObjectSchema.findPropertyDefinition(ItemSchema.Subject.getUri()));
+    Assert.assertSame(AppointmentSchema.Start, ServiceObjectSchema.findPropertyDefinition("calendar:Start"));
+    Assert.assertNull(ServiceObjectSchema.findPropertyDefinition("item:DoesNotExist"));
+  }
+
+  @Test
+  public void testPropertyNamesAreInitialized() {
+    Assert.assertEquals("Subject", ItemSchema.Subject.getName());
+    Assert.assertEquals("DisplayName", FolderSchema.DisplayName.getName());
+  }
+
+}
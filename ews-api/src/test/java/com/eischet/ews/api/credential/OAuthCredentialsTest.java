@@ -0,0 +1,248 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.credential;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
+import com.eischet.ews.api.http.ExchangeHttpClient;
+import com.eischet.ews.api.search.ItemView;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(JUnit4.class)
+public class OAuthCredentialsTest {
+
+  private static final String RESPONSE = FakeExchangeHttpClient.envelope(
+      "<m:FindItemResponse" + FakeExchangeHttpClient.NAMESPACES + ">"
+          + "<m:ResponseMessages>"
+          + "<m:FindItemResponseMessage ResponseClass=\"Success\">"
+          + "<m:ResponseCode>NoError</m:ResponseCode>"
+          + "<m:RootFolder TotalItemsInView=\"0\" IncludesLastItemInRange=\"true\"><t:Items/></m:RootFolder>"
+          + "</m:FindItemResponseMessage>"
+          + "</m:ResponseMessages>"
+          + "</m:FindItemResponse>");
+
+  /**
+   * The authorization header of each request sent, in order.
+   */
+  private final List<String> authorizations = new ArrayList<>();
+
+  /**
+   * The status codes to answer requests with, in order; 200 once exhausted.
+   */
+  private final List<Integer> statusCodes = new ArrayList<>();
+
+  private final FakeExchangeHttpClient httpClient = new FakeExchangeHttpClient(request -> {
+    authorizations.add(request.getHttpHeaders().get("Authorization"));
+    if (!statusCodes.isEmpty()) {
+      request.setResponseCode(statusCodes.remove(0));
+    }
+    return RESPONSE;
+  });
+
+  private ExchangeService createService(ExchangeCredentials credentials) throws Exception {
+    ExchangeService service = httpClient.createService();
+    service.setCredentials(credentials);
+    return service;
+  }
+
+  /**
+   * A clock that is set by the test, and that can hold up the next thread asking it for the time.
+   */
+  private static final class TestClock extends Clock {
+    private volatile Instant now = Instant.parse("2024-01-01T00:00:00Z");
+    private final AtomicReference<CountDownLatch> pauseNext = new AtomicReference<>();
+    private final CountDownLatch paused = new CountDownLatch(1);
+
+    @Override
+    public Instant instant() {
+      CountDownLatch resume = pauseNext.getAndSet(null);
+      if (resume != null) {
+        paused.countDown();
+        try {
+          resume.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static IAccessTokenSupplier counting(final AtomicInteger calls, final Duration lifetime) {
+    return () -> AccessToken.expiringIn("token" + calls.incrementAndGet(), lifetime);
+  }
+
+  @Test
+  public void testTokenIsCachedAndSentAsBearerToken() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    ExchangeService service = createService(new OAuthCredentials(counting(calls, Duration.ofHours(1))));
+    service.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    service.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    Assert.assertEquals(1, calls.get());
+    Assert.assertEquals("Bearer token1", authorizations.get(0));
+    Assert.assertEquals("Bearer token1", authorizations.get(1));
+  }
+
+  @Test
+  public void testExpiringTokenIsRefreshedAhead() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    OAuthCredentials credentials = new OAuthCredentials(counting(calls, Duration.ofMinutes(1)));
+    credentials.setExecutor(Runnable::run);
+
+    Assert.assertEquals("token1", credentials.getAccessToken());
+    // Still valid, but within the refresh margin: used once more while the refresh runs.
+    Assert.assertEquals("token1", credentials.getAccessToken());
+    Assert.assertEquals(2, calls.get());
+
+    credentials.setRefreshMargin(Duration.ofSeconds(10));
+    Assert.assertEquals("token2", credentials.getAccessToken());
+    Assert.assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testConcurrentCallersShareOneAcquisition() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final OAuthCredentials credentials = new OAuthCredentials(() -> {
+      calls.incrementAndGet();
+      entered.countDown();
+      release.await();
+      return AccessToken.expiringIn("shared", Duration.ofHours(1));
+    });
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      results.add(pool.submit(credentials::getAccessToken));
+      Assert.assertTrue(entered.await(5, TimeUnit.SECONDS));
+      for (int i = 0; i < 7; i++) {
+        results.add(pool.submit(credentials::getAccessToken));
+      }
+      release.countDown();
+      for (Future<String> result : results) {
+        Assert.assertEquals("shared", result.get(5, TimeUnit.SECONDS));
+      }
+      Assert.assertEquals(1, calls.get());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testTokenDiscardedWhileWaitingForTheLockIsReacquired() throws Exception {
+    final TestClock clock = new TestClock();
+    final AtomicInteger calls = new AtomicInteger();
+    final OAuthCredentials credentials = new OAuthCredentials(
+        () -> new AccessToken("token" + calls.incrementAndGet(), clock.now.plus(Duration.ofHours(1))));
+    credentials.setClock(clock);
+    Assert.assertEquals("token1", credentials.getAccessToken());
+    clock.now = clock.now.plus(Duration.ofHours(2));
+
+    // The first caller sees token1 expired, and is held up before it asks for a new one.
+    CountDownLatch resume = new CountDownLatch(1);
+    clock.pauseNext.set(resume);
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> first = pool.submit(credentials::getAccessToken);
+      Assert.assertTrue(clock.paused.await(5, TimeUnit.SECONDS));
+
+      // Meanwhile another caller replaces token1, and the server rejects its replacement.
+      Assert.assertEquals("token2", credentials.getAccessToken());
+      ExchangeHttpClient.Request rejected = httpClient.createRequest();
+      rejected.setHeader("Authorization", "Bearer token2");
+      Assert.assertTrue(credentials.refreshAfterUnauthorized(rejected));
+
+      resume.countDown();
+      Assert.assertEquals("token3", first.get(5, TimeUnit.SECONDS));
+      Assert.assertEquals(3, calls.get());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testUnauthorizedRequestIsRetriedOnceWithNewToken() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    ExchangeService service = createService(new OAuthCredentials(counting(calls, Duration.ofHours(1))));
+    statusCodes.add(401);
+    service.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+    Assert.assertEquals(2, calls.get());
+    Assert.assertEquals(2, authorizations.size());
+    Assert.assertEquals("Bearer token1", authorizations.get(0));
+    Assert.assertEquals("Bearer token2", authorizations.get(1));
+  }
+
+  @Test
+  public void testFixedTokenIsNotRetried() throws Exception {
+    ExchangeService service = createService(new OAuthCredentials("fixed"));
+    statusCodes.add(401);
+    statusCodes.add(401);
+    try {
+      service.findItems(WellKnownFolderName.Inbox, new ItemView(10));
+      Assert.fail("the request was expected to fail");
+    } catch (Exception expected) {
+    }
+    Assert.assertEquals(1, authorizations.size());
+    Assert.assertEquals("Bearer fixed", authorizations.get(0));
+  }
+
+  @Test(expected = ServiceLocalException.class)
+  public void testSupplierFailureIsReported() throws Exception {
+    new OAuthCredentials(() -> {
+      throw new IllegalStateException("token endpoint unavailable");
+    }).getAccessToken();
+  }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.dns;
+
+import com.eischet.ews.api.core.exception.dns.DnsException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+
+public class CachingDnsResolverTest {
+
+  private static DnsSrvRecord record(String value) throws DnsException {
+    DnsSrvRecord record = new DnsSrvRecord();
+    record.load(value);
+    return record;
+  }
+
+  /**
+   * Stands in for the DNS server and counts the queries it receives.
+   */
+  private static class StubResolver extends CachingDnsResolver {
+    private final List<DnsSrvRecord> records;
+    private int lookups;
+    private long now;
+    private CountDownLatch release = new CountDownLatch(0);
+
+    StubResolver(List<DnsSrvRecord> records, ExecutorService executor) {
+      super(null, 1000, 100, executor == null ? Runnable::run : executor);
+      this.records = records;
+    }
+
+    @Override
+    protected long currentTimeMillis() {
+      return now;
+    }
+
+    @Override
+    protected synchronized List<DnsSrvRecord> lookup(String name) throws DnsException {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new DnsException("interrupted");
+      }
+      lookups++;
+      if (records == null) {
+        throw new DnsException("server failure");
+      }
+      return records;
+    }
+  }
+
+  @Test public void resultsAreCachedUntilTheyExpire() throws Exception {
+    StubResolver resolver = new StubResolver(
+        Collections.singletonList(record("0 0 443 autodiscover.contoso.com.")), null);
+    Assert.assertEquals(1, resolver.resolveSrv("_autodiscover._tcp.contoso.com").size());
+    Assert.assertEquals(1, resolver.resolveSrv("_AUTODISCOVER._tcp.contoso.com").size());
+    Assert.assertEquals(1, resolver.lookups);
+    resolver.now = 1000;
+    resolver.resolveSrv("_autodiscover._tcp.contoso.com");
+    Assert.assertEquals(2, resolver.lookups);
+  }
+
+  @Test public void emptyResultsUseNegativeTtl() throws Exception {
+    StubResolver resolver = new StubResolver(Collections.<DnsSrvRecord>emptyList(), null);
+    resolver.resolveSrv("_autodiscover._tcp.contoso.com");
+    resolver.now = 99;
+    resolver.resolveSrv("_autodiscover._tcp.contoso.com");
+    Assert.assertEquals(1, resolver.lookups);
+    resolver.now = 100;
+    resolver.resolveSrv("_autodiscover._tcp.contoso.com");
+    Assert.assertEquals(2, resolver.lookups);
+  }
+
+  @Test public void failuresAreNotCached() throws Exception {
+    StubResolver resolver = new StubResolver(null, null);
+    for (int i = 0; i < 2; i++) {
+      try {
+        resolver.resolveSrv("_autodiscover._tcp.contoso.com");
+        Assert.fail("expected DnsException");
+      } catch (DnsException expected) {
+        // expected
+      }
+    }
+    Assert.assertEquals(2, resolver.lookups);
+  }
+
+  @Test public void failuresKeepTheirCause() throws Exception {
+    final IllegalStateException failure = new IllegalStateException("broken");
+    CachingDnsResolver resolver = new CachingDnsResolver(null, 1000, 100, Runnable::run) {
+      @Override
+      protected List<DnsSrvRecord> lookup(String name) {
+        throw failure;
+      }
+    };
+    try {
+      resolver.resolveSrv("_autodiscover._tcp.contoso.com");
+      Assert.fail("expected DnsException");
+    } catch (DnsException expected) {
+      Assert.assertSame(failure, expected.getCause());
+    }
+  }
+
+  @Test public void cachedRecordsAreOrderedForEveryLookup() throws Exception {
+    StubResolver resolver = new StubResolver(Arrays.asList(
+        record("10 50 443 one.contoso.com."),
+        record("10 50 443 two.contoso.com.")), null);
+    boolean sawOne = false;
+    boolean sawTwo = false;
+    for (int i = 0; i < 100 && !(sawOne && sawTwo); i++) {
+      String first = resolver.resolveSrv("_autodiscover._tcp.contoso.com").get(0).getNameTarget();
+      sawOne |= first.equals("one.contoso.com.");
+      sawTwo |= first.equals("two.contoso.com.");
+    }
+    Assert.assertTrue(sawOne && sawTwo);
+    Assert.assertEquals(1, resolver.lookups);
+  }
+
+  @Test public void concurrentLookupsAreCoalesced() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      StubResolver resolver = new StubResolver(
+          Collections.singletonList(record("0 0 443 autodiscover.contoso.com.")), executor);
+      resolver.release = new CountDownLatch(1);
+      CompletableFuture<List<DnsSrvRecord>> first = resolver.resolveSrvAsync("_autodiscover._tcp.contoso.com");
+      CompletableFuture<List<DnsSrvRecord>> second = resolver.resolveSrvAsync("_autodiscover._tcp.contoso.com");
+      resolver.release.countDown();
+      Assert.assertEquals(1, first.get().size());
+      Assert.assertEquals(1, second.get().size());
+      Assert.assertEquals(1, resolver.lookups);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test public void recordsAreOrderedByPriorityAndWeight() throws Exception {
+    List<DnsSrvRecord> records = new ArrayList<DnsSrvRecord>(Arrays.asList(
+        record("20 0 443 backup.contoso.com."),
+        record("10 0 443 never.contoso.com."),
+        record("10 100 443 primary.contoso.com."),
+        record("5 0 443 first.contoso.com.")));
+    List<DnsSrvRecord> ordered = CachingDnsResolver.orderByPriorityAndWeight(records, new Random(42));
+    Assert.assertEquals("first.contoso.com.", ordered.get(0).getNameTarget());
+    Assert.assertEquals(10, ordered.get(1).getPriority());
+    Assert.assertEquals(10, ordered.get(2).getPriority());
+    Assert.assertEquals("backup.contoso.com.", ordered.get(3).getNameTarget());
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.metrics;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.enumeration.service.DeleteMode;
+import com.eischet.ews.api.core.exception.service.remote.ServiceResponseException;
+import com.eischet.ews.api.property.complex.FolderId;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class InMemoryRequestMetricsTest {
+
+  private static final String BUSY_RESPONSE = FakeExchangeHttpClient.envelope(
+      "<m:DeleteFolderResponse" + FakeExchangeHttpClient.NAMESPACES + ">"
+          + "<m:ResponseMessages>"
+          + "<m:DeleteFolderResponseMessage ResponseClass=\"Error\">"
+          + "<m:MessageText>The server cannot service this request right now.</m:MessageText>"
+          + "<m:ResponseCode>ErrorServerBusy</m:ResponseCode>"
+          + "<m:DescriptiveLinkKey>0</m:DescriptiveLinkKey>"
+          + "</m:DeleteFolderResponseMessage>"
+          + "</m:ResponseMessages>"
+          + "</m:DeleteFolderResponse>");
+
+  @Test
+  public void testRecordsPhasesAndErrors() throws Exception {
+    ExchangeService service = FakeExchangeHttpClient.returning(BUSY_RESPONSE).createService();
+    InMemoryRequestMetrics metrics = new InMemoryRequestMetrics();
+    service.setRequestMetrics(metrics);
+
+    try {
+      service.deleteFolder(new FolderId(WellKnownFolderName.Inbox), DeleteMode.HardDelete);
+      Assert.fail("expected the server error to be thrown");
+    } catch (ServiceResponseException e) {
+      Assert.assertEquals(ServiceError.ErrorServerBusy, e.getErrorCode());
+    }
+
+    InMemoryRequestMetrics.OperationMetrics deleteFolder = metrics.getOperation("DeleteFolder");
+    Assert.assertNotNull(deleteFolder);
+    Assert.assertEquals(1, deleteFolder.getRequestCount());
+    Assert.assertEquals(0, deleteFolder.getFailureCount());
+    Assert.assertEquals(1, deleteFolder.getSerializeTime().getCount());
+    Assert.assertEquals(1, deleteFolder.getResponseTime().getCount());
+    Assert.assertEquals(1, deleteFolder.getParseTime().getCount());
+    Assert.assertTrue(deleteFolder.getRequestBytes().getMax() > 0);
+    Assert.assertEquals(BUSY_RESPONSE.length(), deleteFolder.getResponseBytes().getMax());
+    Assert.assertEquals(1, deleteFolder.getStatusCodeCount(200));
+    Assert.assertEquals(1, deleteFolder.getServiceErrorCount(ServiceError.ErrorServerBusy));
+    Assert.assertEquals(1, metrics.getOperations().size());
+  }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketBoundsAreContiguous() {
+    long previousUpper = -1;
+    for (int i = 0; i < 200; i++) {
+      long upper = LatencyHistogram.bucketUpperBound(i);
+      Assert.assertEquals(i, LatencyHistogram.bucketIndex(previousUpper + 1));
+      Assert.assertEquals(i, LatencyHistogram.bucketIndex(upper));
+      previousUpper = upper;
+    }
+    Assert.assertEquals(Long.MAX_VALUE,
+        LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void testStatistics() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Assert.assertEquals(0, histogram.getPercentile(50));
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+    Assert.assertEquals(1000, histogram.getCount());
+    Assert.assertEquals(500500000L, histogram.getSum());
+    Assert.assertEquals(1000000L, histogram.getMax());
+    Assert.assertEquals(500500.0, histogram.getMean(), 0.001);
+
+    long median = histogram.getPercentile(50);
+    Assert.assertTrue(median >= 500000 && median <= 500000 * 1.25);
+    long p99 = histogram.getPercentile(99);
+    Assert.assertTrue(p99 >= 990000 && p99 <= 1000000);
+    Assert.assertEquals(1000000L, histogram.getPercentile(100));
+
+    histogram.reset();
+    Assert.assertEquals(0, histogram.getCount());
+    Assert.assertEquals(0, histogram.getMax());
+  }
+
+}
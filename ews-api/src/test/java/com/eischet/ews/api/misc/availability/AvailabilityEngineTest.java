@@ -0,0 +1,268 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.availability;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.enumeration.availability.FreeBusyViewType;
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
+import com.eischet.ews.api.core.enumeration.property.LegacyFreeBusyStatus;
+import com.eischet.ews.api.core.enumeration.service.ServiceResult;
+import com.eischet.ews.api.core.response.AttendeeAvailability;
+import com.eischet.ews.api.property.complex.availability.CalendarEvent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.eischet.ews.api.FakeExchangeHttpClient.FOOTER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.HEADER;
+
+@RunWith(JUnit4.class)
+public class AvailabilityEngineTest {
+
+  private static final Pattern ADDRESS = Pattern.compile("<t:Address>([^<]*)</t:Address>");
+  private static final Pattern START = Pattern.compile("<t:StartTime>([^<]{19})");
+  private static final Pattern END = Pattern.compile("<t:EndTime>([^<]{19})");
+
+  private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 3, 4, 0, 0);
+
+  private final AtomicInteger requestCount = new AtomicInteger();
+  private final AtomicInteger maxAttendeesSeen = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private AvailabilityEngine engine;
+
+  @Before
+  public void setUp() throws Exception {
+    FakeExchangeHttpClient httpClient = new FakeExchangeHttpClient(request -> {
+      int current = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(current, Math::max);
+      Thread.sleep(5);
+      inFlight.decrementAndGet();
+      requestCount.incrementAndGet();
+      return respond(request.getBody());
+    });
+    engine = new AvailabilityEngine(httpClient.createService());
+  }
+
+  /**
+   * Answers GetUserAvailability requests: mailboxes starting with "busy" are busy all the time,
+   * "missing" mailboxes fail, everybody else is free. Mailboxes starting with "events" also have
+   * ten-minute calendar events at noon of the first day and at the very end of the time window.
+   */
+  private String respond(String request) {
+    Matcher start = START.matcher(request);
+    Matcher end = END.matcher(request);
+    Assert.assertTrue(start.find() && end.find());
+    Duration window = Duration.between(LocalDateTime.parse(start.group(1)), LocalDateTime.parse(end.group(1)));
+    Assert.assertTrue(window.compareTo(engine.getMaxTimeWindow()) <= 0);
+    int slots = (int) ((window.toMinutes() + 29) / 30);
+
+    StringBuilder response = new StringBuilder(HEADER
+        + "<GetUserAvailabilityResponse xmlns=\"http://schemas.microsoft.com/exchange/services/2006/messages\""
+        + " xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\">"
+        + "<FreeBusyResponseArray>");
+    Matcher address = ADDRESS.matcher(request);
+    int attendees = 0;
+    while (address.find()) {
+      attendees++;
+      String mailbox = address.group(1);
+      response.append("<FreeBusyResponse>");
+      if (mailbox.startsWith("missing")) {
+        response.append("<ResponseMessage ResponseClass=\"Error\">"
+            + "<MessageText>No mailbox with such guid.</MessageText>"
+            + "<ResponseCode>ErrorMailRecipientNotFound</ResponseCode>"
+            + "<DescriptiveLinkKey>0</DescriptiveLinkKey>"
+            + "</ResponseMessage>");
+      } else {
+        response.append("<ResponseMessage ResponseClass=\"Success\"><ResponseCode>NoError</ResponseCode>"
+            + "</ResponseMessage><FreeBusyView><t:FreeBusyViewType>MergedOnly</t:FreeBusyViewType>"
+            + "<t:MergedFreeBusy>");
+        char status = mailbox.startsWith("busy") ? '2' : '0';
+        for (int i = 0; i < slots; i++) {
+          response.append(status);
+        }
+        response.append("</t:MergedFreeBusy>");
+        if (mailbox.startsWith("events")) {
+          LocalDateTime noon = LocalDateTime.parse(start.group(1)).plusHours(12);
+          LocalDateTime windowEnd = LocalDateTime.parse(end.group(1));
+          response.append("<t:CalendarEventArray>")
+              .append(calendarEvent(noon, noon.plusMinutes(10)))
+              .append(calendarEvent(windowEnd.minusMinutes(10), windowEnd))
+              .append("</t:CalendarEventArray>");
+        }
+        response.append("</FreeBusyView>");
+      }
+      response.append("</FreeBusyResponse>");
+    }
+    maxAttendeesSeen.accumulateAndGet(attendees, Math::max);
+    return response.append("</FreeBusyResponseArray></GetUserAvailabilityResponse>").append(FOOTER).toString();
+  }
+
+  private static String calendarEvent(LocalDateTime start, LocalDateTime end) {
+    return "<t:CalendarEvent><t:StartTime>" + start + ":00</t:StartTime><t:EndTime>" + end + ":00</t:EndTime>"
+        + "<t:BusyType>Busy</t:BusyType></t:CalendarEvent>";
+  }
+
+  private static List<AttendeeInfo> attendees(int count) {
+    List<AttendeeInfo> attendees = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      attendees.add(new AttendeeInfo((i % 3 == 0 ? "busy" : "room") + i + "@contoso.com"));
+    }
+    return attendees;
+  }
+
+  private static AvailabilityOptions mergedOnly() {
+    AvailabilityOptions options = new AvailabilityOptions();
+    options.setRequestedFreeBusyView(FreeBusyViewType.MergedOnly);
+    return options;
+  }
+
+  @Test
+  public void testSplitsAttendeesAndKeepsOrder() throws Exception {
+    List<AttendeeInfo> attendees = attendees(250);
+    List<AttendeeAvailability> results = engine.getUserAvailability(attendees,
+        new TimeWindow(MONDAY, MONDAY.plusDays(5)), mergedOnly());
+
+    Assert.assertEquals(3, requestCount.get());
+    Assert.assertEquals(100, maxAttendeesSeen.get());
+    Assert.assertTrue(maxInFlight.get() <= engine.getMaxParallelRequests());
+    Assert.assertEquals(250, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      MergedFreeBusy merged = results.get(i).getMergedFreeBusy();
+      Assert.assertEquals(5 * 48, merged.getSlotCount());
+      LegacyFreeBusyStatus expected = (i % 3 == 0) ? LegacyFreeBusyStatus.Busy : LegacyFreeBusyStatus.Free;
+      Assert.assertEquals(5 * 48, merged.count(expected));
+    }
+  }
+
+  @Test
+  public void testSplitsTimeWindowAndStitchesSlots() throws Exception {
+    engine.setMaxParallelRequests(1);
+    List<AttendeeInfo> attendees = attendees(2);
+    attendees.add(new AttendeeInfo("missing@contoso.com"));
+    List<AttendeeAvailability> results = engine.getUserAvailability(attendees,
+        new TimeWindow(MONDAY, MONDAY.plusDays(100)), mergedOnly());
+
+    Assert.assertEquals(3, requestCount.get());
+    Assert.assertEquals(100 * 48, results.get(0).getMergedFreeBusy().getSlotCount());
+    Assert.assertEquals(100 * 48, results.get(0).getMergedFreeBusy().count(LegacyFreeBusyStatus.Busy));
+    Assert.assertEquals(100 * 48, results.get(1).getMergedFreeBusy().count(LegacyFreeBusyStatus.Free));
+    Assert.assertEquals(ServiceResult.Success, results.get(1).getResult());
+    Assert.assertEquals(ServiceResult.Error, results.get(2).getResult());
+    Assert.assertEquals(ServiceError.ErrorMailRecipientNotFound, results.get(2).getErrorCode());
+  }
+
+  @Test
+  public void testCachesSuccessfulLookups() throws Exception {
+    engine.setCacheTtlMillis(60_000);
+    List<AttendeeInfo> attendees = attendees(3);
+    attendees.add(new AttendeeInfo("missing@contoso.com"));
+    TimeWindow window = new TimeWindow(MONDAY, MONDAY.plusDays(1));
+
+    engine.getUserAvailability(attendees, window, mergedOnly());
+    Assert.assertEquals(1, requestCount.get());
+    Assert.assertEquals(4, maxAttendeesSeen.get());
+
+    maxAttendeesSeen.set(0);
+    List<AttendeeAvailability> results = engine.getUserAvailability(attendees, window, mergedOnly());
+    Assert.assertEquals(2, requestCount.get());
+    Assert.assertEquals(1, maxAttendeesSeen.get());
+    Assert.assertEquals(48, results.get(0).getMergedFreeBusy().count(LegacyFreeBusyStatus.Busy));
+
+    engine.clearCache();
+    engine.getUserAvailability(attendees, window, mergedOnly());
+    Assert.assertEquals(3, requestCount.get());
+    Assert.assertEquals(4, maxAttendeesSeen.get());
+  }
+
+  @Test
+  public void testTrimsWholeDaysToRequestedWindow() throws Exception {
+    engine.setMaxTimeWindow(Duration.ofDays(1));
+    List<AttendeeAvailability> results = engine.getUserAvailability(
+        Collections.singletonList(new AttendeeInfo("events@contoso.com")),
+        new TimeWindow(MONDAY.plusHours(9), MONDAY.plusDays(1).plusHours(17).plusMinutes(15)), mergedOnly());
+
+    // Monday and Tuesday are requested; the slots from Monday 09:00 to Tuesday 17:30 are kept, and so
+    // are the events except for the one at the end of Tuesday.
+    Assert.assertEquals(2, requestCount.get());
+    MergedFreeBusy merged = results.get(0).getMergedFreeBusy();
+    Assert.assertEquals(65, merged.getSlotCount());
+    Assert.assertEquals(65, merged.count(LegacyFreeBusyStatus.Free));
+    List<LocalDateTime> starts = new ArrayList<>();
+    for (CalendarEvent event : results.get(0).getCalendarEvents()) {
+      starts.add(event.getStartTime());
+    }
+    Assert.assertEquals(Arrays.asList(MONDAY.plusHours(12), MONDAY.plusDays(1).minusMinutes(10),
+        MONDAY.plusDays(1).plusHours(12)), starts);
+  }
+
+  @Test
+  public void testReturnsCopiesOfCachedLookups() throws Exception {
+    engine.setCacheTtlMillis(60_000);
+    List<AttendeeInfo> attendees = Collections.singletonList(new AttendeeInfo("events@contoso.com"));
+    TimeWindow window = new TimeWindow(MONDAY, MONDAY.plusDays(1));
+
+    AttendeeAvailability first = engine.getUserAvailability(attendees, window, mergedOnly()).get(0);
+    first.getCalendarEvents().clear();
+    AttendeeAvailability second = engine.getUserAvailability(attendees, window, mergedOnly()).get(0);
+
+    Assert.assertEquals(1, requestCount.get());
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals(2, second.getCalendarEvents().size());
+  }
+
+  @Test
+  public void testSplitTimeWindow() {
+    List<TimeWindow> windows = engine.splitTimeWindow(
+        new TimeWindow(MONDAY, MONDAY.plusDays(84).plusMinutes(10)), 30);
+    Assert.assertEquals(3, windows.size());
+    Assert.assertEquals(MONDAY.plusDays(42), windows.get(0).getEndTime());
+    Assert.assertEquals(MONDAY.plusDays(84), windows.get(1).getEndTime());
+    Assert.assertEquals(MONDAY.plusDays(85), windows.get(2).getEndTime());
+
+    engine.setMaxTimeWindow(Duration.ofDays(2).plusHours(5));
+    windows = engine.splitTimeWindow(new TimeWindow(MONDAY.plusHours(10), MONDAY.plusDays(3).plusHours(2)), 30);
+    Assert.assertEquals(2, windows.size());
+    Assert.assertEquals(MONDAY, windows.get(0).getStartTime());
+    Assert.assertEquals(MONDAY.plusDays(2), windows.get(0).getEndTime());
+    Assert.assertEquals(MONDAY.plusDays(4), windows.get(1).getEndTime());
+
+    windows = engine.splitTimeWindow(new TimeWindow(MONDAY.plusHours(10), MONDAY.plusHours(11)), 30);
+    Assert.assertEquals(1, windows.size());
+    Assert.assertEquals(MONDAY.plusDays(1), windows.get(0).getEndTime());
+  }
+
+}
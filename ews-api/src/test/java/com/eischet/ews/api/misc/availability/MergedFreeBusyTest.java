@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.availability;
+
+import com.eischet.ews.api.core.enumeration.property.LegacyFreeBusyStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+public class MergedFreeBusyTest {
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+
+  @Test
+  public void testParseAndEncode() {
+    MergedFreeBusy view = MergedFreeBusy.parse("0123400x");
+    Assert.assertEquals(8, view.getSlotCount());
+    Assert.assertEquals(LegacyFreeBusyStatus.Free, view.getStatus(0));
+    Assert.assertEquals(LegacyFreeBusyStatus.Tentative, view.getStatus(1));
+    Assert.assertEquals(LegacyFreeBusyStatus.Busy, view.getStatus(2));
+    Assert.assertEquals(LegacyFreeBusyStatus.OOF, view.getStatus(3));
+    Assert.assertEquals(LegacyFreeBusyStatus.NoData, view.getStatus(4));
+    // unknown characters keep their slot
+    Assert.assertEquals(LegacyFreeBusyStatus.NoData, view.getStatus(7));
+    Assert.assertEquals("01234004", view.toString());
+    Assert.assertEquals(3, view.count(LegacyFreeBusyStatus.Free));
+    Assert.assertEquals(Arrays.asList(LegacyFreeBusyStatus.Free, LegacyFreeBusyStatus.Tentative),
+        view.asList().subList(0, 2));
+    Assert.assertSame(MergedFreeBusy.EMPTY, MergedFreeBusy.parse(""));
+  }
+
+  @Test
+  public void testConcatAcrossWordBoundaries() {
+    String first = repeat('0', 50) + "2";
+    String second = repeat('1', 70) + "3";
+    String third = "0202";
+    MergedFreeBusy joined = MergedFreeBusy.concat(Arrays.asList(
+        MergedFreeBusy.parse(first), MergedFreeBusy.parse(second), MergedFreeBusy.parse(third)));
+    Assert.assertEquals(MergedFreeBusy.parse(first + second + third), joined);
+    Assert.assertEquals(first + second + third, joined.toString());
+  }
+
+  @Test
+  public void testSliceAcrossWordBoundaries() {
+    String slots = repeat('0', 60) + "2341" + repeat('1', 70) + "3020";
+    MergedFreeBusy view = MergedFreeBusy.parse(slots);
+    Assert.assertEquals(MergedFreeBusy.parse(slots.substring(61, 136)), view.slice(61, 136));
+    Assert.assertEquals(slots.substring(130), view.slice(130, 1000).toString());
+    Assert.assertSame(view, view.slice(0, slots.length()));
+    Assert.assertSame(MergedFreeBusy.EMPTY, view.slice(5, 5));
+  }
+
+  @Test
+  public void testFindFirstCommonFreeSlot() {
+    // 6 weeks of 30 minute slots
+    int slots = 42 * 48;
+    StringBuilder a = new StringBuilder(repeat('2', slots));
+    StringBuilder b = new StringBuilder(repeat('0', slots));
+    // a is free from 100 to 130, b is busy from 90 to 110: the first common hour starts at 110
+    for (int i = 100; i < 130; i++) {
+      a.setCharAt(i, '0');
+    }
+    for (int i = 90; i < 110; i++) {
+      b.setCharAt(i, '2');
+    }
+    List<MergedFreeBusy> attendees = Arrays.asList(MergedFreeBusy.parse(a), MergedFreeBusy.parse(b));
+
+    Assert.assertEquals(110, MergedFreeBusy.findFirstCommonFreeSlot(attendees, 2));
+    Assert.assertEquals(110, MergedFreeBusy.findFirstCommonFreeSlot(attendees, 20));
+    Assert.assertEquals(-1, MergedFreeBusy.findFirstCommonFreeSlot(attendees, 21));
+    Assert.assertEquals(120, MergedFreeBusy.findFirstCommonSlot(attendees,
+        EnumSet.of(LegacyFreeBusyStatus.Free), 120, 4));
+
+    long[] common = MergedFreeBusy.intersect(attendees, EnumSet.of(LegacyFreeBusyStatus.Free));
+    Assert.assertEquals((slots + 63) / 64, common.length);
+    int count = 0;
+    for (long word : common) {
+      count += Long.bitCount(word);
+    }
+    Assert.assertEquals(20, count);
+  }
+
+  @Test
+  public void testTentativeCountsWhenRequested() {
+    List<MergedFreeBusy> attendees = Arrays.asList(
+        MergedFreeBusy.parse("2110"), MergedFreeBusy.parse("0011"));
+    Assert.assertEquals(-1, MergedFreeBusy.findFirstCommonFreeSlot(attendees, 1));
+    Assert.assertEquals(1, MergedFreeBusy.findFirstCommonSlot(attendees,
+        EnumSet.of(LegacyFreeBusyStatus.Free, LegacyFreeBusyStatus.Tentative), 0, 2));
+    // slots beyond the shortest view are never available
+    Assert.assertEquals(-1, MergedFreeBusy.findFirstCommonFreeSlot(
+        Arrays.asList(MergedFreeBusy.parse("00"), MergedFreeBusy.parse("0000")), 3));
+    Assert.assertEquals(-1, MergedFreeBusy.findFirstCommonFreeSlot(Collections.emptyList(), 1));
+  }
+
+}
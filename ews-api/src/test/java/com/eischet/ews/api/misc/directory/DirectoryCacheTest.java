@@ -0,0 +1,258 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.directory;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.misc.ConnectingIdType;
+import com.eischet.ews.api.core.enumeration.property.MailboxType;
+import com.eischet.ews.api.misc.ExpandGroupResults;
+import com.eischet.ews.api.misc.ImpersonatedUserId;
+import com.eischet.ews.api.misc.NameResolutionCollection;
+import com.eischet.ews.api.property.complex.EmailAddress;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.eischet.ews.api.FakeExchangeHttpClient.FOOTER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.HEADER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.NAMESPACES;
+
+@RunWith(JUnit4.class)
+public class DirectoryCacheTest {
+
+  private static final Pattern UNRESOLVED_ENTRY = Pattern.compile("UnresolvedEntry>([^<]+)<");
+  private static final Pattern GROUP_ADDRESS = Pattern.compile("EmailAddress>([^<]+)<");
+
+  /** The members of each group; addresses starting with "dl-" are groups. */
+  private static final Map<String, List<String>> GROUPS = new HashMap<>();
+
+  static {
+    GROUPS.put("dl-a@contoso.com", Arrays.asList("user1@contoso.com", "dl-b@contoso.com", "dl-c@contoso.com"));
+    GROUPS.put("dl-b@contoso.com", Arrays.asList("user2@contoso.com", "dl-a@contoso.com", "USER1@contoso.com"));
+    GROUPS.put("dl-c@contoso.com", Arrays.asList("user3@contoso.com", "dl-b@contoso.com"));
+    GROUPS.put("dl-p@contoso.com", Arrays.asList("dl-p1@contoso.com", "dl-p2@contoso.com", "dl-p3@contoso.com"));
+    GROUPS.put("dl-p1@contoso.com", Collections.singletonList("user1@contoso.com"));
+    GROUPS.put("dl-p2@contoso.com", Collections.singletonList("user2@contoso.com"));
+    GROUPS.put("dl-p3@contoso.com", Collections.singletonList("user3@contoso.com"));
+  }
+
+  private ExchangeService service;
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+  private volatile CountDownLatch arrived = new CountDownLatch(0);
+  private volatile CountDownLatch release = new CountDownLatch(0);
+  /** Counted down by each expansion of a dl-pN group, which waits until it reaches zero. */
+  private volatile CountDownLatch expanding = new CountDownLatch(0);
+  private volatile long now = 1000;
+  private DirectoryCache cache;
+
+  private static String mailbox(String address) {
+    return "<t:Mailbox><t:Name>" + address + "</t:Name><t:EmailAddress>" + address + "</t:EmailAddress>"
+        + "<t:RoutingType>SMTP</t:RoutingType><t:MailboxType>"
+        + (address.startsWith("dl-") ? "PublicDL" : "Mailbox") + "</t:MailboxType></t:Mailbox>";
+  }
+
+  private String respond(String request) throws InterruptedException {
+    Matcher name = UNRESOLVED_ENTRY.matcher(request);
+    if (name.find()) {
+      requests.add("resolve:" + name.group(1));
+      arrived.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return HEADER + "<m:ResolveNamesResponse" + NAMESPACES + "><m:ResponseMessages>"
+          + "<m:ResolveNamesResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>"
+          + "<m:ResolutionSet TotalItemsInView=\"1\" IncludesLastItemInRange=\"true\"><t:Resolution>"
+          + mailbox(name.group(1) + "-" + requests.size() + "@contoso.com")
+          + "</t:Resolution></m:ResolutionSet></m:ResolveNamesResponseMessage>"
+          + "</m:ResponseMessages></m:ResolveNamesResponse>" + FOOTER;
+    }
+    Matcher group = GROUP_ADDRESS.matcher(request);
+    Assert.assertTrue(group.find());
+    requests.add("expand:" + group.group(1));
+    if (group.group(1).matches("dl-p\\d@.*")) {
+      expanding.countDown();
+      if (!expanding.await(5, TimeUnit.SECONDS)) {
+        requests.add("timeout:" + group.group(1));
+      }
+    }
+    List<String> members = GROUPS.get(group.group(1));
+    return HEADER + "<m:ExpandDLResponse" + NAMESPACES + "><m:ResponseMessages>"
+        + "<m:ExpandDLResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>"
+        + "<m:DLExpansion TotalItemsInView=\"" + members.size() + "\" IncludesLastItemInRange=\"true\">"
+        + members.stream().map(DirectoryCacheTest::mailbox).collect(Collectors.joining())
+        + "</m:DLExpansion></m:ExpandDLResponseMessage></m:ResponseMessages></m:ExpandDLResponse>" + FOOTER;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    service = new FakeExchangeHttpClient(request -> respond(request.getBody())).createService();
+    cache = new DirectoryCache(service, 100, 50, 100) {
+      @Override
+      protected long currentTimeMillis() {
+        return now;
+      }
+    };
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+  }
+
+  private static String firstAddress(NameResolutionCollection resolutions) {
+    return resolutions.iterator().next().getMailbox().getAddress();
+  }
+
+  @Test
+  public void testResultsExpireAndAreRefreshedWhileStale() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    cache.setExecutor(executor);
+
+    NameResolutionCollection first = cache.resolveName("alice");
+    Assert.assertEquals("alice-1@contoso.com", firstAddress(cache.resolveName("ALICE")));
+    Assert.assertEquals(1, requests.size());
+
+    // Expired but not too old: the stale result is returned and refreshed in the background.
+    now += 120;
+    Assert.assertEquals(firstAddress(first), firstAddress(cache.resolveName("alice")));
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    Assert.assertEquals(2, requests.size());
+    Assert.assertEquals("alice-2@contoso.com", firstAddress(cache.resolveName("alice")));
+
+    // Too old: fetched before it is returned.
+    now += 200;
+    Assert.assertEquals("alice-3@contoso.com", firstAddress(cache.resolveName("alice")));
+    Assert.assertEquals(3, requests.size());
+    Assert.assertEquals(2, cache.getHitCount());
+    Assert.assertEquals(1, cache.getStaleHitCount());
+    Assert.assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testConcurrentLookupsShareOneRequest() throws Exception {
+    arrived = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+    ExecutorService callers = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<NameResolutionCollection>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(callers.submit(() -> cache.resolveName("bob")));
+      }
+      Assert.assertTrue(arrived.await(5, TimeUnit.SECONDS));
+      release.countDown();
+      NameResolutionCollection result = futures.get(0).get(5, TimeUnit.SECONDS);
+      for (Future<NameResolutionCollection> future : futures) {
+        Assert.assertEquals(firstAddress(result), firstAddress(future.get(5, TimeUnit.SECONDS)));
+      }
+    } finally {
+      callers.shutdownNow();
+    }
+    Assert.assertEquals(Collections.singletonList("resolve:bob"), requests);
+  }
+
+  @Test
+  public void testExpandsNestedGroupsOnce() throws Exception {
+    List<EmailAddress> members = cache.expandGroupRecursively("dl-a@contoso.com");
+
+    Assert.assertEquals(Arrays.asList("user1@contoso.com", "user2@contoso.com", "user3@contoso.com"),
+        members.stream().map(EmailAddress::getAddress).collect(Collectors.toList()));
+    Assert.assertEquals(MailboxType.Mailbox, members.get(0).getMailboxType());
+    Assert.assertEquals(3, requests.size());
+    Assert.assertTrue(requests.containsAll(Arrays.asList(
+        "expand:dl-a@contoso.com", "expand:dl-b@contoso.com", "expand:dl-c@contoso.com")));
+
+    cache.expandGroupRecursively("DL-A@contoso.com");
+    Assert.assertEquals(3, requests.size());
+    Assert.assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void testReturnsCopiesOfCachedResults() throws Exception {
+    NameResolutionCollection first = cache.resolveName("alice");
+    NameResolutionCollection second = cache.resolveName("alice");
+    Assert.assertNotSame(first, second);
+    Assert.assertNotSame(first.iterator().next().getMailbox(), second.iterator().next().getMailbox());
+    first.iterator().next().getMailbox().setAddress("changed@contoso.com");
+    Assert.assertEquals("alice-1@contoso.com", firstAddress(cache.resolveName("alice")));
+
+    ExpandGroupResults group = cache.expandGroup("dl-c@contoso.com");
+    group.getMembers().iterator().next().setAddress("changed@contoso.com");
+    group.getMembers().clear();
+    ExpandGroupResults again = cache.expandGroup("dl-c@contoso.com");
+    Assert.assertEquals(2, again.getCount());
+    Assert.assertEquals("user3@contoso.com", again.iterator().next().getAddress());
+    Assert.assertTrue(again.getIncludesAllMembers());
+    Assert.assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void testCachesResultsPerImpersonatedUser() throws Exception {
+    cache.resolveName("alice");
+    cache.expandGroup("dl-c@contoso.com");
+
+    service.setImpersonatedUserId(new ImpersonatedUserId(ConnectingIdType.SmtpAddress, "bob@contoso.com"));
+    Assert.assertEquals("alice-3@contoso.com", firstAddress(cache.resolveName("alice")));
+    cache.expandGroup("dl-c@contoso.com");
+    Assert.assertEquals(4, requests.size());
+
+    service.setImpersonatedUserId(null);
+    Assert.assertEquals("alice-1@contoso.com", firstAddress(cache.resolveName("alice")));
+    Assert.assertEquals(4, requests.size());
+  }
+
+  @Test
+  public void testResizesTheDefaultPool() throws Exception {
+    cache.setMaxParallelRequests(1);
+    // dl-b and dl-c are expanded in parallel, which creates the default pool.
+    cache.expandGroupRecursively("dl-a@contoso.com");
+
+    cache.setMaxParallelRequests(3);
+    Assert.assertEquals(3, cache.getMaxParallelRequests());
+    // The three nested groups only finish once all of them are being expanded at the same time.
+    expanding = new CountDownLatch(3);
+    List<EmailAddress> members = cache.expandGroupRecursively("dl-p@contoso.com");
+
+    Assert.assertEquals(3, members.size());
+    Assert.assertTrue(requests.toString(), requests.stream().noneMatch(r -> r.startsWith("timeout:")));
+  }
+
+}
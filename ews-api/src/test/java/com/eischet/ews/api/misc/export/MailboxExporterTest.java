@@ -0,0 +1,243 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.export;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.property.complex.FolderId;
+import com.eischet.ews.api.property.complex.ItemId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.eischet.ews.api.FakeExchangeHttpClient.FOOTER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.HEADER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.NAMESPACES;
+
+@RunWith(JUnit4.class)
+public class MailboxExporterTest {
+
+  private static final Pattern ITEM_ID = Pattern.compile("ItemId Id=\"([^\"]+)\"");
+  private static final Pattern SYNC_STATE = Pattern.compile("SyncState>([^<]*)<");
+
+  private ExchangeService service;
+  private final AtomicInteger getItemRequests = new AtomicInteger();
+
+  /**
+   * A thread-safe sink recording what it receives.
+   */
+  private static class RecordingSink implements IMailboxExportSink {
+    private final Map<String, String> committed = Collections.synchronizedMap(new TreeMap<String, String>());
+    private final Map<String, String> subjects = Collections.synchronizedMap(new TreeMap<String, String>());
+    private final List<String> aborted = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> checkpoints = new ArrayList<>();
+
+    @Override
+    public OutputStream openItem(ItemId itemId) {
+      return new ByteArrayOutputStream();
+    }
+
+    @Override
+    public void commitItem(ItemId itemId, OutputStream stream, Item item) throws IOException {
+      committed.put(itemId.getUniqueId(), stream.toString());
+      try {
+        subjects.put(itemId.getUniqueId(), item.getSubject());
+      } catch (Exception e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public void abortItem(ItemId itemId, OutputStream stream, Exception cause) {
+      aborted.add(itemId.getUniqueId());
+    }
+
+    @Override
+    public void checkpoint(String checkpoint) {
+      checkpoints.add(checkpoint);
+    }
+  }
+
+  private String respond(String request) {
+    StringBuilder body = new StringBuilder(HEADER);
+    if (request.contains("SyncFolderItems")) {
+      Matcher state = SYNC_STATE.matcher(request);
+      boolean first = !state.find() || state.group(1).isEmpty();
+      body.append("<m:SyncFolderItemsResponse").append(NAMESPACES).append("><m:ResponseMessages>")
+          .append("<m:SyncFolderItemsResponseMessage ResponseClass=\"Success\">")
+          .append("<m:ResponseCode>NoError</m:ResponseCode>")
+          .append("<m:SyncState>").append(first ? "s1" : "s2").append("</m:SyncState>")
+          .append("<m:IncludesLastItemInRange>").append(!first).append("</m:IncludesLastItemInRange>")
+          .append("<m:Changes>");
+      for (String id : first ? Arrays.asList("A", "B", "C") : Arrays.asList("D", "E")) {
+        body.append("<t:Create><t:Message><t:ItemId Id=\"").append(id).append("\" ChangeKey=\"k\"/></t:Message></t:Create>");
+      }
+      if (!first) {
+        body.append("<t:Delete><t:ItemId Id=\"X\" ChangeKey=\"k\"/></t:Delete>");
+      }
+      body.append("</m:Changes></m:SyncFolderItemsResponseMessage></m:ResponseMessages></m:SyncFolderItemsResponse>");
+    } else {
+      getItemRequests.incrementAndGet();
+      body.append("<m:GetItemResponse").append(NAMESPACES).append("><m:ResponseMessages>");
+      Matcher ids = ITEM_ID.matcher(request);
+      while (ids.find()) {
+        String id = ids.group(1);
+        if (id.equals("E")) {
+          body.append("<m:GetItemResponseMessage ResponseClass=\"Error\">")
+              .append("<m:MessageText>The specified object was not found in the store.</m:MessageText>")
+              .append("<m:ResponseCode>ErrorItemNotFound</m:ResponseCode>")
+              .append("<m:DescriptiveLinkKey>0</m:DescriptiveLinkKey><m:Items/>")
+              .append("</m:GetItemResponseMessage>");
+        } else {
+          body.append("<m:GetItemResponseMessage ResponseClass=\"Success\">")
+              .append("<m:ResponseCode>NoError</m:ResponseCode><m:Items><t:Message>")
+              .append("<t:MimeContent CharacterSet=\"UTF-8\">")
+              .append(Base64.getEncoder().encodeToString(("mime-" + id).getBytes(StandardCharsets.UTF_8)))
+              .append("</t:MimeContent>")
+              .append("<t:ItemId Id=\"").append(id).append("\" ChangeKey=\"k\"/>")
+              .append("<t:Subject>subject-").append(id).append("</t:Subject>")
+              .append("</t:Message></m:Items></m:GetItemResponseMessage>");
+        }
+      }
+      body.append("</m:ResponseMessages></m:GetItemResponse>");
+    }
+    return body.append(FOOTER).toString();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    service = new FakeExchangeHttpClient(request -> respond(request.getBody())).createService();
+  }
+
+  @Test
+  public void testExportsAllPagesInBatches() throws Exception {
+    MailboxExporter exporter = new MailboxExporter(service);
+    exporter.setBatchSize(2);
+    exporter.setMaxParallelRequests(3);
+    exporter.setQueueCapacity(1);
+    RecordingSink sink = new RecordingSink();
+
+    MailboxExportResult result = exporter.export(new FolderId(WellKnownFolderName.Inbox), null, sink);
+
+    Assert.assertEquals(4, result.getExportedCount());
+    Assert.assertEquals(1, result.getFailedCount());
+    Assert.assertEquals("s2", result.getCheckpoint());
+    Assert.assertEquals(Arrays.asList("s1", "s2"), sink.checkpoints);
+    Assert.assertEquals(Arrays.asList("A", "B", "C", "D"), new ArrayList<>(sink.committed.keySet()));
+    Assert.assertEquals("mime-C", sink.committed.get("C"));
+    Assert.assertEquals("subject-D", sink.subjects.get("D"));
+    Assert.assertEquals(Collections.singletonList("E"), sink.aborted);
+    // Pages of 3 and 2 items, in batches of 2.
+    Assert.assertEquals(3, getItemRequests.get());
+  }
+
+  @Test
+  public void testResumesFromCheckpoint() throws Exception {
+    MailboxExporter exporter = new MailboxExporter(service);
+    RecordingSink sink = new RecordingSink();
+
+    MailboxExportResult result = exporter.export(new FolderId(WellKnownFolderName.Inbox), "s1", sink);
+
+    Assert.assertEquals(1, result.getExportedCount());
+    Assert.assertEquals(Collections.singletonList("D"), new ArrayList<>(sink.committed.keySet()));
+    Assert.assertEquals(Collections.singletonList("s2"), sink.checkpoints);
+  }
+
+  @Test
+  public void testFailingSinkStopsExportBeforeCheckpoint() throws Exception {
+    MailboxExporter exporter = new MailboxExporter(service);
+    exporter.setBatchSize(1);
+    RecordingSink sink = new RecordingSink() {
+      @Override
+      public void commitItem(ItemId itemId, OutputStream stream, Item item) throws IOException {
+        if (itemId.getUniqueId().equals("B")) {
+          throw new IOException("disk full");
+        }
+        super.commitItem(itemId, stream, item);
+      }
+    };
+
+    try {
+      exporter.export(new FolderId(WellKnownFolderName.Inbox), null, sink);
+      Assert.fail("Expected the sink failure to be thrown");
+    } catch (IOException e) {
+      Assert.assertEquals("disk full", e.getMessage());
+    }
+    Assert.assertTrue(sink.checkpoints.isEmpty());
+  }
+
+  @Test
+  public void testFailingSinkAbortsTheRestOfTheBatch() throws Exception {
+    MailboxExporter exporter = new MailboxExporter(service);
+    exporter.setBatchSize(3);
+    exporter.setMaxParallelRequests(1);
+    final List<String> opened = Collections.synchronizedList(new ArrayList<String>());
+    RecordingSink sink = new RecordingSink() {
+      @Override
+      public OutputStream openItem(ItemId itemId) {
+        opened.add(itemId.getUniqueId());
+        return super.openItem(itemId);
+      }
+
+      @Override
+      public void commitItem(ItemId itemId, OutputStream stream, Item item) throws IOException {
+        if (itemId.getUniqueId().equals("B")) {
+          throw new IOException("disk full");
+        }
+        super.commitItem(itemId, stream, item);
+      }
+    };
+
+    try {
+      exporter.export(new FolderId(WellKnownFolderName.Inbox), null, sink);
+      Assert.fail("Expected the sink failure to be thrown");
+    } catch (IOException e) {
+      Assert.assertEquals("disk full", e.getMessage());
+    }
+    // A was committed and B handed to commitItem; C, opened in the same batch, must not be left open.
+    Assert.assertEquals(Arrays.asList("A", "B", "C"), opened);
+    Assert.assertEquals(Collections.singletonList("A"), new ArrayList<>(sink.committed.keySet()));
+    Assert.assertEquals(Collections.singletonList("C"), sink.aborted);
+  }
+
+}
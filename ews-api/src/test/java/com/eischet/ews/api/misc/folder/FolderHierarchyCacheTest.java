@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.folder;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.exception.service.local.ServiceLocalException;
+import com.eischet.ews.api.property.complex.FolderId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.eischet.ews.api.FakeExchangeHttpClient.FOOTER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.HEADER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.NAMESPACES;
+
+@RunWith(JUnit4.class)
+public class FolderHierarchyCacheTest {
+
+  private static final Pattern SYNC_STATE = Pattern.compile("SyncState>([^<]+)<");
+
+  private ExchangeService service;
+  private FolderHierarchyCache cache;
+  /** The requests: "sync:" and the sync state sent, or "get". */
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+  /** More folders created by the first page of the hierarchy. */
+  private String moreFolders = "";
+
+  private static String folder(String change, String id, String parentId, String name) {
+    return "<t:" + change + "><t:Folder><t:FolderId Id=\"" + id + "\" ChangeKey=\"1\"/>"
+        + "<t:ParentFolderId Id=\"" + parentId + "\" ChangeKey=\"1\"/>"
+        + "<t:FolderClass>IPF.Note</t:FolderClass><t:DisplayName>" + name + "</t:DisplayName>"
+        + "</t:Folder></t:" + change + ">";
+  }
+
+  private static String syncResponse(String syncState, boolean last, String changes) {
+    return HEADER + "<m:SyncFolderHierarchyResponse" + NAMESPACES + "><m:ResponseMessages>"
+        + "<m:SyncFolderHierarchyResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>"
+        + "<m:SyncState>" + syncState + "</m:SyncState>"
+        + "<m:IncludesLastFolderInRange>" + last + "</m:IncludesLastFolderInRange>"
+        + "<m:Changes>" + changes + "</m:Changes>"
+        + "</m:SyncFolderHierarchyResponseMessage></m:ResponseMessages></m:SyncFolderHierarchyResponse>" + FOOTER;
+  }
+
+  private String respond(String request) {
+    if (request.contains("GetFolder")) {
+      requests.add("get");
+      String folder = request.contains("msgfolderroot")
+          ? "<t:Folder><t:FolderId Id=\"root\" ChangeKey=\"1\"/><t:ParentFolderId Id=\"top\" ChangeKey=\"1\"/>"
+          + "<t:DisplayName>Top of Information Store</t:DisplayName></t:Folder>"
+          : "<t:Folder><t:FolderId Id=\"f-inbox\" ChangeKey=\"1\"/></t:Folder>";
+      return HEADER + "<m:GetFolderResponse" + NAMESPACES + "><m:ResponseMessages>"
+          + "<m:GetFolderResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>"
+          + "<m:Folders>" + folder + "</m:Folders>"
+          + "</m:GetFolderResponseMessage></m:ResponseMessages></m:GetFolderResponse>" + FOOTER;
+    }
+    Matcher matcher = SYNC_STATE.matcher(request);
+    String syncState = matcher.find() ? matcher.group(1) : null;
+    requests.add("sync:" + syncState);
+    if (syncState == null) {
+      return syncResponse("s1", false, folder("Create", "f-2026", "f-projects", "2026")
+          + folder("Create", "f-inbox", "root", "Inbox") + moreFolders);
+    } else if (syncState.equals("s1")) {
+      return syncResponse("s2", true, folder("Create", "f-projects", "f-inbox", "Projects")
+          + folder("Create", "f-calendar", "root", "Calendar")
+          + folder("Create", "f-meetings", "f-calendar", "Meetings"));
+    } else if (syncState.equals("s2")) {
+      return syncResponse("s3", true, folder("Update", "f-projects", "f-inbox", "Work")
+          + "<t:Delete><t:FolderId Id=\"f-calendar\" ChangeKey=\"2\"/></t:Delete>");
+    }
+    return HEADER + "<m:SyncFolderHierarchyResponse" + NAMESPACES + "><m:ResponseMessages>"
+        + "<m:SyncFolderHierarchyResponseMessage ResponseClass=\"Error\">"
+        + "<m:MessageText>Invalid sync state.</m:MessageText>"
+        + "<m:ResponseCode>ErrorInvalidSyncStateData</m:ResponseCode>"
+        + "<m:DescriptiveLinkKey>0</m:DescriptiveLinkKey>"
+        + "</m:SyncFolderHierarchyResponseMessage></m:ResponseMessages></m:SyncFolderHierarchyResponse>" + FOOTER;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    service = new FakeExchangeHttpClient(request -> respond(request.getBody())).createService();
+    cache = new FolderHierarchyCache(service);
+  }
+
+  private String idOf(String path) throws Exception {
+    return cache.getFolder(path) == null ? null : cache.getFolder(path).getId().getUniqueId();
+  }
+
+  @Test
+  public void testLooksUpFoldersByPathAndId() throws Exception {
+    Assert.assertEquals("f-2026", idOf("Inbox/Projects/2026"));
+    Assert.assertEquals("f-2026", idOf("/inbox/PROJECTS/2026/"));
+    Assert.assertEquals("f-meetings", idOf("Calendar/Meetings"));
+    Assert.assertNull(idOf("Inbox/2026"));
+    Assert.assertEquals("Inbox/Projects/2026", cache.getPath(new FolderId("f-2026")));
+    Assert.assertEquals("Projects", cache.getFolder(new FolderId("f-projects")).getDisplayName());
+    Assert.assertEquals(5, cache.getCount());
+    Assert.assertEquals("s2", cache.getSyncState());
+    Assert.assertEquals(Arrays.asList("sync:null", "sync:s1"), requests);
+
+    Assert.assertEquals("f-inbox", cache.getFolder(WellKnownFolderName.Inbox).getId().getUniqueId());
+    Assert.assertEquals("Inbox", cache.getFolder(new FolderId(WellKnownFolderName.Inbox)).getDisplayName());
+    Assert.assertEquals(Arrays.asList("sync:null", "sync:s1", "get"), requests);
+  }
+
+  @Test
+  public void testAppliesChangesIncrementally() throws Exception {
+    cache.synchronize();
+
+    Assert.assertEquals(2, cache.synchronize());
+    Assert.assertEquals("f-2026", idOf("Inbox/Work/2026"));
+    Assert.assertNull(idOf("Inbox/Projects/2026"));
+    // The subfolders of a deleted folder are dropped as well.
+    Assert.assertNull(idOf("Calendar"));
+    Assert.assertNull(cache.getFolder(new FolderId("f-meetings")));
+    Assert.assertEquals(3, cache.getCount());
+    Assert.assertEquals(Arrays.asList("sync:null", "sync:s1", "sync:s2"), requests);
+
+    // The server rejects the sync state "s3", so the hierarchy is loaded from scratch.
+    cache.synchronize();
+    Assert.assertEquals(Arrays.asList("sync:null", "sync:s1", "sync:s2", "sync:s3", "sync:null", "sync:s1"),
+        requests);
+    Assert.assertEquals("f-2026", idOf("Inbox/Projects/2026"));
+    Assert.assertEquals(5, cache.getCount());
+  }
+
+  @Test
+  public void testReturnsReadOnlyViews() throws Exception {
+    CachedFolder inbox = cache.getFolder("Inbox");
+    FolderId id = inbox.getId();
+    id.setUniqueId("f-changed");
+    Assert.assertNotSame(id, inbox.getId());
+    Assert.assertEquals("f-inbox", inbox.getId().getUniqueId());
+    Assert.assertEquals("root", inbox.getParentFolderId().getUniqueId());
+    Assert.assertEquals("IPF.Note", inbox.getFolderClass());
+    Assert.assertSame(inbox, cache.getFolder(new FolderId("f-inbox")));
+  }
+
+  @Test
+  public void testEscapesSeparatorsInNames() throws Exception {
+    moreFolders = folder("Create", "f-slash", "f-inbox", "A/B") + folder("Create", "f-backslash", "f-slash", "C\\")
+        + folder("Create", "f-a", "f-inbox", "A") + folder("Create", "f-b", "f-a", "B");
+
+    Assert.assertEquals("Inbox/A\\/B", cache.getPath(new FolderId("f-slash")));
+    Assert.assertEquals("Inbox/A\\/B/C\\\\", cache.getPath(new FolderId("f-backslash")));
+    Assert.assertEquals("f-slash", idOf("Inbox/" + FolderHierarchyCache.escape("A/B")));
+    Assert.assertEquals("f-slash", idOf("inbox/a\\/b/"));
+    Assert.assertEquals("f-backslash", idOf("Inbox/A\\/B/C\\\\/"));
+    Assert.assertEquals("f-b", idOf("Inbox/A/B"));
+    Assert.assertEquals("plain", FolderHierarchyCache.escape("plain"));
+  }
+
+  @Test
+  public void testDetectsPathsThatOnlyDifferInCase() throws Exception {
+    moreFolders = folder("Create", "f-archive1", "root", "Archive") + folder("Create", "f-archive2", "root", "ARCHIVE")
+        + folder("Create", "f-old", "f-archive1", "Old");
+
+    Assert.assertEquals("f-archive1", idOf("Archive"));
+    Assert.assertEquals("f-archive2", idOf("/ARCHIVE/"));
+    Assert.assertEquals("f-old", idOf("archive/old"));
+    try {
+      cache.getFolder("archive");
+      Assert.fail("Expected ServiceLocalException");
+    } catch (ServiceLocalException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMapsTheMessageFolderRoot() throws Exception {
+    CachedFolder root = cache.getFolder(WellKnownFolderName.MsgFolderRoot);
+
+    Assert.assertEquals("root", root.getId().getUniqueId());
+    Assert.assertEquals("Top of Information Store", root.getDisplayName());
+    Assert.assertEquals("", cache.getPath(new FolderId("root")));
+    Assert.assertSame(root, cache.getFolder(new FolderId("root")));
+    Assert.assertSame(root, cache.getFolder("/"));
+    Assert.assertSame(root, cache.getFolder(new FolderId(WellKnownFolderName.MsgFolderRoot)));
+    Assert.assertEquals("Inbox/Projects/2026", cache.getPath(new FolderId("f-2026")));
+    Assert.assertEquals(5, cache.getCount());
+    Assert.assertEquals(Arrays.asList("sync:null", "sync:s1", "get"), requests);
+  }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.id;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.misc.IdFormat;
+import com.eischet.ews.api.core.enumeration.service.ServiceResult;
+import com.eischet.ews.api.core.response.ConvertIdResponse;
+import com.eischet.ews.api.core.response.ServiceResponseCollection;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.eischet.ews.api.FakeExchangeHttpClient.FOOTER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.HEADER;
+
+@RunWith(JUnit4.class)
+public class ConvertIdCacheTest {
+
+  private static final Pattern SOURCE_ID = Pattern.compile("AlternateId [^>]*?\\bId=\"([^\"]+)\"");
+
+  private ExchangeService service;
+  /** The source ids of each ConvertId request. */
+  private final List<List<String>> requests = Collections.synchronizedList(new ArrayList<List<String>>());
+
+  private String respond(String request) {
+    StringBuilder body = new StringBuilder(HEADER)
+        .append("<m:ConvertIdResponse xmlns:m=\"http://schemas.microsoft.com/exchange/services/2006/messages\"")
+        .append(" xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\"")
+        .append(" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"><m:ResponseMessages>");
+    List<String> ids = new ArrayList<>();
+    Matcher matcher = SOURCE_ID.matcher(request);
+    while (matcher.find()) {
+      String id = matcher.group(1);
+      ids.add(id);
+      if (id.startsWith("bad")) {
+        body.append("<m:ConvertIdResponseMessage ResponseClass=\"Error\">")
+            .append("<m:MessageText>Invalid id.</m:MessageText>")
+            .append("<m:ResponseCode>ErrorInvalidIdMalformed</m:ResponseCode>")
+            .append("<m:DescriptiveLinkKey>0</m:DescriptiveLinkKey>")
+            .append("</m:ConvertIdResponseMessage>");
+      } else {
+        body.append("<m:ConvertIdResponseMessage ResponseClass=\"Success\">")
+            .append("<m:ResponseCode>NoError</m:ResponseCode>")
+            .append("<m:AlternateId xsi:type=\"t:AlternateIdType\" Format=\"EwsId\" Id=\"ews-").append(id)
+            .append("\" Mailbox=\"user@contoso.com\"/>")
+            .append("</m:ConvertIdResponseMessage>");
+      }
+    }
+    requests.add(ids);
+    return body.append("</m:ResponseMessages></m:ConvertIdResponse>").append(FOOTER).toString();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    service = new FakeExchangeHttpClient(request -> respond(request.getBody())).createService();
+  }
+
+  private static AlternateIdBase entryId(String id) {
+    return new AlternateId(IdFormat.EntryId, id, "User@Contoso.com");
+  }
+
+  @Test
+  public void testConvertsOnlyMissesInOneRequest() throws Exception {
+    ConvertIdCache cache = new ConvertIdCache();
+    service.setConvertIdCache(cache);
+
+    AlternateId converted = (AlternateId) service.convertId(entryId("1"), IdFormat.EwsId);
+    Assert.assertEquals("ews-1", converted.getUniqueId());
+
+    ServiceResponseCollection<ConvertIdResponse> responses = service.convertIds(
+        Arrays.asList(entryId("2"), new AlternateId(IdFormat.EntryId, "1", "user@contoso.com"), entryId("bad"),
+            entryId("3")), IdFormat.EwsId);
+
+    Assert.assertEquals(Arrays.asList(Collections.singletonList("1"), Arrays.asList("2", "bad", "3")), requests);
+    Assert.assertEquals(4, responses.getCount());
+    Assert.assertEquals("ews-2", ((AlternateId) responses.getResponseAtIndex(0).getConvertedId()).getUniqueId());
+    Assert.assertEquals("ews-1", ((AlternateId) responses.getResponseAtIndex(1).getConvertedId()).getUniqueId());
+    Assert.assertEquals(ServiceResult.Error, responses.getResponseAtIndex(2).getResult());
+    Assert.assertEquals("ews-3", ((AlternateId) responses.getResponseAtIndex(3).getConvertedId()).getUniqueId());
+    Assert.assertEquals(ServiceResult.Error, responses.getOverallResult());
+
+    // Failed conversions are not cached, everything else is answered locally.
+    service.convertIds(Arrays.asList(entryId("3"), entryId("2")), IdFormat.EwsId);
+    Assert.assertEquals(2, requests.size());
+    Assert.assertEquals(3, cache.size());
+    Assert.assertEquals(3, cache.getHitCount());
+    Assert.assertEquals(4, cache.getMissCount());
+  }
+
+  @Test
+  public void testKeyIncludesFormatsAndMailbox() {
+    ConvertIdCache cache = new ConvertIdCache();
+    cache.put(entryId("1"), IdFormat.EwsId, new AlternateId(IdFormat.EwsId, "ews-1", "user@contoso.com"));
+
+    Assert.assertNotNull(cache.get(entryId("1"), IdFormat.EwsId));
+    Assert.assertNull(cache.get(entryId("1"), IdFormat.OwaId));
+    Assert.assertNull(cache.get(new AlternateId(IdFormat.HexEntryId, "1", "user@contoso.com"), IdFormat.EwsId));
+    Assert.assertNull(cache.get(new AlternateId(IdFormat.EntryId, "1", "other@contoso.com"), IdFormat.EwsId));
+    Assert.assertNull(cache.get(new AlternateId(IdFormat.EntryId, "1", "user@contoso.com", true), IdFormat.EwsId));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedAndReturnsCopies() {
+    ConvertIdCache cache = new ConvertIdCache(2);
+    cache.put(entryId("1"), IdFormat.EwsId, new AlternateId(IdFormat.EwsId, "ews-1", "user@contoso.com"));
+    cache.put(entryId("2"), IdFormat.EwsId, new AlternateId(IdFormat.EwsId, "ews-2", "user@contoso.com"));
+
+    AlternateId first = (AlternateId) cache.get(entryId("1"), IdFormat.EwsId);
+    first.setUniqueId("changed");
+    cache.put(entryId("3"), IdFormat.EwsId, new AlternateId(IdFormat.EwsId, "ews-3", "user@contoso.com"));
+
+    Assert.assertEquals(2, cache.size());
+    Assert.assertNull(cache.get(entryId("2"), IdFormat.EwsId));
+    Assert.assertEquals("ews-1", ((AlternateId) cache.get(entryId("1"), IdFormat.EwsId)).getUniqueId());
+
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.getHitCount());
+  }
+
+}
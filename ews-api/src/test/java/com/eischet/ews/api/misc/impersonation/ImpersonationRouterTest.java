@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.impersonation;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class ImpersonationRouterTest {
+
+  private static final String RESPONSE = FakeExchangeHttpClient.envelope(
+      "<m:ResolveNamesResponse" + FakeExchangeHttpClient.NAMESPACES + "><m:ResponseMessages>"
+          + "<m:ResolveNamesResponseMessage ResponseClass=\"Success\"><m:ResponseCode>NoError</m:ResponseCode>"
+          + "<m:ResolutionSet TotalItemsInView=\"0\" IncludesLastItemInRange=\"true\"/>"
+          + "</m:ResolveNamesResponseMessage></m:ResponseMessages></m:ResolveNamesResponse>");
+
+  private static final String AFFINITY = "MBX01.contoso.com~1942062248";
+
+  private ExchangeService template;
+  private ImpersonationRouter router;
+  /** The HTTP headers of each request. */
+  private final List<Map<String, String>> headers = Collections.synchronizedList(new ArrayList<Map<String, String>>());
+  /** The body of each request. */
+  private final List<String> bodies = Collections.synchronizedList(new ArrayList<String>());
+
+  @Before
+  public void setUp() throws Exception {
+    FakeExchangeHttpClient httpClient = new FakeExchangeHttpClient(request -> {
+      headers.add(request.getHttpHeaders());
+      bodies.add(request.getBody());
+      if ("alice@contoso.com".equalsIgnoreCase(request.getHttpHeaders().get("X-AnchorMailbox"))) {
+        request.getResponseHeaders().put("set-cookie", "X-BackEndOverrideCookie=" + AFFINITY + "; path=/EWS; secure");
+      }
+      return RESPONSE;
+    });
+    template = httpClient.createService();
+    template.getHttpHeaders().put("Cookie", "tenant=42");
+    router = new ImpersonationRouter(template);
+  }
+
+  @Test
+  public void testRoutesRequestsByMailbox() throws Exception {
+    router.forMailbox("Alice@contoso.com").resolveName("someone");
+    router.forMailbox("alice@contoso.com").resolveName("someone");
+    router.forMailbox("bob@contoso.com").resolveName("someone");
+
+    Assert.assertEquals(3, headers.size());
+    Assert.assertEquals("Alice@contoso.com", headers.get(0).get("X-AnchorMailbox"));
+    Assert.assertEquals("true", headers.get(0).get("X-PreferServerAffinity"));
+    Assert.assertEquals("tenant=42", headers.get(0).get("Cookie"));
+    Assert.assertTrue(bodies.get(0).contains("<t:SmtpAddress>Alice@contoso.com</t:SmtpAddress>"));
+
+    // The affinity cookie returned for alice is sent with her later requests only.
+    Assert.assertEquals("tenant=42; X-BackEndOverrideCookie=" + AFFINITY, headers.get(1).get("Cookie"));
+    Assert.assertEquals("bob@contoso.com", headers.get(2).get("X-AnchorMailbox"));
+    Assert.assertEquals("tenant=42", headers.get(2).get("Cookie"));
+
+    Assert.assertEquals(AFFINITY, router.getAffinityCookie("ALICE@contoso.com"));
+    Assert.assertNull(router.getAffinityCookie("bob@contoso.com"));
+    Assert.assertEquals(1, router.getAffinityCount());
+    Assert.assertFalse(template.getHttpHeaders().containsKey("X-AnchorMailbox"));
+    Assert.assertNull(template.getImpersonatedUserId());
+  }
+
+  @Test
+  public void testClearsAffinity() throws Exception {
+    router.forMailbox("alice@contoso.com").resolveName("someone");
+    router.clearAffinity();
+    router.forMailbox("alice@contoso.com").resolveName("someone");
+
+    Assert.assertEquals("tenant=42", headers.get(1).get("Cookie"));
+  }
+
+  @Test
+  public void testSetsTheAffinityCookieOnTheRequestOnly() throws Exception {
+    ExchangeService alice = router.forMailbox("alice@contoso.com");
+    Map<String, String> before = new HashMap<>(alice.getHttpHeaders());
+    alice.resolveName("someone");
+    alice.resolveName("someone");
+
+    Assert.assertEquals("tenant=42; X-BackEndOverrideCookie=" + AFFINITY, headers.get(1).get("Cookie"));
+    Assert.assertEquals(before, alice.getHttpHeaders());
+  }
+
+  @Test
+  public void testConcurrentRequestsOfOneMailbox() throws Exception {
+    final ExchangeService alice = router.forMailbox("alice@contoso.com");
+    alice.resolveName("someone");
+    ExecutorService callers = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        final boolean clear = i % 10 == 0;
+        futures.add(callers.submit(() -> {
+          if (clear) {
+            router.clearAffinity();
+          }
+          return alice.resolveName("someone");
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      callers.shutdownNow();
+    }
+
+    Assert.assertEquals(201, headers.size());
+    for (Map<String, String> requestHeaders : headers) {
+      String cookie = requestHeaders.get("Cookie");
+      Assert.assertTrue(cookie, "tenant=42".equals(cookie)
+          || ("tenant=42; X-BackEndOverrideCookie=" + AFFINITY).equals(cookie));
+      Assert.assertEquals("alice@contoso.com", requestHeaders.get("X-AnchorMailbox"));
+    }
+    Assert.assertEquals("tenant=42", alice.getHttpHeaders().get("Cookie"));
+  }
+
+}
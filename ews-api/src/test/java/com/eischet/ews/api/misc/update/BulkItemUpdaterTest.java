@@ -0,0 +1,197 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.misc.update;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.PropertySet;
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
+import com.eischet.ews.api.core.enumeration.property.BasePropertySet;
+import com.eischet.ews.api.core.exception.service.remote.ServiceResponseException;
+import com.eischet.ews.api.core.service.schema.ItemSchema;
+import com.eischet.ews.api.property.complex.ItemId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.eischet.ews.api.FakeExchangeHttpClient.FOOTER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.HEADER;
+import static com.eischet.ews.api.FakeExchangeHttpClient.NAMESPACES;
+
+@RunWith(JUnit4.class)
+public class BulkItemUpdaterTest {
+
+  private static final Pattern ITEM_ID = Pattern.compile("ItemId Id=\"([^\"]+)\" ChangeKey=\"([^\"]*)\"");
+  private static final Pattern REQUESTED_ID = Pattern.compile("ItemId Id=\"([^\"]+)\"");
+
+  private ExchangeService service;
+  private final AtomicInteger getItemRequests = new AtomicInteger();
+  private final AtomicInteger updateItemRequests = new AtomicInteger();
+  /** The current change key of each item; bumped on every successful update. */
+  private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+  /** Items that are changed on the server right before their next update arrives. */
+  private final Map<String, Boolean> concurrentlyChanged = new ConcurrentHashMap<>();
+  private final List<String> updated = Collections.synchronizedList(new ArrayList<String>());
+
+  private String respond(String request) {
+    StringBuilder body = new StringBuilder(HEADER);
+    if (request.contains("UpdateItem")) {
+      updateItemRequests.incrementAndGet();
+      body.append("<m:UpdateItemResponse").append(NAMESPACES).append("><m:ResponseMessages>");
+      Matcher ids = ITEM_ID.matcher(request);
+      while (ids.find()) {
+        String id = ids.group(1);
+        if (concurrentlyChanged.remove(id) != null) {
+          versions.merge(id, 1, Integer::sum);
+        }
+        int version = versions.get(id);
+        if (!ids.group(2).equals("k" + version)) {
+          body.append("<m:UpdateItemResponseMessage ResponseClass=\"Error\">")
+              .append("<m:MessageText>The change key passed in the request does not match the current change key"
+                  + " for the item.</m:MessageText>")
+              .append("<m:ResponseCode>ErrorIrresolvableConflict</m:ResponseCode>")
+              .append("<m:DescriptiveLinkKey>0</m:DescriptiveLinkKey><m:Items/>")
+              .append("</m:UpdateItemResponseMessage>");
+        } else {
+          versions.put(id, version + 1);
+          updated.add(id);
+          body.append("<m:UpdateItemResponseMessage ResponseClass=\"Success\">")
+              .append("<m:ResponseCode>NoError</m:ResponseCode><m:Items><t:Message>")
+              .append("<t:ItemId Id=\"").append(id).append("\" ChangeKey=\"k").append(version + 1).append("\"/>")
+              .append("</t:Message></m:Items>")
+              .append("<m:ConflictResults><t:Count>0</t:Count></m:ConflictResults>")
+              .append("</m:UpdateItemResponseMessage>");
+        }
+      }
+      body.append("</m:ResponseMessages></m:UpdateItemResponse>");
+    } else {
+      getItemRequests.incrementAndGet();
+      body.append("<m:GetItemResponse").append(NAMESPACES).append("><m:ResponseMessages>");
+      Matcher ids = REQUESTED_ID.matcher(request);
+      while (ids.find()) {
+        String id = ids.group(1);
+        if (!versions.containsKey(id)) {
+          body.append("<m:GetItemResponseMessage ResponseClass=\"Error\">")
+              .append("<m:MessageText>The specified object was not found in the store.</m:MessageText>")
+              .append("<m:ResponseCode>ErrorItemNotFound</m:ResponseCode>")
+              .append("<m:DescriptiveLinkKey>0</m:DescriptiveLinkKey><m:Items/>")
+              .append("</m:GetItemResponseMessage>");
+        } else {
+          body.append("<m:GetItemResponseMessage ResponseClass=\"Success\">")
+              .append("<m:ResponseCode>NoError</m:ResponseCode><m:Items><t:Message>")
+              .append("<t:ItemId Id=\"").append(id).append("\" ChangeKey=\"k").append(versions.get(id)).append("\"/>")
+              .append("<t:Subject>subject-").append(id).append("</t:Subject>")
+              .append("</t:Message></m:Items></m:GetItemResponseMessage>");
+        }
+      }
+      body.append("</m:ResponseMessages></m:GetItemResponse>");
+    }
+    return body.append(FOOTER).toString();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    service = new FakeExchangeHttpClient(request -> respond(request.getBody())).createService();
+    service.setUpdateDiffingEnabled(true);
+    for (String id : Arrays.asList("A", "B", "C", "D")) {
+      versions.put(id, 1);
+    }
+  }
+
+  private static List<ItemId> itemIds(String... ids) throws Exception {
+    List<ItemId> itemIds = new ArrayList<>();
+    for (String id : ids) {
+      itemIds.add(new ItemId(id));
+    }
+    return itemIds;
+  }
+
+  @Test
+  public void testUpdatesInBatchesAndRetriesConflicts() throws Exception {
+    concurrentlyChanged.put("B", true);
+    BulkItemUpdater updater = new BulkItemUpdater(service);
+    updater.setBatchSize(2);
+    updater.setMaxParallelRequests(2);
+    updater.setPropertySet(new PropertySet(BasePropertySet.IdOnly, ItemSchema.Subject));
+
+    // C already has the wanted subject, so it needs no update.
+    BulkUpdateResult result = updater.update(itemIds("A", "B", "C", "D", "Z"),
+        item -> item.setSubject(item.getSubject().equals("subject-C") ? "subject-C" : "reclassified"));
+
+    Assert.assertEquals(3, result.getUpdatedCount());
+    Assert.assertEquals(1, result.getUnchangedCount());
+    Assert.assertEquals(1, result.getConflictCount());
+    Assert.assertEquals(Collections.singleton(new ItemId("Z")), result.getFailures().keySet());
+    Assert.assertEquals(Arrays.asList("A", "B", "D"), updated.stream().sorted().collect(Collectors.toList()));
+    // One GetItem per batch, plus one to fetch B again; C's batch needed no UpdateItem.
+    Assert.assertEquals(4, getItemRequests.get());
+    Assert.assertEquals(3, updateItemRequests.get());
+  }
+
+  @Test
+  public void testGivesUpAfterMaxConflictRetries() throws Exception {
+    concurrentlyChanged.put("A", true);
+    BulkItemUpdater updater = new BulkItemUpdater(service);
+    updater.setMaxConflictRetries(0);
+
+    BulkUpdateResult result = updater.update(itemIds("A", "B"), item -> item.setSubject("reclassified"));
+
+    Assert.assertEquals(1, result.getUpdatedCount());
+    Assert.assertEquals(0, result.getConflictCount());
+    Exception failure = result.getFailures().get(new ItemId("A"));
+    Assert.assertTrue(failure instanceof ServiceResponseException);
+    Assert.assertEquals(ServiceError.ErrorIrresolvableConflict, ((ServiceResponseException) failure).getErrorCode());
+    Assert.assertEquals(1, updateItemRequests.get());
+  }
+
+  @Test
+  public void testMutationFailuresAreReportedPerItem() throws Exception {
+    BulkItemUpdater updater = new BulkItemUpdater(service);
+
+    BulkUpdateResult result = updater.update(itemIds("A", "B"), item -> {
+      if (item.getId().getUniqueId().equals("B")) {
+        throw new IllegalStateException("rejected");
+      }
+      item.setSubject("reclassified");
+    });
+
+    Assert.assertEquals(1, result.getUpdatedCount());
+    Assert.assertEquals("rejected", result.getFailures().get(new ItemId("B")).getMessage());
+    Assert.assertEquals(Collections.singletonList("A"), updated);
+  }
+
+}
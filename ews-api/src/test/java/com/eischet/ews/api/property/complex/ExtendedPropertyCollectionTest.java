@@ -74,4 +74,29 @@ public class ExtendedPropertyCollectionTest {
       Assert.assertTrue(epc.tryGetValue(cls, propertyDefinition, propertyValueOut));
       Assert.assertTrue(propertyValueOut.getParam().equals(testValue));
     }
+
+    /**
+     * Setting, overwriting and removing many properties keeps
+     * the lookup by definition consistent.
+     */
+    @Test
+    public void setGetAndRemoveByDefinition() throws Exception {
+      ExtendedPropertyCollection epc = new ExtendedPropertyCollection();
+      for (int i = 0; i < 20; i++) {
+        epc.setExtendedProperty(new ExtendedPropertyDefinition(0x8000 + i, MapiPropertyType.Integer), i);
+      }
+      epc.setExtendedProperty(new ExtendedPropertyDefinition(0x8005, MapiPropertyType.Integer), 500);
+      Assert.assertEquals(20, epc.getCount());
+
+      OutParam<Integer> propertyValueOut = new OutParam<Integer>();
+      Assert.assertTrue(epc.tryGetValue(Integer.class,
+          new ExtendedPropertyDefinition(0x8005, MapiPropertyType.Integer), propertyValueOut));
+      Assert.assertEquals(Integer.valueOf(500), propertyValueOut.getParam());
+
+      Assert.assertTrue(epc.removeExtendedProperty(new ExtendedPropertyDefinition(0x8005, MapiPropertyType.Integer)));
+      Assert.assertFalse(epc.removeExtendedProperty(new ExtendedPropertyDefinition(0x8005, MapiPropertyType.Integer)));
+      Assert.assertFalse(epc.tryGetValue(Integer.class,
+          new ExtendedPropertyDefinition(0x8005, MapiPropertyType.Integer), propertyValueOut));
+      Assert.assertEquals(19, epc.getCount());
+    }
 }
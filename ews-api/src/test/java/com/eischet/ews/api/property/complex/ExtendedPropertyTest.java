@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.property.complex;
+
+import com.eischet.ews.api.core.EwsServiceXmlReader;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.XmlElementNames;
+import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
+import com.eischet.ews.api.core.enumeration.property.MapiPropertyType;
+import com.eischet.ews.api.misc.MapiTypeConverter;
+import com.eischet.ews.api.property.definition.ExtendedPropertyDefinition;
+import com.eischet.ews.api.security.XmlNodeType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class ExtendedPropertyTest {
+
+  private static ExtendedProperty parse(String propertyType, String value) throws Exception {
+    EwsServiceXmlReader reader = new EwsServiceXmlReader(new ByteArrayInputStream(
+        ("<t:ExtendedProperty xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\">"
+            + "<t:ExtendedFieldURI PropertyTag=\"0x6800\" PropertyType=\"" + propertyType + "\"/>"
+            + value + "</t:ExtendedProperty>").getBytes(StandardCharsets.UTF_8)), new ExchangeService(null));
+    reader.read(new XmlNodeType(XmlNodeType.START_DOCUMENT));
+    reader.readStartElement(XmlNamespace.Types, XmlElementNames.ExtendedProperty);
+    ExtendedProperty property = new ExtendedProperty();
+    property.loadFromXml(reader, XmlElementNames.ExtendedProperty);
+    return property;
+  }
+
+  @Test
+  public void testBinaryValueIsPrimitive() throws Exception {
+    byte[] entryId = {0, 0, 0, 0, 42, -1, 17};
+    ExtendedProperty property = parse("Binary",
+        "<t:Value>" + Base64.getEncoder().encodeToString(entryId) + "</t:Value>");
+
+    Assert.assertArrayEquals(entryId, property.getBinaryValue());
+    Assert.assertArrayEquals(entryId, (byte[]) property.getValue());
+    Assert.assertEquals(byte[].class, property.getPropertyDefinition().getType());
+  }
+
+  @Test
+  public void testArrayValuesAreDecodedIntoPrimitiveArrays() throws Exception {
+    ExtendedProperty integers = parse("IntegerArray",
+        "<t:Values><t:Value>1</t:Value><t:Value>-20</t:Value><t:Value>300</t:Value></t:Values>");
+    Assert.assertArrayEquals(new int[] {1, -20, 300}, integers.getIntArrayValue());
+    Assert.assertEquals(Arrays.asList(1, -20, 300), integers.getValue());
+
+    ExtendedProperty longs = parse("LongArray",
+        "<t:Values><t:Value>5000000000</t:Value></t:Values>");
+    Assert.assertArrayEquals(new long[] {5000000000L}, longs.getLongArrayValue());
+
+    ExtendedProperty doubles = parse("DoubleArray",
+        "<t:Values><t:Value>1.5</t:Value><t:Value>-2.25</t:Value></t:Values>");
+    Assert.assertArrayEquals(new double[] {1.5, -2.25}, doubles.getDoubleArrayValue(), 0.0);
+    Assert.assertNull(doubles.getIntArrayValue());
+  }
+
+  @Test
+  public void testStringArrayValuesStayLists() throws Exception {
+    ExtendedProperty strings = parse("StringArray",
+        "<t:Values><t:Value>a</t:Value><t:Value>b</t:Value></t:Values>");
+    Assert.assertEquals(Arrays.asList("a", "b"), strings.getValue());
+  }
+
+  @Test
+  public void testSetValueAcceptsListsAndPrimitiveArrays() throws Exception {
+    ExtendedProperty property = new ExtendedProperty(
+        new ExtendedPropertyDefinition(0x6801, MapiPropertyType.IntegerArray));
+    property.setValue(Arrays.asList(7, 8, 9));
+    Assert.assertArrayEquals(new int[] {7, 8, 9}, property.getIntArrayValue());
+
+    property.setValue(new int[] {10});
+    Assert.assertEquals(Arrays.asList(10), property.getValue());
+    Assert.assertEquals(Arrays.asList("10"),
+        MapiTypeConverter.convertArrayToStrings(MapiPropertyType.IntegerArray, property.getIntArrayValue()));
+
+    ExtendedProperty binary = new ExtendedProperty(new ExtendedPropertyDefinition(0x6802, MapiPropertyType.Binary));
+    binary.setValue(new Byte[] {1, 2});
+    Assert.assertArrayEquals(new byte[] {1, 2}, binary.getBinaryValue());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testArrayValuesCanOnlyBeChangedWithSetValue() throws Exception {
+    ExtendedProperty integers = parse("IntegerArray",
+        "<t:Values><t:Value>1</t:Value><t:Value>2</t:Value></t:Values>");
+    try {
+      ((List<Object>) integers.getValue()).add(3);
+      Assert.fail("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {
+      // expected
+    }
+    integers.getIntArrayValue()[0] = 42;
+    Assert.assertArrayEquals(new int[] {1, 2}, integers.getIntArrayValue());
+    Assert.assertEquals(Arrays.asList(1, 2), integers.getValue());
+
+    ExtendedProperty binary = parse("Binary", "<t:Value>AQI=</t:Value>");
+    binary.getBinaryValue()[0] = 42;
+    Assert.assertArrayEquals(new byte[] {1, 2}, binary.getBinaryValue());
+  }
+
+}
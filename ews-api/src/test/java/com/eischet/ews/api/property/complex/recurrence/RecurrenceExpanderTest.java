@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.property.complex.recurrence;
+
+import com.eischet.ews.api.BaseTest;
+import com.eischet.ews.api.core.EwsServiceXmlReader;
+import com.eischet.ews.api.core.XmlElementNames;
+import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
+import com.eischet.ews.api.core.enumeration.property.time.DayOfTheWeek;
+import com.eischet.ews.api.core.enumeration.property.time.DayOfTheWeekIndex;
+import com.eischet.ews.api.core.enumeration.property.time.Month;
+import com.eischet.ews.api.core.exception.misc.ArgumentException;
+import com.eischet.ews.api.property.complex.ComplexPropertyCollection;
+import com.eischet.ews.api.property.complex.DeletedOccurrenceInfoCollection;
+import com.eischet.ews.api.property.complex.OccurrenceInfoCollection;
+import com.eischet.ews.api.property.complex.recurrence.pattern.Recurrence;
+import com.eischet.ews.api.security.XmlNodeType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class RecurrenceExpanderTest extends BaseTest {
+
+  private static final ZoneRules BERLIN = ZoneId.of("Europe/Berlin").getRules();
+
+  private static <T extends ComplexPropertyCollection<?>> T parse(T collection, String elementName, String xml)
+      throws Exception {
+    EwsServiceXmlReader reader = new EwsServiceXmlReader(new ByteArrayInputStream(
+        ("<t:" + elementName + " xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\">"
+            + xml + "</t:" + elementName + ">").getBytes(StandardCharsets.UTF_8)), exchangeServiceMock);
+    reader.read(new XmlNodeType(XmlNodeType.START_DOCUMENT));
+    reader.readStartElement(XmlNamespace.Types, elementName);
+    collection.loadFromXml(reader, elementName);
+    return collection;
+  }
+
+  private static List<LocalDate> dates(Recurrence recurrence, int limit) throws Exception {
+    RecurrenceExpander expander = new RecurrenceExpander(recurrence,
+        recurrence.getStartDate().atTime(9, 0), recurrence.getStartDate().atTime(10, 0), BERLIN, null);
+    List<LocalDate> dates = new ArrayList<>();
+    for (Iterator<LocalDate> it = expander.dates(); it.hasNext() && dates.size() < limit; ) {
+      dates.add(it.next());
+    }
+    return dates;
+  }
+
+  @Test
+  public void testWeeklyPatternKeepsWallClockTimeAcrossDaylightSavingTime() throws Exception {
+    // Every other week on Monday and Wednesday, 09:00-10:00 Berlin time, starting Monday, March 18th 2024.
+    Recurrence.WeeklyPattern pattern = new Recurrence.WeeklyPattern(LocalDate.of(2024, 3, 18), 2,
+        DayOfTheWeek.Monday, DayOfTheWeek.Wednesday);
+    pattern.setNumberOfOccurrences(4);
+    RecurrenceExpander expander = new RecurrenceExpander(pattern,
+        LocalDateTime.of(2024, 3, 18, 8, 0), LocalDateTime.of(2024, 3, 18, 9, 0), BERLIN, BERLIN);
+
+    List<ExpandedOccurrence> occurrences = expander.expand(
+        LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 1, 0, 0));
+    Assert.assertEquals(4, occurrences.size());
+    Assert.assertEquals(LocalDateTime.of(2024, 3, 18, 8, 0), occurrences.get(0).getStart());
+    Assert.assertEquals(LocalDateTime.of(2024, 3, 20, 8, 0), occurrences.get(1).getStart());
+    // Summer time started on March 31st.
+    Assert.assertEquals(LocalDateTime.of(2024, 4, 1, 7, 0), occurrences.get(2).getStart());
+    Assert.assertEquals(LocalDateTime.of(2024, 4, 3, 8, 0), occurrences.get(3).getEnd());
+    Assert.assertEquals(4, occurrences.get(3).getIndex());
+  }
+
+  @Test
+  public void testWeeklyPatternUsesItsFirstDayOfWeek() throws Exception {
+    // Every other week on Sunday and Monday, starting Sunday, March 17th 2024.
+    Recurrence.WeeklyPattern pattern = new Recurrence.WeeklyPattern(LocalDate.of(2024, 3, 17), 2,
+        DayOfTheWeek.Sunday, DayOfTheWeek.Monday);
+    Assert.assertEquals(Arrays.asList(LocalDate.of(2024, 3, 17), LocalDate.of(2024, 3, 18),
+        LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 1)), dates(pattern, 4));
+
+    // With weeks starting on Monday, the start date is the last day of its week.
+    pattern.setFirstDayOfWeek(DayOfTheWeek.Monday);
+    Assert.assertEquals(Arrays.asList(LocalDate.of(2024, 3, 17), LocalDate.of(2024, 3, 25),
+        LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 8)), dates(pattern, 4));
+  }
+
+  @Test(expected = ArgumentException.class)
+  public void testFirstDayOfWeekMustBeASingleDay() throws Exception {
+    new Recurrence.WeeklyPattern(LocalDate.of(2024, 3, 17), 1, DayOfTheWeek.Monday)
+        .setFirstDayOfWeek(DayOfTheWeek.Weekday);
+  }
+
+  @Test
+  public void testAppliesDeletedAndModifiedOccurrences() throws Exception {
+    // Daily at 09:00-09:30 UTC, starting January 1st, without end.
+    Recurrence.DailyPattern pattern = new Recurrence.DailyPattern(LocalDate.of(2024, 1, 1), 1);
+    ZoneRules utc = java.time.ZoneOffset.UTC.getRules();
+    RecurrenceExpander expander = new RecurrenceExpander(pattern,
+        LocalDateTime.of(2024, 1, 1, 9, 0), LocalDateTime.of(2024, 1, 1, 9, 30), utc, null);
+    expander.setDeletedOccurrences(parse(new DeletedOccurrenceInfoCollection(), XmlElementNames.DeletedOccurrences,
+        "<t:DeletedOccurrence><t:Start>2024-01-03T09:00:00Z</t:Start></t:DeletedOccurrence>"));
+    // The occurrence of January 10th was moved to January 4th, 14:00.
+    expander.setModifiedOccurrences(parse(new OccurrenceInfoCollection(), XmlElementNames.ModifiedOccurrences,
+        "<t:Occurrence><t:ItemId Id=\"AAMk\" ChangeKey=\"DwAA\"/>"
+            + "<t:Start>2024-01-04T14:00:00Z</t:Start><t:End>2024-01-04T15:00:00Z</t:End>"
+            + "<t:OriginalStart>2024-01-10T09:00:00Z</t:OriginalStart></t:Occurrence>"));
+
+    List<ExpandedOccurrence> occurrences = expander.expand(
+        LocalDateTime.of(2024, 1, 2, 0, 0), LocalDateTime.of(2024, 1, 5, 0, 0));
+    Assert.assertEquals(3, occurrences.size());
+    Assert.assertEquals(2, occurrences.get(0).getIndex());
+    Assert.assertEquals(LocalDateTime.of(2024, 1, 4, 9, 0), occurrences.get(1).getStart());
+    Assert.assertFalse(occurrences.get(1).isModified());
+    Assert.assertEquals(10, occurrences.get(2).getIndex());
+    Assert.assertEquals(LocalDateTime.of(2024, 1, 4, 14, 0), occurrences.get(2).getStart());
+    Assert.assertEquals(LocalDateTime.of(2024, 1, 10, 9, 0), occurrences.get(2).getOriginalStart());
+    Assert.assertEquals("AAMk", occurrences.get(2).getItemId().getUniqueId());
+
+    // Far in the future, one occurrence per day.
+    Assert.assertEquals(7, expander.expand(
+        LocalDateTime.of(2030, 6, 1, 0, 0), LocalDateTime.of(2030, 6, 8, 0, 0)).size());
+  }
+
+  @Test
+  public void testMonthlyAndYearlyPatterns() throws Exception {
+    Recurrence.MonthlyPattern monthly = new Recurrence.MonthlyPattern(LocalDate.of(2024, 1, 31), 1, 31);
+    Assert.assertEquals(LocalDate.of(2024, 2, 29), dates(monthly, 3).get(1));
+    Assert.assertEquals(LocalDate.of(2024, 3, 31), dates(monthly, 3).get(2));
+
+    Recurrence.RelativeMonthlyPattern lastFriday = new Recurrence.RelativeMonthlyPattern(
+        LocalDate.of(2024, 1, 1), 2, DayOfTheWeek.Friday, DayOfTheWeekIndex.Last);
+    Assert.assertEquals(LocalDate.of(2024, 1, 26), dates(lastFriday, 2).get(0));
+    Assert.assertEquals(LocalDate.of(2024, 3, 29), dates(lastFriday, 2).get(1));
+
+    Recurrence.RelativeMonthlyPattern secondWeekday = new Recurrence.RelativeMonthlyPattern(
+        LocalDate.of(2024, 6, 1), 1, DayOfTheWeek.Weekday, DayOfTheWeekIndex.Second);
+    Assert.assertEquals(LocalDate.of(2024, 6, 4), dates(secondWeekday, 1).get(0));
+
+    Recurrence.YearlyPattern leapDay = new Recurrence.YearlyPattern(LocalDate.of(2024, 2, 29), Month.February, 29);
+    leapDay.setEndDate(LocalDate.of(2026, 12, 31));
+    List<LocalDate> leapDays = dates(leapDay, 10);
+    Assert.assertEquals(3, leapDays.size());
+    Assert.assertEquals(LocalDate.of(2025, 2, 28), leapDays.get(1));
+
+    Recurrence.RelativeYearlyPattern thanksgiving = new Recurrence.RelativeYearlyPattern(
+        LocalDate.of(2024, 1, 1), Month.November, DayOfTheWeek.Thursday, DayOfTheWeekIndex.Fourth);
+    Assert.assertEquals(LocalDate.of(2025, 11, 27), dates(thanksgiving, 2).get(1));
+  }
+
+  @Test(expected = ArgumentException.class)
+  public void testRejectsRegenerationPatterns() throws Exception {
+    new RecurrenceExpander(new Recurrence.DailyRegenerationPattern(LocalDate.of(2024, 1, 1), 3),
+        LocalDateTime.of(2024, 1, 1, 9, 0), LocalDateTime.of(2024, 1, 1, 10, 0), BERLIN, null);
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.property.complex.time;
+
+import com.eischet.ews.api.BaseTest;
+import com.eischet.ews.api.core.EwsServiceXmlReader;
+import com.eischet.ews.api.core.XmlElementNames;
+import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
+import com.eischet.ews.api.core.exception.service.local.InvalidOrUnsupportedTimeZoneDefinitionException;
+import com.eischet.ews.api.security.XmlNodeType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+public class ZoneRulesCompilerTest extends BaseTest {
+
+  /**
+   * Pacific time as returned by Exchange: the US changed its daylight saving time rules in 2007.
+   */
+  static final String PACIFIC = "<t:TimeZoneDefinition"
+      + " xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\""
+      + " Name=\"(UTC-08:00) Pacific Time (US &amp; Canada)\" Id=\"Pacific Standard Time\">"
+      + "<t:Periods>"
+      + "<t:Period Bias=\"P0DT8H0M0.0S\" Name=\"Standard\" Id=\"Std\"/>"
+      + "<t:Period Bias=\"P0DT7H0M0.0S\" Name=\"Daylight\" Id=\"Dlt/2006\"/>"
+      + "<t:Period Bias=\"P0DT7H0M0.0S\" Name=\"Daylight\" Id=\"Dlt/2007\"/>"
+      + "</t:Periods>"
+      + "<t:TransitionsGroups>"
+      + "<t:TransitionsGroup Id=\"0\">"
+      + "<t:RecurringDayTransition><t:To Kind=\"Period\">Dlt/2006</t:To>"
+      + "<t:TimeOffset>P0DT2H0M0.0S</t:TimeOffset><t:Month>4</t:Month>"
+      + "<t:DayOfWeek>Sunday</t:DayOfWeek><t:Occurrence>1</t:Occurrence></t:RecurringDayTransition>"
+      + "<t:RecurringDayTransition><t:To Kind=\"Period\">Std</t:To>"
+      + "<t:TimeOffset>P0DT2H0M0.0S</t:TimeOffset><t:Month>10</t:Month>"
+      + "<t:DayOfWeek>Sunday</t:DayOfWeek><t:Occurrence>-1</t:Occurrence></t:RecurringDayTransition>"
+      + "</t:TransitionsGroup>"
+      + "<t:TransitionsGroup Id=\"1\">"
+      + "<t:RecurringDayTransition><t:To Kind=\"Period\">Dlt/2007</t:To>"
+      + "<t:TimeOffset>P0DT2H0M0.0S</t:TimeOffset><t:Month>3</t:Month>"
+      + "<t:DayOfWeek>Sunday</t:DayOfWeek><t:Occurrence>2</t:Occurrence></t:RecurringDayTransition>"
+      + "<t:RecurringDayTransition><t:To Kind=\"Period\">Std</t:To>"
+      + "<t:TimeOffset>P0DT2H0M0.0S</t:TimeOffset><t:Month>11</t:Month>"
+      + "<t:DayOfWeek>Sunday</t:DayOfWeek><t:Occurrence>1</t:Occurrence></t:RecurringDayTransition>"
+      + "</t:TransitionsGroup>"
+      + "</t:TransitionsGroups>"
+      + "<t:Transitions>"
+      + "<t:Transition><t:To Kind=\"Group\">0</t:To></t:Transition>"
+      + "<t:AbsoluteDateTransition><t:To Kind=\"Group\">1</t:To>"
+      + "<t:DateTime>2007-01-01T00:00:00</t:DateTime></t:AbsoluteDateTransition>"
+      + "</t:Transitions>"
+      + "</t:TimeZoneDefinition>";
+
+  static final String TOKYO = "<t:TimeZoneDefinition"
+      + " xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\""
+      + " Name=\"(UTC+09:00) Osaka, Sapporo, Tokyo\" Id=\"Tokyo Standard Time\">"
+      + "<t:Periods><t:Period Bias=\"-P0DT9H0M0.0S\" Name=\"Standard\" Id=\"Std\"/></t:Periods>"
+      + "<t:TransitionsGroups><t:TransitionsGroup Id=\"0\">"
+      + "<t:Transition><t:To Kind=\"Period\">Std</t:To></t:Transition>"
+      + "</t:TransitionsGroup></t:TransitionsGroups>"
+      + "<t:Transitions><t:Transition><t:To Kind=\"Group\">0</t:To></t:Transition></t:Transitions>"
+      + "</t:TimeZoneDefinition>";
+
+  static TimeZoneDefinition parse(String xml) throws Exception {
+    EwsServiceXmlReader reader = new EwsServiceXmlReader(
+        new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), exchangeServiceMock);
+    reader.read(new XmlNodeType(XmlNodeType.START_DOCUMENT));
+    reader.readStartElement(XmlNamespace.Types, XmlElementNames.TimeZoneDefinition);
+    TimeZoneDefinition definition = new TimeZoneDefinition();
+    definition.loadFromXml(reader);
+    return definition;
+  }
+
+  private static void assertSameOffsets(ZoneRules expected, ZoneRules actual, int fromYear, int toYear) {
+    for (int year = fromYear; year <= toYear; year++) {
+      Instant start = Instant.parse(year + "-01-01T00:00:00Z");
+      for (Instant instant = start; instant.isBefore(start.plusSeconds(366L * 86400));
+          instant = instant.plusSeconds(3 * 3600)) {
+        Assert.assertEquals(instant.toString(), expected.getOffset(instant), actual.getOffset(instant));
+      }
+    }
+  }
+
+  @Test
+  public void testCompilesHistoricAndCurrentRules() throws Exception {
+    ZoneRules rules = parse(PACIFIC).toZoneRules();
+    assertSameOffsets(ZoneId.of("America/Los_Angeles").getRules(), rules, 1990, 2040);
+    Assert.assertFalse(rules.isFixedOffset());
+  }
+
+  @Test
+  public void testCompilesFixedOffset() throws Exception {
+    ZoneRules rules = parse(TOKYO).toZoneRules();
+    assertSameOffsets(ZoneId.of("Asia/Tokyo").getRules(), rules, 2000, 2030);
+    Assert.assertTrue(rules.getTransitionRules().isEmpty());
+  }
+
+  @Test
+  public void testCachesCompiledRules() throws Exception {
+    Assert.assertSame(parse(PACIFIC).toZoneRules(), parse(PACIFIC).toZoneRules());
+    Assert.assertNotSame(parse(PACIFIC).toZoneRules(), parse(TOKYO).toZoneRules());
+  }
+
+  @Test
+  public void testSharesIdenticalDefinitions() throws Exception {
+    TimeZoneDefinition first = TimeZoneDefinition.share(parse(PACIFIC));
+    TimeZoneDefinition second = TimeZoneDefinition.share(parse(PACIFIC));
+    Assert.assertSame(first, second);
+    Assert.assertTrue(first.isShared());
+    Assert.assertNotSame(first, TimeZoneDefinition.share(parse(TOKYO)));
+    Assert.assertSame(first.toZoneRules(), second.toZoneRules());
+
+    TimeZoneDefinition modified = parse(PACIFIC.replace("<t:Month>11</t:Month>", "<t:Month>10</t:Month>"));
+    Assert.assertNotSame(first, TimeZoneDefinition.share(modified));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSharedDefinitionsCantBeChanged() throws Exception {
+    TimeZoneDefinition.share(parse(TOKYO)).setId("Korea Standard Time");
+  }
+
+  @Test(expected = InvalidOrUnsupportedTimeZoneDefinitionException.class)
+  public void testRejectsDefinitionWithoutTransitions() throws Exception {
+    TimeZoneDefinition definition = new TimeZoneDefinition();
+    definition.setId("W. Europe Standard Time");
+    definition.toZoneRules();
+  }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.property.definition;
+
+import com.eischet.ews.api.core.EwsServiceXmlReader;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.misc.XmlNamespace;
+import com.eischet.ews.api.core.enumeration.property.DefaultExtendedPropertySet;
+import com.eischet.ews.api.core.enumeration.property.MapiPropertyType;
+import com.eischet.ews.api.security.XmlNodeType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+@RunWith(JUnit4.class)
+public class ExtendedPropertyDefinitionTest {
+
+  private static EwsServiceXmlReader reader(String attributes) throws Exception {
+    EwsServiceXmlReader reader = new EwsServiceXmlReader(new ByteArrayInputStream(
+        ("<t:ExtendedFieldURI xmlns:t=\"http://schemas.microsoft.com/exchange/services/2006/types\" "
+            + attributes + "/>").getBytes(StandardCharsets.UTF_8)), new ExchangeService(null));
+    reader.read(new XmlNodeType(XmlNodeType.START_DOCUMENT));
+    reader.readStartElement(XmlNamespace.Types, "ExtendedFieldURI");
+    return reader;
+  }
+
+  private static ExtendedPropertyDefinition read(String attributes) throws Exception {
+    return ExtendedPropertyDefinition.readFromXml(reader(attributes));
+  }
+
+  @Test
+  public void testEqualDefinitionsShareHashAndPrintableName() throws Exception {
+    ExtendedPropertyDefinition first =
+        new ExtendedPropertyDefinition(DefaultExtendedPropertySet.PublicStrings, "CrmId", MapiPropertyType.String);
+    ExtendedPropertyDefinition second =
+        new ExtendedPropertyDefinition(DefaultExtendedPropertySet.PublicStrings, "CrmId", MapiPropertyType.String);
+    ExtendedPropertyDefinition other =
+        new ExtendedPropertyDefinition(DefaultExtendedPropertySet.PublicStrings, "CrmId", MapiPropertyType.Integer);
+
+    Assert.assertEquals(first, second);
+    Assert.assertEquals(first.hashCode(), second.hashCode());
+    Assert.assertSame(first.getPrintableName(), first.getPrintableName());
+    Assert.assertEquals(first.getPrintableName(), second.getPrintableName());
+    Assert.assertNotEquals(first, other);
+  }
+
+  @Test
+  public void testReadFromXmlInternsDefinitions() throws Exception {
+    ExtendedPropertyDefinition first = read("DistinguishedPropertySetId=\"PublicStrings\" "
+        + "PropertyName=\"CrmAccount\" PropertyType=\"String\"");
+    ExtendedPropertyDefinition second = read("DistinguishedPropertySetId=\"PublicStrings\" "
+        + "PropertyName=\"CrmAccount\" PropertyType=\"String\"");
+
+    Assert.assertSame(first, second);
+    Assert.assertEquals(DefaultExtendedPropertySet.PublicStrings, first.getPropertySet());
+    Assert.assertEquals("CrmAccount", first.getName());
+    Assert.assertEquals(MapiPropertyType.String, first.getMapiType());
+    Assert.assertEquals(new ExtendedPropertyDefinition(DefaultExtendedPropertySet.PublicStrings, "CrmAccount",
+        MapiPropertyType.String), first);
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testDeprecatedLoadFromXmlFails() throws Exception {
+    ExtendedPropertyDefinition unused = new ExtendedPropertyDefinition();
+    try {
+      unused.loadFromXml(reader("PropertyTag=\"0x1000\" PropertyType=\"String\""));
+      Assert.fail("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRegistryReturnsCanonicalInstance() {
+    ExtendedPropertyDefinition tag = new ExtendedPropertyDefinition(0x1000, MapiPropertyType.String);
+    ExtendedPropertyDefinition canonical = ExtendedPropertyDefinitionRegistry.intern(tag);
+
+    Assert.assertSame(canonical, ExtendedPropertyDefinitionRegistry.intern(
+        new ExtendedPropertyDefinition(0x1000, MapiPropertyType.String)));
+    Assert.assertNull(ExtendedPropertyDefinitionRegistry.intern(null));
+  }
+
+  @Test
+  public void testRegistryKeepsTheFirstDefinitionsWhenFull() {
+    ExtendedPropertyDefinitionRegistry.clear();
+    try {
+      for (int tag = 0; tag < ExtendedPropertyDefinitionRegistry.MAX_SIZE; tag++) {
+        ExtendedPropertyDefinitionRegistry.intern(new ExtendedPropertyDefinition(tag, MapiPropertyType.Integer));
+      }
+      ExtendedPropertyDefinition first = new ExtendedPropertyDefinition(0, MapiPropertyType.Integer);
+      Assert.assertNotSame(first, ExtendedPropertyDefinitionRegistry.intern(first));
+
+      ExtendedPropertyDefinition late = new ExtendedPropertyDefinition(0x7000, MapiPropertyType.Integer);
+      Assert.assertSame(late, ExtendedPropertyDefinitionRegistry.intern(late));
+      Assert.assertNotSame(late, ExtendedPropertyDefinitionRegistry.intern(
+          new ExtendedPropertyDefinition(0x7000, MapiPropertyType.Integer)));
+      Assert.assertEquals(ExtendedPropertyDefinitionRegistry.MAX_SIZE, ExtendedPropertyDefinitionRegistry.size());
+    } finally {
+      ExtendedPropertyDefinitionRegistry.clear();
+    }
+  }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.search;
+
+import com.eischet.ews.api.FakeExchangeHttpClient;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.PropertySet;
+import com.eischet.ews.api.core.enumeration.property.BasePropertySet;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.enumeration.search.LogicalOperator;
+import com.eischet.ews.api.core.enumeration.search.SortDirection;
+import com.eischet.ews.api.core.exception.service.local.ExchangeValidationException;
+import com.eischet.ews.api.core.service.schema.EmailMessageSchema;
+import com.eischet.ews.api.core.service.schema.ItemSchema;
+import com.eischet.ews.api.search.filter.SearchFilter;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FrozenSearchSettingsTest {
+
+  private static final String RESPONSE = FakeExchangeHttpClient.envelope(
+      "<m:FindItemResponse" + FakeExchangeHttpClient.NAMESPACES + ">"
+          + "<m:ResponseMessages>"
+          + "<m:FindItemResponseMessage ResponseClass=\"Success\">"
+          + "<m:ResponseCode>NoError</m:ResponseCode>"
+          + "<m:RootFolder TotalItemsInView=\"0\" IncludesLastItemInRange=\"true\"><t:Items/></m:RootFolder>"
+          + "</m:FindItemResponseMessage>"
+          + "</m:ResponseMessages>"
+          + "</m:FindItemResponse>");
+
+  private final FakeExchangeHttpClient httpClient = FakeExchangeHttpClient.returning(RESPONSE);
+
+  private ExchangeService createService() throws Exception {
+    ExchangeService service = httpClient.createService();
+    return service;
+  }
+
+  private String lastRequest() {
+    return httpClient.getLastRequestBody();
+  }
+
+  private static ItemView createView() throws Exception {
+    ItemView view = new ItemView(50, 10);
+    view.setPropertySet(new PropertySet(BasePropertySet.IdOnly, ItemSchema.Subject, ItemSchema.DateTimeReceived));
+    view.getOrderBy().add(ItemSchema.DateTimeReceived, SortDirection.Descending);
+    return view;
+  }
+
+  private static SearchFilter createFilter() {
+    return new SearchFilter.SearchFilterCollection(LogicalOperator.And,
+        new SearchFilter.IsEqualTo(EmailMessageSchema.IsRead, false),
+        new SearchFilter.Not(new SearchFilter.ContainsSubstring(ItemSchema.Subject, "newsletter")));
+  }
+
+  @Test
+  public void testFrozenSettingsSerializeLikeMutableSettings() throws Exception {
+    ExchangeService service = createService();
+    service.findItems(WellKnownFolderName.Inbox, createFilter(), createView());
+    String expected = lastRequest();
+
+    SearchFilter filter = createFilter().freeze();
+    ItemView view = createView().freeze();
+    service.findItems(WellKnownFolderName.Inbox, filter, view);
+    Assert.assertEquals(expected, lastRequest());
+    service.findItems(WellKnownFolderName.Inbox, filter, view);
+    Assert.assertEquals(expected, lastRequest());
+  }
+
+  @Test
+  public void testFrozenSettingsCompareByValue() throws Exception {
+    Assert.assertNotEquals(createView(), createView());
+    Assert.assertNotEquals(createFilter(), createFilter());
+
+    Assert.assertEquals(createView().freeze(), createView().freeze());
+    Assert.assertEquals(createView().freeze().hashCode(), createView().freeze().hashCode());
+    Assert.assertEquals(createFilter().freeze(), createFilter().freeze());
+    Assert.assertEquals(createFilter().freeze().hashCode(), createFilter().freeze().hashCode());
+    Assert.assertEquals(PropertySet.IdOnly, new PropertySet(BasePropertySet.IdOnly).freeze());
+
+    ItemView other = createView();
+    other.setOffset(20);
+    Assert.assertNotEquals(createView().freeze(), other.freeze());
+    Assert.assertNotEquals(new FolderView(50, 10).freeze(), new FolderView(50, 20).freeze());
+    Assert.assertNotEquals(createFilter().freeze(),
+        new SearchFilter.IsEqualTo(EmailMessageSchema.IsRead, true).freeze());
+  }
+
+  @Test
+  public void testFrozenSettingsRejectChanges() throws Exception {
+    ItemView view = createView().freeze();
+    Assert.assertTrue(view.getPropertySet().isReadOnly());
+    try {
+      view.setPageSize(10);
+      Assert.fail("the page size of a frozen view was changed");
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      view.getOrderBy().clear();
+      Assert.fail("the sort order of a frozen view was changed");
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      view.getPropertySet().add(ItemSchema.Importance);
+      Assert.fail("the property set of a frozen view was changed");
+    } catch (UnsupportedOperationException expected) {
+    }
+
+    SearchFilter.SearchFilterCollection filter = (SearchFilter.SearchFilterCollection) createFilter().freeze();
+    SearchFilter.IsEqualTo isRead = (SearchFilter.IsEqualTo) filter.getSearchFilter(0);
+    Assert.assertTrue(isRead.isFrozen());
+    try {
+      isRead.setValue(true);
+      Assert.fail("a nested filter of a frozen filter was changed");
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      filter.add(new SearchFilter.Exists(ItemSchema.Importance));
+      Assert.fail("a frozen filter collection was changed");
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+
+  @Test(expected = ExchangeValidationException.class)
+  public void testInvalidFilterCannotBeFrozen() throws Exception {
+    new SearchFilter.Not().freeze();
+  }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core.request;
+
+import com.eischet.ews.api.core.EwsServiceXmlReader;
+import com.eischet.ews.api.core.EwsServiceXmlWriter;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.PropertySet;
+import com.eischet.ews.api.core.enumeration.property.BasePropertySet;
+import com.eischet.ews.api.core.enumeration.property.BodyType;
+import com.eischet.ews.api.core.enumeration.property.Importance;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.enumeration.search.LogicalOperator;
+import com.eischet.ews.api.core.enumeration.service.ConflictResolutionMode;
+import com.eischet.ews.api.core.enumeration.service.MessageDisposition;
+import com.eischet.ews.api.core.enumeration.service.error.ServiceErrorHandling;
+import com.eischet.ews.api.core.response.GetItemResponse;
+import com.eischet.ews.api.core.response.ServiceResponseCollection;
+import com.eischet.ews.api.core.service.item.EmailMessage;
+import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.core.service.schema.EmailMessageSchema;
+import com.eischet.ews.api.core.service.schema.ItemSchema;
+import com.eischet.ews.api.property.complex.FolderId;
+import com.eischet.ews.api.property.complex.ItemId;
+import com.eischet.ews.api.property.complex.MessageBody;
+import com.eischet.ews.api.property.complex.StringList;
+import com.eischet.ews.api.search.ItemView;
+import com.eischet.ews.api.search.filter.SearchFilter;
+import com.eischet.ews.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ServiceRequestBase#writeToXml(EwsServiceXmlWriter)}, i.e. building the SOAP envelope of a request.
+ * <p>
+ * Lives in the request package because writeToXml is not public.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestSerializationBenchmark {
+
+    private ExchangeService service;
+    private ByteArrayOutputStream buffer;
+    private CreateItemRequest createItemRequest;
+    private UpdateItemRequest updateItemRequest;
+    private FindItemRequest<Item> findItemRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = Fixtures.newService();
+        buffer = new ByteArrayOutputStream(64 * 1024);
+
+        EmailMessage message = new EmailMessage(service);
+        message.setSubject("Quarterly report");
+        message.setBody(new MessageBody(BodyType.HTML, Fixtures.htmlBody(4096)));
+        message.setImportance(Importance.High);
+        message.setCategories(new StringList(Arrays.asList("Finance", "Q2")));
+        for (int i = 0; i < 5; i++) {
+            message.getToRecipients().add("Recipient " + i, "recipient" + i + "@contoso.com");
+        }
+        createItemRequest = new CreateItemRequest(service, ServiceErrorHandling.ReturnErrors);
+        createItemRequest.setParentFolderId(new FolderId(WellKnownFolderName.Drafts));
+        createItemRequest.setMessageDisposition(MessageDisposition.SaveOnly);
+        createItemRequest.setItems(Collections.singletonList(message));
+
+        Item loaded = loadMessage(service);
+        loaded.setSubject("RE: Quarterly report");
+        loaded.setCategories(new StringList(Arrays.asList("Finance", "Done")));
+        ((EmailMessage) loaded).setIsRead(true);
+        updateItemRequest = new UpdateItemRequest(service, ServiceErrorHandling.ReturnErrors);
+        updateItemRequest.setConflictResolutionMode(ConflictResolutionMode.AutoResolve);
+        updateItemRequest.setMessageDisposition(MessageDisposition.SaveOnly);
+        updateItemRequest.getItems().add(loaded);
+
+        ItemView view = new ItemView(100);
+        view.setPropertySet(new PropertySet(BasePropertySet.IdOnly, ItemSchema.Subject,
+                ItemSchema.DateTimeReceived, ItemSchema.Importance, EmailMessageSchema.From,
+                EmailMessageSchema.IsRead));
+        findItemRequest = new FindItemRequest<>(service, ServiceErrorHandling.ThrowOnError);
+        findItemRequest.getParentFolderIds().add(new FolderId(WellKnownFolderName.Inbox));
+        findItemRequest.setView(view);
+        findItemRequest.setSearchFilter(new SearchFilter.SearchFilterCollection(LogicalOperator.And,
+                new SearchFilter.IsGreaterThanOrEqualTo(ItemSchema.DateTimeReceived,
+                        LocalDateTime.of(2023, 1, 1, 0, 0)),
+                new SearchFilter.ContainsSubstring(ItemSchema.Subject, "report"),
+                new SearchFilter.SearchFilterCollection(LogicalOperator.Or,
+                        new SearchFilter.IsEqualTo(EmailMessageSchema.IsRead, false),
+                        new SearchFilter.IsEqualTo(ItemSchema.Importance, Importance.High))));
+    }
+
+    private static Item loadMessage(ExchangeService service) throws Exception {
+        GetItemRequest request = new GetItemRequest(service, ServiceErrorHandling.ReturnErrors);
+        request.getItemIds().addRange(Collections.singletonList(
+                new ItemId("AAMkADk0ZGU3MWJkLWI0MmEtNDBjNS1hNjU2LTBmMGYxNmU3ZjhiYgBGAAAAAAB0AAA=")));
+        request.setPropertySet(PropertySet.FirstClassProperties);
+        ServiceResponseCollection<GetItemResponse> responses = request.readResponse(
+                new EwsServiceXmlReader(new ByteArrayInputStream(Fixtures.getItemResponse(1, 4096)), service));
+        return responses.getResponseAtIndex(0).getItem();
+    }
+
+    private int serialize(ServiceRequestBase<?> request) throws Exception {
+        buffer.reset();
+        EwsServiceXmlWriter writer = new EwsServiceXmlWriter(service, buffer);
+        request.writeToXml(writer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int createItem() throws Exception {
+        return serialize(createItemRequest);
+    }
+
+    @Benchmark
+    public int updateItem() throws Exception {
+        return serialize(updateItemRequest);
+    }
+
+    @Benchmark
+    public int findItemWithSearchFilter() throws Exception {
+        return serialize(findItemRequest);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core.request;
+
+import com.eischet.ews.api.core.EwsServiceXmlWriter;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.PropertySet;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.enumeration.service.error.ServiceErrorHandling;
+import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.property.complex.FolderId;
+import com.eischet.ews.api.property.complex.ItemId;
+import com.eischet.ews.api.search.ItemView;
+import com.eischet.ews.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization CPU saved by request templates: the cached SOAP envelope and
+ * the pre-serialized shape of read-only property sets, for the small GetItem and FindItem
+ * requests pollers send over and over.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestTemplateBenchmark {
+
+    @Param({"true", "false"})
+    public boolean caching;
+
+    private ExchangeService service;
+    private ByteArrayOutputStream buffer;
+    private GetItemRequest getItemRequest;
+    private FindItemRequest<Item> findItemRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = Fixtures.newService();
+        service.setRequestTemplateCachingEnabled(caching);
+        buffer = new ByteArrayOutputStream(16 * 1024);
+
+        List<ItemId> itemIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            itemIds.add(new ItemId("AAMkADk0ZGU3MWJkLWI0MmEtNDBjNS1hNjU2LTBmMGYxNmU3ZjhiYgBGAAAAAAB0AA" + i + "="));
+        }
+        getItemRequest = new GetItemRequest(service, ServiceErrorHandling.ReturnErrors);
+        getItemRequest.getItemIds().addRange(itemIds);
+        getItemRequest.setPropertySet(PropertySet.FirstClassProperties);
+
+        findItemRequest = new FindItemRequest<>(service, ServiceErrorHandling.ThrowOnError);
+        findItemRequest.getParentFolderIds().add(new FolderId(WellKnownFolderName.Inbox));
+        ItemView view = new ItemView(100);
+        view.setPropertySet(PropertySet.IdOnly);
+        findItemRequest.setView(view);
+    }
+
+    private int serialize(ServiceRequestBase<?> request) throws Exception {
+        buffer.reset();
+        EwsServiceXmlWriter writer = new EwsServiceXmlWriter(service, buffer);
+        request.writeToXml(writer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int getItem() throws Exception {
+        return serialize(getItemRequest);
+    }
+
+    @Benchmark
+    public int findItem() throws Exception {
+        return serialize(findItemRequest);
+    }
+
+}
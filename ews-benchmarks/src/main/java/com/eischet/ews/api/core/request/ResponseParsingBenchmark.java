@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.core.request;
+
+import com.eischet.ews.api.core.EwsServiceMultiResponseXmlReader;
+import com.eischet.ews.api.core.EwsServiceXmlReader;
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.PropertySet;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.enumeration.service.SyncFolderItemsScope;
+import com.eischet.ews.api.core.enumeration.service.error.ServiceErrorHandling;
+import com.eischet.ews.api.core.response.FindItemResponse;
+import com.eischet.ews.api.core.response.GetItemResponse;
+import com.eischet.ews.api.core.response.GetStreamingEventsResponse;
+import com.eischet.ews.api.core.response.ServiceResponseCollection;
+import com.eischet.ews.api.core.response.SyncFolderItemsResponse;
+import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.property.complex.FolderId;
+import com.eischet.ews.api.property.complex.ItemId;
+import com.eischet.ews.api.search.ItemView;
+import com.eischet.ews.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading responses, from the raw bytes to the response objects.
+ * <p>
+ * Lives in the request package because readResponse is not public.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    /**
+     * The number of items in the FindItem and SyncFolderItems responses.
+     */
+    @Param({"1000"})
+    public int itemCount;
+
+    /**
+     * The size of each message body in the GetItem response, in characters.
+     */
+    @Param({"262144"})
+    public int bodySize;
+
+    private ExchangeService service;
+
+    private FindItemRequest<Item> findItemRequest;
+    private byte[] findItemResponse;
+
+    private GetItemRequest getItemRequest;
+    private byte[] getItemResponse;
+
+    private SyncFolderItemsRequest syncFolderItemsRequest;
+    private byte[] syncFolderItemsResponse;
+
+    private GetStreamingEventsRequest getStreamingEventsRequest;
+    private byte[] getStreamingEventsResponse;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = Fixtures.newService();
+
+        findItemRequest = new FindItemRequest<>(service, ServiceErrorHandling.ThrowOnError);
+        findItemRequest.getParentFolderIds().add(new FolderId(WellKnownFolderName.Inbox));
+        findItemRequest.setView(new ItemView(itemCount));
+        findItemResponse = Fixtures.findItemResponse(itemCount);
+
+        List<ItemId> itemIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            itemIds.add(new ItemId("AAMkADk0ZGU3MWJkLWI0MmEtNDBjNS1hNjU2LTBmMGYxNmU3ZjhiYgBGAAAAAAB" + i + "AAA="));
+        }
+        getItemRequest = new GetItemRequest(service, ServiceErrorHandling.ReturnErrors);
+        getItemRequest.getItemIds().addRange(itemIds);
+        getItemRequest.setPropertySet(PropertySet.FirstClassProperties);
+        getItemResponse = Fixtures.getItemResponse(itemIds.size(), bodySize);
+
+        syncFolderItemsRequest = new SyncFolderItemsRequest(service);
+        syncFolderItemsRequest.setSyncFolderId(new FolderId(WellKnownFolderName.Inbox));
+        syncFolderItemsRequest.setPropertySet(PropertySet.FirstClassProperties);
+        syncFolderItemsRequest.setSyncScope(SyncFolderItemsScope.NormalItems);
+        syncFolderItemsResponse = Fixtures.syncFolderItemsResponse(itemCount);
+
+        getStreamingEventsRequest = new GetStreamingEventsRequest(service, response -> {
+        }, Collections.singletonList("subscription"), 30);
+        getStreamingEventsResponse = Fixtures.getStreamingEventsResponse(100);
+    }
+
+    private EwsServiceXmlReader reader(byte[] response) throws Exception {
+        return new EwsServiceXmlReader(new ByteArrayInputStream(response), service);
+    }
+
+    @Benchmark
+    public ServiceResponseCollection<FindItemResponse<Item>> findItem() throws Exception {
+        return findItemRequest.readResponse(reader(findItemResponse));
+    }
+
+    @Benchmark
+    public ServiceResponseCollection<GetItemResponse> getItemWithLargeBodies() throws Exception {
+        return getItemRequest.readResponse(reader(getItemResponse));
+    }
+
+    @Benchmark
+    public ServiceResponseCollection<SyncFolderItemsResponse> syncFolderItems() throws Exception {
+        return syncFolderItemsRequest.readResponse(reader(syncFolderItemsResponse));
+    }
+
+    @Benchmark
+    public GetStreamingEventsResponse getStreamingEvents() throws Exception {
+        return getStreamingEventsRequest.readResponse(EwsServiceMultiResponseXmlReader.create(
+                new ByteArrayInputStream(getStreamingEventsResponse), service));
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.benchmarks;
+
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.PropertySet;
+import com.eischet.ews.api.core.enumeration.property.WellKnownFolderName;
+import com.eischet.ews.api.core.response.GetItemResponse;
+import com.eischet.ews.api.core.response.ServiceResponseCollection;
+import com.eischet.ews.api.core.service.item.EmailMessage;
+import com.eischet.ews.api.core.service.item.Item;
+import com.eischet.ews.api.credential.WebCredentials;
+import com.eischet.ews.api.property.complex.ItemId;
+import com.eischet.ews.api.search.FindItemsResults;
+import com.eischet.ews.api.search.ItemView;
+import com.eischet.ews.apache5.ApacheHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures complete calls through {@link ExchangeService} and the Apache HTTP Components 5 client against
+ * an in-process stub server: serialization, HTTP round trip on the loopback interface and parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    private StubEwsServer server;
+    private ApacheHttpClient client;
+    private ExchangeService service;
+    private List<ItemId> itemIds;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new StubEwsServer()
+                .respond("FindItem", Fixtures.findItemResponse(100))
+                .respond("GetItem", Fixtures.getItemResponse(10, 16 * 1024))
+                .respond("CreateItem", Fixtures.createItemResponse());
+        client = new ApacheHttpClient();
+        service = Fixtures.newService(client);
+        service.setCredentials(new WebCredentials("benchmark", "secret"));
+        service.setUrl(server.getUrl());
+
+        itemIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            itemIds.add(new ItemId("AAMkADk0ZGU3MWJkLWI0MmEtNDBjNS1hNjU2LTBmMGYxNmU3ZjhiYgBGAAAAAAB" + i + "AAA="));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public FindItemsResults<Item> findItems() throws Exception {
+        return service.findItems(WellKnownFolderName.Inbox, new ItemView(100));
+    }
+
+    @Benchmark
+    public ServiceResponseCollection<GetItemResponse> bindToItems() throws Exception {
+        return service.bindToItems(itemIds, PropertySet.FirstClassProperties);
+    }
+
+    @Benchmark
+    public ItemId createItem() throws Exception {
+        EmailMessage message = new EmailMessage(service);
+        message.setSubject("Quarterly report");
+        message.getToRecipients().add("recipient@contoso.com");
+        message.save(WellKnownFolderName.Drafts);
+        return message.getId();
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.benchmarks;
+
+import com.eischet.ews.api.core.ExchangeService;
+import com.eischet.ews.api.core.enumeration.misc.ExchangeVersion;
+import com.eischet.ews.api.http.ExchangeHttpClient;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Canned EWS responses and services for the benchmarks.
+ * <p>
+ * The responses are modelled on what Exchange 2016 returns for a default property set, so the parsers see
+ * realistic element counts and nesting.
+ * </p>
+ */
+public final class Fixtures {
+
+    private static final String TYPES = "http://schemas.microsoft.com/exchange/services/2006/types";
+    private static final String MESSAGES = "http://schemas.microsoft.com/exchange/services/2006/messages";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Creates a service that is never used to send requests.
+     *
+     * @return the service
+     */
+    public static ExchangeService newService() {
+        return newService(null);
+    }
+
+    /**
+     * Creates a service that uses the given HTTP client.
+     *
+     * @param client the HTTP client, may be null if no requests are sent
+     * @return the service
+     */
+    public static ExchangeService newService(ExchangeHttpClient client) {
+        ExchangeService service = new ExchangeService(client, ExchangeVersion.Exchange2010_SP2);
+        service.setTraceEnabled(false);
+        return service;
+    }
+
+    /**
+     * Builds a FindItem response.
+     *
+     * @param itemCount the number of messages in the response
+     * @return the response
+     */
+    public static byte[] findItemResponse(int itemCount) {
+        StringBuilder sb = new StringBuilder(itemCount * 1200 + 1024);
+        sb.append("<m:FindItemResponse xmlns:m=\"").append(MESSAGES).append("\" xmlns:t=\"").append(TYPES)
+                .append("\"><m:ResponseMessages><m:FindItemResponseMessage ResponseClass=\"Success\">")
+                .append("<m:ResponseCode>NoError</m:ResponseCode>")
+                .append("<m:RootFolder IndexedPagingOffset=\"").append(itemCount)
+                .append("\" TotalItemsInView=\"").append(itemCount)
+                .append("\" IncludesLastItemInRange=\"true\"><t:Items>");
+        for (int i = 0; i < itemCount; i++) {
+            appendMessage(sb, i, null);
+        }
+        sb.append("</t:Items></m:RootFolder></m:FindItemResponseMessage></m:ResponseMessages></m:FindItemResponse>");
+        return envelope(sb);
+    }
+
+    /**
+     * Builds a CreateItem response for a single message.
+     *
+     * @return the response
+     */
+    public static byte[] createItemResponse() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("<m:CreateItemResponse xmlns:m=\"").append(MESSAGES).append("\" xmlns:t=\"").append(TYPES)
+                .append("\"><m:ResponseMessages><m:CreateItemResponseMessage ResponseClass=\"Success\">")
+                .append("<m:ResponseCode>NoError</m:ResponseCode><m:Items><t:Message>");
+        appendItemId(sb, 0);
+        sb.append("</t:Message></m:Items></m:CreateItemResponseMessage></m:ResponseMessages></m:CreateItemResponse>");
+        return envelope(sb);
+    }
+
+    /**
+     * Builds a GetItem response with messages that have large HTML bodies.
+     *
+     * @param itemCount the number of messages in the response
+     * @param bodySize  the approximate size of each body in characters
+     * @return the response
+     */
+    public static byte[] getItemResponse(int itemCount, int bodySize) {
+        String body = htmlBody(bodySize);
+        StringBuilder sb = new StringBuilder(itemCount * (bodySize + 2048) + 1024);
+        sb.append("<m:GetItemResponse xmlns:m=\"").append(MESSAGES).append("\" xmlns:t=\"").append(TYPES)
+                .append("\"><m:ResponseMessages>");
+        for (int i = 0; i < itemCount; i++) {
+            sb.append("<m:GetItemResponseMessage ResponseClass=\"Success\">")
+                    .append("<m:ResponseCode>NoError</m:ResponseCode><m:Items>");
+            appendMessage(sb, i, body);
+            sb.append("</m:Items></m:GetItemResponseMessage>");
+        }
+        sb.append("</m:ResponseMessages></m:GetItemResponse>");
+        return envelope(sb);
+    }
+
+    /**
+     * Builds a SyncFolderItems response with a mix of creates, updates, deletes and read flag changes.
+     *
+     * @param changeCount the number of changes in the response
+     * @return the response
+     */
+    public static byte[] syncFolderItemsResponse(int changeCount) {
+        StringBuilder sb = new StringBuilder(changeCount * 1200 + 1024);
+        sb.append("<m:SyncFolderItemsResponse xmlns:m=\"").append(MESSAGES).append("\" xmlns:t=\"").append(TYPES)
+                .append("\"><m:ResponseMessages><m:SyncFolderItemsResponseMessage ResponseClass=\"Success\">")
+                .append("<m:ResponseCode>NoError</m:ResponseCode>")
+                .append("<m:SyncState>H4sIAAAAAAAEAO29B2AcSZYlJi9tynt/SvVK1+B0oQiAYBMk2JBAEOzBiM3mkuwdaUcjKasqgcplVmVdZhZAzO2dvPfee++999577733ZrPR")
+                .append("</m:SyncState><m:IncludesLastItemInRange>true</m:IncludesLastItemInRange><m:Changes>");
+        for (int i = 0; i < changeCount; i++) {
+            switch (i % 4) {
+                case 0:
+                    sb.append("<t:Create>");
+                    appendMessage(sb, i, null);
+                    sb.append("</t:Create>");
+                    break;
+                case 1:
+                    sb.append("<t:Update>");
+                    appendMessage(sb, i, null);
+                    sb.append("</t:Update>");
+                    break;
+                case 2:
+                    sb.append("<t:Delete>");
+                    appendItemId(sb, i);
+                    sb.append("</t:Delete>");
+                    break;
+                default:
+                    sb.append("<t:ReadFlagChange>");
+                    appendItemId(sb, i);
+                    sb.append("<t:IsRead>true</t:IsRead></t:ReadFlagChange>");
+                    break;
+            }
+        }
+        sb.append("</m:Changes></m:SyncFolderItemsResponseMessage></m:ResponseMessages></m:SyncFolderItemsResponse>");
+        return envelope(sb);
+    }
+
+    /**
+     * Builds a single GetStreamingEvents response as it arrives on the hanging connection.
+     *
+     * @param eventCount the number of events in the notification
+     * @return the response
+     */
+    public static byte[] getStreamingEventsResponse(int eventCount) {
+        StringBuilder sb = new StringBuilder(eventCount * 400 + 1024);
+        sb.append("<m:GetStreamingEventsResponse xmlns:m=\"").append(MESSAGES).append("\" xmlns:t=\"").append(TYPES)
+                .append("\"><m:ResponseMessages><m:GetStreamingEventsResponseMessage ResponseClass=\"Success\">")
+                .append("<m:ResponseCode>NoError</m:ResponseCode><m:Notifications><m:Notification>")
+                .append("<t:SubscriptionId>JwBkYjVwcjA2bWIyMzI0Lm5hbXByZDA2LnByb2Qub3V0bG9vay5jb20QAAAA</t:SubscriptionId>");
+        for (int i = 0; i < eventCount; i++) {
+            String element = i % 2 == 0 ? "NewMailEvent" : "ModifiedEvent";
+            sb.append("<t:").append(element).append("><t:TimeStamp>2023-05-12T10:15:")
+                    .append(pad2(i % 60)).append("Z</t:TimeStamp>");
+            appendItemId(sb, i);
+            sb.append("<t:ParentFolderId Id=\"AAMkADk0ZGU3MWJkLWI0MmEtNDBjNS1hNjU2LTBmMGYxNmU3ZjhiYgAuAAAAAAB\"")
+                    .append(" ChangeKey=\"AQAAAA==\"/></t:").append(element).append('>');
+        }
+        sb.append("</m:Notification></m:Notifications></m:GetStreamingEventsResponseMessage>")
+                .append("</m:ResponseMessages></m:GetStreamingEventsResponse>");
+        return envelope(sb);
+    }
+
+    /**
+     * Builds an HTML body of roughly the given size, escaped for XML.
+     *
+     * @param size the size in characters
+     * @return the body
+     */
+    public static String htmlBody(int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append("&lt;html&gt;&lt;head&gt;&lt;meta http-equiv=\"Content-Type\" content=\"text/html; charset=utf-8\"&gt;")
+                .append("&lt;/head&gt;&lt;body&gt;");
+        int paragraph = 0;
+        while (sb.length() < size) {
+            sb.append("&lt;p&gt;Paragraph ").append(paragraph++)
+                    .append(": the quarterly figures are attached, please review the numbers before Friday &amp;amp; ")
+                    .append("let me know if anything is missing.&lt;/p&gt;");
+        }
+        sb.append("&lt;/body&gt;&lt;/html&gt;");
+        return sb.toString();
+    }
+
+    private static void appendItemId(StringBuilder sb, int i) {
+        sb.append("<t:ItemId Id=\"AAMkADk0ZGU3MWJkLWI0MmEtNDBjNS1hNjU2LTBmMGYxNmU3ZjhiYgBGAAAAAAB").append(i)
+                .append("AAA=\" ChangeKey=\"CQAAABYAAAB").append(i).append("\"/>");
+    }
+
+    private static void appendMessage(StringBuilder sb, int i, String body) {
+        String day = pad2(1 + i % 28);
+        sb.append("<t:Message>");
+        appendItemId(sb, i);
+        sb.append("<t:ParentFolderId Id=\"AAMkADk0ZGU3MWJkLWI0MmEtNDBjNS1hNjU2LTBmMGYxNmU3ZjhiYgAuAAAAAAB\"")
+                .append(" ChangeKey=\"AQAAAA==\"/>")
+                .append("<t:ItemClass>IPM.Note</t:ItemClass>")
+                .append("<t:Subject>Quarterly report ").append(i).append("</t:Subject>")
+                .append("<t:Sensitivity>Normal</t:Sensitivity>");
+        if (body != null) {
+            sb.append("<t:Body BodyType=\"HTML\">").append(body).append("</t:Body>");
+        }
+        sb.append("<t:DateTimeReceived>2023-05-").append(day).append("T10:15:30Z</t:DateTimeReceived>")
+                .append("<t:Size>").append(4096 + i).append("</t:Size>")
+                .append("<t:Categories><t:String>Finance</t:String><t:String>Q").append(1 + i % 4)
+                .append("</t:String></t:Categories>")
+                .append("<t:Importance>").append(i % 10 == 0 ? "High" : "Normal").append("</t:Importance>")
+                .append("<t:IsSubmitted>false</t:IsSubmitted><t:IsDraft>false</t:IsDraft>")
+                .append("<t:IsFromMe>false</t:IsFromMe><t:IsResend>false</t:IsResend>")
+                .append("<t:IsUnmodified>true</t:IsUnmodified>")
+                .append("<t:DateTimeSent>2023-05-").append(day).append("T10:15:28Z</t:DateTimeSent>")
+                .append("<t:DateTimeCreated>2023-05-").append(day).append("T10:15:30Z</t:DateTimeCreated>")
+                .append("<t:ReminderIsSet>false</t:ReminderIsSet>")
+                .append("<t:HasAttachments>").append(i % 3 == 0).append("</t:HasAttachments>")
+                .append("<t:Culture>en-US</t:Culture>")
+                .append("<t:ConversationId Id=\"AAQkADk0ZGU3MWJkLWI0MmEtNDBjNS1hNjU2LTBmMGYxNmU3ZjhiYgAQA")
+                .append(i).append("=\"/>")
+                .append("<t:Sender><t:Mailbox><t:Name>Sender ").append(i % 50)
+                .append("</t:Name><t:EmailAddress>sender").append(i % 50)
+                .append("@contoso.com</t:EmailAddress><t:RoutingType>SMTP</t:RoutingType>")
+                .append("<t:MailboxType>Mailbox</t:MailboxType></t:Mailbox></t:Sender>");
+        if (body != null) {
+            sb.append("<t:ToRecipients>");
+            for (int r = 0; r < 5; r++) {
+                sb.append("<t:Mailbox><t:Name>Recipient ").append(r).append("</t:Name><t:EmailAddress>recipient")
+                        .append(r).append("@contoso.com</t:EmailAddress><t:RoutingType>SMTP</t:RoutingType>")
+                        .append("<t:MailboxType>Mailbox</t:MailboxType></t:Mailbox>");
+            }
+            sb.append("</t:ToRecipients>");
+        }
+        sb.append("<t:IsReadReceiptRequested>false</t:IsReadReceiptRequested>")
+                .append("<t:ConversationIndex>AQHZhMpX1Ig2qBh4S0W3</t:ConversationIndex>")
+                .append("<t:ConversationTopic>Quarterly report ").append(i).append("</t:ConversationTopic>")
+                .append("<t:From><t:Mailbox><t:Name>Sender ").append(i % 50)
+                .append("</t:Name><t:EmailAddress>sender").append(i % 50)
+                .append("@contoso.com</t:EmailAddress><t:RoutingType>SMTP</t:RoutingType>")
+                .append("<t:MailboxType>Mailbox</t:MailboxType></t:Mailbox></t:From>")
+                .append("<t:InternetMessageId>&lt;").append(i)
+                .append(".quarterly@mail.contoso.com&gt;</t:InternetMessageId>")
+                .append("<t:IsRead>").append(i % 2 == 0).append("</t:IsRead>")
+                .append("</t:Message>");
+    }
+
+    private static String pad2(int value) {
+        return value < 10 ? "0" + value : Integer.toString(value);
+    }
+
+    private static byte[] envelope(CharSequence body) {
+        StringBuilder sb = new StringBuilder(body.length() + 1024);
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>")
+                .append("<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Header>")
+                .append("<h:ServerVersionInfo MajorVersion=\"15\" MinorVersion=\"1\" MajorBuildNumber=\"2507\"")
+                .append(" MinorBuildNumber=\"6\" Version=\"V2017_07_11\" xmlns:h=\"").append(TYPES)
+                .append("\" xmlns=\"").append(TYPES).append("\"/></s:Header>")
+                .append("<s:Body xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"")
+                .append(" xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\">")
+                .append(body)
+                .append("</s:Body></s:Envelope>");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.benchmarks;
+
+import com.eischet.ews.api.core.enumeration.property.LegacyFreeBusyStatus;
+import com.eischet.ews.api.misc.availability.MergedFreeBusy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding merged free/busy strings and searching for a slot that is free for a whole room list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FreeBusyBenchmark {
+
+    /**
+     * The number of attendees, e.g. rooms.
+     */
+    @Param({"500"})
+    public int attendeeCount;
+
+    /**
+     * The number of slots per attendee; 6 weeks of 30 minute slots by default.
+     */
+    @Param({"2016"})
+    public int slotCount;
+
+    private final Set<LegacyFreeBusyStatus> available = EnumSet.of(LegacyFreeBusyStatus.Free);
+    private String[] mergedFreeBusy;
+    private List<MergedFreeBusy> attendees;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        mergedFreeBusy = new String[attendeeCount];
+        attendees = new ArrayList<>(attendeeCount);
+        for (int a = 0; a < attendeeCount; a++) {
+            StringBuilder sb = new StringBuilder(slotCount);
+            for (int s = 0; s < slotCount; s++) {
+                // mostly free, so there is a common slot somewhere after the start
+                sb.append(s < slotCount / 2 && random.nextInt(attendeeCount) == 0 ? '2' : '0');
+            }
+            mergedFreeBusy[a] = sb.toString();
+            attendees.add(MergedFreeBusy.parse(mergedFreeBusy[a]));
+        }
+    }
+
+    @Benchmark
+    public MergedFreeBusy parse() {
+        return MergedFreeBusy.parse(mergedFreeBusy[0]);
+    }
+
+    @Benchmark
+    public int findFirstCommonSlot() {
+        return MergedFreeBusy.findFirstCommonSlot(attendees, available, 0, 2);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.benchmarks;
+
+import com.eischet.ews.api.core.EwsUtilities;
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
+import com.eischet.ews.api.core.enumeration.notification.EventType;
+import com.eischet.ews.api.core.enumeration.property.Importance;
+import com.eischet.ews.api.util.DateTimeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and formatting of the scalar values that make up most of an EWS response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueParsingBenchmark {
+
+    private final String utcDateTime = "2023-05-12T10:15:30Z";
+    private final String fractionalDateTime = "2023-05-12T10:15:30.1234567Z";
+    private final String date = "2023-05-12Z";
+    private final LocalDateTime dateTime = LocalDateTime.of(2023, 5, 12, 10, 15, 30);
+
+    @Benchmark
+    public LocalDateTime parseUtcDateTime() {
+        return DateTimeUtils.parseDateTime(utcDateTime);
+    }
+
+    @Benchmark
+    public LocalDateTime parseFractionalDateTime() {
+        return DateTimeUtils.parseDateTime(fractionalDateTime);
+    }
+
+    @Benchmark
+    public LocalDate parseDate() {
+        return DateTimeUtils.parseDateOnly(date);
+    }
+
+    @Benchmark
+    public String formatDateTime() {
+        return EwsUtilities.dateTimeToXSDateTime(dateTime);
+    }
+
+    @Benchmark
+    public Importance parseSmallEnum() throws Exception {
+        return EwsUtilities.parse(Importance.class, "High");
+    }
+
+    @Benchmark
+    public EventType parseRenamedEnum() throws Exception {
+        return EwsUtilities.parse(EventType.class, "NewMailEvent");
+    }
+
+    @Benchmark
+    public ServiceError parseLargeEnum() throws Exception {
+        return EwsUtilities.parse(ServiceError.class, "ErrorServerBusy");
+    }
+
+    @Benchmark
+    public String serializeEnum() {
+        return EwsUtilities.serializeEnum(EventType.NewMail);
+    }
+
+    @Benchmark
+    public Boolean parseBoolean() throws Exception {
+        return EwsUtilities.parse(Boolean.class, "true");
+    }
+
+    @Benchmark
+    public Integer parseInteger() throws Exception {
+        return EwsUtilities.parse(Integer.class, "123456");
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.metrics.micrometer;
+
+import com.eischet.ews.api.core.enumeration.misc.error.ServiceError;
+import com.eischet.ews.api.metrics.IRequestMetrics;
+import com.eischet.ews.api.metrics.IRequestMetricsRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes EWS request metrics to a Micrometer {@link MeterRegistry}.
+ * <p>
+ * Meters are tagged with the EWS operation, e.g. "FindItem". The impersonated mailbox is only added as a
+ * tag when requested, because it can create a very large number of time series.
+ * </p>
+ * <ul>
+ * <li>ews.request (timer): total time, tagged with the outcome ("success" or the exception class)</li>
+ * <li>ews.request.serialize, ews.request.response, ews.request.parse (timers): the phases of a request;
+ * ews.request.response is tagged with the HTTP status code</li>
+ * <li>ews.request.size, ews.response.size (distribution summaries): body sizes in bytes</li>
+ * <li>ews.service.errors (counter): errors returned by the server, tagged with the error code</li>
+ * </ul>
+ */
+public class MicrometerRequestMetrics implements IRequestMetrics {
+
+    private final MeterRegistry registry;
+    private final boolean tagMailbox;
+
+    /**
+     * Initializes a new instance that does not tag meters with the mailbox.
+     *
+     * @param registry the registry to publish to
+     */
+    public MicrometerRequestMetrics(MeterRegistry registry) {
+        this(registry, false);
+    }
+
+    /**
+     * Initializes a new instance.
+     *
+     * @param registry   the registry to publish to
+     * @param tagMailbox whether to tag meters with the impersonated mailbox
+     */
+    public MicrometerRequestMetrics(MeterRegistry registry, boolean tagMailbox) {
+        this.registry = registry;
+        this.tagMailbox = tagMailbox;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IRequestMetricsRecorder startRequest(String operation, String mailbox) {
+        Tags tags = Tags.of("operation", operation);
+        if (tagMailbox) {
+            tags = tags.and("mailbox", mailbox == null ? "none" : mailbox);
+        }
+        return new Recorder(tags);
+    }
+
+    private final class Recorder implements IRequestMetricsRecorder {
+
+        private final Tags tags;
+
+        Recorder(Tags tags) {
+            this.tags = tags;
+        }
+
+        @Override
+        public void serialized(long durationNanos, long requestBytes) {
+            Timer.builder("ews.request.serialize").tags(tags).register(registry)
+                    .record(durationNanos, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("ews.request.size").baseUnit("bytes").tags(tags).register(registry)
+                    .record(requestBytes);
+        }
+
+        @Override
+        public void responseReceived(long durationNanos, int httpStatusCode) {
+            Timer.builder("ews.request.response").tags(tags).tag("status", Integer.toString(httpStatusCode))
+                    .register(registry).record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void parsed(long durationNanos, long responseBytes) {
+            Timer.builder("ews.request.parse").tags(tags).register(registry)
+                    .record(durationNanos, TimeUnit.NANOSECONDS);
+            if (responseBytes >= 0) {
+                DistributionSummary.builder("ews.response.size").baseUnit("bytes").tags(tags).register(registry)
+                        .record(responseBytes);
+            }
+        }
+
+        @Override
+        public void serviceError(ServiceError error) {
+            Counter.builder("ews.service.errors").tags(tags).tag("error", error.name()).register(registry)
+                    .increment();
+        }
+
+        @Override
+        public void completed(long durationNanos, Throwable failure) {
+            String outcome = failure == null ? "success" : failure.getClass().getSimpleName();
+            Timer.builder("ews.request").tags(tags).tag("outcome", outcome).register(registry)
+                    .record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,362 @@
+/*
+ * The MIT License
+ * Copyright (c) 2012 Microsoft Corporation
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.eischet.ews.api.attribute.processing;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor that runs while the ews-api module is compiled
+ * and emits the static registries the runtime otherwise had to build by
+ * reflection on first use: schema property definitions, enum/schema name
+ * and enum/server version maps, and the XML element name and factories of
+ * every service object.
+ * <p>
+ * The processor lives in its own build-only module and only depends on the
+ * JDK; all library types are referenced by name.
+ * <p>
+ * The registries are built from the types compiled in the same run, so they
+ * are only complete if the whole module is compiled at once. Maven does that
+ * whenever any source changed; a partial compilation, as done by some IDE
+ * builders, fails instead of silently dropping the types it didn't compile.
+ */
+@SupportedAnnotationTypes("*")
+public class RegistryProcessor extends AbstractProcessor {
+
+    private static final String PACKAGE = "com.eischet.ews.api";
+    private static final String SCHEMA_PACKAGE = PACKAGE + ".core.service.schema";
+    private static final String SERVICE_PACKAGE = PACKAGE + ".core.service";
+    private static final String CORE_PACKAGE = PACKAGE + ".core";
+
+    private static final String SERVICE_OBJECT_SCHEMA = SCHEMA_PACKAGE + ".ServiceObjectSchema";
+    private static final String PROPERTY_DEFINITION = PACKAGE + ".property.definition.PropertyDefinition";
+    private static final String EXCHANGE_SERVICE = CORE_PACKAGE + ".ExchangeService";
+    private static final String ITEM_ATTACHMENT = PACKAGE + ".property.complex.ItemAttachment";
+    private static final String EWS_ENUM = PACKAGE + ".attribute.EwsEnum";
+    private static final String REQUIRED_SERVER_VERSION = PACKAGE + ".attribute.RequiredServerVersion";
+    private static final String SERVICE_OBJECT_DEFINITION = PACKAGE + ".attribute.ServiceObjectDefinition";
+
+    private static final String SCHEMA_REGISTRY = "GeneratedSchemaRegistry";
+    private static final String ENUM_REGISTRY = "GeneratedEnumRegistry";
+    private static final String SERVICE_OBJECT_REGISTRY = "GeneratedServiceObjectRegistry";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (this.generated || roundEnv.processingOver()) {
+            return false;
+        }
+        final Elements elements = this.processingEnv.getElementUtils();
+        final TypeElement schemaType = elements.getTypeElement(SERVICE_OBJECT_SCHEMA);
+        final TypeElement propertyDefinitionType = elements.getTypeElement(PROPERTY_DEFINITION);
+        if (schemaType == null || propertyDefinitionType == null) {
+            return false;
+        }
+        this.generated = true;
+
+        final List<TypeElement> types = new ArrayList<>();
+        for (Element element : roundEnv.getRootElements()) {
+            collectTypes(element, types);
+        }
+        if (!types.contains(schemaType)) {
+            // ServiceObjectSchema was compiled earlier, so this is a partial compilation.
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "The generated registries need a full compilation of the module, "
+                            + "but only some of its sources are being compiled. Rebuild the module.");
+            return false;
+        }
+        types.sort(Comparator.comparing(t -> t.getQualifiedName().toString()));
+
+        try {
+            writeSchemaRegistry(types, schemaType, propertyDefinitionType);
+            writeEnumRegistry(types);
+            writeServiceObjectRegistry(types);
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write generated registry: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private static void collectTypes(Element element, List<TypeElement> types) {
+        if (element.getKind().isClass() || element.getKind().isInterface()) {
+            types.add((TypeElement) element);
+            for (TypeElement nested : ElementFilter.typesIn(element.getEnclosedElements())) {
+                collectTypes(nested, types);
+            }
+        }
+    }
+
+    private void writeSchemaRegistry(List<TypeElement> types, TypeElement schemaType,
+                                     TypeElement propertyDefinitionType) throws IOException {
+        final Types typeUtils = this.processingEnv.getTypeUtils();
+        final TypeMirror schema = typeUtils.erasure(schemaType.asType());
+        final TypeMirror propertyDefinition = typeUtils.erasure(propertyDefinitionType.asType());
+
+        final List<TypeElement> schemas = new ArrayList<>();
+        final StringBuilder fields = new StringBuilder();
+        for (TypeElement type : types) {
+            if (type.getKind() != ElementKind.CLASS
+                    || !typeUtils.isSubtype(typeUtils.erasure(type.asType()), schema)) {
+                continue;
+            }
+            schemas.add(type);
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.PUBLIC)
+                        && field.getModifiers().contains(Modifier.STATIC)
+                        && typeUtils.isAssignable(typeUtils.erasure(field.asType()), propertyDefinition)) {
+                    fields.append("        visitor.visit(\"").append(field.getSimpleName()).append("\", ")
+                            .append(type.getQualifiedName()).append('.').append(field.getSimpleName())
+                            .append(");\n");
+                }
+            }
+        }
+
+        final StringBuilder source = header(SCHEMA_PACKAGE);
+        source.append("/**\n")
+                .append(" * Schema types and their public property definitions, generated from the\n")
+                .append(" * ServiceObjectSchema subclasses of this module.\n")
+                .append(" */\n")
+                .append("final class ").append(SCHEMA_REGISTRY).append(" {\n\n")
+                .append("    /**\n     * All schema types.\n     */\n")
+                .append("    static final java.util.List<Class<? extends ServiceObjectSchema>> SCHEMA_TYPES =\n")
+                .append("            java.util.Collections.unmodifiableList(java.util.Arrays.asList(\n");
+        for (int i = 0; i < schemas.size(); i++) {
+            source.append("                    ").append(schemas.get(i).getQualifiedName()).append(".class")
+                    .append(i < schemas.size() - 1 ? ",\n" : "));\n\n");
+        }
+        source.append("    private ").append(SCHEMA_REGISTRY).append("() {\n    }\n\n")
+                .append("    /**\n     * Passes every public static property definition of every schema type,\n")
+                .append("     * along with its field name, to the visitor.\n     */\n")
+                .append("    static void visitSchemaProperties(ISchemaPropertyVisitor visitor) {\n")
+                .append(fields)
+                .append("    }\n}\n");
+        write(SCHEMA_PACKAGE + "." + SCHEMA_REGISTRY, source, schemas);
+    }
+
+    private void writeEnumRegistry(List<TypeElement> types) throws IOException {
+        final Map<TypeElement, Map<String, String>> versions = new LinkedHashMap<>();
+        final Map<TypeElement, Map<String, String>> schemaNames = new LinkedHashMap<>();
+        for (TypeElement type : types) {
+            if (type.getKind() != ElementKind.ENUM) {
+                continue;
+            }
+            for (Element constant : type.getEnclosedElements()) {
+                if (constant.getKind() != ElementKind.ENUM_CONSTANT) {
+                    continue;
+                }
+                final String name = constant.getSimpleName().toString();
+                final AnnotationValue version = annotationValue(constant, REQUIRED_SERVER_VERSION, "version");
+                if (version != null) {
+                    final VariableElement versionConstant = (VariableElement) version.getValue();
+                    versions.computeIfAbsent(type, t -> new LinkedHashMap<>()).put(name,
+                            ((TypeElement) versionConstant.getEnclosingElement()).getQualifiedName()
+                                    + "." + versionConstant.getSimpleName());
+                }
+                final AnnotationValue schemaName = annotationValue(constant, EWS_ENUM, "schemaName");
+                if (schemaName != null && !schemaName.getValue().toString().isEmpty()) {
+                    schemaNames.computeIfAbsent(type, t -> new LinkedHashMap<>()).put(name,
+                            this.processingEnv.getElementUtils().getConstantExpression(schemaName.getValue()));
+                }
+            }
+        }
+
+        final StringBuilder source = header(CORE_PACKAGE);
+        source.append("/**\n")
+                .append(" * Enum version and schema name dictionaries, generated from the EwsEnum and\n")
+                .append(" * RequiredServerVersion annotations on enum constants of this module.\n")
+                .append(" */\n")
+                .append("final class ").append(ENUM_REGISTRY).append(" {\n\n")
+                .append("    private ").append(ENUM_REGISTRY).append("() {\n    }\n\n");
+        appendEnumDictionaries(source, "createEnumVersionDictionaries",
+                "Creates the enum type to enum-value-to-required-version maps.",
+                CORE_PACKAGE + ".enumeration.misc.ExchangeVersion", versions, false);
+        source.append('\n');
+        appendEnumDictionaries(source, "createSchemaToEnumDictionaries",
+                "Creates the enum type to schema-name-to-enum-value maps.",
+                "String", schemaNames, true);
+        source.append('\n');
+        appendEnumDictionaries(source, "createEnumToSchemaDictionaries",
+                "Creates the enum type to enum-value-to-schema-name maps.",
+                "String", schemaNames, false);
+        source.append("}\n");
+
+        final List<TypeElement> origins = new ArrayList<>(versions.keySet());
+        origins.addAll(schemaNames.keySet());
+        write(CORE_PACKAGE + "." + ENUM_REGISTRY, source, origins);
+    }
+
+    private static void appendEnumDictionaries(StringBuilder source, String method, String doc, String valueType,
+                                               Map<TypeElement, Map<String, String>> dictionaries,
+                                               boolean inverse) {
+        final String dictType = "java.util.Map<String, " + valueType + ">";
+        source.append("    /**\n     * ").append(doc).append("\n     */\n")
+                .append("    static java.util.Map<Class<?>, ").append(dictType).append("> ").append(method).append("() {\n")
+                .append("        final java.util.Map<Class<?>, ").append(dictType)
+                .append("> dictionaries = new java.util.HashMap<>();\n");
+        for (Map.Entry<TypeElement, Map<String, String>> dictionary : dictionaries.entrySet()) {
+            source.append("        {\n")
+                    .append("            final ").append(dictType).append(" dict = new java.util.HashMap<>();\n");
+            for (Map.Entry<String, String> entry : dictionary.getValue().entrySet()) {
+                final String constant = "\"" + entry.getKey() + "\"";
+                source.append("            dict.put(")
+                        .append(inverse ? entry.getValue() : constant).append(", ")
+                        .append(inverse ? constant : entry.getValue()).append(");\n");
+            }
+            source.append("            dictionaries.put(").append(dictionary.getKey().getQualifiedName())
+                    .append(".class, dict);\n")
+                    .append("        }\n");
+        }
+        source.append("        return dictionaries;\n    }\n");
+    }
+
+    private void writeServiceObjectRegistry(List<TypeElement> types) throws IOException {
+        final Elements elements = this.processingEnv.getElementUtils();
+        final List<TypeElement> origins = new ArrayList<>();
+        final StringBuilder names = new StringBuilder();
+        final StringBuilder factories = new StringBuilder();
+        for (TypeElement type : types) {
+            final AnnotationValue xmlElementName = annotationValue(type, SERVICE_OBJECT_DEFINITION, "xmlElementName");
+            if (xmlElementName == null) {
+                continue;
+            }
+            origins.add(type);
+            final String className = type.getQualifiedName().toString();
+            final String elementName = elements.getConstantExpression(xmlElementName.getValue());
+            names.append("        names.put(").append(className).append(".class, ").append(elementName).append(");\n");
+
+            final AnnotationValue returnedByServer = annotationValue(type, SERVICE_OBJECT_DEFINITION, "returnedByServer");
+            if ((returnedByServer != null && !((Boolean) returnedByServer.getValue()))
+                    || type.getModifiers().contains(Modifier.ABSTRACT)
+                    || !hasPublicConstructor(type, EXCHANGE_SERVICE)) {
+                continue;
+            }
+            factories.append("        serviceObjectInfo.addServiceObjectType(").append(elementName).append(", ")
+                    .append(className).append(".class, ").append(className).append("::new, ");
+            if (hasPublicConstructor(type, ITEM_ATTACHMENT, "boolean")) {
+                factories.append("(itemAttachment, isNew) -> new ").append(className).append("(itemAttachment, isNew)");
+            } else if (hasPublicConstructor(type, ITEM_ATTACHMENT)) {
+                factories.append("(itemAttachment, isNew) -> new ").append(className).append("(itemAttachment)");
+            } else {
+                factories.append("null");
+            }
+            factories.append(");\n");
+        }
+
+        final StringBuilder source = header(SERVICE_PACKAGE);
+        source.append("/**\n")
+                .append(" * XML element names and factories of the service objects of this module,\n")
+                .append(" * generated from their ServiceObjectDefinition annotations.\n")
+                .append(" */\n")
+                .append("final class ").append(SERVICE_OBJECT_REGISTRY).append(" {\n\n")
+                .append("    /**\n     * The XML element name of every service object type.\n     */\n")
+                .append("    static final java.util.Map<Class<?>, String> XML_ELEMENT_NAMES;\n\n")
+                .append("    static {\n")
+                .append("        final java.util.Map<Class<?>, String> names = new java.util.HashMap<>();\n")
+                .append(names)
+                .append("        XML_ELEMENT_NAMES = java.util.Collections.unmodifiableMap(names);\n")
+                .append("    }\n\n")
+                .append("    private ").append(SERVICE_OBJECT_REGISTRY).append("() {\n    }\n\n")
+                .append("    /**\n     * Registers every service object type that can be returned by the server.\n     */\n")
+                .append("    static void registerServiceObjectTypes(ServiceObjectInfo serviceObjectInfo) {\n")
+                .append(factories)
+                .append("    }\n}\n");
+        write(SERVICE_PACKAGE + "." + SERVICE_OBJECT_REGISTRY, source, origins);
+    }
+
+    private static boolean hasPublicConstructor(TypeElement type, String... parameterTypes) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PUBLIC)
+                    || constructor.getParameters().size() != parameterTypes.length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameterTypes.length && matches; i++) {
+                matches = parameterTypes[i].equals(constructor.getParameters().get(i).asType().toString());
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static AnnotationValue annotationValue(Element element, String annotationType, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(annotationType)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals(name)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static StringBuilder header(String packageName) {
+        return new StringBuilder()
+                .append("// Generated by ").append(RegistryProcessor.class.getName()).append(". Do not edit.\n")
+                .append("package ").append(packageName).append(";\n\n");
+    }
+
+    private void write(String className, StringBuilder source, List<TypeElement> origins) throws IOException {
+        try (Writer writer = this.processingEnv.getFiler()
+                .createSourceFile(className, origins.toArray(new Element[0])).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+}